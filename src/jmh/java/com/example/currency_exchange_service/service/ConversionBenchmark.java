@@ -0,0 +1,168 @@
+package com.example.currency_exchange_service.service;
+
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.cache.ExchangeRateCache;
+import com.example.currency_exchange_service.dto.CurrencyExchangeRequest;
+import com.example.currency_exchange_service.dto.CurrencyExchangeResponse;
+import com.example.currency_exchange_service.metrics.ConversionMetrics;
+import com.example.currency_exchange_service.model.Currency;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.rate.CrossRateEngine;
+import com.example.currency_exchange_service.rate.RateHistory;
+import com.example.currency_exchange_service.rate.RateMatrix;
+import com.example.currency_exchange_service.rate.RateStalenessPolicy;
+import com.example.currency_exchange_service.repository.ConversionHistoryRepository;
+import com.example.currency_exchange_service.repository.CurrencyRepository;
+import com.example.currency_exchange_service.repository.ExchangeRateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la conversión de monedas contra repositorios simulados.
+ * <ul>
+ *     <li>{@code convertCurrencyCacheHit}: par ausente de la matriz con la tasa en caché.</li>
+ *     <li>{@code convertCurrencyCacheMiss}: se vacía la caché antes de cada conversión
+ *     (incluye el costo de {@code invalidateAll}).</li>
+ *     <li>{@code convertCurrencyMatrixHit}: par servido desde la matriz de tasas en memoria.</li>
+ *     <li>{@code convertCurrencyAsOf}: tasa vigente en un instante pasado, buscada en un historial de
+ *     {@value #RATE_VERSIONS} versiones del par.</li>
+ *     <li>{@code calculateConversion}: solo el cálculo del monto convertido.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    private static final int RATE_VERSIONS = 10_000;
+
+    @Param({"FIXED_POINT", "BIG_DECIMAL"})
+    private CurrencyExchangeServiceImpl.Arithmetic arithmetic;
+
+    private ExchangeRateCache exchangeRateCache;
+    private CurrencyExchangeServiceImpl cacheService;
+    private CurrencyExchangeServiceImpl matrixService;
+    private CurrencyExchangeRequest request;
+    private CurrencyExchangeRequest asOfRequest;
+    private CurrencyExchangeServiceImpl.RateQuote quote;
+
+    @Setup
+    public void setUp() {
+        Currency usd = Currency.builder().id(1L).code("USD").name("Dólar Estadounidense").build();
+        Currency eur = Currency.builder().id(2L).code("EUR").name("Euro").build();
+        ExchangeRate usdToEur = ExchangeRate.builder()
+                .id(1L)
+                .sourceCurrencyCode("USD")
+                .targetCurrencyCode("EUR")
+                .rate(new BigDecimal("0.930000"))
+                .buyRate(new BigDecimal("0.920000"))
+                .sellRate(new BigDecimal("0.940000"))
+                .lastUpdated(LocalDateTime.now())
+                .build();
+
+        CurrencyRepository currencyRepository = RepositoryStubs.stub(CurrencyRepository.class, Map.of(
+                "findByCode", args -> Mono.just("USD".equals(args[0]) ? usd : eur),
+                "findAll", args -> Flux.just(usd, eur)));
+        ExchangeRateRepository exchangeRateRepository = RepositoryStubs.stub(ExchangeRateRepository.class, Map.of(
+                "findBySourceCurrencyCodeAndTargetCurrencyCode", args -> Mono.just(usdToEur),
+                "findAll", args -> Flux.just(usdToEur)));
+        ConversionHistoryRepository conversionHistoryRepository =
+                RepositoryStubs.stub(ConversionHistoryRepository.class, Map.of());
+
+        CurrencyRegistry currencyRegistry = new CurrencyRegistry(currencyRepository, event -> { }, Duration.ofMinutes(1));
+        currencyRegistry.update(List.of("USD", "EUR"));
+        ConversionMetrics conversionMetrics = new ConversionMetrics(new SimpleMeterRegistry(), currencyRegistry, 50);
+        exchangeRateCache = new ExchangeRateCache(currencyRepository, currencyRegistry, exchangeRateRepository,
+                conversionMetrics, 10_000, Duration.ofMinutes(5), Duration.ofMinutes(4), Duration.ofSeconds(5), Duration.ofMillis(100), Duration.ofHours(1));
+        CrossRateEngine crossRateEngine = new CrossRateEngine("USD");
+
+        cacheService = new CurrencyExchangeServiceImpl(
+                new RateMatrix(currencyRegistry, exchangeRateRepository, crossRateEngine),
+                RepositoryStubs.emptyRateHistory(), new RateStalenessPolicy(Duration.ZERO, ""), exchangeRateCache, conversionHistoryRepository, RepositoryStubs.discardingWriter(),
+                RepositoryStubs.emptyArchive(), conversionMetrics, Duration.ofSeconds(5), arithmetic);
+
+        RateMatrix rateMatrix = new RateMatrix(currencyRegistry, exchangeRateRepository, crossRateEngine);
+        rateMatrix.apply(List.of(usdToEur));
+        // Una versión por minuto del par
+        LocalDateTime firstVersion = LocalDateTime.of(2024, 1, 1, 0, 0);
+        RateHistory rateHistory = new RateHistory(null, crossRateEngine);
+        List<ExchangeRate> versions = new ArrayList<>();
+        for (int i = 0; i < RATE_VERSIONS; i++) {
+            versions.add(ExchangeRate.builder()
+                    .sourceCurrencyCode("USD")
+                    .targetCurrencyCode("EUR")
+                    .rate(BigDecimal.valueOf(900_000 + i % 1000, 6))
+                    .lastUpdated(firstVersion.plusMinutes(i))
+                    .build());
+        }
+        rateHistory.record(versions);
+        matrixService = new CurrencyExchangeServiceImpl(rateMatrix, rateHistory, new RateStalenessPolicy(Duration.ZERO, ""), exchangeRateCache, conversionHistoryRepository,
+                RepositoryStubs.discardingWriter(), RepositoryStubs.emptyArchive(), conversionMetrics,
+                Duration.ofSeconds(5), arithmetic);
+
+        request = CurrencyExchangeRequest.builder()
+                .amount(new BigDecimal("1234.56"))
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .build();
+        asOfRequest = CurrencyExchangeRequest.builder()
+                .amount(request.getAmount())
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .asOf(firstVersion.plusMinutes(RATE_VERSIONS / 3).plusSeconds(30))
+                .build();
+        quote = new CurrencyExchangeServiceImpl.RateQuote(new BigDecimal("0.930000"), 930_000L, 1L, 0L, false);
+
+        // Calienta la caché para el caso de acierto
+        cacheService.convertCurrency(request).block();
+    }
+
+    @Benchmark
+    public CurrencyExchangeResponse convertCurrencyCacheHit() {
+        return cacheService.convertCurrency(request).block();
+    }
+
+    @Benchmark
+    public CurrencyExchangeResponse convertCurrencyCacheMiss() {
+        exchangeRateCache.invalidateAll();
+        return cacheService.convertCurrency(request).block();
+    }
+
+    @Benchmark
+    public CurrencyExchangeResponse convertCurrencyMatrixHit() {
+        return matrixService.convertCurrency(request).block();
+    }
+
+    @Benchmark
+    public CurrencyExchangeResponse convertCurrencyAsOf() {
+        return matrixService.convertCurrency(asOfRequest).block();
+    }
+
+    @Benchmark
+    public CurrencyExchangeResponse calculateConversion() {
+        return matrixService.calculateConversion(request.getAmount(), quote, request);
+    }
+}
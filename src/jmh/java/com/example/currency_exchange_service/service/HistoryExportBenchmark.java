@@ -0,0 +1,143 @@
+package com.example.currency_exchange_service.service;
+
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.cache.ExchangeRateCache;
+import com.example.currency_exchange_service.dto.ConversionHistoryResponse;
+import com.example.currency_exchange_service.export.HistoryExportFormat;
+import com.example.currency_exchange_service.export.HistoryExporter;
+import com.example.currency_exchange_service.metrics.ConversionMetrics;
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.rate.CrossRateEngine;
+import com.example.currency_exchange_service.rate.RateMatrix;
+import com.example.currency_exchange_service.rate.RateStalenessPolicy;
+import com.example.currency_exchange_service.repository.ConversionHistoryRepository;
+import com.example.currency_exchange_service.repository.CurrencyRepository;
+import com.example.currency_exchange_service.repository.ExchangeRateRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la exportación del historial con {@code historySize} registros en un repositorio simulado:
+ * la ruta JSON actual ({@code getConversionHistory}, DTOs y un arreglo JSON) frente a {@link HistoryExporter}
+ * escribiendo CSV o binario en buffers Netty del pool, con y sin GZIP. Cada operación devuelve el número de
+ * bytes producidos; para medir la asignación en el heap se ejecuta con {@code -prof gc}
+ * ({@code gc.alloc.rate.norm} es la asignación por exportación).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryExportBenchmark {
+
+    private static final String[] CODES = {"USD", "EUR", "PEN", "MXN", "GBP", "JPY"};
+
+    @Param({"10000", "100000"})
+    private int historySize;
+
+    private CurrencyExchangeServiceImpl service;
+    private HistoryExporter historyExporter;
+    private ObjectMapper objectMapper;
+    private final DataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        Random random = new Random(42L);
+        List<ConversionHistory> history = new ArrayList<>(historySize);
+        for (long i = 0; i < historySize; i++) {
+            history.add(ConversionHistory.builder()
+                    .id(historySize - i)
+                    .sourceCurrencyCode(CODES[random.nextInt(CODES.length)])
+                    .targetCurrencyCode(CODES[random.nextInt(CODES.length)])
+                    .originalAmount(new BigDecimal(random.nextInt(1_000_000)).movePointLeft(2).setScale(6))
+                    .convertedAmount(new BigDecimal(random.nextInt(1_000_000)).movePointLeft(2).setScale(6))
+                    .exchangeRate(new BigDecimal("0.930000"))
+                    .conversionDate(now.minusSeconds(i))
+                    .ipAddress("10.0.0." + random.nextInt(256))
+                    .userId("user" + random.nextInt(100))
+                    .build());
+        }
+
+        ConversionHistoryRepository conversionHistoryRepository = RepositoryStubs.stub(ConversionHistoryRepository.class,
+                Map.of("findByFilters", args -> Flux.fromIterable(history)));
+        CurrencyRepository currencyRepository = RepositoryStubs.stub(CurrencyRepository.class, Map.of());
+        ExchangeRateRepository exchangeRateRepository = RepositoryStubs.stub(ExchangeRateRepository.class, Map.of());
+        CurrencyRegistry currencyRegistry = new CurrencyRegistry(currencyRepository, event -> { }, Duration.ofMinutes(1));
+        ConversionMetrics conversionMetrics = new ConversionMetrics(new SimpleMeterRegistry(), currencyRegistry, 50);
+
+        service = new CurrencyExchangeServiceImpl(
+                new RateMatrix(currencyRegistry, exchangeRateRepository, new CrossRateEngine("USD")),
+                RepositoryStubs.emptyRateHistory(),
+                new RateStalenessPolicy(Duration.ZERO, ""),
+                new ExchangeRateCache(currencyRepository, currencyRegistry, exchangeRateRepository, conversionMetrics,
+                        100, Duration.ofMinutes(5), Duration.ofMinutes(4), Duration.ofSeconds(5), Duration.ofMillis(100), Duration.ofHours(1)),
+                conversionHistoryRepository, RepositoryStubs.discardingWriter(), RepositoryStubs.emptyArchive(),
+                conversionMetrics, Duration.ofSeconds(30), CurrencyExchangeServiceImpl.Arithmetic.FIXED_POINT);
+        historyExporter = new HistoryExporter(conversionHistoryRepository, RepositoryStubs.emptyArchive(), 512);
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+    }
+
+    @Benchmark
+    public long json() throws Exception {
+        List<ConversionHistoryResponse> rows = service.getConversionHistory(null, null, null, null).collectList().block();
+        return objectMapper.writeValueAsBytes(rows).length;
+    }
+
+    @Benchmark
+    public long csv() {
+        return export(HistoryExportFormat.CSV, false);
+    }
+
+    @Benchmark
+    public long binary() {
+        return export(HistoryExportFormat.BINARY, false);
+    }
+
+    @Benchmark
+    public long csvGzip() {
+        return export(HistoryExportFormat.CSV, true);
+    }
+
+    /**
+     * Consume la exportación como lo haría la respuesta HTTP: cuenta los bytes y libera cada buffer.
+     */
+    private long export(HistoryExportFormat format, boolean gzip) {
+        return historyExporter.export(null, null, null, null, format, gzip, bufferFactory)
+                .map(buffer -> {
+                    int bytes = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return (long) bytes;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+}
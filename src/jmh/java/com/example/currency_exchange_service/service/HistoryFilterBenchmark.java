@@ -0,0 +1,115 @@
+package com.example.currency_exchange_service.service;
+
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.cache.ExchangeRateCache;
+import com.example.currency_exchange_service.dto.ConversionHistoryResponse;
+import com.example.currency_exchange_service.metrics.ConversionMetrics;
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.rate.CrossRateEngine;
+import com.example.currency_exchange_service.rate.RateMatrix;
+import com.example.currency_exchange_service.rate.RateStalenessPolicy;
+import com.example.currency_exchange_service.repository.ConversionHistoryRepository;
+import com.example.currency_exchange_service.repository.CurrencyRepository;
+import com.example.currency_exchange_service.repository.ExchangeRateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de {@code getConversionHistory} sobre un repositorio simulado con {@code historySize}
+ * registros en memoria. Los filtros se aplican en SQL, por lo que aquí se mide el costo del servicio
+ * (coalescencia, mapeo a DTO) más un filtrado en memoria equivalente en el repositorio simulado.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryFilterBenchmark {
+
+    private static final String[] CODES = {"USD", "EUR", "PEN", "MXN", "GBP", "JPY"};
+
+    @Param({"1000", "100000"})
+    private int historySize;
+
+    private CurrencyExchangeServiceImpl service;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        Random random = new Random(42L);
+        List<ConversionHistory> history = new ArrayList<>(historySize);
+        for (long i = 0; i < historySize; i++) {
+            history.add(ConversionHistory.builder()
+                    .id(i)
+                    .sourceCurrencyCode(CODES[random.nextInt(CODES.length)])
+                    .targetCurrencyCode(CODES[random.nextInt(CODES.length)])
+                    .originalAmount(new BigDecimal("100.00"))
+                    .convertedAmount(new BigDecimal("93.00"))
+                    .exchangeRate(new BigDecimal("0.930000"))
+                    .conversionDate(now.minusMinutes(random.nextInt(60 * 24 * 30)))
+                    .build());
+        }
+        startDate = now.minusDays(7);
+        endDate = now.minusDays(1);
+
+        // El repositorio simulado filtra en memoria como lo haría la consulta SQL
+        ConversionHistoryRepository conversionHistoryRepository = RepositoryStubs.stub(ConversionHistoryRepository.class, Map.of(
+                "findByFilters", args -> Flux.fromIterable(history)
+                        .filter(h -> args[0] == null || h.getSourceCurrencyCode().equals(args[0]))
+                        .filter(h -> args[1] == null || h.getTargetCurrencyCode().equals(args[1]))
+                        .filter(h -> args[2] == null || !h.getConversionDate().isBefore((LocalDateTime) args[2]))
+                        .filter(h -> args[3] == null || !h.getConversionDate().isAfter((LocalDateTime) args[3]))));
+        CurrencyRepository currencyRepository = RepositoryStubs.stub(CurrencyRepository.class, Map.of());
+        ExchangeRateRepository exchangeRateRepository = RepositoryStubs.stub(ExchangeRateRepository.class, Map.of());
+        CurrencyRegistry currencyRegistry = new CurrencyRegistry(currencyRepository, event -> { }, Duration.ofMinutes(1));
+
+        ConversionMetrics conversionMetrics = new ConversionMetrics(new SimpleMeterRegistry(), currencyRegistry, 50);
+        service = new CurrencyExchangeServiceImpl(
+                new RateMatrix(currencyRegistry, exchangeRateRepository, new CrossRateEngine("USD")),
+                RepositoryStubs.emptyRateHistory(),
+                new RateStalenessPolicy(Duration.ZERO, ""),
+                new ExchangeRateCache(currencyRepository, currencyRegistry, exchangeRateRepository, conversionMetrics,
+                        100, Duration.ofMinutes(5), Duration.ofMinutes(4), Duration.ofSeconds(5), Duration.ofMillis(100), Duration.ofHours(1)),
+                conversionHistoryRepository, RepositoryStubs.discardingWriter(), RepositoryStubs.emptyArchive(),
+                conversionMetrics, Duration.ofSeconds(30),
+                CurrencyExchangeServiceImpl.Arithmetic.FIXED_POINT);
+    }
+
+    @Benchmark
+    public List<ConversionHistoryResponse> pairAndDateRange() {
+        return service.getConversionHistory("USD", "EUR", startDate, endDate).collectList().block();
+    }
+
+    @Benchmark
+    public List<ConversionHistoryResponse> sourceOnly() {
+        return service.getConversionHistory("USD", null, null, null).collectList().block();
+    }
+
+    @Benchmark
+    public List<ConversionHistoryResponse> dateRangeOnly() {
+        return service.getConversionHistory(null, null, startDate, endDate).collectList().block();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.currency_exchange_service.service;
+
+import com.example.currency_exchange_service.history.ConversionHistoryWriter;
+import com.example.currency_exchange_service.history.HistoryArchive;
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.rate.CrossRateEngine;
+import com.example.currency_exchange_service.rate.RateHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Repositorios simulados para los benchmarks. Se implementan con proxies dinámicos en lugar de
+ * Mockito para que el costo del simulacro no domine la medición.
+ */
+final class RepositoryStubs {
+
+    private RepositoryStubs() {
+    }
+
+    /**
+     * Crea un repositorio cuyos métodos responden según las funciones indicadas por nombre de método.
+     * Los métodos no indicados lanzan {@link UnsupportedOperationException}.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> repositoryType, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> {
+                    Function<Object[], Object> answer = methods.get(method.getName());
+                    if (answer == null) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return answer.apply(args);
+                });
+    }
+
+    /**
+     * Escritor de historial que descarta los registros, para medir solo la conversión.
+     */
+    static ConversionHistoryWriter discardingWriter() {
+        return new ConversionHistoryWriter(null, null, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(1),
+                ConversionHistoryWriter.OverflowPolicy.DROP, Duration.ZERO, null, 0, Duration.ZERO, List.of()) {
+            @Override
+            public Mono<Void> enqueue(ConversionHistory history) {
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<Void> enqueueAll(List<ConversionHistory> histories) {
+                return Mono.empty();
+            }
+        };
+    }
+
+    /**
+     * Archivo del historial sin segmentos, para medir solo las consultas de la tabla.
+     */
+    static HistoryArchive emptyArchive() {
+        return new HistoryArchive(null, false, Duration.ofDays(90), Duration.ofHours(1), Path.of("target/jmh-archive"),
+                1, 1);
+    }
+
+    /**
+     * Historial de tasas sin versiones, para los benchmarks que no consultan tasas pasadas.
+     */
+    static RateHistory emptyRateHistory() {
+        return new RateHistory(null, new CrossRateEngine("USD"));
+    }
+}
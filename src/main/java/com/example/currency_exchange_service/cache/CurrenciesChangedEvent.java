@@ -0,0 +1,9 @@
+package com.example.currency_exchange_service.cache;
+
+/**
+ * Evento publicado cuando el registro de monedas cambia (altas o bajas de monedas).
+ *
+ * @param currencies Índice de monedas vigente
+ */
+public record CurrenciesChangedEvent(CurrencyIndex currencies) {
+}
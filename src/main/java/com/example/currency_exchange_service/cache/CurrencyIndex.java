@@ -0,0 +1,155 @@
+package com.example.currency_exchange_service.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Índice inmutable de códigos ISO de moneda a identificadores enteros compactos (0..N-1).
+ * Un código de tres letras mayúsculas se empaqueta en un entero menor que 26³ que indexa
+ * directamente una tabla, por lo que la búsqueda es O(1) y no reserva memoria.
+ * Los identificadores son estables: al añadir monedas se asignan identificadores nuevos
+ * al final, al retirarlas su identificador no se asigna a otro código (si la moneda vuelve, recupera
+ * el suyo) y los existentes no cambian.
+ */
+public final class CurrencyIndex {
+
+    private static final int LETTERS = 26;
+    private static final int TABLE_SIZE = LETTERS * LETTERS * LETTERS;
+    private static final CurrencyIndex EMPTY = new CurrencyIndex(new int[TABLE_SIZE], new String[0]);
+
+    // Identificador + 1 de cada código empaquetado; 0 indica código nunca indexado y un valor negativo,
+    // -(identificador + 1), código retirado
+    private final int[] table;
+    private final String[] codes;
+
+    private CurrencyIndex(int[] table, String[] codes) {
+        this.table = table;
+        this.codes = codes;
+    }
+
+    /**
+     * Índice sin monedas.
+     */
+    public static CurrencyIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Crea un índice con los códigos indicados, en orden.
+     */
+    public static CurrencyIndex of(Collection<String> codes) {
+        return EMPTY.withCodes(codes);
+    }
+
+    /**
+     * Crea un índice que conserva los identificadores actuales y asigna identificadores nuevos
+     * a los códigos que aún no están indexados. Los códigos que no tienen tres letras mayúsculas
+     * se ignoran.
+     *
+     * @param newCodes Códigos a incluir
+     * @return Nuevo índice, o esta misma instancia si no hay códigos nuevos
+     */
+    public CurrencyIndex withCodes(Collection<String> newCodes) {
+        if (newCodes.stream().noneMatch(this::isMissing)) {
+            return this;
+        }
+        int[] newTable = Arrays.copyOf(table, TABLE_SIZE);
+        String[] allCodes = Arrays.copyOf(codes, codes.length + newCodes.size());
+        int size = codes.length;
+        for (String code : newCodes) {
+            int packed = pack(code);
+            if (packed < 0) {
+                continue;
+            }
+            if (newTable[packed] < 0) {
+                // Moneda retirada que vuelve: recupera su identificador
+                newTable[packed] = -newTable[packed];
+            } else if (newTable[packed] == 0) {
+                allCodes[size] = code;
+                newTable[packed] = ++size;
+            }
+        }
+        return new CurrencyIndex(newTable, size == codes.length ? codes : Arrays.copyOf(allCodes, size));
+    }
+
+    /**
+     * Crea un índice en el que los códigos indicados dejan de ser válidos. Sus identificadores
+     * no se reutilizan, de modo que los demás identificadores no cambian.
+     *
+     * @param removedCodes Códigos a retirar
+     * @return Nuevo índice, o esta misma instancia si ninguno de los códigos está indexado
+     */
+    public CurrencyIndex without(Collection<String> removedCodes) {
+        if (removedCodes.stream().noneMatch(this::contains)) {
+            return this;
+        }
+        int[] newTable = Arrays.copyOf(table, TABLE_SIZE);
+        for (String code : removedCodes) {
+            int packed = pack(code);
+            if (packed >= 0 && newTable[packed] > 0) {
+                newTable[packed] = -newTable[packed];
+            }
+        }
+        return new CurrencyIndex(newTable, codes);
+    }
+
+    /**
+     * Identificador compacto de una moneda.
+     *
+     * @param code Código ISO de la moneda
+     * @return Identificador de la moneda, o -1 si el código no está indexado
+     */
+    public int id(CharSequence code) {
+        int packed = pack(code);
+        return packed < 0 || table[packed] <= 0 ? -1 : table[packed] - 1;
+    }
+
+    /**
+     * Indica si el código está indexado.
+     */
+    public boolean contains(CharSequence code) {
+        return id(code) >= 0;
+    }
+
+    /**
+     * Código ISO de la moneda con el identificador indicado (también de monedas retiradas).
+     */
+    public String code(int id) {
+        return codes[id];
+    }
+
+    /**
+     * Número de identificadores asignados, incluidos los de monedas retiradas.
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Indica si el código es válido pero no está indexado, porque nunca lo estuvo o porque se retiró.
+     */
+    private boolean isMissing(CharSequence code) {
+        int packed = pack(code);
+        return packed >= 0 && table[packed] <= 0;
+    }
+
+    /**
+     * Empaqueta un código de tres letras mayúsculas en un entero en [0, 26³).
+     *
+     * @return Código empaquetado, o -1 si el código no es válido
+     */
+    private static int pack(CharSequence code) {
+        if (code == null || code.length() != 3) {
+            return -1;
+        }
+        int packed = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = code.charAt(i) - 'A';
+            if (letter < 0 || letter >= LETTERS) {
+                return -1;
+            }
+            packed = packed * LETTERS + letter;
+        }
+        return packed;
+    }
+}
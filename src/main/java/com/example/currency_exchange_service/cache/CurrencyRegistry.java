@@ -0,0 +1,141 @@
+package com.example.currency_exchange_service.cache;
+
+import com.example.currency_exchange_service.model.Currency;
+import com.example.currency_exchange_service.repository.CurrencyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Registro en memoria de las monedas conocidas.
+ * Se carga al iniciar la aplicación desde {@code currencies} y se refresca periódicamente;
+ * asigna a cada código ISO un identificador entero compacto (ver {@link CurrencyIndex}), de modo
+ * que validar un código no consulta la base de datos ni reserva memoria.
+ * Cada cambio publica un {@link CurrenciesChangedEvent}.
+ */
+@Component
+@Slf4j
+public class CurrencyRegistry {
+
+    private final CurrencyRepository currencyRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration refreshInterval;
+
+    private final AtomicReference<CurrencyIndex> current = new AtomicReference<>(CurrencyIndex.empty());
+    private volatile boolean loaded;
+    private Disposable refreshLoop;
+
+    public CurrencyRegistry(
+            CurrencyRepository currencyRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${currency.registry.refresh-interval:1m}") Duration refreshInterval) {
+        this.currencyRepository = currencyRepository;
+        this.eventPublisher = eventPublisher;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Carga el registro cuando la base de datos está poblada y programa los refrescos periódicos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refreshLoop = Flux.interval(Duration.ZERO, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh()
+                        .onErrorResume(error -> {
+                            log.error("No se pudo refrescar el registro de monedas", error);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshLoop != null) {
+            refreshLoop.dispose();
+        }
+    }
+
+    /**
+     * Vuelve a leer las monedas de la base de datos y actualiza el registro.
+     *
+     * @return Índice vigente tras el refresco
+     */
+    public Mono<CurrencyIndex> refresh() {
+        return currencyRepository.findAll()
+                .map(Currency::getCode)
+                .collectList()
+                .map(this::update);
+    }
+
+    /**
+     * Sustituye el conjunto de monedas conocidas. Los identificadores de las monedas que se mantienen
+     * no cambian.
+     *
+     * @param codes Códigos de todas las monedas vigentes
+     * @return Índice vigente
+     */
+    public synchronized CurrencyIndex update(Collection<String> codes) {
+        CurrencyIndex previous = current.get();
+        Set<String> present = new HashSet<>(codes);
+        List<String> removed = new ArrayList<>();
+        for (int id = 0; id < previous.size(); id++) {
+            String code = previous.code(id);
+            if (previous.contains(code) && !present.contains(code)) {
+                removed.add(code);
+            }
+        }
+
+        CurrencyIndex next = previous.withCodes(codes);
+        if (!removed.isEmpty()) {
+            next = next.without(removed);
+        }
+        loaded = true;
+        if (next != previous) {
+            current.set(next);
+            log.info("Registro de monedas actualizado: {} monedas, {} retiradas", present.size(), removed.size());
+            eventPublisher.publishEvent(new CurrenciesChangedEvent(next));
+        }
+        return next;
+    }
+
+    /**
+     * Índice de monedas vigente.
+     */
+    public CurrencyIndex current() {
+        return current.get();
+    }
+
+    /**
+     * Indica si el registro ya se cargó. Mientras no se haya cargado, los códigos desconocidos
+     * deben validarse contra la base de datos.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Identificador compacto de una moneda.
+     *
+     * @param code Código ISO de la moneda
+     * @return Identificador de la moneda, o -1 si no está registrada
+     */
+    public int id(CharSequence code) {
+        return current.get().id(code);
+    }
+}
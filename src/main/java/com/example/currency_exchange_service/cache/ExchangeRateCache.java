@@ -0,0 +1,201 @@
+package com.example.currency_exchange_service.cache;
+
+import com.example.currency_exchange_service.exception.CurrencyNotFoundException;
+import com.example.currency_exchange_service.exception.ExchangeRateNotFoundException;
+import com.example.currency_exchange_service.metrics.ConversionMetrics;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.repository.CurrencyRepository;
+import com.example.currency_exchange_service.repository.ExchangeRateRepository;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Caché acotada de tasas de cambio indexada por par de monedas.
+ * Almacena la entidad {@link ExchangeRate} (no el resultado de cada conversión), de modo que
+ * cualquier monto sobre un par caliente se resuelve sin validar monedas ni consultar la base de datos.
+ * Las entradas expiran por TTL y se refrescan en segundo plano antes de expirar.
+ * Una vez cargado el {@link CurrencyRegistry}, las monedas se validan en memoria.
+ * Caffeine agrupa en una sola carga los fallos simultáneos y los refrescos de un mismo par; cada carga
+ * falla si no termina dentro de {@code currency.rate-cache.load-timeout}.
+ * <p>
+ * {@link #lookup(String, String)} sirve además el último valor conocido de cada par (stale-while-revalidate)
+ * cuando la carga supera {@code currency.rate-cache.latency-budget} o falla la base de datos, de modo que
+ * una base de datos lenta no retrasa las solicitudes mientras haya un valor reciente.
+ */
+@Component
+@Slf4j
+public class ExchangeRateCache {
+
+    private final CurrencyRepository currencyRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final ConversionMetrics conversionMetrics;
+    private final Duration loadTimeout;
+    private final AsyncLoadingCache<String, ExchangeRate> cache;
+    // Último valor cargado de cada par; sobrevive a la expiración y a la invalidación de la caché
+    private final Cache<String, ExchangeRate> lastKnown;
+    private final Duration latencyBudget;
+
+    /**
+     * Tasa obtenida de la caché.
+     *
+     * @param exchangeRate Tasa del par
+     * @param stale {@code true} si es el último valor conocido, servido sin esperar a que termine su carga
+     */
+    public record CachedRate(ExchangeRate exchangeRate, boolean stale) {
+    }
+
+    public ExchangeRateCache(
+            CurrencyRepository currencyRepository,
+            CurrencyRegistry currencyRegistry,
+            ExchangeRateRepository exchangeRateRepository,
+            ConversionMetrics conversionMetrics,
+            @Value("${currency.rate-cache.maximum-size:10000}") long maximumSize,
+            @Value("${currency.rate-cache.expire-after-write:5m}") Duration expireAfterWrite,
+            @Value("${currency.rate-cache.refresh-after-write:4m}") Duration refreshAfterWrite,
+            @Value("${currency.rate-cache.load-timeout:5s}") Duration loadTimeout,
+            @Value("${currency.rate-cache.latency-budget:100ms}") Duration latencyBudget,
+            @Value("${currency.rate-cache.stale-retention:1h}") Duration staleRetention) {
+        this.currencyRepository = currencyRepository;
+        this.currencyRegistry = currencyRegistry;
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.conversionMetrics = conversionMetrics;
+        this.loadTimeout = loadTimeout;
+        this.latencyBudget = latencyBudget;
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(staleRetention)
+                .build();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats()
+                .buildAsync((key, executor) -> load(key).timeout(loadTimeout).toFuture());
+        conversionMetrics.monitor(cache, "exchangeRates");
+    }
+
+    /**
+     * Obtiene la tasa de cambio de un par, cargándola desde la base de datos si no está en caché.
+     *
+     * @param sourceCurrency Código de moneda origen
+     * @param targetCurrency Código de moneda destino
+     * @return Tasa de cambio del par
+     */
+    public Mono<ExchangeRate> get(String sourceCurrency, String targetCurrency) {
+        return Mono.fromFuture(cache.get(key(sourceCurrency, targetCurrency)));
+    }
+
+    /**
+     * Obtiene la tasa de un par con semántica stale-while-revalidate. Si la tasa está en caché se devuelve
+     * sin esperar; si hay que cargarla y la carga no termina dentro de {@code currency.rate-cache.latency-budget},
+     * o falla por un error distinto de una moneda o tasa inexistente, se devuelve de inmediato el último valor
+     * conocido del par marcado como obsoleto, y la carga sigue en segundo plano para las solicitudes
+     * siguientes. Sin valor conocido se espera la carga.
+     *
+     * @param sourceCurrency Código de moneda origen
+     * @param targetCurrency Código de moneda destino
+     * @return Tasa del par, indicando si es un valor obsoleto
+     */
+    public Mono<CachedRate> lookup(String sourceCurrency, String targetCurrency) {
+        String key = key(sourceCurrency, targetCurrency);
+        CompletableFuture<ExchangeRate> future = cache.get(key);
+        // La cancelación por el presupuesto de latencia no cancela la carga compartida
+        Mono<CachedRate> fresh = Mono.fromFuture(future, true).map(exchangeRate -> new CachedRate(exchangeRate, false));
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            return fresh;
+        }
+        ExchangeRate known = lastKnown.getIfPresent(key);
+        if (known == null) {
+            return fresh;
+        }
+        Mono<CachedRate> stale = Mono.fromSupplier(() -> new CachedRate(known, true));
+        return fresh
+                .timeout(latencyBudget, stale)
+                .onErrorResume(error -> !(error instanceof CurrencyNotFoundException)
+                        && !(error instanceof ExchangeRateNotFoundException), error -> {
+                    log.warn("No se pudo cargar la tasa de {}; se sirve el último valor conocido: {}", key, error.toString());
+                    return stale;
+                });
+    }
+
+    /**
+     * Descarta la tasa en caché de un par. El último valor conocido se conserva.
+     */
+    public void invalidate(String sourceCurrency, String targetCurrency) {
+        cache.synchronous().invalidate(key(sourceCurrency, targetCurrency));
+    }
+
+    /**
+     * Descarta todas las tasas en caché.
+     */
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * Estadísticas de aciertos, fallos y desalojos de la caché.
+     */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Número aproximado de pares en caché.
+     */
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Carga la tasa de un par validando previamente que ambas monedas existan.
+     */
+    private Mono<ExchangeRate> load(String key) {
+        String sourceCurrency = key.substring(0, key.indexOf('_'));
+        String targetCurrency = key.substring(key.indexOf('_') + 1);
+        String pair = conversionMetrics.pairTag(sourceCurrency, targetCurrency);
+        log.debug("Cargando tasa de cambio en caché para: {}", key);
+
+        return conversionMetrics.time(ConversionMetrics.Stage.CURRENCY_VALIDATION, pair,
+                        validateCurrencies(sourceCurrency, targetCurrency))
+                .then(conversionMetrics.time(ConversionMetrics.Stage.RATE_LOOKUP, pair, Mono.defer(() ->
+                        exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode(sourceCurrency, targetCurrency))))
+                .switchIfEmpty(Mono.error(() -> new ExchangeRateNotFoundException(
+                        "Tasa de cambio no encontrada para " + sourceCurrency + " a " + targetCurrency)))
+                .doOnNext(exchangeRate -> lastKnown.put(key, exchangeRate));
+    }
+
+    /**
+     * Valida que ambas monedas existan: en memoria si el registro ya está cargado,
+     * o contra la base de datos mientras no lo esté.
+     */
+    private Mono<Void> validateCurrencies(String sourceCurrency, String targetCurrency) {
+        if (currencyRegistry.isLoaded()) {
+            if (currencyRegistry.id(sourceCurrency) < 0) {
+                return Mono.error(new CurrencyNotFoundException("Moneda origen no encontrada: " + sourceCurrency));
+            }
+            if (currencyRegistry.id(targetCurrency) < 0) {
+                return Mono.error(new CurrencyNotFoundException("Moneda destino no encontrada: " + targetCurrency));
+            }
+            return Mono.empty();
+        }
+        return currencyRepository.findByCode(sourceCurrency)
+                .switchIfEmpty(Mono.error(() -> new CurrencyNotFoundException("Moneda origen no encontrada: " + sourceCurrency)))
+                .then(Mono.defer(() -> currencyRepository.findByCode(targetCurrency)))
+                .switchIfEmpty(Mono.error(() -> new CurrencyNotFoundException("Moneda destino no encontrada: " + targetCurrency)))
+                .then();
+    }
+
+    private static String key(String sourceCurrency, String targetCurrency) {
+        return sourceCurrency + "_" + targetCurrency;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.currency_exchange_service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalescencia reactiva de solicitudes concurrentes ("single-flight").
+ * Mientras hay una carga en curso para una clave, las demás solicitudes de la misma clave se
+ * suscriben al mismo {@link Mono} en lugar de lanzar su propia consulta. El resultado o el error
+ * se propaga a todos los suscriptores y, al terminar, la clave se libera: no se guarda en caché.
+ * Si todos los suscriptores cancelan, la carga compartida también se cancela.
+ *
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del valor cargado
+ */
+@Slf4j
+public final class SingleFlight<K, V> {
+
+    private final String name;
+    private final Duration defaultTimeout;
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param name Nombre usado en los mensajes de registro y de error
+     * @param defaultTimeout Tiempo máximo de cada carga compartida
+     */
+    public SingleFlight(String name, Duration defaultTimeout) {
+        this.name = name;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    /**
+     * Ejecuta la carga de una clave o se une a la que ya está en curso.
+     *
+     * @param key Clave de la carga
+     * @param loader Proveedor de la carga; solo se invoca si no hay otra en curso para la clave
+     * @return Resultado compartido de la carga
+     */
+    public Mono<V> execute(K key, Supplier<? extends Mono<V>> loader) {
+        return execute(key, defaultTimeout, loader);
+    }
+
+    /**
+     * Ejecuta la carga de una clave con un tiempo máximo propio o se une a la que ya está en curso.
+     * El tiempo máximo lo fija la solicitud que inicia la carga.
+     *
+     * @param key Clave de la carga
+     * @param timeout Tiempo máximo de la carga; al agotarse, todos los suscriptores reciben
+     *                un {@link TimeoutException}
+     * @param loader Proveedor de la carga; solo se invoca si no hay otra en curso para la clave
+     * @return Resultado compartido de la carga
+     */
+    public Mono<V> execute(K key, Duration timeout, Supplier<? extends Mono<V>> loader) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> flight(k, timeout, loader)));
+    }
+
+    /**
+     * Número de claves con una carga en curso.
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private Mono<V> flight(K key, Duration timeout, Supplier<? extends Mono<V>> loader) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> flight = Mono.<V>defer(loader)
+                .timeout(timeout, Mono.error(() -> new TimeoutException(
+                        "Carga " + name + " excedió " + timeout + " para la clave " + key)))
+                .doOnError(error -> log.debug("Carga {} fallida para la clave {}: {}", name, key, error.toString()))
+                // Solo se libera la clave si sigue apuntando a esta carga
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .share();
+        self.set(flight);
+        return flight;
+    }
+}
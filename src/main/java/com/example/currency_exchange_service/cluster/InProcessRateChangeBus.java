@@ -0,0 +1,108 @@
+package com.example.currency_exchange_service.cluster;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Difusión de cambios de tasas entre instancias del servicio en la misma JVM, por ejemplo varios contextos
+ * de aplicación en pruebas o en un despliegue embebido.
+ * <p>
+ * Las instancias con el mismo {@code currency.cluster.in-process.group} se entregan los cambios directamente,
+ * en el hilo que los publica. Al unirse al grupo, cada instancia intercambia con las demás instantáneas de
+ * los cambios que aún no aplicaron. Sin grupo (por defecto), la instancia no comparte sus cambios con nadie.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.cluster.bus", havingValue = "in-process", matchIfMissing = true)
+@Slf4j
+public class InProcessRateChangeBus implements RateChangeBus {
+
+    private static final Map<String, Set<InProcessRateChangeBus>> GROUPS = new ConcurrentHashMap<>();
+
+    private final RateChangeJournal rateChangeJournal;
+    private final String group;
+    private final Sinks.Many<RateChangeEvent> received = Sinks.many().unicast().onBackpressureBuffer();
+
+    public InProcessRateChangeBus(
+            RateChangeJournal rateChangeJournal,
+            @Value("${currency.cluster.in-process.group:}") String group) {
+        this.rateChangeJournal = rateChangeJournal;
+        this.group = group;
+    }
+
+    /**
+     * Se une al grupo cuando la aplicación está lista y se reconcilia con sus miembros.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void join() {
+        if (group.isBlank()) {
+            return;
+        }
+        Set<InProcessRateChangeBus> members = GROUPS.computeIfAbsent(group, name -> new LinkedHashSet<>());
+        synchronized (members) {
+            for (InProcessRateChangeBus member : members) {
+                member.deliver(rateChangeJournal.since(member.rateChangeJournal.applied(rateChangeJournal.nodeId())));
+                deliver(member.rateChangeJournal.since(rateChangeJournal.applied(member.rateChangeJournal.nodeId())));
+            }
+            members.add(this);
+        }
+        log.info("Instancia {} unida al grupo {} de difusión de tasas", rateChangeJournal.nodeId(), group);
+    }
+
+    @PreDestroy
+    public void leave() {
+        Set<InProcessRateChangeBus> members = GROUPS.get(group);
+        if (members != null) {
+            synchronized (members) {
+                members.remove(this);
+            }
+        }
+    }
+
+    @Override
+    public RateChangeEvent broadcast(Collection<ExchangeRate> exchangeRates, Collection<ExchangeRate> confirmedRates) {
+        if (group.isBlank()) {
+            return rateChangeJournal.record(exchangeRates, confirmedRates);
+        }
+        Set<InProcessRateChangeBus> members = GROUPS.computeIfAbsent(group, name -> new LinkedHashSet<>());
+        // Registrar y entregar bajo el mismo monitor conserva el orden de versiones en cada destino
+        synchronized (members) {
+            RateChangeEvent event = rateChangeJournal.record(exchangeRates, confirmedRates);
+            if (members.contains(this)) {
+                for (InProcessRateChangeBus member : members) {
+                    if (member != this) {
+                        member.deliver(event);
+                    }
+                }
+            }
+            return event;
+        }
+    }
+
+    @Override
+    public Flux<RateChangeEvent> received() {
+        return received.asFlux();
+    }
+
+    /**
+     * Entrega un evento a esta instancia. Solo se invoca con el monitor del grupo tomado.
+     */
+    private void deliver(RateChangeEvent event) {
+        if (event != null) {
+            received.tryEmitNext(event);
+        }
+    }
+}
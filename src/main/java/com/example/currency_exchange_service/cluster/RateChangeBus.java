@@ -0,0 +1,46 @@
+package com.example.currency_exchange_service.cluster;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Difusión de los cambios de tasas entre las instancias del servicio.
+ * La implementación activa se elige con {@code currency.cluster.bus}: {@code in-process} para instancias en
+ * la misma JVM o {@code tcp} para instancias conectadas punto a punto, sin intermediario.
+ * <p>
+ * Cada implementación registra los cambios locales en el {@link RateChangeJournal} y los entrega a las demás
+ * instancias en orden de versión. Al conectarse (o reconectarse) con otra instancia, le envía una
+ * instantánea con los cambios posteriores a la última versión que esa instancia aplicó, de modo que los
+ * mensajes perdidos mientras estaban desconectadas se reconcilian sin reenviar todo el historial.
+ */
+public interface RateChangeBus {
+
+    /**
+     * Registra en el diario tasas ya publicadas en esta instancia y las difunde a las demás.
+     *
+     * @param exchangeRates Tasas nuevas o modificadas, como máximo una por par de monedas
+     * @return Evento difundido, con la versión asignada
+     */
+    default RateChangeEvent broadcast(Collection<ExchangeRate> exchangeRates) {
+        return broadcast(exchangeRates, List.of());
+    }
+
+    /**
+     * Registra en el diario tasas ya publicadas y tasas confirmadas sin cambios en esta instancia, y las
+     * difunde a las demás.
+     *
+     * @param exchangeRates Tasas nuevas o modificadas, como máximo una por par de monedas
+     * @param confirmedRates Tasas confirmadas sin cambios con su nuevo {@code lastUpdated}, como máximo una por par
+     * @return Evento difundido, con la versión asignada
+     */
+    RateChangeEvent broadcast(Collection<ExchangeRate> exchangeRates, Collection<ExchangeRate> confirmedRates);
+
+    /**
+     * Cambios recibidos de las demás instancias, incluidas las instantáneas de reconciliación.
+     * Admite un único suscriptor; los eventos recibidos antes de la suscripción se conservan.
+     */
+    Flux<RateChangeEvent> received();
+}
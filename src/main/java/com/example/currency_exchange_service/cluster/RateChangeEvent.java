@@ -0,0 +1,30 @@
+package com.example.currency_exchange_service.cluster;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+
+import java.util.List;
+
+/**
+ * Cambio de tasas publicado por una instancia del servicio.
+ * <p>
+ * Las versiones son consecutivas por instancia de origen: cada publicación local aumenta la versión en uno.
+ * Una instantánea de reconciliación ({@code snapshot}) lleva la versión vigente del origen y el último valor
+ * de cada par que el origen modificó después de la versión que el destino ya aplicó.
+ * <p>
+ * Las tasas confirmadas son tasas que la fuente volvió a informar sin cambios: solo avanza su
+ * {@code lastUpdated}, por lo que el destino las aplica en la matriz sin agregar una versión al historial.
+ *
+ * @param nodeId Identificador de la instancia de origen; cambia con cada arranque
+ * @param version Versión del cambio en la instancia de origen
+ * @param snapshot Indica si es una instantánea de reconciliación en lugar de un cambio individual
+ * @param exchangeRates Tasas publicadas, como máximo una por par de monedas
+ * @param confirmedRates Tasas confirmadas sin cambios con su nuevo {@code lastUpdated}, como máximo una por par
+ */
+public record RateChangeEvent(String nodeId, long version, boolean snapshot, List<ExchangeRate> exchangeRates,
+                              List<ExchangeRate> confirmedRates) {
+
+    public RateChangeEvent {
+        // Los eventos de instancias anteriores no incluyen confirmaciones
+        confirmedRates = confirmedRates != null ? confirmedRates : List.of();
+    }
+}
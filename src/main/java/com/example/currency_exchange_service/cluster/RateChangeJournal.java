@@ -0,0 +1,168 @@
+package com.example.currency_exchange_service.cluster;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diario de versiones de los cambios de tasas de esta instancia y de las versiones aplicadas de las demás.
+ * <p>
+ * De los cambios locales solo se conserva el último valor de cada par con la versión en que cambió, por lo
+ * que la memoria queda acotada por el número de pares y una instantánea de reconciliación nunca contiene más
+ * de una tasa por par. De cada par se conserva además su última confirmación sin cambios, que una instantánea
+ * incluye aparte si es posterior a la versión aplicada. El identificador de la instancia incluye un sufijo aleatorio: tras un reinicio las
+ * versiones vuelven a empezar en 1 y las demás instancias la tratan como un origen nuevo.
+ */
+@Component
+public class RateChangeJournal {
+
+    private final String nodeId;
+    // Último cambio local de cada par (ORIGEN_DESTINO), protegido por el monitor del diario
+    private final Map<String, Change> changes = new HashMap<>();
+    private final Map<String, Long> applied = new ConcurrentHashMap<>();
+    private long version;
+
+    public RateChangeJournal(@Value("${currency.cluster.node-name:${spring.application.name:node}}") String nodeName) {
+        this.nodeId = nodeName + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Identificador de esta instancia en los eventos que difunde.
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Versión del último cambio local; 0 si aún no hubo ninguno.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Registra un cambio local con la versión siguiente.
+     *
+     * @param exchangeRates Tasas nuevas o modificadas, como máximo una por par de monedas
+     * @return Evento con la versión asignada
+     */
+    public RateChangeEvent record(Collection<ExchangeRate> exchangeRates) {
+        return record(exchangeRates, List.of());
+    }
+
+    /**
+     * Registra un cambio local con la versión siguiente, incluidas tasas confirmadas sin cambios.
+     *
+     * @param exchangeRates Tasas nuevas o modificadas, como máximo una por par de monedas
+     * @param confirmedRates Tasas confirmadas sin cambios con su nuevo {@code lastUpdated}, como máximo una por par
+     * @return Evento con la versión asignada
+     */
+    public synchronized RateChangeEvent record(Collection<ExchangeRate> exchangeRates, Collection<ExchangeRate> confirmedRates) {
+        version++;
+        List<ExchangeRate> copies = new ArrayList<>(exchangeRates.size());
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            ExchangeRate copy = copy(exchangeRate);
+            copies.add(copy);
+            // Un cambio de valor reemplaza a la confirmación anterior del par
+            changes.put(pair(copy), new Change(version, copy, 0L, null));
+        }
+        List<ExchangeRate> confirmedCopies = new ArrayList<>(confirmedRates.size());
+        for (ExchangeRate exchangeRate : confirmedRates) {
+            ExchangeRate copy = copy(exchangeRate);
+            confirmedCopies.add(copy);
+            Change previous = changes.get(pair(copy));
+            changes.put(pair(copy), previous != null
+                    ? new Change(previous.version(), previous.exchangeRate(), version, copy)
+                    : new Change(0L, null, version, copy));
+        }
+        return new RateChangeEvent(nodeId, version, false, List.copyOf(copies), List.copyOf(confirmedCopies));
+    }
+
+    /**
+     * Instantánea de reconciliación para una instancia que ya aplicó los cambios locales hasta la versión
+     * indicada.
+     *
+     * @param appliedVersion Última versión local aplicada por la otra instancia
+     * @return Último valor de cada par modificado después de esa versión y última confirmación de cada par
+     * confirmado después de ella, con la versión vigente; {@code null} si la otra instancia no tiene cambios pendientes
+     */
+    public synchronized RateChangeEvent since(long appliedVersion) {
+        if (version <= appliedVersion) {
+            return null;
+        }
+        List<ExchangeRate> pending = new ArrayList<>();
+        List<ExchangeRate> confirmed = new ArrayList<>();
+        for (Change change : changes.values()) {
+            if (change.version() > appliedVersion) {
+                pending.add(change.exchangeRate());
+            }
+            if (change.confirmedVersion() > appliedVersion) {
+                confirmed.add(change.confirmed());
+            }
+        }
+        return new RateChangeEvent(nodeId, version, true, List.copyOf(pending), List.copyOf(confirmed));
+    }
+
+    /**
+     * Última versión aplicada de cada instancia de origen.
+     */
+    public Map<String, Long> applied() {
+        return Map.copyOf(applied);
+    }
+
+    /**
+     * Última versión aplicada de la instancia de origen indicada; 0 si no se aplicó ninguna.
+     */
+    public long applied(String originNodeId) {
+        return applied.getOrDefault(originNodeId, 0L);
+    }
+
+    /**
+     * Avanza la versión aplicada de la instancia de origen del evento.
+     *
+     * @param event Evento recibido
+     * @return {@code true} si el evento es posterior a la última versión aplicada de su origen y debe
+     * aplicarse; {@code false} si es un duplicado
+     */
+    public boolean advance(RateChangeEvent event) {
+        boolean[] advanced = new boolean[1];
+        applied.compute(event.nodeId(), (originNodeId, previous) -> {
+            if (previous != null && previous >= event.version()) {
+                return previous;
+            }
+            advanced[0] = true;
+            return event.version();
+        });
+        return advanced[0];
+    }
+
+    private static String pair(ExchangeRate exchangeRate) {
+        return exchangeRate.getSourceCurrencyCode() + "_" + exchangeRate.getTargetCurrencyCode();
+    }
+
+    private static ExchangeRate copy(ExchangeRate exchangeRate) {
+        return ExchangeRate.builder()
+                .sourceCurrencyCode(exchangeRate.getSourceCurrencyCode())
+                .targetCurrencyCode(exchangeRate.getTargetCurrencyCode())
+                .rate(exchangeRate.getRate())
+                .buyRate(exchangeRate.getBuyRate())
+                .sellRate(exchangeRate.getSellRate())
+                .lastUpdated(exchangeRate.getLastUpdated())
+                .build();
+    }
+
+    /**
+     * Último cambio de valor de un par (versión 0 si no lo cambió esta instancia) y su última confirmación sin
+     * cambios posterior (versión 0 si no la hay).
+     */
+    private record Change(long version, ExchangeRate exchangeRate, long confirmedVersion, ExchangeRate confirmed) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.currency_exchange_service.cluster;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.rate.RateMatrix;
+import com.example.currency_exchange_service.rate.RateMatrixSnapshot;
+import com.example.currency_exchange_service.rate.RateUpdater;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aplica en esta instancia los cambios de tasas difundidos por las demás.
+ * <p>
+ * Los eventos cuya versión ya se aplicó se descartan, de modo que las instantáneas de reconciliación y los
+ * cambios que se solapan con ellas no se aplican dos veces. Cada tasa recibida reemplaza a la de la matriz
+ * salvo que la de la matriz sea directa y posterior ({@code lastUpdated}): si dos instancias modifican el
+ * mismo par, todas conservan la modificación más reciente. Las tasas se publican en memoria con
+ * {@link RateUpdater#publishReplicated}, que además descarta las entradas de la caché de esos pares; la
+ * base de datos no se modifica, porque la instancia de origen ya las escribió. Las tasas confirmadas sin cambios
+ * se aplican con el mismo criterio mediante {@link RateUpdater#confirmReplicated}, que avanza su
+ * {@code lastUpdated} en la matriz sin agregar una versión al historial.
+ */
+@Component
+@Slf4j
+public class RateChangeReplicator {
+
+    private final RateChangeBus rateChangeBus;
+    private final RateChangeJournal rateChangeJournal;
+    private final RateMatrix rateMatrix;
+    private final RateUpdater rateUpdater;
+    private final Counter applied;
+    private final Counter duplicates;
+
+    private Disposable subscription;
+
+    public RateChangeReplicator(
+            RateChangeBus rateChangeBus,
+            RateChangeJournal rateChangeJournal,
+            RateMatrix rateMatrix,
+            RateUpdater rateUpdater,
+            MeterRegistry meterRegistry) {
+        this.rateChangeBus = rateChangeBus;
+        this.rateChangeJournal = rateChangeJournal;
+        this.rateMatrix = rateMatrix;
+        this.rateUpdater = rateUpdater;
+        this.applied = Counter.builder("currency.cluster.events").tag("outcome", "applied").register(meterRegistry);
+        this.duplicates = Counter.builder("currency.cluster.events").tag("outcome", "duplicate").register(meterRegistry);
+    }
+
+    /**
+     * Empieza a aplicar los cambios recibidos cuando la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        subscription = rateChangeBus.received()
+                .subscribe(this::apply, error -> log.error("Se detuvo la recepción de cambios de tasas", error));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Aplica un evento recibido si es posterior a la última versión aplicada de su origen.
+     *
+     * @param event Evento recibido de otra instancia
+     */
+    public void apply(RateChangeEvent event) {
+        if (!rateChangeJournal.advance(event)) {
+            duplicates.increment();
+            return;
+        }
+        applied.increment();
+        List<ExchangeRate> newer = newer(event.exchangeRates());
+        if (!newer.isEmpty()) {
+            long version = rateUpdater.publishReplicated(newer).version();
+            log.debug("Aplicadas {} tasas de la instancia {} (versión {}{}), matriz en versión {}", newer.size(),
+                    event.nodeId(), event.version(), event.snapshot() ? ", instantánea" : "", version);
+        }
+        List<ExchangeRate> confirmed = newer(event.confirmedRates());
+        if (!confirmed.isEmpty()) {
+            long version = rateUpdater.confirmReplicated(confirmed).version();
+            log.debug("Aplicadas {} confirmaciones de la instancia {} (versión {}), matriz en versión {}", confirmed.size(),
+                    event.nodeId(), event.version(), version);
+        }
+    }
+
+    private List<ExchangeRate> newer(List<ExchangeRate> exchangeRates) {
+        RateMatrixSnapshot snapshot = rateMatrix.current();
+        List<ExchangeRate> newer = new ArrayList<>(exchangeRates.size());
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            if (!snapshot.hasNewerDirectRate(exchangeRate)) {
+                newer.add(exchangeRate);
+            }
+        }
+        return newer;
+    }
+}
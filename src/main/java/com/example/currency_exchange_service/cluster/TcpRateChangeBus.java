@@ -0,0 +1,265 @@
+package com.example.currency_exchange_service.cluster;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.tcp.TcpClient;
+import reactor.netty.tcp.TcpServer;
+import reactor.util.concurrent.Queues;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Difusión de cambios de tasas entre instancias conectadas punto a punto por TCP, sin intermediario.
+ * <p>
+ * Cada instancia escucha en {@code currency.cluster.tcp.port} y se conecta a cada instancia de
+ * {@code currency.cluster.tcp.peers}; la lista de cada instancia debe incluir a todas las demás. Por cada
+ * conexión, la instancia que se conecta recibe los cambios de la otra: al conectarse envía la última versión
+ * que aplicó de cada origen, y la otra responde con una instantánea de los cambios posteriores, si los hay,
+ * seguida de cada cambio nuevo en orden de versión. Los mensajes son líneas JSON.
+ * <p>
+ * Cada línea va precedida de su firma HMAC-SHA256 con el secreto compartido {@code currency.cluster.tcp.secret},
+ * obligatorio: una conexión que envía una línea sin firma o con una firma que no corresponde se cierra sin
+ * aplicar ni responder nada, de modo que solo las instancias que conocen el secreto pueden leer o difundir
+ * cambios. Por defecto solo se escucha en la interfaz local ({@code currency.cluster.tcp.bind-address}).
+ * <p>
+ * Si una conexión se corta, se reintenta cada {@code currency.cluster.tcp.reconnect-interval} y la
+ * instantánea reconcilia los cambios perdidos. Si un destino no consume los cambios, se le acumulan hasta
+ * {@code currency.cluster.tcp.buffer-size}; al superarlo se cierra su conexión y se reconcilia al reconectar.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.cluster.bus", havingValue = "tcp")
+@Slf4j
+public class TcpRateChangeBus implements RateChangeBus {
+
+    private static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+
+    private final RateChangeJournal rateChangeJournal;
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec secret;
+    private final String bindAddress;
+    private final int port;
+    private final List<String> peers;
+    private final Duration reconnectInterval;
+    private final int bufferSize;
+    // Multidifusión sin búfer: cada conexión acumula sus cambios pendientes en su propio búfer acotado
+    private final Sinks.Many<RateChangeEvent> published = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<RateChangeEvent> received = Sinks.many().unicast().onBackpressureBuffer();
+
+    private DisposableServer server;
+    private Disposable peerLoops;
+
+    public TcpRateChangeBus(
+            RateChangeJournal rateChangeJournal,
+            ObjectMapper objectMapper,
+            @Value("${currency.cluster.tcp.secret:}") String secret,
+            @Value("${currency.cluster.tcp.bind-address:127.0.0.1}") String bindAddress,
+            @Value("${currency.cluster.tcp.port:7700}") int port,
+            @Value("${currency.cluster.tcp.peers:}") String peers,
+            @Value("${currency.cluster.tcp.reconnect-interval:2s}") Duration reconnectInterval,
+            @Value("${currency.cluster.tcp.buffer-size:1024}") int bufferSize) {
+        this.rateChangeJournal = rateChangeJournal;
+        this.objectMapper = objectMapper;
+        if (secret.isBlank()) {
+            throw new IllegalStateException("currency.cluster.tcp.secret es obligatorio con currency.cluster.bus=tcp");
+        }
+        this.secret = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM);
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.peers = Arrays.stream(peers.split(",")).map(String::strip).filter(peer -> !peer.isEmpty()).toList();
+        this.reconnectInterval = reconnectInterval;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Abre el puerto y se conecta a las demás instancias cuando la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        server = TcpServer.create()
+                .host(bindAddress)
+                .port(port)
+                .doOnConnection(connection -> connection.addHandlerLast(new LineBasedFrameDecoder(MAX_FRAME_LENGTH)))
+                .handle((inbound, outbound) -> outbound.sendString(inbound.receive()
+                        .asString(StandardCharsets.UTF_8)
+                        .next()
+                        .map(line -> read(line, Subscription.class))
+                        .doOnError(SecurityException.class, error -> inbound.withConnection(connection ->
+                                log.warn("Conexión rechazada desde {}: {}", connection.channel().remoteAddress(), error.getMessage())))
+                        .flatMapMany(subscription -> changesSince(subscription.nodeId(),
+                                subscription.applied().getOrDefault(rateChangeJournal.nodeId(), 0L)))
+                        .map(event -> write(event) + "\n"), StandardCharsets.UTF_8))
+                .bindNow();
+        log.info("Instancia {} escuchando cambios de tasas en {}:{}", rateChangeJournal.nodeId(), bindAddress, server.port());
+        peerLoops = Flux.fromIterable(peers)
+                .flatMap(peer -> session(peer)
+                        .onErrorResume(error -> {
+                            log.debug("Sin conexión con la instancia {}: {}", peer, error.getMessage());
+                            return Mono.empty();
+                        })
+                        .repeatWhen(sessions -> sessions.delayElements(reconnectInterval)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (peerLoops != null) {
+            peerLoops.dispose();
+        }
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    @Override
+    public RateChangeEvent broadcast(Collection<ExchangeRate> exchangeRates, Collection<ExchangeRate> confirmedRates) {
+        // Registrar y emitir bajo el mismo monitor conserva el orden de versiones en cada conexión
+        synchronized (published) {
+            RateChangeEvent event = rateChangeJournal.record(exchangeRates, confirmedRates);
+            published.tryEmitNext(event);
+            return event;
+        }
+    }
+
+    @Override
+    public Flux<RateChangeEvent> received() {
+        return received.asFlux();
+    }
+
+    /**
+     * Cambios locales para una instancia que ya aplicó hasta la versión indicada: la instantánea de los
+     * posteriores y luego cada cambio nuevo. La instantánea y la suscripción a los cambios nuevos se toman
+     * bajo el monitor de publicación, por lo que ningún cambio queda entre ambas.
+     */
+    private Flux<RateChangeEvent> changesSince(String peerNodeId, long appliedVersion) {
+        return Flux.defer(() -> {
+            Sinks.Many<RateChangeEvent> pending = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<RateChangeEvent>get(bufferSize).get());
+            RateChangeEvent snapshot;
+            Disposable live;
+            synchronized (published) {
+                snapshot = rateChangeJournal.since(appliedVersion);
+                live = published.asFlux().subscribe(event -> {
+                    if (pending.tryEmitNext(event).isFailure()) {
+                        pending.tryEmitError(new IllegalStateException(
+                                "La instancia " + peerNodeId + " superó " + bufferSize + " cambios pendientes"));
+                    }
+                });
+            }
+            log.info("Instancia {} conectada desde la versión {}; versión vigente {}", peerNodeId, appliedVersion,
+                    snapshot != null ? snapshot.version() : appliedVersion);
+            return Flux.concat(Mono.justOrEmpty(snapshot), pending.asFlux())
+                    .doFinally(signal -> live.dispose());
+        });
+    }
+
+    /**
+     * Conexión con otra instancia: envía las versiones aplicadas y recibe sus cambios hasta que se corte.
+     */
+    private Mono<Void> session(String peer) {
+        int separator = peer.lastIndexOf(':');
+        return TcpClient.create()
+                .host(peer.substring(0, separator))
+                .port(Integer.parseInt(peer.substring(separator + 1)))
+                .doOnConnected(connection -> connection.addHandlerLast(new LineBasedFrameDecoder(MAX_FRAME_LENGTH)))
+                .handle((inbound, outbound) -> outbound
+                        .sendString(Mono.fromCallable(() ->
+                                write(new Subscription(rateChangeJournal.nodeId(), rateChangeJournal.applied())) + "\n"),
+                                StandardCharsets.UTF_8)
+                        .then()
+                        .thenMany(inbound.receive().asString(StandardCharsets.UTF_8))
+                        .map(line -> read(line, RateChangeEvent.class))
+                        .doOnError(SecurityException.class, error ->
+                                log.warn("Cambios rechazados de la instancia {}: {}", peer, error.getMessage()))
+                        .doOnNext(this::receive)
+                        .then())
+                .connect()
+                .doOnNext(connection -> log.info("Conectado a la instancia {}", peer))
+                // Al detener el bus se cancela la sesión: la conexión debe cerrarse también
+                .flatMap(connection -> connection.onDispose().doOnCancel(connection::dispose));
+    }
+
+    private void receive(RateChangeEvent event) {
+        // Las conexiones con cada instancia entregan los eventos en hilos distintos
+        synchronized (received) {
+            received.tryEmitNext(event);
+        }
+    }
+
+    /**
+     * Línea firmada: la firma en Base64, un espacio y el mensaje en JSON.
+     */
+    private String write(Object message) {
+        try {
+            String json = objectMapper.writeValueAsString(message);
+            return Base64.getEncoder().encodeToString(sign(json)) + " " + json;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lee una línea firmada.
+     *
+     * @throws SecurityException si la línea no tiene firma o su firma no corresponde al secreto compartido
+     */
+    private <T> T read(String line, Class<T> type) {
+        int separator = line.indexOf(' ');
+        byte[] signature;
+        try {
+            signature = separator > 0 ? Base64.getDecoder().decode(line.substring(0, separator)) : null;
+        } catch (IllegalArgumentException e) {
+            signature = null;
+        }
+        String json = line.substring(separator + 1);
+        if (signature == null || !MessageDigest.isEqual(signature, sign(json))) {
+            throw new SecurityException("mensaje sin firma válida");
+        }
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] sign(String json) {
+        try {
+            Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            mac.init(secret);
+            return mac.doFinal(json.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo firmar el mensaje", e);
+        }
+    }
+
+    /**
+     * Primer mensaje de cada conexión: la instancia que se conecta y la última versión que aplicó de cada origen.
+     */
+    private record Subscription(String nodeId, Map<String, Long> applied) {
+    }
+}
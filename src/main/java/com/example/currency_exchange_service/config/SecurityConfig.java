@@ -55,8 +55,15 @@ public class SecurityConfig {
                 .pathMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**", "/webjars/**").permitAll()
                 .pathMatchers("/h2-console/**").permitAll()
                 .pathMatchers(HttpMethod.GET, "/api/v1/exchange-rates/**").permitAll()
+                .pathMatchers(HttpMethod.POST, "/api/v1/exchange-rates/import").hasRole("ADMIN")
+                .pathMatchers(HttpMethod.POST, "/api/v1/exchange-rates/ticks").hasRole("ADMIN")
                 .pathMatchers(HttpMethod.POST, "/api/v1/currency-exchange/convert").permitAll()
+                .pathMatchers(HttpMethod.POST, "/api/v1/currency-exchange/convert/batch").permitAll()
                 .pathMatchers("/api/v1/conversion-history/**").hasRole("ADMIN")
+                .pathMatchers("/api/v1/analytics/**").hasRole("ADMIN")
+                .pathMatchers("/actuator/health").permitAll()
+                // Incluye /actuator/prometheus: expone volúmenes y errores por par
+                .pathMatchers("/actuator/**").hasRole("ADMIN")
                 .anyExchange().authenticated()
                 .and()
                 .build();
@@ -0,0 +1,22 @@
+package com.example.currency_exchange_service.config;
+
+import com.example.currency_exchange_service.controller.LiveRatesWebSocketHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Configuración de los endpoints WebSocket.
+ * Registra el manejador de tasas en vivo con prioridad sobre los controladores anotados.
+ */
+@Configuration
+public class WebSocketConfig {
+
+    @Bean
+    public HandlerMapping webSocketHandlerMapping(LiveRatesWebSocketHandler liveRatesWebSocketHandler) {
+        return new SimpleUrlHandlerMapping(Map.of(LiveRatesWebSocketHandler.PATH, liveRatesWebSocketHandler), -1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.currency_exchange_service.controller;
+
+import com.example.currency_exchange_service.dto.ConversionDistributionResponse;
+import com.example.currency_exchange_service.dto.ConversionVolumeResponse;
+import com.example.currency_exchange_service.rollup.RollupGranularity;
+import com.example.currency_exchange_service.service.ConversionAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Controlador para consultas analíticas sobre las conversiones realizadas.
+ */
+@RestController
+@RequestMapping("/api/v1/analytics")
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsController {
+
+    private final ConversionAnalyticsService conversionAnalyticsService;
+
+    /**
+     * Endpoint para obtener el volumen de conversiones (número, sumas de montos y extremos del monto
+     * original) por par de monedas e intervalo.
+     *
+     * @param granularity Granularidad de los intervalos: MINUTE, HOUR (por defecto) o DAY
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @return Volúmenes por intervalo y par, del intervalo más antiguo al más reciente
+     */
+    @GetMapping("/conversion-volume")
+    public Flux<ConversionVolumeResponse> getConversionVolume(
+            @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+            @RequestParam(required = false) String sourceCurrency,
+            @RequestParam(required = false) String targetCurrency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+        log.info("Solicitud de volumen de conversiones recibida: granularity={}, sourceCurrency={}, targetCurrency={}",
+                granularity, sourceCurrency, targetCurrency);
+
+        return conversionAnalyticsService.getConversionVolume(granularity, sourceCurrency, targetCurrency, startDate, endDate);
+    }
+
+    /**
+     * Endpoint para obtener la distribución estimada de las conversiones (percentiles p50, p95 y p99 y
+     * extremos del monto original, usuarios e IPs distintos) por par de monedas y ventana. Solo se
+     * conservan las ventanas más recientes de cada granularidad.
+     *
+     * @param granularity Granularidad de las ventanas: MINUTE, HOUR (por defecto) o DAY
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @param combined Si es {@code true}, combina las ventanas del rango en una sola distribución por par
+     * @return Distribuciones por ventana y par, de la ventana más antigua a la más reciente
+     */
+    @GetMapping("/conversion-distribution")
+    public Flux<ConversionDistributionResponse> getConversionDistribution(
+            @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+            @RequestParam(required = false) String sourceCurrency,
+            @RequestParam(required = false) String targetCurrency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "false") boolean combined) {
+
+        log.info("Solicitud de distribución de conversiones recibida: granularity={}, sourceCurrency={}, targetCurrency={}, combined={}",
+                granularity, sourceCurrency, targetCurrency, combined);
+
+        return conversionAnalyticsService.getConversionDistribution(granularity, sourceCurrency, targetCurrency,
+                startDate, endDate, combined);
+    }
+}
@@ -1,18 +1,29 @@
 package com.example.currency_exchange_service.controller;
 
+import com.example.currency_exchange_service.dto.ConversionHistoryPage;
 import com.example.currency_exchange_service.dto.ConversionHistoryResponse;
 import com.example.currency_exchange_service.service.CurrencyExchangeService;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
 /**
  * Controlador para operaciones relacionadas con el historial de conversiones.
@@ -20,31 +31,187 @@ import java.time.LocalDateTime;
  */
 @RestController
 @RequestMapping("/api/v1/conversion-history")
-@RequiredArgsConstructor
 @Slf4j
 public class ConversionHistoryController {
 
+    private static final byte[] NEWLINE = {'\n'};
+
     private final CurrencyExchangeService currencyExchangeService;
+    private final ObjectMapper objectMapper;
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private final int streamPrefetch;
+    private final Duration heartbeatInterval;
+
+    public ConversionHistoryController(
+            CurrencyExchangeService currencyExchangeService,
+            ObjectMapper objectMapper,
+            @Value("${currency.history.stream.prefetch:256}") int streamPrefetch,
+            @Value("${currency.history.stream.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.currencyExchangeService = currencyExchangeService;
+        this.objectMapper = objectMapper;
+        this.streamPrefetch = streamPrefetch;
+        this.heartbeatInterval = heartbeatInterval;
+    }
 
     /**
-     * Endpoint para obtener el historial de conversiones con filtros opcionales.
+     * Endpoint para obtener una página del historial de conversiones con filtros opcionales.
+     * Las conversiones se devuelven de la más reciente a la más antigua; para la página siguiente
+     * se envía el {@code nextCursor} de la respuesta en el parámetro {@code cursor}.
      *
      * @param sourceCurrency Filtro opcional por moneda origen
      * @param targetCurrency Filtro opcional por moneda destino
      * @param startDate Filtro opcional por fecha de inicio
      * @param endDate Filtro opcional por fecha de fin
-     * @return Flujo de conversiones que cumplen con los filtros
+     * @param cursor Token de continuación de la página anterior (opcional)
+     * @param size Tamaño de página (opcional)
+     * @return Página de conversiones que cumplen con los filtros
      */
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public Flux<ConversionHistoryResponse> getConversionHistory(
+    public Mono<ConversionHistoryPage> getConversionHistory(
             @RequestParam(required = false) String sourceCurrency,
             @RequestParam(required = false) String targetCurrency,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         
-        log.info("Solicitud de historial de conversiones recibida con filtros: sourceCurrency={}, targetCurrency={}, startDate={}, endDate={}",
-                sourceCurrency, targetCurrency, startDate, endDate);
+        log.info("Solicitud de historial de conversiones recibida con filtros: sourceCurrency={}, targetCurrency={}, startDate={}, endDate={}, size={}",
+                sourceCurrency, targetCurrency, startDate, endDate, size);
         
-        return currencyExchangeService.getConversionHistory(sourceCurrency, targetCurrency, startDate, endDate);
+        return currencyExchangeService.getConversionHistoryPage(sourceCurrency, targetCurrency, startDate, endDate, cursor, size);
+    }
+
+    /**
+     * Endpoint para exportar el historial de conversiones como un flujo NDJSON, una conversión por línea,
+     * de la más reciente a la más antigua. Las filas se escriben a medida que llegan de la base de datos
+     * y según la demanda del cliente, por lo que la memoria no depende del tamaño del resultado. Mientras
+     * el flujo está abierto se envía una línea vacía cada {@code currency.history.stream.heartbeat-interval}.
+     *
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @return Flujo NDJSON de conversiones que cumplen con los filtros
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DataBuffer> streamConversionHistory(
+            @RequestParam(required = false) String sourceCurrency,
+            @RequestParam(required = false) String targetCurrency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+        log.info("Exportación NDJSON del historial solicitada con filtros: sourceCurrency={}, targetCurrency={}, startDate={}, endDate={}",
+                sourceCurrency, targetCurrency, startDate, endDate);
+
+        Flux<DataBuffer> rows = historyRows(sourceCurrency, targetCurrency, startDate, endDate).map(this::toNdjsonLine);
+        return withHeartbeats(rows, () -> bufferFactory.wrap(NEWLINE));
+    }
+
+    /**
+     * Endpoint para seguir el historial de conversiones como eventos SSE ({@code text/event-stream}),
+     * con el identificador de la conversión como {@code id} del evento. Mientras el flujo está abierto
+     * se envía un comentario {@code heartbeat} cada {@code currency.history.stream.heartbeat-interval}.
+     *
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @return Flujo de eventos con las conversiones que cumplen con los filtros
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ConversionHistoryResponse>> streamConversionHistoryEvents(
+            @RequestParam(required = false) String sourceCurrency,
+            @RequestParam(required = false) String targetCurrency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+        log.info("Flujo SSE del historial solicitado con filtros: sourceCurrency={}, targetCurrency={}, startDate={}, endDate={}",
+                sourceCurrency, targetCurrency, startDate, endDate);
+
+        Flux<ServerSentEvent<ConversionHistoryResponse>> rows = historyRows(sourceCurrency, targetCurrency, startDate, endDate)
+                .map(row -> ServerSentEvent.builder(row).id(String.valueOf(row.getId())).build());
+        return withHeartbeats(rows, () -> ServerSentEvent.<ConversionHistoryResponse>builder().comment("heartbeat").build());
+    }
+
+    /**
+     * Endpoint para obtener una página del historial de conversiones de un usuario, de la más reciente
+     * a la más antigua, con la misma paginación por cursor que el historial completo.
+     *
+     * @param userId Usuario que realizó las conversiones
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @param cursor Token de continuación de la página anterior (opcional)
+     * @param size Tamaño de página (opcional)
+     * @return Página de conversiones del usuario
+     */
+    @GetMapping(value = "/users/{userId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ConversionHistoryPage> getUserConversionHistory(
+            @PathVariable String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+
+        log.info("Solicitud de historial del usuario {} recibida: startDate={}, endDate={}, size={}",
+                userId, startDate, endDate, size);
+
+        return currencyExchangeService.getUserConversionHistoryPage(userId, startDate, endDate, cursor, size);
+    }
+
+    /**
+     * Endpoint para exportar el historial de conversiones de un usuario como un flujo NDJSON, con la
+     * misma demanda acotada y latidos que {@link #streamConversionHistory}.
+     *
+     * @param userId Usuario que realizó las conversiones
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @return Flujo NDJSON de conversiones del usuario
+     */
+    @GetMapping(value = "/users/{userId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DataBuffer> streamUserConversionHistory(
+            @PathVariable String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+        log.info("Exportación NDJSON del historial del usuario {} solicitada: startDate={}, endDate={}",
+                userId, startDate, endDate);
+
+        Flux<DataBuffer> rows = currencyExchangeService.getUserConversionHistory(userId, startDate, endDate)
+                .limitRate(streamPrefetch)
+                .map(this::toNdjsonLine);
+        return withHeartbeats(rows, () -> bufferFactory.wrap(NEWLINE));
+    }
+
+    /**
+     * Filas del historial con demanda acotada: se piden a la base de datos en tandas de
+     * {@code currency.history.stream.prefetch} según lo que consume el cliente.
+     */
+    private Flux<ConversionHistoryResponse> historyRows(
+            String sourceCurrency, String targetCurrency, LocalDateTime startDate, LocalDateTime endDate) {
+        return currencyExchangeService.getConversionHistory(sourceCurrency, targetCurrency, startDate, endDate)
+                .limitRate(streamPrefetch);
+    }
+
+    /**
+     * Intercala latidos periódicos con los elementos del flujo hasta que este termina. Los latidos que
+     * el cliente no alcanza a consumir se descartan en lugar de acumularse.
+     */
+    private <T> Flux<T> withHeartbeats(Flux<T> rows, Supplier<T> heartbeat) {
+        return rows.publish(shared -> Flux.merge(
+                shared,
+                Flux.interval(heartbeatInterval)
+                        .onBackpressureDrop()
+                        .map(tick -> heartbeat.get())
+                        .takeUntilOther(shared.then())));
+    }
+
+    private DataBuffer toNdjsonLine(ConversionHistoryResponse row) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(row);
+            DataBuffer buffer = bufferFactory.allocateBuffer(json.length + 1);
+            return buffer.write(json).write(NEWLINE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la conversión " + row.getId(), e);
+        }
     }
 }
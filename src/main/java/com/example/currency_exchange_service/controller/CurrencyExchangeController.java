@@ -6,11 +6,13 @@ import com.example.currency_exchange_service.service.CurrencyExchangeService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -37,4 +39,20 @@ public class CurrencyExchangeController {
         return currencyExchangeService.convertCurrency(request)
                 .map(ResponseEntity::ok);
     }
+
+    /**
+     * Endpoint para convertir un lote de montos.
+     * Acepta un arreglo JSON o un flujo NDJSON de solicitudes y devuelve un flujo NDJSON
+     * de respuestas en el mismo orden, a medida que se calculan.
+     *
+     * @param requests Flujo de solicitudes de conversión
+     * @return Flujo de respuestas en el orden de las solicitudes
+     */
+    @PostMapping(value = "/convert/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CurrencyExchangeResponse> convertBatch(@Valid @RequestBody Flux<CurrencyExchangeRequest> requests) {
+        log.info("Solicitud de conversión por lotes recibida");
+        return currencyExchangeService.convertBatch(requests);
+    }
 }
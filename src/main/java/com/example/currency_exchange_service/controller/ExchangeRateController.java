@@ -1,42 +1,88 @@
 package com.example.currency_exchange_service.controller;
 
 import com.example.currency_exchange_service.dto.ExchangeRateResponse;
+import com.example.currency_exchange_service.rate.LiveRateStream;
 import com.example.currency_exchange_service.service.CurrencyExchangeService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 /**
  * Controlador para operaciones relacionadas con tasas de cambio.
- * Expone endpoints REST para consultar tasas de cambio.
+ * Expone endpoints REST para consultar tasas de cambio y un flujo SSE con las tasas en vivo.
  */
 @RestController
 @RequestMapping("/api/v1/exchange-rates")
-@RequiredArgsConstructor
 @Slf4j
 public class ExchangeRateController {
 
     private final CurrencyExchangeService currencyExchangeService;
+    private final LiveRateStream liveRateStream;
+    private final Duration heartbeatInterval;
+
+    public ExchangeRateController(
+            CurrencyExchangeService currencyExchangeService,
+            LiveRateStream liveRateStream,
+            @Value("${currency.rate-stream.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.currencyExchangeService = currencyExchangeService;
+        this.liveRateStream = liveRateStream;
+        this.heartbeatInterval = heartbeatInterval;
+    }
 
     /**
      * Endpoint para obtener información detallada sobre una tasa de cambio.
      *
      * @param sourceCurrency Código de moneda origen
      * @param targetCurrency Código de moneda destino
+     * @param asOf Instante opcional: devuelve la tasa vigente en ese momento según el historial de tasas
      * @return Respuesta con información de la tasa de cambio
      */
     @GetMapping("/{sourceCurrency}/{targetCurrency}")
     public Mono<ResponseEntity<ExchangeRateResponse>> getExchangeRateInfo(
             @PathVariable String sourceCurrency,
-            @PathVariable String targetCurrency) {
+            @PathVariable String targetCurrency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
         
-        log.info("Solicitud de información de tasa de cambio recibida: {} a {}", sourceCurrency, targetCurrency);
-        return currencyExchangeService.getExchangeRateInfo(sourceCurrency, targetCurrency)
+        log.info("Solicitud de información de tasa de cambio recibida: {} a {}, asOf={}", sourceCurrency, targetCurrency, asOf);
+        return currencyExchangeService.getExchangeRateInfo(sourceCurrency, targetCurrency, asOf)
                 .map(ResponseEntity::ok);
     }
+
+    /**
+     * Endpoint para recibir las tasas en vivo de un conjunto de pares como Server-Sent Events. Primero se
+     * envía la tasa vigente de cada par y luego cada cambio, como eventos {@code rate} cuyo id es la versión
+     * de las tasas. Un cliente lento recibe solo el valor más reciente de cada par. Mientras el flujo está
+     * abierto se envía un comentario {@code heartbeat} cada {@code currency.rate-stream.heartbeat-interval}.
+     *
+     * @param pairs Pares separados por comas con el formato {@code ORIGEN_DESTINO}, por ejemplo {@code USD_EUR,MXN_PEN}
+     * @return Flujo de eventos con las tasas de los pares suscritos
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ExchangeRateResponse>> streamExchangeRates(@RequestParam String pairs) {
+        log.info("Suscripción a tasas en vivo recibida: {}", pairs);
+        Flux<ServerSentEvent<ExchangeRateResponse>> rates = liveRateStream.subscribe(pairs)
+                .map(rate -> ServerSentEvent.builder(rate)
+                        .event("rate")
+                        .id(String.valueOf(rate.getRateVersion()))
+                        .build());
+        return rates.publish(shared -> Flux.merge(
+                shared,
+                Flux.interval(heartbeatInterval)
+                        .onBackpressureDrop()
+                        .map(tick -> ServerSentEvent.<ExchangeRateResponse>builder().comment("heartbeat").build())
+                        .takeUntilOther(shared.then())));
+    }
 }
@@ -0,0 +1,67 @@
+package com.example.currency_exchange_service.controller;
+
+import com.example.currency_exchange_service.export.HistoryExportFormat;
+import com.example.currency_exchange_service.export.HistoryExporter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Controlador para la exportación masiva del historial de conversiones.
+ */
+@RestController
+@RequestMapping("/api/v1/conversion-history/export")
+@RequiredArgsConstructor
+@Slf4j
+public class HistoryExportController {
+
+    private final HistoryExporter historyExporter;
+
+    /**
+     * Endpoint para descargar el historial de conversiones como archivo CSV o binario, opcionalmente
+     * comprimido con GZIP. Las filas se escriben directamente en los buffers de la respuesta a medida
+     * que llegan de la base de datos, sin construir el resultado completo en memoria.
+     *
+     * @param format Formato de salida: CSV (por defecto) o BINARY
+     * @param gzip Si la salida se comprime con GZIP
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @param response Respuesta HTTP, cuya fábrica de buffers se usa para la salida
+     * @return Archivo exportado como adjunto
+     */
+    @GetMapping
+    public ResponseEntity<Flux<DataBuffer>> exportConversionHistory(
+            @RequestParam(defaultValue = "CSV") HistoryExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) String sourceCurrency,
+            @RequestParam(required = false) String targetCurrency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            ServerHttpResponse response) {
+
+        log.info("Exportación del historial solicitada: format={}, gzip={}, sourceCurrency={}, targetCurrency={}, startDate={}, endDate={}",
+                format, gzip, sourceCurrency, targetCurrency, startDate, endDate);
+
+        String filename = "conversion-history." + format.extension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(historyExporter.export(sourceCurrency, targetCurrency, startDate, endDate, format, gzip,
+                        response.bufferFactory()));
+    }
+}
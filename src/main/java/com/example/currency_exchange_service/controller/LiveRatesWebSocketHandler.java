@@ -0,0 +1,68 @@
+package com.example.currency_exchange_service.controller;
+
+import com.example.currency_exchange_service.dto.ExchangeRateResponse;
+import com.example.currency_exchange_service.exception.InvalidSubscriptionException;
+import com.example.currency_exchange_service.exception.SubscriberLimitException;
+import com.example.currency_exchange_service.rate.LiveRateStream;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tasas en vivo por WebSocket en {@code /api/v1/exchange-rates/ws?pairs=USD_EUR,MXN_PEN}.
+ * <p>
+ * Envía cada tasa como un mensaje de texto JSON con el mismo contenido que el flujo SSE. Si los pares no
+ * son válidos la sesión se cierra con el estado 1008 (violación de política) y si se alcanzó el máximo de
+ * suscriptores con el estado 1013 (servicio sobrecargado).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LiveRatesWebSocketHandler implements WebSocketHandler {
+
+    public static final String PATH = "/api/v1/exchange-rates/ws";
+
+    // Longitud máxima del motivo de cierre: el protocolo admite 123 bytes en UTF-8
+    private static final int MAX_REASON_LENGTH = 60;
+
+    private final LiveRateStream liveRateStream;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        String pairs = UriComponentsBuilder.fromUri(session.getHandshakeInfo().getUri())
+                .build()
+                .getQueryParams()
+                .getFirst("pairs");
+        log.info("Suscripción WebSocket a tasas en vivo recibida: {}", pairs);
+        Mono<Void> send = session.send(liveRateStream.subscribe(pairs)
+                        .map(rate -> session.textMessage(toJson(rate))))
+                .onErrorResume(InvalidSubscriptionException.class,
+                        e -> session.close(CloseStatus.POLICY_VIOLATION.withReason(reason(e))))
+                .onErrorResume(SubscriberLimitException.class,
+                        e -> session.close(CloseStatus.SERVICE_OVERLOAD.withReason(reason(e))));
+        // Termina cuando el cliente cierra la sesión, cancelando la suscripción
+        return Mono.firstWithSignal(send, session.receive().then());
+    }
+
+    private String toJson(ExchangeRateResponse rate) {
+        try {
+            return objectMapper.writeValueAsString(rate);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la tasa " + rate.getSourceCurrency()
+                    + "_" + rate.getTargetCurrency(), e);
+        }
+    }
+
+    private static String reason(RuntimeException e) {
+        String message = e.getMessage();
+        return message.length() <= MAX_REASON_LENGTH ? message : message.substring(0, MAX_REASON_LENGTH);
+    }
+}
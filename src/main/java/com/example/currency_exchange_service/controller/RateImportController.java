@@ -0,0 +1,50 @@
+package com.example.currency_exchange_service.controller;
+
+import com.example.currency_exchange_service.dto.RateImportResponse;
+import com.example.currency_exchange_service.rate.RateImportFormat;
+import com.example.currency_exchange_service.rate.RateImporter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controlador para la importación masiva de tasas de cambio.
+ */
+@RestController
+@RequestMapping("/api/v1/exchange-rates/import")
+@RequiredArgsConstructor
+@Slf4j
+public class RateImportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType(RateImportFormat.NDJSON.contentType());
+
+    private final RateImporter rateImporter;
+
+    /**
+     * Endpoint para importar un archivo de tasas de cambio CSV o NDJSON. El cuerpo se procesa a medida
+     * que llega, sin cargar el archivo completo en memoria.
+     *
+     * @param format Formato del archivo; si se omite, NDJSON para {@code application/x-ndjson} y CSV en otro caso
+     * @param request Solicitud HTTP, cuyo cuerpo es el archivo
+     * @return Resultado de la importación, con las filas rechazadas y las filas por segundo
+     */
+    @PostMapping
+    public Mono<ResponseEntity<RateImportResponse>> importRates(
+            @RequestParam(required = false) RateImportFormat format,
+            ServerHttpRequest request) {
+
+        MediaType contentType = request.getHeaders().getContentType();
+        RateImportFormat effectiveFormat = format != null ? format
+                : NDJSON.isCompatibleWith(contentType) ? RateImportFormat.NDJSON : RateImportFormat.CSV;
+        log.info("Importación de tasas solicitada: format={}", effectiveFormat);
+        return rateImporter.importRates(request.getBody(), effectiveFormat)
+                .map(ResponseEntity::ok);
+    }
+}
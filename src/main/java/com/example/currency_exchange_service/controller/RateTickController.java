@@ -0,0 +1,39 @@
+package com.example.currency_exchange_service.controller;
+
+import com.example.currency_exchange_service.dto.RateTickBatchResponse;
+import com.example.currency_exchange_service.rate.RateTickIngestor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * Controlador para la ingesta continua de ticks de tasas de cambio.
+ */
+@RestController
+@RequestMapping("/api/v1/exchange-rates/ticks")
+@RequiredArgsConstructor
+@Slf4j
+public class RateTickController {
+
+    private final RateTickIngestor rateTickIngestor;
+
+    /**
+     * Endpoint para enviar un flujo NDJSON de ticks de tasas de cambio. La solicitud puede mantenerse
+     * abierta: los ticks se combinan por par en ventanas cortas y se responde con una línea NDJSON por
+     * ventana escrita.
+     *
+     * @param request Solicitud HTTP, cuyo cuerpo es el flujo de ticks
+     * @return Resultado de cada ventana escrita
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RateTickBatchResponse> ingestTicks(ServerHttpRequest request) {
+        log.info("Ingesta de ticks de tasas iniciada");
+        return rateTickIngestor.ingest(request.getBody())
+                .doFinally(signal -> log.info("Ingesta de ticks de tasas finalizada: {}", signal));
+    }
+}
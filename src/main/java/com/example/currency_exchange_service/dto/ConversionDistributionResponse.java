@@ -0,0 +1,34 @@
+package com.example.currency_exchange_service.dto;
+
+import com.example.currency_exchange_service.rollup.RollupGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO con la distribución estimada de las conversiones de un par de monedas en una o varias ventanas:
+ * percentiles del monto original (error relativo del 1 %) y número aproximado de usuarios e IPs distintos.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionDistributionResponse {
+    private RollupGranularity granularity;
+    private String sourceCurrency;
+    private String targetCurrency;
+    private LocalDateTime bucketStart;
+    private LocalDateTime bucketEnd;
+    private long count;
+    private BigDecimal originalAmountP50;
+    private BigDecimal originalAmountP95;
+    private BigDecimal originalAmountP99;
+    private BigDecimal originalAmountMin;
+    private BigDecimal originalAmountMax;
+    private long distinctUsers;
+    private long distinctIpAddresses;
+}
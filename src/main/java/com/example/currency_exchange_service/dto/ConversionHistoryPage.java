@@ -0,0 +1,22 @@
+package com.example.currency_exchange_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para una página del historial de conversiones.
+ * Las conversiones se ordenan de la más reciente a la más antigua; {@code nextCursor} permite
+ * pedir la página siguiente y es {@code null} en la última página.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionHistoryPage {
+    private List<ConversionHistoryResponse> items;
+    private String nextCursor;             // Token opaco de continuación (null si no hay más resultados)
+}
@@ -20,6 +20,6 @@ public class ConversionHistoryRequest {
     private String targetCurrency;        // Filtro por moneda destino (opcional)
     private LocalDateTime startDate;      // Fecha de inicio para el filtro (opcional)
     private LocalDateTime endDate;        // Fecha de fin para el filtro (opcional)
-    private Integer page;                 // Número de página para paginación
+    private String cursor;                // Token de continuación de la página anterior (opcional)
     private Integer size;                 // Tamaño de página para paginación
 }
@@ -24,4 +24,6 @@ public class ConversionHistoryResponse {
     private BigDecimal convertedAmount;
     private BigDecimal exchangeRate;
     private LocalDateTime conversionDate;
+    private String ipAddress;
+    private String userId;
 }
@@ -0,0 +1,29 @@
+package com.example.currency_exchange_service.dto;
+
+import com.example.currency_exchange_service.rollup.RollupGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO con el volumen de conversiones de un par de monedas en un intervalo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionVolumeResponse {
+    private RollupGranularity granularity;
+    private String sourceCurrency;
+    private String targetCurrency;
+    private LocalDateTime bucketStart;
+    private long count;
+    private BigDecimal originalAmountSum;
+    private BigDecimal convertedAmountSum;
+    private BigDecimal originalAmountMin;
+    private BigDecimal originalAmountMax;
+}
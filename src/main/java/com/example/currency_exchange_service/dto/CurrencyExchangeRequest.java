@@ -2,6 +2,7 @@ package com.example.currency_exchange_service.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -9,10 +10,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * DTO para solicitudes de conversión de moneda.
- * Contiene el monto a convertir, la moneda origen y la moneda destino.
+ * Contiene el monto a convertir, la moneda origen y la moneda destino, y opcionalmente el instante
+ * cuya tasa se aplica.
  */
 @Data
 @Builder
@@ -28,4 +31,7 @@ public class CurrencyExchangeRequest {
 
     @NotBlank(message = "La moneda destino es requerida")
     private String targetCurrency;
+
+    @PastOrPresent(message = "La fecha de la tasa no puede ser futura")
+    private LocalDateTime asOf;           // Instante opcional de la tasa a aplicar (historial de tasas)
 }
@@ -1,5 +1,6 @@
 package com.example.currency_exchange_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,7 +11,8 @@ import java.math.BigDecimal;
 /**
  * DTO para respuestas de conversión de moneda.
  * Contiene el monto original, el monto convertido, las monedas origen y destino,
- * y la tasa de cambio aplicada.
+ * y la tasa de cambio aplicada. En las conversiones por lotes, una solicitud fallida se responde solo con
+ * el monto, las monedas y {@code error}.
  */
 @Data
 @Builder
@@ -22,4 +24,9 @@ public class CurrencyExchangeResponse {
     private String sourceCurrency;        // Moneda origen
     private String targetCurrency;        // Moneda destino
     private BigDecimal exchangeRate;      // Tasa de cambio aplicada
+    private Long rateVersion;             // Versión de la matriz de tasas que produjo la respuesta
+    private boolean stale;                // Tasa obsoleta: último valor conocido, servido sin esperar a la base de datos
+    private Long rateAgeMillis;           // Antigüedad de la tasa aplicada en milisegundos; null para tasas históricas
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;                 // Motivo del fallo de una solicitud de un lote; null si se convirtió
 }
@@ -23,4 +23,8 @@ public class ExchangeRateResponse {
     private BigDecimal buyRate;           // Tasa para comprar la moneda destino
     private BigDecimal sellRate;          // Tasa para vender la moneda destino
     private LocalDateTime lastUpdated;    // Última actualización de la tasa
+    private Long rateVersion;             // Versión de la matriz de tasas que produjo la respuesta
+    private LocalDateTime asOf;           // Instante consultado, si la tasa proviene del historial de tasas
+    private Boolean stale;                // Tasa obsoleta: último valor conocido, servido sin esperar a la base de datos
+    private Long rateAgeMillis;           // Antigüedad de la tasa vigente en milisegundos
 }
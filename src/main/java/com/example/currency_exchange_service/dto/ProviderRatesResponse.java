@@ -0,0 +1,22 @@
+package com.example.currency_exchange_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * DTO para la respuesta del proveedor externo de tasas de cambio.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProviderRatesResponse {
+    private String base;                    // Moneda base de las tasas
+    private Long timestamp;                 // Instante de las tasas, en segundos desde la época Unix
+    private Map<String, BigDecimal> rates;  // Tasa de la moneda base a cada moneda destino
+}
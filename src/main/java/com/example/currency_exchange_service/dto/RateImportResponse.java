@@ -0,0 +1,29 @@
+package com.example.currency_exchange_service.dto;
+
+import com.example.currency_exchange_service.rate.RateImportFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una importación masiva de tasas de cambio.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateImportResponse {
+    private RateImportFormat format;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private long rowsStale;          // Filas válidas omitidas por ser más antiguas que la tasa vigente del par
+    private int pairsUpdated;
+    private List<String> errors;     // Primeras filas rechazadas, con su número de línea
+    private long durationMillis;
+    private long rowsPerSecond;
+    private Long rateVersion;        // Versión de la matriz de tasas publicada tras la importación
+}
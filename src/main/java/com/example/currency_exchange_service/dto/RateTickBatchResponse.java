@@ -0,0 +1,29 @@
+package com.example.currency_exchange_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una ventana de ticks de tasas de cambio: ticks recibidos, rechazados,
+ * combinados con uno posterior del mismo par y omitidos por ser más antiguos que la tasa vigente, pares
+ * escritos y versión de la matriz publicada.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateTickBatchResponse {
+    private long ticksReceived;
+    private long ticksRejected;
+    private long ticksCoalesced;
+    private long ticksStale;
+    private int pairsUpdated;
+    // Primeros ticks rechazados de la ventana, con su número de línea
+    private List<String> errors;
+    // Versión de la matriz de tasas publicada; null si la ventana no tuvo ticks válidos
+    private Long rateVersion;
+}
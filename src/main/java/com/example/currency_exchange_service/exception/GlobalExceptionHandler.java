@@ -1,5 +1,7 @@
 package com.example.currency_exchange_service.exception;
 
+import com.example.currency_exchange_service.metrics.ConversionMetrics;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,11 +18,15 @@ import java.util.Map;
 /**
  * Manejador global de excepciones para la aplicación.
  * Captura diferentes tipos de excepciones y las convierte en respuestas HTTP apropiadas.
+ * Cada excepción atendida se cuenta en la métrica {@code currency.errors}.
  */
 @RestControllerAdvice
+@RequiredArgsConstructor
 @Slf4j
 public class GlobalExceptionHandler {
 
+    private final ConversionMetrics conversionMetrics;
+
     /**
      * Maneja excepciones cuando no se encuentra una moneda.
      */
@@ -28,6 +34,7 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ResponseEntity<ErrorResponse> handleCurrencyNotFoundException(CurrencyNotFoundException ex) {
         log.error("Moneda no encontrada: {}", ex.getMessage());
+        conversionMetrics.recordError(ex, HttpStatus.NOT_FOUND);
         return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
@@ -38,15 +45,61 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ResponseEntity<ErrorResponse> handleExchangeRateNotFoundException(ExchangeRateNotFoundException ex) {
         log.error("Tasa de cambio no encontrada: {}", ex.getMessage());
+        conversionMetrics.recordError(ex, HttpStatus.NOT_FOUND);
         return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Maneja excepciones cuando el cursor de paginación no es válido.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ErrorResponse> handleInvalidCursorException(InvalidCursorException ex) {
+        log.warn("Cursor de paginación inválido: {}", ex.getMessage());
+        conversionMetrics.recordError(ex, HttpStatus.BAD_REQUEST);
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Maneja excepciones cuando la suscripción a tasas en vivo no es válida.
+     */
+    @ExceptionHandler(InvalidSubscriptionException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ErrorResponse> handleInvalidSubscriptionException(InvalidSubscriptionException ex) {
+        log.warn("Suscripción a tasas inválida: {}", ex.getMessage());
+        conversionMetrics.recordError(ex, HttpStatus.BAD_REQUEST);
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Maneja excepciones cuando se alcanzó el máximo de suscriptores a tasas en vivo.
+     */
+    @ExceptionHandler(SubscriberLimitException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<ErrorResponse> handleSubscriberLimitException(SubscriberLimitException ex) {
+        log.warn("Suscripción a tasas rechazada: {}", ex.getMessage());
+        conversionMetrics.recordError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        return buildErrorResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Maneja excepciones cuando la tasa disponible de un par supera su antigüedad máxima.
+     */
+    @ExceptionHandler(StaleRateException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<ErrorResponse> handleStaleRateException(StaleRateException ex) {
+        log.warn("Tasa de cambio demasiado antigua: {}", ex.getMessage());
+        conversionMetrics.recordError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        return buildErrorResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Maneja excepciones de validación de datos de entrada.
      */
     @ExceptionHandler(WebExchangeBindException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(WebExchangeBindException ex) {
+        conversionMetrics.recordError(ex, HttpStatus.BAD_REQUEST);
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach(error -> {
             String fieldName = ((FieldError) error).getField();
@@ -63,6 +116,7 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         log.error("Ocurrió un error inesperado", ex);
+        conversionMetrics.recordError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         return buildErrorResponse("Ocurrió un error inesperado", HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
@@ -0,0 +1,7 @@
+package com.example.currency_exchange_service.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.currency_exchange_service.exception;
+
+public class InvalidSubscriptionException extends RuntimeException {
+    public InvalidSubscriptionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.currency_exchange_service.exception;
+
+public class RateProviderException extends RuntimeException {
+    public RateProviderException(String message) {
+        super(message);
+    }
+
+    public RateProviderException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
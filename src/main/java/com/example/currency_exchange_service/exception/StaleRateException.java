@@ -0,0 +1,7 @@
+package com.example.currency_exchange_service.exception;
+
+public class StaleRateException extends RuntimeException {
+    public StaleRateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.currency_exchange_service.exception;
+
+public class SubscriberLimitException extends RuntimeException {
+    public SubscriberLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.currency_exchange_service.export;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Formatos de exportación del historial de conversiones. Cada formato escribe las filas directamente
+ * en un {@link DataBuffer}, sin pasar por {@code ConversionHistoryResponse} ni por cadenas intermedias
+ * para los campos numéricos y las fechas.
+ */
+public enum HistoryExportFormat {
+
+    /**
+     * CSV (RFC 4180) con cabecera, fin de línea {@code CRLF}, fechas ISO-8601 y montos con escala {@value #SCALE}.
+     * Los campos de texto con comas, comillas o saltos de línea se escriben entre comillas.
+     */
+    CSV("text/csv", "csv") {
+        private static final byte[] HEADER = ("id,conversionDate,sourceCurrencyCode,targetCurrencyCode,"
+                + "originalAmount,convertedAmount,exchangeRate,ipAddress,userId\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        @Override
+        public void writeHeader(DataBuffer buffer) {
+            buffer.write(HEADER);
+        }
+
+        @Override
+        public void write(ConversionHistory row, DataBuffer buffer) {
+            writeDigits(buffer, row.getId());
+            buffer.write((byte) ',');
+            writeDate(buffer, row.getConversionDate());
+            buffer.write((byte) ',');
+            writeText(buffer, row.getSourceCurrencyCode());
+            buffer.write((byte) ',');
+            writeText(buffer, row.getTargetCurrencyCode());
+            buffer.write((byte) ',');
+            writeDecimal(buffer, row.getOriginalAmount());
+            buffer.write((byte) ',');
+            writeDecimal(buffer, row.getConvertedAmount());
+            buffer.write((byte) ',');
+            writeDecimal(buffer, row.getExchangeRate());
+            buffer.write((byte) ',');
+            writeText(buffer, row.getIpAddress());
+            buffer.write((byte) ',');
+            writeText(buffer, row.getUserId());
+            buffer.write((byte) '\r').write((byte) '\n');
+        }
+    },
+
+    /**
+     * Binario con prefijo de longitud: cabecera {@code CHX1} y versión, y por cada fila un {@code int} con
+     * la longitud del registro seguido de {@code id} ({@code long}), segundo epoch UTC ({@code long}) y
+     * nanosegundos ({@code int}) de la fecha, códigos de moneda, los tres montos y la IP y el usuario.
+     * Los textos se escriben como {@code short} con la longitud en bytes UTF-8 ({@code -1} para {@code null})
+     * seguido de los bytes; los montos como un byte con la longitud seguido del valor sin escala (escala
+     * {@value #SCALE}) en complemento a dos, big-endian. Todos los enteros son big-endian.
+     */
+    BINARY("application/octet-stream", "chx") {
+        private static final int MAGIC = 0x43485831; // "CHX1"
+        private static final int VERSION = 1;
+
+        @Override
+        public void writeHeader(DataBuffer buffer) {
+            writeInt(buffer, MAGIC);
+            buffer.write((byte) VERSION);
+        }
+
+        @Override
+        public void write(ConversionHistory row, DataBuffer buffer) {
+            // La longitud se completa al final del registro, cuando se conoce
+            int start = buffer.writePosition();
+            writeInt(buffer, 0);
+            writeLong(buffer, row.getId());
+            writeLong(buffer, row.getConversionDate().toEpochSecond(ZoneOffset.UTC));
+            writeInt(buffer, row.getConversionDate().getNano());
+            writeString(buffer, row.getSourceCurrencyCode());
+            writeString(buffer, row.getTargetCurrencyCode());
+            writeAmount(buffer, row.getOriginalAmount());
+            writeAmount(buffer, row.getConvertedAmount());
+            writeAmount(buffer, row.getExchangeRate());
+            writeString(buffer, row.getIpAddress());
+            writeString(buffer, row.getUserId());
+            int end = buffer.writePosition();
+            buffer.writePosition(start);
+            writeInt(buffer, end - start - Integer.BYTES);
+            buffer.writePosition(end);
+        }
+    };
+
+    /**
+     * Escala de los montos exportados, la de {@code conversion_history}.
+     */
+    public static final int SCALE = 6;
+
+    private static final long SCALE_FACTOR = 1_000_000L;
+
+    private final String contentType;
+    private final String extension;
+
+    HistoryExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * Tipo de contenido HTTP del formato, sin compresión.
+     */
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Extensión de archivo del formato, sin compresión.
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Escribe la cabecera del archivo exportado.
+     */
+    public abstract void writeHeader(DataBuffer buffer);
+
+    /**
+     * Escribe una fila del historial.
+     */
+    public abstract void write(ConversionHistory row, DataBuffer buffer);
+
+    private static void writeDigits(DataBuffer buffer, long value) {
+        if (value < 0) {
+            buffer.write((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                buffer.write("9223372036854775808".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.write((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private static void writePadded(DataBuffer buffer, long value, int width) {
+        for (long divisor = pow10(width - 1); divisor > 0; divisor /= 10) {
+            buffer.write((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    private static void writeDate(DataBuffer buffer, LocalDateTime date) {
+        writePadded(buffer, date.getYear(), 4);
+        buffer.write((byte) '-');
+        writePadded(buffer, date.getMonthValue(), 2);
+        buffer.write((byte) '-');
+        writePadded(buffer, date.getDayOfMonth(), 2);
+        buffer.write((byte) 'T');
+        writePadded(buffer, date.getHour(), 2);
+        buffer.write((byte) ':');
+        writePadded(buffer, date.getMinute(), 2);
+        buffer.write((byte) ':');
+        writePadded(buffer, date.getSecond(), 2);
+        int nano = date.getNano();
+        if (nano != 0) {
+            buffer.write((byte) '.');
+            if (nano % 1000 == 0) {
+                writePadded(buffer, nano / 1000, 6);
+            } else {
+                writePadded(buffer, nano, 9);
+            }
+        }
+    }
+
+    private static void writeDecimal(DataBuffer buffer, BigDecimal amount) {
+        if (amount == null) {
+            return;
+        }
+        long unscaled = unscaled(amount);
+        if (unscaled == Long.MIN_VALUE) {
+            buffer.write(amount.setScale(SCALE, RoundingMode.HALF_UP).toPlainString().getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if (unscaled < 0) {
+            buffer.write((byte) '-');
+            unscaled = -unscaled;
+        }
+        writeDigits(buffer, unscaled / SCALE_FACTOR);
+        buffer.write((byte) '.');
+        writePadded(buffer, unscaled % SCALE_FACTOR, SCALE);
+    }
+
+    private static void writeText(DataBuffer buffer, String text) {
+        if (text == null) {
+            return;
+        }
+        boolean quote = false;
+        boolean ascii = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            quote |= c == ',' || c == '"' || c == '\r' || c == '\n';
+            ascii &= c < 0x80;
+        }
+        if (quote) {
+            buffer.write((byte) '"');
+            buffer.write(text.replace("\"", "\"\"").getBytes(StandardCharsets.UTF_8));
+            buffer.write((byte) '"');
+        } else if (ascii) {
+            for (int i = 0; i < text.length(); i++) {
+                buffer.write((byte) text.charAt(i));
+            }
+        } else {
+            buffer.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeString(DataBuffer buffer, String text) {
+        if (text == null) {
+            writeShort(buffer, -1);
+            return;
+        }
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            writeShort(buffer, text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buffer.write((byte) text.charAt(i));
+            }
+        } else {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            writeShort(buffer, bytes.length);
+            buffer.write(bytes);
+        }
+    }
+
+    private static void writeAmount(DataBuffer buffer, BigDecimal amount) {
+        long unscaled = unscaled(amount);
+        if (unscaled != Long.MIN_VALUE) {
+            buffer.write((byte) Long.BYTES);
+            writeLong(buffer, unscaled);
+        } else {
+            byte[] bytes = amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().toByteArray();
+            buffer.write((byte) bytes.length);
+            buffer.write(bytes);
+        }
+    }
+
+    /**
+     * Monto sin escala con escala {@value #SCALE}, o {@link Long#MIN_VALUE} si no cabe en un {@code long}.
+     */
+    private static long unscaled(BigDecimal amount) {
+        if (amount.precision() - amount.scale() > 12) {
+            return Long.MIN_VALUE;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).scaleByPowerOfTen(SCALE).longValue();
+    }
+
+    private static void writeShort(DataBuffer buffer, int value) {
+        buffer.write((byte) (value >>> 8)).write((byte) value);
+    }
+
+    private static void writeInt(DataBuffer buffer, int value) {
+        buffer.write((byte) (value >>> 24)).write((byte) (value >>> 16)).write((byte) (value >>> 8)).write((byte) value);
+    }
+
+    private static void writeLong(DataBuffer buffer, long value) {
+        writeInt(buffer, (int) (value >>> 32));
+        writeInt(buffer, (int) value);
+    }
+}
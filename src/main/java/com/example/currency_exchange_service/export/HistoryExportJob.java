@@ -0,0 +1,65 @@
+package com.example.currency_exchange_service.export;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Exportación del historial sin pasar por la API: si la aplicación se inicia con {@code --export-history=<archivo>},
+ * exporta el historial a ese archivo, informa las filas por segundo y termina el proceso.
+ * <p>
+ * Opciones: {@code --export-format=CSV|BINARY} (CSV por defecto), {@code --export-gzip}, y los filtros
+ * {@code --export-source}, {@code --export-target}, {@code --export-start} y {@code --export-end}
+ * (fechas ISO-8601).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HistoryExportJob implements ApplicationRunner {
+
+    private final HistoryExporter historyExporter;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String file = option(args, "export-history");
+        if (file == null) {
+            return;
+        }
+        HistoryExportFormat format = HistoryExportFormat.valueOf(
+                optionOrDefault(args, "export-format", "CSV").toUpperCase(Locale.ROOT));
+        boolean gzip = args.containsOption("export-gzip");
+        String start = option(args, "export-start");
+        String end = option(args, "export-end");
+
+        long startedAt = System.nanoTime();
+        Long rows = historyExporter.exportToFile(Path.of(file), option(args, "export-source"), option(args, "export-target"),
+                        start != null ? LocalDateTime.parse(start) : null, end != null ? LocalDateTime.parse(end) : null,
+                        format, gzip)
+                .block();
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        log.info("Exportadas {} conversiones a {} ({}{}) en {} s: {} filas/s", rows, file, format, gzip ? ", gzip" : "",
+                String.format(Locale.ROOT, "%.2f", seconds), String.format(Locale.ROOT, "%.0f", rows / Math.max(seconds, 1e-9)));
+
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static String optionOrDefault(ApplicationArguments args, String name, String defaultValue) {
+        String value = option(args, name);
+        return value != null ? value : defaultValue;
+    }
+}
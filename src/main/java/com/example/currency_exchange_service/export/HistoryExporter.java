@@ -0,0 +1,277 @@
+package com.example.currency_exchange_service.export;
+
+import com.example.currency_exchange_service.history.HistoryArchive;
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.repository.ConversionHistoryRepository;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación masiva del historial de conversiones (filas vivas y archivadas) en un {@link HistoryExportFormat}.
+ * <p>
+ * Las filas se leen de la base de datos según la demanda y se escriben en grupos de
+ * {@code currency.history.export.batch-size} directamente en buffers del {@link DataBufferFactory}
+ * indicado (en HTTP, los buffers Netty del pool de la respuesta), sin construir DTOs. Opcionalmente la
+ * salida se comprime con GZIP a medida que se produce.
+ */
+@Component
+@Slf4j
+public class HistoryExporter {
+
+    // Bytes reservados por fila al asignar el buffer de un grupo; el buffer crece si hace falta
+    private static final int ESTIMATED_ROW_BYTES = 128;
+
+    private final ConversionHistoryRepository conversionHistoryRepository;
+    private final HistoryArchive historyArchive;
+    private final int batchSize;
+    private final DataBufferFactory fileBufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    public HistoryExporter(
+            ConversionHistoryRepository conversionHistoryRepository,
+            HistoryArchive historyArchive,
+            @Value("${currency.history.export.batch-size:512}") int batchSize) {
+        this.conversionHistoryRepository = conversionHistoryRepository;
+        this.historyArchive = historyArchive;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Exporta las conversiones que cumplen con los filtros, de la más reciente a la más antigua.
+     * Quien consume el flujo debe liberar cada buffer.
+     *
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @param format Formato de salida
+     * @param gzip Si la salida se comprime con GZIP
+     * @param bufferFactory Fábrica de los buffers de salida
+     * @return Flujo de buffers con el contenido exportado
+     */
+    public Flux<DataBuffer> export(String sourceCurrency, String targetCurrency,
+                                   LocalDateTime startDate, LocalDateTime endDate,
+                                   HistoryExportFormat format, boolean gzip, DataBufferFactory bufferFactory) {
+        Flux<DataBuffer> encoded = encode(rows(sourceCurrency, targetCurrency, startDate, endDate), format, bufferFactory);
+        return gzip ? gzip(encoded, bufferFactory) : encoded;
+    }
+
+    /**
+     * Exporta las conversiones que cumplen con los filtros a un archivo, escribiendo los buffers en un
+     * {@link FileChannel}. El archivo se escribe primero como temporal y se publica con un renombrado atómico.
+     *
+     * @param file Archivo de destino
+     * @return Número de conversiones exportadas
+     */
+    public Mono<Long> exportToFile(Path file, String sourceCurrency, String targetCurrency,
+                                   LocalDateTime startDate, LocalDateTime endDate,
+                                   HistoryExportFormat format, boolean gzip) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        AtomicLong exported = new AtomicLong();
+        return Mono.defer(() -> {
+            Flux<DataBuffer> encoded = encode(rows(sourceCurrency, targetCurrency, startDate, endDate)
+                    .doOnNext(row -> exported.incrementAndGet()), format, fileBufferFactory);
+            Flux<DataBuffer> output = gzip ? gzip(encoded, fileBufferFactory) : encoded;
+            return Flux.using(
+                            () -> {
+                                Files.createDirectories(temp.toAbsolutePath().getParent());
+                                return FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING);
+                            },
+                            channel -> DataBufferUtils.write(output.publishOn(Schedulers.boundedElastic()), channel)
+                                    .doOnNext(DataBufferUtils::release),
+                            channel -> {
+                                try {
+                                    channel.close();
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            })
+                    .then(Mono.fromCallable(() -> {
+                        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        return exported.get();
+                    }).subscribeOn(Schedulers.boundedElastic()))
+                    .doOnError(error -> {
+                        try {
+                            Files.deleteIfExists(temp);
+                        } catch (IOException e) {
+                            log.warn("No se pudo borrar el temporal de exportación {}", temp, e);
+                        }
+                    });
+        });
+    }
+
+    private Flux<ConversionHistory> rows(String sourceCurrency, String targetCurrency,
+                                         LocalDateTime startDate, LocalDateTime endDate) {
+        return Flux.mergeComparing(HistoryArchive.NEWEST_FIRST,
+                conversionHistoryRepository.findByFilters(sourceCurrency, targetCurrency, startDate, endDate),
+                historyArchive.find(sourceCurrency, targetCurrency, null, startDate, endDate, null, null));
+    }
+
+    /**
+     * Escribe la cabecera y cada grupo de filas en un buffer.
+     */
+    private Flux<DataBuffer> encode(Flux<ConversionHistory> rows, HistoryExportFormat format,
+                                    DataBufferFactory bufferFactory) {
+        Mono<DataBuffer> header = Mono.fromSupplier(() -> {
+            DataBuffer buffer = bufferFactory.allocateBuffer(ESTIMATED_ROW_BYTES);
+            format.writeHeader(buffer);
+            return buffer;
+        });
+        Flux<DataBuffer> body = rows.buffer(batchSize)
+                .map(batch -> encodeBatch(batch, format, bufferFactory));
+        return header.concatWith(body)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private static DataBuffer encodeBatch(List<ConversionHistory> batch, HistoryExportFormat format,
+                                          DataBufferFactory bufferFactory) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(batch.size() * ESTIMATED_ROW_BYTES);
+        try {
+            for (ConversionHistory row : batch) {
+                format.write(row, buffer);
+            }
+            return buffer;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Comprime un flujo de buffers con GZIP. Cada buffer de entrada se libera al comprimirlo; los buffers
+     * de salida vacíos (el compresor aún no emitió datos) se descartan.
+     */
+    private static Flux<DataBuffer> gzip(Flux<DataBuffer> source, DataBufferFactory bufferFactory) {
+        return Flux.using(
+                () -> new GzipState(bufferFactory),
+                state -> source.map(state::compress)
+                        .concatWith(Mono.fromSupplier(state::finish))
+                        .filter(buffer -> {
+                            if (buffer.readableByteCount() > 0) {
+                                return true;
+                            }
+                            DataBufferUtils.release(buffer);
+                            return false;
+                        }),
+                GzipState::close);
+    }
+
+    /**
+     * Compresor GZIP de un flujo de exportación. Escribe en el buffer de salida actual a través de un
+     * {@link OutputStream}; no es seguro para hilos, pero los operadores de Reactor lo invocan en serie.
+     */
+    private static final class GzipState extends OutputStream {
+
+        private final DataBufferFactory bufferFactory;
+        private final GZIPOutputStream gzip;
+        private final byte[] chunk = new byte[8 * 1024];
+        private DataBuffer current;
+        private boolean closed;
+
+        GzipState(DataBufferFactory bufferFactory) throws IOException {
+            this.bufferFactory = bufferFactory;
+            // La cabecera GZIP se escribe al crear el compresor y sale con el primer buffer
+            this.current = bufferFactory.allocateBuffer(256);
+            this.gzip = new GZIPOutputStream(this, 64 * 1024);
+        }
+
+        DataBuffer compress(DataBuffer input) {
+            // La entrada comprimida ocupa menos; el buffer de salida crece si hace falta
+            if (current == null) {
+                current = bufferFactory.allocateBuffer(Math.max(input.readableByteCount() / 4, 256));
+            }
+            try (DataBuffer.ByteBufferIterator iterator = input.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer source = iterator.next();
+                    while (source.hasRemaining()) {
+                        int length = Math.min(source.remaining(), chunk.length);
+                        source.get(chunk, 0, length);
+                        gzip.write(chunk, 0, length);
+                    }
+                }
+                return takeCurrent();
+            } catch (IOException e) {
+                DataBufferUtils.release(takeCurrent());
+                throw new UncheckedIOException(e);
+            } finally {
+                DataBufferUtils.release(input);
+            }
+        }
+
+        DataBuffer finish() {
+            if (current == null) {
+                current = bufferFactory.allocateBuffer(256);
+            }
+            try {
+                gzip.finish();
+                return takeCurrent();
+            } catch (IOException e) {
+                DataBufferUtils.release(takeCurrent());
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private DataBuffer takeCurrent() {
+            DataBuffer buffer = current;
+            current = null;
+            return buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            if (current != null) {
+                current.write((byte) b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            if (current != null) {
+                current.write(bytes, offset, length);
+            }
+        }
+
+        /**
+         * Libera el compresor. Tras una cancelación o un error, lo que aún escriba el compresor se descarta.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            DataBuffer unsent = takeCurrent();
+            if (unsent != null) {
+                DataBufferUtils.release(unsent);
+            }
+            try {
+                gzip.close();
+            } catch (IOException e) {
+                log.debug("Error al cerrar el compresor de exportación", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package com.example.currency_exchange_service.history;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Escritura diferida (write-behind) del historial de conversiones.
+ * Las conversiones encolan su registro en un búfer acotado y responden de inmediato; el búfer se
+ * vacía en inserciones multi-fila cuando alcanza el tamaño de lote o cuando vence el intervalo de vaciado.
+ * Si el búfer está lleno se aplica la política de desbordamiento configurada:
+ * <ul>
+ *     <li>{@code BLOCK}: espera (fuera de los hilos de eventos) a que haya espacio, hasta un tiempo máximo.</li>
+ *     <li>{@code DROP}: descarta el registro e incrementa la métrica {@code conversion.history.dropped}.</li>
+ *     <li>{@code SPILL}: escribe el registro en un archivo NDJSON local que se reinserta cuando el búfer se vacía.</li>
+ * </ul>
+ * Un lote cuya inserción falla se reintenta hasta {@code retry-attempts} veces con espera exponencial a partir de
+ * {@code retry-backoff}; si sigue fallando, con {@code SPILL} se escribe en el archivo de desbordamiento y con las
+ * demás políticas se descarta e incrementa la métrica {@code conversion.history.failed}. La reinserción del
+ * archivo de desbordamiento registra tras cada lote cuántas líneas ya se guardaron, de modo que una reinserción
+ * interrumpida continúa donde quedó. Las líneas que no se pueden leer (por ejemplo, la última línea a medio
+ * escribir tras una caída) se apartan en el archivo {@code .rejected} junto al de desbordamiento, se cuentan en
+ * {@code conversion.history.failed} y no detienen la reinserción de las demás.
+ * Al detener la aplicación se deja terminar el vaciado en curso y se vacía el búfer completo antes de cerrar
+ * las conexiones, con un tiempo máximo para cada paso. Un lote cuya inserción sigue en curso al agotarse el
+ * tiempo se desborda a disco con {@code SPILL} (puede quedar duplicado si la inserción llegó a guardarse) y con
+ * las demás políticas se cuenta en {@code conversion.history.failed}, igual que los registros que quedan en el búfer.
+ * Cada lote guardado se notifica a los {@link ConversionRecordListener} registrados.
+ */
+@Component
+@Slf4j
+public class ConversionHistoryWriter {
+
+    /**
+     * Política aplicada cuando el búfer está lleno.
+     */
+    public enum OverflowPolicy {
+        BLOCK, DROP, SPILL
+    }
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final String INSERT_PREFIX = "INSERT INTO conversion_history (source_currency_code, target_currency_code, "
+            + "original_amount, converted_amount, exchange_rate, conversion_date, ip_address, user_id) VALUES ";
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<ConversionHistory> buffer;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+    private final Path spillFile;
+    private final int retryAttempts;
+    private final Duration retryBackoff;
+    private final Counter droppedCounter;
+    private final Counter spilledCounter;
+    private final Counter failedCounter;
+    private final List<ConversionRecordListener> listeners;
+
+    private final Sinks.Many<Boolean> flushRequests = Sinks.many().unicast()
+            .onBackpressureBuffer(new ArrayBlockingQueue<>(1));
+    private final Sinks.One<Boolean> stopping = Sinks.one();
+    private final CountDownLatch flushLoopStopped = new CountDownLatch(1);
+    private Disposable flushLoop;
+
+    public ConversionHistoryWriter(
+            DatabaseClient databaseClient,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${currency.history.write-behind.capacity:10000}") int capacity,
+            @Value("${currency.history.write-behind.batch-size:500}") int batchSize,
+            @Value("${currency.history.write-behind.flush-interval:1s}") Duration flushInterval,
+            @Value("${currency.history.write-behind.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+            @Value("${currency.history.write-behind.block-timeout:5s}") Duration blockTimeout,
+            @Value("${currency.history.write-behind.spill-file:data/conversion-history-spill.ndjson}") Path spillFile,
+            @Value("${currency.history.write-behind.retry-attempts:3}") int retryAttempts,
+            @Value("${currency.history.write-behind.retry-backoff:200ms}") Duration retryBackoff,
+            List<ConversionRecordListener> listeners) {
+        this.databaseClient = databaseClient;
+        this.objectMapper = objectMapper;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+        this.spillFile = spillFile;
+        this.retryAttempts = retryAttempts;
+        this.retryBackoff = retryBackoff;
+        this.droppedCounter = meterRegistry.counter("conversion.history.dropped");
+        this.spilledCounter = meterRegistry.counter("conversion.history.spilled");
+        this.failedCounter = meterRegistry.counter("conversion.history.failed");
+        this.listeners = List.copyOf(listeners);
+        Gauge.builder("conversion.history.buffered", buffer, BlockingQueue::size).register(meterRegistry);
+    }
+
+    /**
+     * Inicia el ciclo de vaciado periódico y por tamaño.
+     */
+    @PostConstruct
+    public void start() {
+        flushLoop = Flux.merge(Flux.interval(flushInterval).map(tick -> Boolean.TRUE), flushRequests.asFlux())
+                // Al detenerse deja de aceptar disparos, pero el vaciado en curso termina
+                .takeUntilOther(stopping.asMono())
+                .onBackpressureDrop()
+                .concatMap(trigger -> flush(), 1)
+                .doFinally(signal -> flushLoopStopped.countDown())
+                .subscribe();
+        log.info("Escritura diferida del historial iniciada: capacidad {}, lote {}, intervalo {}, política {}",
+                buffer.remainingCapacity(), batchSize, flushInterval, overflowPolicy);
+    }
+
+    /**
+     * Detiene el ciclo de vaciado y escribe todos los registros pendientes.
+     */
+    @PreDestroy
+    public void stop() {
+        if (flushLoop != null) {
+            stopping.tryEmitValue(Boolean.TRUE);
+            if (!awaitFlushLoop()) {
+                log.warn("El vaciado en curso del historial no terminó en {}; se cancela", SHUTDOWN_TIMEOUT);
+                flushLoop.dispose();
+            }
+        }
+        log.info("Vaciando {} registros pendientes del historial", buffer.size());
+        try {
+            flush().block(SHUTDOWN_TIMEOUT);
+        } catch (IllegalStateException e) {
+            log.error("El vaciado final del historial no terminó en {}", SHUTDOWN_TIMEOUT);
+        }
+        List<ConversionHistory> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            abandon(remaining);
+        }
+    }
+
+    private boolean awaitFlushLoop() {
+        try {
+            return flushLoopStopped.await(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Registros que ya no se pueden insertar al detener la aplicación: se desbordan a disco con {@code SPILL};
+     * con las demás políticas se pierden y se cuentan como fallidos.
+     */
+    private void abandon(List<ConversionHistory> histories) {
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            spill(histories);
+        } else {
+            failedCounter.increment(histories.size());
+            log.error("Se pierden {} registros del historial sin guardar al detener la aplicación", histories.size());
+        }
+    }
+
+    /**
+     * Encola un registro del historial.
+     *
+     * @param history Registro a guardar
+     * @return Mono que completa en cuanto el registro se ha encolado (o se ha tratado según la política de desbordamiento)
+     */
+    public Mono<Void> enqueue(ConversionHistory history) {
+        return Mono.defer(() -> {
+            if (buffer.offer(history)) {
+                if (buffer.size() >= batchSize) {
+                    requestFlush();
+                }
+                return Mono.empty();
+            }
+            requestFlush();
+            return overflow(history);
+        });
+    }
+
+    /**
+     * Encola un grupo de registros del historial.
+     *
+     * @param histories Registros a guardar
+     * @return Mono que completa cuando todos los registros se han encolado
+     */
+    public Mono<Void> enqueueAll(List<ConversionHistory> histories) {
+        return Flux.fromIterable(histories)
+                .concatMap(this::enqueue)
+                .then();
+    }
+
+    /**
+     * Número de registros pendientes en el búfer.
+     */
+    public int pending() {
+        return buffer.size();
+    }
+
+    /**
+     * Aplica la política de desbordamiento a un registro que no cabe en el búfer.
+     */
+    private Mono<Void> overflow(ConversionHistory history) {
+        return switch (overflowPolicy) {
+            case BLOCK -> Mono.fromCallable(() -> buffer.offer(history, blockTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(accepted -> accepted
+                            ? Mono.<Void>empty()
+                            : Mono.error(new IllegalStateException("Búfer del historial de conversiones lleno")));
+            case DROP -> Mono.fromRunnable(() -> {
+                droppedCounter.increment();
+                log.warn("Búfer del historial lleno, registro descartado");
+            });
+            case SPILL -> Mono.<Void>fromRunnable(() -> spill(List.of(history)))
+                    .subscribeOn(Schedulers.boundedElastic());
+        };
+    }
+
+    private void requestFlush() {
+        // Si ya hay un vaciado pendiente la señal se descarta
+        flushRequests.tryEmitNext(Boolean.TRUE);
+    }
+
+    /**
+     * Vacía el búfer en lotes y, cuando queda vacío, reinserta los registros desbordados a disco.
+     */
+    private Mono<Void> flush() {
+        return Mono.defer(this::flushBatch)
+                .repeat(() -> !buffer.isEmpty())
+                .then(Mono.defer(this::replaySpill))
+                .onErrorResume(error -> {
+                    log.error("Error al vaciar el historial de conversiones", error);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Integer> flushBatch() {
+        List<ConversionHistory> batch = new ArrayList<>(batchSize);
+        buffer.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+            return Mono.just(0);
+        }
+        // Inserción en curso: si se cancela en ese momento el lote pudo haberse guardado ya
+        AtomicBoolean inFlight = new AtomicBoolean();
+        return insertWithRetry(batch, inFlight)
+                .doOnCancel(() -> {
+                    // Si el vaciado se cancela (al agotarse el tiempo para detener la aplicación) antes de enviar
+                    // la inserción o entre reintentos, el lote vuelve al búfer; con la inserción en curso no se
+                    // sabe si se guardó
+                    if (inFlight.get()) {
+                        log.warn("Vaciado cancelado con la inserción de {} registros del historial en curso", batch.size());
+                        abandon(batch);
+                    } else {
+                        batch.forEach(buffer::offer);
+                    }
+                })
+                .onErrorResume(error -> {
+                    log.error("No se pudo guardar un lote de {} registros del historial tras {} reintentos",
+                            batch.size(), retryAttempts, error);
+                    if (overflowPolicy == OverflowPolicy.SPILL) {
+                        return Mono.fromRunnable(() -> spill(batch))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .thenReturn(0);
+                    }
+                    failedCounter.increment(batch.size());
+                    return Mono.just(0);
+                });
+    }
+
+    /**
+     * Inserta un lote, reintentando los fallos con espera exponencial acotada.
+     *
+     * @param batch    Registros a insertar
+     * @param inFlight Se marca desde que se envía una inserción hasta que falla
+     * @return Número de filas insertadas
+     */
+    private Mono<Integer> insertWithRetry(List<ConversionHistory> batch, AtomicBoolean inFlight) {
+        return Mono.defer(() -> {
+                    inFlight.set(true);
+                    return insert(batch);
+                })
+                // Un fallo deja el lote sin guardar; tras un éxito la marca se conserva
+                .doOnError(error -> inFlight.set(false))
+                .retryWhen(Retry.backoff(retryAttempts, retryBackoff)
+                        .doBeforeRetry(signal -> log.warn("Reintentando un lote de {} registros del historial ({}): {}",
+                                batch.size(), signal.totalRetries() + 1, signal.failure().getMessage()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Inserta un lote con una única sentencia INSERT multi-fila.
+     *
+     * @param batch Registros a insertar
+     * @return Número de filas insertadas
+     */
+    private Mono<Integer> insert(List<ConversionHistory> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:source").append(i).append(", :target").append(i)
+                    .append(", :original").append(i).append(", :converted").append(i)
+                    .append(", :rate").append(i).append(", :date").append(i)
+                    .append(", :ip").append(i).append(", :user").append(i).append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < batch.size(); i++) {
+            ConversionHistory history = batch.get(i);
+            spec = spec.bind("source" + i, history.getSourceCurrencyCode())
+                    .bind("target" + i, history.getTargetCurrencyCode())
+                    .bind("original" + i, history.getOriginalAmount())
+                    .bind("converted" + i, history.getConvertedAmount())
+                    .bind("rate" + i, history.getExchangeRate())
+                    .bind("date" + i, history.getConversionDate());
+            spec = bindNullable(spec, "ip" + i, history.getIpAddress());
+            spec = bindNullable(spec, "user" + i, history.getUserId());
+        }
+        return spec.fetch().rowsUpdated()
+                .map(Long::intValue)
+                .doOnNext(rows -> {
+                    log.debug("Guardados {} registros del historial", rows);
+                    notifyRecorded(batch);
+                });
+    }
+
+    private void notifyRecorded(List<ConversionHistory> batch) {
+        for (ConversionRecordListener listener : listeners) {
+            try {
+                listener.onRecorded(batch);
+            } catch (RuntimeException e) {
+                // Un receptor con errores no debe hacer que el lote, ya guardado, se reintente o se desborde
+                log.error("Error al notificar {} registros del historial a {}", batch.size(), listener, e);
+            }
+        }
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, String.class);
+    }
+
+    /**
+     * Añade registros al archivo de desbordamiento.
+     */
+    private synchronized void spill(List<ConversionHistory> histories) {
+        try {
+            Path parent = spillFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (ConversionHistory history : histories) {
+                    writer.write(objectMapper.writeValueAsString(history));
+                    writer.newLine();
+                }
+            }
+            spilledCounter.increment(histories.size());
+        } catch (IOException e) {
+            failedCounter.increment(histories.size());
+            log.error("No se pudieron escribir {} registros en el archivo de desbordamiento", histories.size(), e);
+        }
+    }
+
+    /**
+     * Reinserta los registros del archivo de desbordamiento, en lotes, leyéndolo como flujo. Tras cada lote
+     * guardado se registra en el archivo de control el número de líneas reinsertadas; una reinserción anterior
+     * que no terminó continúa a partir de ese número. Las líneas ilegibles se apartan y cuentan como procesadas.
+     */
+    private Mono<Void> replaySpill() {
+        Path replaying = spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+        Path checkpoint = spillFile.resolveSibling(spillFile.getFileName() + ".replayed");
+        Path rejected = spillFile.resolveSibling(spillFile.getFileName() + ".rejected");
+        return Mono.fromCallable(() -> claimSpillFile(replaying, checkpoint))
+                .subscribeOn(Schedulers.boundedElastic())
+                .filter(Boolean::booleanValue)
+                .flatMap(claimed -> Mono.fromCallable(() -> readCheckpoint(checkpoint))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .flatMap(replayed -> {
+                    AtomicLong lines = new AtomicLong(replayed);
+                    return Flux.using(() -> Files.lines(replaying, StandardCharsets.UTF_8), Flux::fromStream, Stream::close)
+                            .skip(replayed)
+                            .buffer(batchSize)
+                            .concatMap(batchLines -> Mono.fromCallable(() -> readSpilled(batchLines, rejected))
+                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .flatMap(batch -> batch.isEmpty() ? Mono.just(0) : insertWithRetry(batch, new AtomicBoolean()))
+                                    .flatMap(rows -> Mono.fromCallable(() -> {
+                                                writeCheckpoint(checkpoint, lines.addAndGet(batchLines.size()));
+                                                return rows;
+                                            })
+                                            .subscribeOn(Schedulers.boundedElastic())))
+                            .reduce(0, Integer::sum)
+                            .doOnNext(rows -> log.info("Reinsertados {} registros desbordados del historial", rows))
+                            .then(Mono.fromRunnable(() -> finishReplay(replaying, checkpoint))
+                                    .subscribeOn(Schedulers.boundedElastic()))
+                            .then();
+                });
+    }
+
+    private synchronized boolean claimSpillFile(Path replaying, Path checkpoint) throws IOException {
+        if (Files.exists(replaying)) {
+            // Una reinserción anterior no terminó; se continúa
+            return true;
+        }
+        if (!Files.exists(spillFile)) {
+            return false;
+        }
+        // Un archivo de control sin archivo en reinserción es de una reinserción que ya terminó
+        Files.deleteIfExists(checkpoint);
+        Files.move(spillFile, replaying, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    private static long readCheckpoint(Path checkpoint) throws IOException {
+        return Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint, StandardCharsets.UTF_8).strip()) : 0L;
+    }
+
+    private static void writeCheckpoint(Path checkpoint, long lines) throws IOException {
+        // Se reemplaza de forma atómica para no dejar un archivo de control a medio escribir
+        Path written = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        Files.writeString(written, Long.toString(lines), StandardCharsets.UTF_8);
+        Files.move(written, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void finishReplay(Path replaying, Path checkpoint) {
+        try {
+            Files.deleteIfExists(replaying);
+            Files.deleteIfExists(checkpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lee un lote de líneas del archivo de desbordamiento. Las líneas en blanco se ignoran y las que no se
+     * pueden leer se añaden al archivo de rechazados.
+     */
+    private List<ConversionHistory> readSpilled(List<String> lines, Path rejected) throws IOException {
+        List<ConversionHistory> histories = new ArrayList<>(lines.size());
+        List<String> unreadable = new ArrayList<>();
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                histories.add(objectMapper.readValue(line, ConversionHistory.class));
+            } catch (JsonProcessingException e) {
+                unreadable.add(line);
+            }
+        }
+        if (!unreadable.isEmpty()) {
+            Files.write(rejected, unreadable, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            failedCounter.increment(unreadable.size());
+            log.error("{} líneas ilegibles del archivo de desbordamiento apartadas en {}", unreadable.size(), rejected);
+        }
+        return histories;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.currency_exchange_service.history;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+
+import java.util.List;
+
+/**
+ * Receptor de los registros del historial guardados por {@link ConversionHistoryWriter}.
+ * Se invoca una vez por lote insertado, desde el ciclo de vaciado del escritor, por lo que las
+ * implementaciones deben ser rápidas y no bloquear.
+ */
+public interface ConversionRecordListener {
+
+    /**
+     * Notifica un lote de registros recién guardados en {@code conversion_history}.
+     *
+     * @param histories Registros guardados
+     */
+    void onRecorded(List<ConversionHistory> histories);
+}
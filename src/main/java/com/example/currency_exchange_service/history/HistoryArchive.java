@@ -0,0 +1,288 @@
+package com.example.currency_exchange_service.history;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.repository.ConversionHistoryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Retención del historial de conversiones: las conversiones con más de {@code currency.history.retention.max-age}
+ * se mueven de {@code conversion_history} a segmentos comprimidos en disco (ver {@link HistorySegmentCodec}),
+ * particionados por día, y se borran de la tabla en lotes.
+ * <p>
+ * Cada segmento contiene como máximo {@code segment-rows} conversiones de un mismo día y se publica con
+ * un renombrado atómico antes de borrar sus filas; si el proceso se interrumpe entre ambos pasos, la
+ * siguiente ejecución borra las filas que ya están en un segmento en lugar de archivarlas de nuevo.
+ * Las consultas del historial combinan las filas vivas con los segmentos de los días que se solapan
+ * con el rango pedido.
+ */
+@Component
+@Slf4j
+public class HistoryArchive {
+
+    /**
+     * Orden del historial: de la conversión más reciente a la más antigua, por {@code (conversion_date, id)}.
+     */
+    public static final Comparator<ConversionHistory> NEWEST_FIRST = Comparator
+            .comparing(ConversionHistory::getConversionDate)
+            .thenComparing(ConversionHistory::getId)
+            .reversed();
+
+    private static final String SEGMENT_PREFIX = "conversion-history-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ConversionHistoryRepository conversionHistoryRepository;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final Duration interval;
+    private final Path directory;
+    private final int segmentRows;
+    private final int deleteBatchSize;
+    private final NavigableMap<LocalDate, List<Path>> segments = new ConcurrentSkipListMap<>();
+    private Disposable archiveLoop;
+
+    public HistoryArchive(
+            ConversionHistoryRepository conversionHistoryRepository,
+            @Value("${currency.history.retention.enabled:false}") boolean enabled,
+            @Value("${currency.history.retention.max-age:90d}") Duration maxAge,
+            @Value("${currency.history.retention.interval:1h}") Duration interval,
+            @Value("${currency.history.retention.archive-dir:data/archive}") Path directory,
+            @Value("${currency.history.retention.segment-rows:50000}") int segmentRows,
+            @Value("${currency.history.retention.delete-batch-size:1000}") int deleteBatchSize) {
+        this.conversionHistoryRepository = conversionHistoryRepository;
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.interval = interval;
+        this.directory = directory;
+        this.segmentRows = segmentRows;
+        this.deleteBatchSize = deleteBatchSize;
+    }
+
+    /**
+     * Carga el índice de segmentos del directorio del archivo y descarta los temporales incompletos.
+     */
+    @PostConstruct
+    public void loadSegments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    register(segmentDay(name), file);
+                }
+            }
+        }
+        log.info("Archivo del historial: {} segmentos en {} días", segments.values().stream().mapToInt(List::size).sum(),
+                segments.size());
+    }
+
+    /**
+     * Inicia la retención periódica, si está habilitada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        archiveLoop = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> archive(LocalDateTime.now().minus(maxAge))
+                        .onErrorResume(error -> {
+                            log.error("Error al archivar el historial de conversiones", error);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+        log.info("Retención del historial iniciada: antigüedad máxima {}, intervalo {}, directorio {}",
+                maxAge, interval, directory.toAbsolutePath());
+    }
+
+    /**
+     * Detiene la retención periódica.
+     */
+    @PreDestroy
+    public void stop() {
+        if (archiveLoop != null) {
+            archiveLoop.dispose();
+        }
+    }
+
+    /**
+     * Archiva todas las conversiones anteriores a una fecha, de la más antigua a la más reciente.
+     *
+     * @param cutoff Fecha límite (exclusiva)
+     * @return Número de conversiones quitadas de {@code conversion_history}
+     */
+    public Mono<Long> archive(LocalDateTime cutoff) {
+        return Mono.defer(() -> archiveNextSegment(cutoff))
+                .repeat()
+                .takeUntil(removed -> removed == 0)
+                .reduce(0L, Long::sum)
+                .doOnNext(removed -> {
+                    if (removed > 0) {
+                        log.info("Archivadas {} conversiones anteriores a {}", removed, cutoff);
+                    }
+                });
+    }
+
+    /**
+     * Busca conversiones archivadas que cumplan con los filtros, de la más reciente a la más antigua.
+     * Solo se leen los segmentos de los días que se solapan con el rango de fechas.
+     *
+     * @param sourceCurrencyCode Filtro opcional por moneda de origen
+     * @param targetCurrencyCode Filtro opcional por moneda de destino
+     * @param userId Filtro opcional por usuario
+     * @param startDate Filtro opcional por fecha de inicio (inclusive)
+     * @param endDate Filtro opcional por fecha de fin (inclusive)
+     * @param afterDate Si no es {@code null}, solo conversiones anteriores a {@code (afterDate, afterId)}
+     * @param afterId Identificador de la posición de continuación
+     * @return Flujo de conversiones archivadas
+     */
+    public Flux<ConversionHistory> find(String sourceCurrencyCode, String targetCurrencyCode, String userId,
+                                        LocalDateTime startDate, LocalDateTime endDate,
+                                        LocalDateTime afterDate, Long afterId) {
+        LocalDateTime upper = afterDate != null && (endDate == null || afterDate.isBefore(endDate)) ? afterDate : endDate;
+        if (startDate != null && upper != null && upper.isBefore(startDate)) {
+            return Flux.empty();
+        }
+        NavigableMap<LocalDate, List<Path>> days = segments
+                .subMap(startDate != null ? startDate.toLocalDate() : LocalDate.MIN, true,
+                        upper != null ? upper.toLocalDate() : LocalDate.MAX, true)
+                .descendingMap();
+        if (days.isEmpty()) {
+            return Flux.empty();
+        }
+        ConversionHistory after = afterDate != null && afterId != null
+                ? ConversionHistory.builder().conversionDate(afterDate).id(afterId).build()
+                : null;
+        return Flux.fromIterable(days.values())
+                .concatMap(files -> Flux.mergeComparing(NEWEST_FIRST, files.stream()
+                        .map(file -> readNewestFirst(file, row ->
+                                (sourceCurrencyCode == null || sourceCurrencyCode.equals(row.getSourceCurrencyCode()))
+                                        && (targetCurrencyCode == null || targetCurrencyCode.equals(row.getTargetCurrencyCode()))
+                                        && (userId == null || userId.equals(row.getUserId()))
+                                        && (startDate == null || !row.getConversionDate().isBefore(startDate))
+                                        && (endDate == null || !row.getConversionDate().isAfter(endDate))
+                                        && (after == null || NEWEST_FIRST.compare(row, after) > 0)))
+                        .toList()
+                        .toArray(Flux[]::new)), 1);
+    }
+
+    /**
+     * Archiva el siguiente grupo de conversiones: como máximo {@code segment-rows} de un mismo día.
+     *
+     * @return Número de conversiones quitadas de la tabla; 0 si no quedan conversiones por archivar
+     */
+    private Mono<Long> archiveNextSegment(LocalDateTime cutoff) {
+        return conversionHistoryRepository.findOldest(cutoff, segmentRows)
+                .collectList()
+                .flatMap(rows -> {
+                    if (rows.isEmpty()) {
+                        return Mono.just(0L);
+                    }
+                    LocalDate day = rows.get(0).getConversionDate().toLocalDate();
+                    List<ConversionHistory> dayRows = rows.stream()
+                            .takeWhile(row -> row.getConversionDate().toLocalDate().equals(day))
+                            .toList();
+                    return Mono.fromCallable(() -> writeSegment(day, dayRows))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .flatMap(this::delete);
+                });
+    }
+
+    /**
+     * Escribe en un segmento nuevo las conversiones del día que aún no están archivadas.
+     *
+     * @return Identificadores de todas las conversiones del grupo, ya presentes en el archivo
+     */
+    private List<Long> writeSegment(LocalDate day, List<ConversionHistory> rows) throws IOException {
+        Set<Long> archived = archivedIds(day);
+        List<ConversionHistory> pending = rows.stream().filter(row -> !archived.contains(row.getId())).toList();
+        if (!pending.isEmpty()) {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(SEGMENT_PREFIX + day + "-" + pending.get(0).getId() + SEGMENT_SUFFIX);
+            Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+            HistorySegmentCodec.write(temp, pending);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            register(day, file);
+            log.debug("Segmento {} con {} conversiones", file.getFileName(), pending.size());
+        }
+        if (pending.size() < rows.size()) {
+            log.warn("{} conversiones del {} ya estaban archivadas; se borran de la tabla", rows.size() - pending.size(), day);
+        }
+        return rows.stream().map(ConversionHistory::getId).toList();
+    }
+
+    private Mono<Long> delete(List<Long> ids) {
+        return Flux.fromIterable(ids)
+                .buffer(deleteBatchSize)
+                .concatMap(batch -> conversionHistoryRepository.deleteAllById(batch).thenReturn((long) batch.size()))
+                .reduce(0L, Long::sum);
+    }
+
+    private Set<Long> archivedIds(LocalDate day) throws IOException {
+        Set<Long> ids = new HashSet<>();
+        for (Path file : segments.getOrDefault(day, List.of())) {
+            HistorySegmentCodec.read(file).forEach(row -> ids.add(row.getId()));
+        }
+        return ids;
+    }
+
+    private Flux<ConversionHistory> readNewestFirst(Path file, Predicate<ConversionHistory> filter) {
+        return Mono.fromCallable(() -> {
+                    List<ConversionHistory> rows = new ArrayList<>(HistorySegmentCodec.read(file));
+                    rows.removeIf(filter.negate());
+                    rows.sort(NEWEST_FIRST);
+                    return rows;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorMap(IOException.class, UncheckedIOException::new)
+                .flatMapIterable(rows -> rows);
+    }
+
+    private void register(LocalDate day, Path file) {
+        segments.computeIfAbsent(day, key -> new CopyOnWriteArrayList<>()).add(file);
+    }
+
+    private static LocalDate segmentDay(String name) {
+        try {
+            // conversion-history-AAAA-MM-DD-<primer id>.seg
+            return LocalDate.parse(name.substring(SEGMENT_PREFIX.length(), SEGMENT_PREFIX.length() + 10));
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Nombre de segmento del historial inválido: " + name, e);
+        }
+    }
+}
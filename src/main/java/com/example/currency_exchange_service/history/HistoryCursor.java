@@ -0,0 +1,50 @@
+package com.example.currency_exchange_service.history;
+
+import com.example.currency_exchange_service.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de continuación en el historial de conversiones, ordenado por {@code (conversion_date, id)}
+ * de forma descendente. Se entrega al cliente como un token opaco (Base64 URL-safe) y la siguiente
+ * página comienza justo después de esta posición, sin usar {@code OFFSET}.
+ *
+ * @param conversionDate Fecha de la última conversión de la página
+ * @param id Identificador de la última conversión de la página
+ */
+public record HistoryCursor(LocalDateTime conversionDate, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Codifica la posición como token opaco.
+     */
+    public String encode() {
+        String raw = conversionDate.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token de continuación.
+     *
+     * @param token Token recibido del cliente
+     * @return Posición de continuación
+     * @throws InvalidCursorException si el token no es válido
+     */
+    public static HistoryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException("Cursor de paginación inválido");
+            }
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Cursor de paginación inválido");
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.currency_exchange_service.history;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato columnar comprimido de los segmentos del archivo del historial.
+ * <p>
+ * Un segmento es un flujo GZIP con una cabecera ({@code CHS1}, versión y número de filas) seguida de
+ * una columna por campo, en el orden de las filas:
+ * <ul>
+ *     <li>{@code id} y {@code conversion_date}: diferencias con la fila anterior en enteros de longitud variable
+ *     (las filas se escriben ordenadas por fecha, por lo que las diferencias son pequeñas);</li>
+ *     <li>códigos de moneda, IP y usuario: diccionario de valores distintos más un índice por fila
+ *     (el índice 0 representa {@code null});</li>
+ *     <li>montos y tasa: valor sin escala con escala fija {@value #SCALE}, la de {@code conversion_history}.</li>
+ * </ul>
+ */
+public final class HistorySegmentCodec {
+
+    private static final int MAGIC = 0x43485331; // "CHS1"
+    private static final int VERSION = 1;
+    private static final int SCALE = 6;
+
+    private HistorySegmentCodec() {
+    }
+
+    /**
+     * Escribe un segmento.
+     *
+     * @param file Archivo de destino
+     * @param rows Filas del segmento, ordenadas por {@code (conversion_date, id)}
+     */
+    public static void write(Path file, List<ConversionHistory> rows) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            writeVarLong(out, rows.size());
+
+            long previousId = 0;
+            for (ConversionHistory row : rows) {
+                writeVarLong(out, zigZag(row.getId() - previousId));
+                previousId = row.getId();
+            }
+            long previousSecond = 0;
+            for (ConversionHistory row : rows) {
+                long second = row.getConversionDate().toEpochSecond(ZoneOffset.UTC);
+                writeVarLong(out, zigZag(second - previousSecond));
+                writeVarLong(out, row.getConversionDate().getNano());
+                previousSecond = second;
+            }
+            writeDictionary(out, rows, ConversionHistory::getSourceCurrencyCode);
+            writeDictionary(out, rows, ConversionHistory::getTargetCurrencyCode);
+            writeDecimals(out, rows, ConversionHistory::getOriginalAmount);
+            writeDecimals(out, rows, ConversionHistory::getConvertedAmount);
+            writeDecimals(out, rows, ConversionHistory::getExchangeRate);
+            writeDictionary(out, rows, ConversionHistory::getIpAddress);
+            writeDictionary(out, rows, ConversionHistory::getUserId);
+        }
+    }
+
+    /**
+     * Lee un segmento completo.
+     *
+     * @param file Archivo del segmento
+     * @return Filas en el orden en que se escribieron
+     */
+    public static List<ConversionHistory> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 64 * 1024)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                throw new IOException("Segmento del historial con formato desconocido: " + file);
+            }
+            int count = (int) readVarLong(in);
+            List<ConversionHistory> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new ConversionHistory());
+            }
+
+            long id = 0;
+            for (ConversionHistory row : rows) {
+                id += unZigZag(readVarLong(in));
+                row.setId(id);
+            }
+            long second = 0;
+            for (ConversionHistory row : rows) {
+                second += unZigZag(readVarLong(in));
+                row.setConversionDate(LocalDateTime.ofEpochSecond(second, (int) readVarLong(in), ZoneOffset.UTC));
+            }
+            readDictionary(in, rows, ConversionHistory::setSourceCurrencyCode);
+            readDictionary(in, rows, ConversionHistory::setTargetCurrencyCode);
+            readDecimals(in, rows, ConversionHistory::setOriginalAmount);
+            readDecimals(in, rows, ConversionHistory::setConvertedAmount);
+            readDecimals(in, rows, ConversionHistory::setExchangeRate);
+            readDictionary(in, rows, ConversionHistory::setIpAddress);
+            readDictionary(in, rows, ConversionHistory::setUserId);
+            return rows;
+        }
+    }
+
+    private static void writeDictionary(DataOutputStream out, List<ConversionHistory> rows,
+                                        Function<ConversionHistory, String> column) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] indexes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            String value = column.apply(rows.get(i));
+            if (value != null) {
+                Integer index = dictionary.get(value);
+                if (index == null) {
+                    values.add(value);
+                    index = values.size();
+                    dictionary.put(value, index);
+                }
+                indexes[i] = index;
+            }
+        }
+        writeVarLong(out, values.size());
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+        for (int index : indexes) {
+            writeVarLong(out, index);
+        }
+    }
+
+    private static void readDictionary(DataInputStream in, List<ConversionHistory> rows,
+                                       BiConsumer<ConversionHistory, String> column) throws IOException {
+        String[] values = new String[(int) readVarLong(in) + 1];
+        for (int i = 1; i < values.length; i++) {
+            values[i] = new String(in.readNBytes((int) readVarLong(in)), StandardCharsets.UTF_8);
+        }
+        for (ConversionHistory row : rows) {
+            column.accept(row, values[(int) readVarLong(in)]);
+        }
+    }
+
+    private static void writeDecimals(DataOutputStream out, List<ConversionHistory> rows,
+                                      Function<ConversionHistory, BigDecimal> column) throws IOException {
+        for (ConversionHistory row : rows) {
+            BigInteger unscaled = column.apply(row).setScale(SCALE).unscaledValue();
+            if (unscaled.bitLength() < Long.SIZE - 2) {
+                writeVarLong(out, zigZag(unscaled.longValueExact()) << 1);
+            } else {
+                // Fuera del rango de long (DECIMAL(19, 6) admite hasta 10^13): complemento a dos con longitud
+                byte[] bytes = unscaled.toByteArray();
+                writeVarLong(out, ((long) bytes.length << 1) | 1);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void readDecimals(DataInputStream in, List<ConversionHistory> rows,
+                                     BiConsumer<ConversionHistory, BigDecimal> column) throws IOException {
+        for (ConversionHistory row : rows) {
+            long header = readVarLong(in);
+            BigDecimal value = (header & 1) == 0
+                    ? BigDecimal.valueOf(unZigZag(header >>> 1), SCALE)
+                    : new BigDecimal(new BigInteger(in.readNBytes((int) (header >>> 1))), SCALE);
+            column.accept(row, value);
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Fin inesperado del segmento del historial");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Entero de longitud variable inválido en el segmento del historial");
+    }
+}
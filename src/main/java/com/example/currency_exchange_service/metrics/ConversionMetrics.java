@@ -0,0 +1,199 @@
+package com.example.currency_exchange_service.metrics;
+
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas Micrometer del flujo de conversión.
+ * <ul>
+ *     <li>{@code currency.conversion}: duración total de cada conversión, por par y resultado.</li>
+ *     <li>{@code currency.conversion.stage}: duración de cada etapa (ver {@link Stage}), por par.</li>
+ *     <li>{@code currency.errors}: errores atendidos por el manejador global, por tipo de excepción y estado HTTP.</li>
+ * </ul>
+ * La etiqueta {@code pair} tiene cardinalidad acotada: los códigos que no están en el registro de monedas
+ * se agrupan en {@value #UNKNOWN_PAIR} y, al superar {@code currency.metrics.max-pair-tags} pares distintos,
+ * los pares nuevos se agrupan en {@value #OTHER_PAIR}.
+ */
+@Component
+@Slf4j
+public class ConversionMetrics {
+
+    public static final String UNKNOWN_PAIR = "UNKNOWN";
+    public static final String OTHER_PAIR = "OTHER";
+
+    /**
+     * Etapas medidas de una conversión.
+     */
+    public enum Stage {
+        /** Lectura de la tasa en la matriz en memoria. */
+        MATRIX_LOOKUP("matrix-lookup"),
+        /** Lectura de la tasa vigente en un instante en el historial de tasas en memoria. */
+        RATE_HISTORY_LOOKUP("rate-history-lookup"),
+        /** Lectura de la tasa en la caché por par (incluye la carga en caso de fallo). */
+        CACHE_LOOKUP("cache-lookup"),
+        /** Validación de las monedas al cargar un par en la caché. */
+        CURRENCY_VALIDATION("currency-validation"),
+        /** Consulta de la tasa en la base de datos al cargar un par en la caché. */
+        RATE_LOOKUP("rate-lookup"),
+        /** Cálculo del monto convertido. */
+        CALCULATION("calculation"),
+        /** Encolado del registro de historial. */
+        HISTORY_SAVE("history-save");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Medidores registrados para un par.
+     */
+    private record PairMeters(Timer[] stages, Timer success, Timer error, Counter stale) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final CurrencyRegistry currencyRegistry;
+    private final int maxPairTags;
+    private final Map<String, PairMeters> pairs = new ConcurrentHashMap<>();
+
+    public ConversionMetrics(
+            MeterRegistry meterRegistry,
+            CurrencyRegistry currencyRegistry,
+            @Value("${currency.metrics.max-pair-tags:50}") int maxPairTags) {
+        this.meterRegistry = meterRegistry;
+        this.currencyRegistry = currencyRegistry;
+        this.maxPairTags = maxPairTags;
+    }
+
+    /**
+     * Etiqueta {@code pair} para un par de monedas, con cardinalidad acotada.
+     *
+     * @param sourceCurrency Código de moneda origen
+     * @param targetCurrency Código de moneda destino
+     * @return Par en formato {@code USD_EUR}, {@value #UNKNOWN_PAIR} u {@value #OTHER_PAIR}
+     */
+    public String pairTag(String sourceCurrency, String targetCurrency) {
+        if (currencyRegistry.id(sourceCurrency) < 0 || currencyRegistry.id(targetCurrency) < 0) {
+            return UNKNOWN_PAIR;
+        }
+        String pair = sourceCurrency + "_" + targetCurrency;
+        if (pairs.containsKey(pair) || pairs.size() < maxPairTags) {
+            return pair;
+        }
+        return OTHER_PAIR;
+    }
+
+    /**
+     * Mide la duración de una etapa reactiva, desde la suscripción hasta su terminación o cancelación.
+     */
+    public <T> Mono<T> time(Stage stage, String pair, Mono<T> mono) {
+        Timer timer = meters(pair).stages()[stage.ordinal()];
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono.doFinally(signal -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Mide la duración de una etapa síncrona.
+     */
+    public <T> T time(Stage stage, String pair, Supplier<T> supplier) {
+        Timer timer = meters(pair).stages()[stage.ordinal()];
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Mide la duración total de una conversión, etiquetada con su resultado ({@code success} o {@code error}).
+     */
+    public <T> Mono<T> timeConversion(String pair, Mono<T> conversion) {
+        PairMeters meters = meters(pair);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return conversion.doFinally(signal -> (signal == SignalType.ON_ERROR ? meters.error() : meters.success())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Cuenta una tasa obsoleta servida por superar la carga el presupuesto de latencia o fallar.
+     */
+    public void recordStale(String pair) {
+        meters(pair).stale().increment();
+    }
+
+    /**
+     * Cuenta un error atendido por el manejador global de excepciones.
+     *
+     * @param error Excepción atendida
+     * @param status Estado HTTP de la respuesta
+     */
+    public void recordError(Throwable error, HttpStatusCode status) {
+        Counter.builder("currency.errors")
+                .description("Errores atendidos por el manejador global de excepciones")
+                .tag("exception", error.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Registra los aciertos, fallos, desalojos y tamaño de una caché Caffeine
+     * ({@code cache.gets}, {@code cache.size}, {@code cache.evictions}, ...).
+     *
+     * @param cache Caché a monitorear; debe registrar estadísticas
+     * @param name Nombre de la caché en la etiqueta {@code cache}
+     */
+    public void monitor(AsyncCache<?, ?> cache, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    private PairMeters meters(String pair) {
+        return pairs.computeIfAbsent(pair, this::register);
+    }
+
+    private PairMeters register(String pair) {
+        Timer[] stages = new Timer[Stage.values().length];
+        for (Stage stage : Stage.values()) {
+            stages[stage.ordinal()] = Timer.builder("currency.conversion.stage")
+                    .description("Duración de cada etapa de la conversión")
+                    .tag("stage", stage.tag)
+                    .tag("pair", pair)
+                    .register(meterRegistry);
+        }
+        Counter stale = Counter.builder("currency.conversion.stale")
+                .description("Tasas obsoletas servidas sin esperar a la base de datos")
+                .tag("pair", pair)
+                .register(meterRegistry);
+        return new PairMeters(stages, conversionTimer(pair, "success"), conversionTimer(pair, "error"), stale);
+    }
+
+    private Timer conversionTimer(String pair, String outcome) {
+        return Timer.builder("currency.conversion")
+                .description("Duración total de la conversión")
+                .tag("pair", pair)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.currency_exchange_service.provider;
+
+import com.example.currency_exchange_service.dto.ProviderRatesResponse;
+import com.example.currency_exchange_service.exception.RateProviderException;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Proveedor externo de tasas de cambio consultado por HTTP.
+ * <p>
+ * Solicita {@code GET {base-url}{path}?base=USD&symbols=EUR,GBP} y espera un cuerpo JSON
+ * {@code {"base":"USD","timestamp":1714557600,"rates":{"EUR":0.921,"GBP":0.79}}}. El proveedor solo
+ * informa tasas promedio; los tiempos de espera, reintentos y el circuit breaker los aplica
+ * {@link RateProviderClient}.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.provider.type", havingValue = "http")
+public class HttpRateProvider implements RateProvider {
+
+    private final WebClient webClient;
+    private final String path;
+
+    public HttpRateProvider(
+            WebClient.Builder webClientBuilder,
+            @Value("${currency.provider.http.base-url}") String baseUrl,
+            @Value("${currency.provider.http.path:/rates}") String path,
+            @Value("${currency.provider.http.api-key:}") String apiKey) {
+        WebClient.Builder builder = webClientBuilder.clone().baseUrl(baseUrl);
+        if (!apiKey.isBlank()) {
+            builder.defaultHeaders(headers -> headers.setBearerAuth(apiKey));
+        }
+        this.webClient = builder.build();
+        this.path = path;
+    }
+
+    @Override
+    public String name() {
+        return "http";
+    }
+
+    @Override
+    public Mono<List<ExchangeRate>> fetchRates(String baseCurrency, Collection<String> targetCurrencies) {
+        return webClient.get()
+                .uri(uri -> uri.path(path)
+                        .queryParam("base", baseCurrency)
+                        .queryParam("symbols", String.join(",", targetCurrencies))
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> Mono.just(new RateProviderException(
+                        "El proveedor de tasas respondió con el estado " + response.statusCode().value())))
+                .bodyToMono(ProviderRatesResponse.class)
+                .map(response -> toExchangeRates(baseCurrency, response));
+    }
+
+    private static List<ExchangeRate> toExchangeRates(String baseCurrency, ProviderRatesResponse response) {
+        if (response.getBase() != null && !response.getBase().equalsIgnoreCase(baseCurrency)) {
+            throw new RateProviderException("El proveedor de tasas respondió con la moneda base " + response.getBase()
+                    + " en lugar de " + baseCurrency);
+        }
+        if (response.getRates() == null) {
+            throw new RateProviderException("El proveedor de tasas respondió sin tasas");
+        }
+        LocalDateTime lastUpdated = response.getTimestamp() != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochSecond(response.getTimestamp()), ZoneId.systemDefault())
+                : LocalDateTime.now();
+        List<ExchangeRate> exchangeRates = new ArrayList<>(response.getRates().size());
+        for (Map.Entry<String, BigDecimal> rate : response.getRates().entrySet()) {
+            exchangeRates.add(ExchangeRate.builder()
+                    .sourceCurrencyCode(baseCurrency)
+                    .targetCurrencyCode(rate.getKey())
+                    .rate(rate.getValue())
+                    .lastUpdated(lastUpdated)
+                    .build());
+        }
+        return exchangeRates;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.currency_exchange_service.provider;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fuente externa de tasas de cambio.
+ * La implementación activa se elige con {@code currency.provider.type}: {@code http} para el proveedor
+ * externo o {@code stub} para el proveedor local de pruebas.
+ */
+public interface RateProvider {
+
+    /**
+     * Nombre del proveedor, usado en las métricas y los registros.
+     */
+    String name();
+
+    /**
+     * Consulta las tasas vigentes de la moneda base a cada moneda destino. Cada llamada es una solicitud
+     * nueva al proveedor, por lo que puede repetirse o cancelarse.
+     *
+     * @param baseCurrency Código de la moneda base
+     * @param targetCurrencies Códigos de las monedas destino
+     * @return Tasas de la moneda base a las monedas destino que el proveedor conoce; falla con
+     * {@link com.example.currency_exchange_service.exception.RateProviderException} si el proveedor no responde
+     * correctamente
+     */
+    Mono<List<ExchangeRate>> fetchRates(String baseCurrency, Collection<String> targetCurrencies);
+}
@@ -0,0 +1,146 @@
+package com.example.currency_exchange_service.provider;
+
+import com.example.currency_exchange_service.exception.RateProviderException;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreaker;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cliente resiliente del {@link RateProvider} activo.
+ * <p>
+ * Cada consulta pasa, de dentro hacia fuera, por:
+ * <ol>
+ *   <li>Cobertura (hedging): si la solicitud no respondió al cumplirse el percentil
+ *   {@code currency.provider.hedge.percentile} de la latencia reciente del proveedor, se envía una segunda
+ *   solicitud idéntica y se usa la primera respuesta válida, cancelando la otra. Así la cola de latencia
+ *   del proveedor no se traslada al refresco a cambio de pocas solicitudes adicionales.</li>
+ *   <li>Circuit breaker {@code currencyExchange} de {@code ResilienceConfig}, con su límite de tiempo: mide la
+ *   consulta con su cobertura y deja de llamar al proveedor mientras falla.</li>
+ *   <li>Retry {@code currencyExchange}: repite la consulta completa si falla.</li>
+ * </ol>
+ */
+@Component
+@Slf4j
+public class RateProviderClient {
+
+    public static final String CIRCUIT_BREAKER = "currencyExchange";
+
+    // Solicitudes medidas antes de usar el percentil en lugar de la espera inicial
+    private static final long MIN_SAMPLES = 20;
+
+    private final RateProvider rateProvider;
+    private final ReactiveCircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private final boolean hedgeEnabled;
+    private final Duration hedgeInitialDelay;
+    private final Duration hedgeMinDelay;
+    private final Timer latency;
+    private final Counter hedges;
+    private final Counter hedgesWon;
+
+    public RateProviderClient(
+            RateProvider rateProvider,
+            ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory,
+            RetryRegistry retryRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${currency.provider.hedge.enabled:true}") boolean hedgeEnabled,
+            @Value("${currency.provider.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${currency.provider.hedge.initial-delay:500ms}") Duration hedgeInitialDelay,
+            @Value("${currency.provider.hedge.min-delay:50ms}") Duration hedgeMinDelay) {
+        this.rateProvider = rateProvider;
+        this.circuitBreaker = circuitBreakerFactory.create(CIRCUIT_BREAKER);
+        this.retry = retryRegistry.retry(CIRCUIT_BREAKER);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeInitialDelay = hedgeInitialDelay;
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.latency = Timer.builder("currency.provider.requests")
+                .description("Latencia de las solicitudes al proveedor de tasas")
+                .tag("provider", rateProvider.name())
+                .publishPercentiles(hedgePercentile)
+                .distributionStatisticExpiry(Duration.ofMinutes(10))
+                .register(meterRegistry);
+        this.hedges = Counter.builder("currency.provider.hedges")
+                .description("Solicitudes de cobertura enviadas al proveedor de tasas")
+                .tag("provider", rateProvider.name())
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("currency.provider.hedges.won")
+                .description("Solicitudes de cobertura que respondieron antes que la original")
+                .tag("provider", rateProvider.name())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consulta las tasas vigentes de la moneda base a cada moneda destino.
+     *
+     * @param baseCurrency Código de la moneda base
+     * @param targetCurrencies Códigos de las monedas destino
+     * @return Tasas informadas por el proveedor; falla si se agotan los reintentos o el circuito está abierto
+     */
+    public Mono<List<ExchangeRate>> fetchRates(String baseCurrency, Collection<String> targetCurrencies) {
+        Mono<List<ExchangeRate>> request = hedgeEnabled
+                ? hedged(baseCurrency, targetCurrencies)
+                : timed(baseCurrency, targetCurrencies);
+        // Sin fallback: el error original (o CallNotPermittedException con el circuito abierto) llega al llamador
+        return circuitBreaker.run(request, Mono::error)
+                .transformDeferred(RetryOperator.of(retry));
+    }
+
+    /**
+     * Espera antes de enviar la solicitud de cobertura: el percentil configurado de la latencia reciente,
+     * con un mínimo de {@code currency.provider.hedge.min-delay}.
+     */
+    Duration hedgeDelay() {
+        if (latency.count() < MIN_SAMPLES) {
+            return hedgeInitialDelay;
+        }
+        ValueAtPercentile[] percentiles = latency.takeSnapshot().percentileValues();
+        if (percentiles.length == 0) {
+            return hedgeInitialDelay;
+        }
+        Duration percentile = Duration.ofNanos((long) percentiles[0].value(TimeUnit.NANOSECONDS));
+        return percentile.compareTo(hedgeMinDelay) > 0 ? percentile : hedgeMinDelay;
+    }
+
+    private Mono<List<ExchangeRate>> hedged(String baseCurrency, Collection<String> targetCurrencies) {
+        return Mono.defer(() -> {
+            Mono<List<ExchangeRate>> hedge = Mono.delay(hedgeDelay())
+                    .doOnNext(tick -> hedges.increment())
+                    .then(timed(baseCurrency, targetCurrencies))
+                    .doOnNext(rates -> hedgesWon.increment());
+            return Mono.firstWithValue(timed(baseCurrency, targetCurrencies), hedge)
+                    .onErrorMap(NoSuchElementException.class, e -> new RateProviderException(
+                            "Fallaron la solicitud al proveedor de tasas " + rateProvider.name() + " y su cobertura", e));
+        });
+    }
+
+    private Mono<List<ExchangeRate>> timed(String baseCurrency, Collection<String> targetCurrencies) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return rateProvider.fetchRates(baseCurrency, targetCurrencies)
+                    .doFinally(signal -> {
+                        // Las solicitudes canceladas también cuentan: descartarlas ocultaría justo la cola lenta
+                        if (signal != SignalType.ON_ERROR) {
+                            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    });
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.currency_exchange_service.provider;
+
+import com.example.currency_exchange_service.exception.RateProviderException;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.rate.RateMatrix;
+import com.example.currency_exchange_service.rate.RateMatrixSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Proveedor local de tasas de cambio para desarrollo y pruebas sin conexión.
+ * <p>
+ * Responde con las tasas vigentes de la matriz desplazadas al azar ({@code currency.provider.stub.volatility},
+ * como fracción de la tasa) e inyecta latencia y fallos configurables para ejercitar la cobertura de
+ * solicitudes, los reintentos y el circuit breaker de {@link RateProviderClient}:
+ * <ul>
+ *   <li>cada respuesta tarda {@code latency} más un valor al azar de hasta {@code latency-jitter};</li>
+ *   <li>con probabilidad {@code slow-rate} tarda en cambio {@code slow-latency};</li>
+ *   <li>con probabilidad {@code failure-rate} falla tras la latencia.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "currency.provider.type", havingValue = "stub", matchIfMissing = true)
+public class StubRateProvider implements RateProvider {
+
+    private final RateMatrix rateMatrix;
+    private final Duration latency;
+    private final Duration latencyJitter;
+    private final double slowRate;
+    private final Duration slowLatency;
+    private final double failureRate;
+    private final double volatility;
+
+    public StubRateProvider(
+            RateMatrix rateMatrix,
+            @Value("${currency.provider.stub.latency:20ms}") Duration latency,
+            @Value("${currency.provider.stub.latency-jitter:30ms}") Duration latencyJitter,
+            @Value("${currency.provider.stub.slow-rate:0}") double slowRate,
+            @Value("${currency.provider.stub.slow-latency:1500ms}") Duration slowLatency,
+            @Value("${currency.provider.stub.failure-rate:0}") double failureRate,
+            @Value("${currency.provider.stub.volatility:0.001}") double volatility) {
+        this.rateMatrix = rateMatrix;
+        this.latency = latency;
+        this.latencyJitter = latencyJitter;
+        this.slowRate = slowRate;
+        this.slowLatency = slowLatency;
+        this.failureRate = failureRate;
+        this.volatility = volatility;
+    }
+
+    @Override
+    public String name() {
+        return "stub";
+    }
+
+    @Override
+    public Mono<List<ExchangeRate>> fetchRates(String baseCurrency, Collection<String> targetCurrencies) {
+        return Mono.defer(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Duration delay = random.nextDouble() < slowRate
+                    ? slowLatency
+                    : latency.plusNanos(latencyJitter.isZero() ? 0 : random.nextLong(latencyJitter.toNanos()));
+            Mono<List<ExchangeRate>> response = random.nextDouble() < failureRate
+                    ? Mono.error(new RateProviderException("Fallo simulado del proveedor local de tasas"))
+                    : Mono.fromSupplier(() -> rates(baseCurrency, targetCurrencies));
+            return Mono.delay(delay).then(response);
+        });
+    }
+
+    private List<ExchangeRate> rates(String baseCurrency, Collection<String> targetCurrencies) {
+        RateMatrixSnapshot snapshot = rateMatrix.current();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime now = LocalDateTime.now();
+        int source = snapshot.id(baseCurrency);
+        List<ExchangeRate> exchangeRates = new ArrayList<>(targetCurrencies.size());
+        for (String targetCurrency : targetCurrencies) {
+            int target = snapshot.id(targetCurrency);
+            // Como un proveedor real, omite las monedas para las que no tiene cotización
+            if (!snapshot.hasRate(source, target)) {
+                continue;
+            }
+            BigDecimal shift = BigDecimal.valueOf(1 + random.nextGaussian() * volatility);
+            exchangeRates.add(ExchangeRate.builder()
+                    .sourceCurrencyCode(baseCurrency)
+                    .targetCurrencyCode(targetCurrency)
+                    .rate(snapshot.rate(source, target).multiply(shift).setScale(RateMatrixSnapshot.SCALE, RoundingMode.HALF_UP))
+                    .lastUpdated(now)
+                    .build());
+        }
+        return exchangeRates;
+    }
+}
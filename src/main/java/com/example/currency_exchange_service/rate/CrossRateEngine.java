@@ -0,0 +1,172 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * Motor de triangulación de tasas cruzadas.
+ * Completa las celdas vacías de la matriz de tasas al construir cada instantánea, de modo que
+ * los pares sin fila en {@code exchange_rates} se sirven desde memoria sin cálculo por solicitud:
+ * <ol>
+ *     <li>Tasa invertida, cuando solo existe la fila en sentido contrario (destino a origen).</li>
+ *     <li>Tasa cruzada a través de la moneda pivote (origen a pivote por pivote a destino),
+ *     usando tramos directos o invertidos.</li>
+ * </ol>
+ * Las tasas derivadas solo incluyen la tasa promedio; la compra y venta se informan iguales a ella.
+ */
+@Component
+@Slf4j
+public class CrossRateEngine {
+
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+
+    private final String pivotCurrency;
+
+    public CrossRateEngine(@Value("${currency.cross-rate.pivot:USD}") String pivotCurrency) {
+        this.pivotCurrency = pivotCurrency;
+    }
+
+    /**
+     * Moneda pivote usada para derivar tasas cruzadas.
+     */
+    public String pivotCurrency() {
+        return pivotCurrency;
+    }
+
+    /**
+     * Rellena las celdas sin tasa directa. Las celdas derivadas previamente se descartan y se
+     * vuelven a calcular a partir de las tasas directas vigentes.
+     *
+     * @param currencies Índice de monedas de la matriz
+     * @param rates Tasas de punto fijo (N×N)
+     * @param buyRates Tasas de compra de punto fijo (N×N)
+     * @param sellRates Tasas de venta de punto fijo (N×N)
+     * @param lastUpdated Fechas de actualización (N×N)
+     * @param origins Origen de cada celda (N×N)
+     */
+    void derive(CurrencyIndex currencies, long[] rates, long[] buyRates, long[] sellRates,
+                LocalDateTime[] lastUpdated, RateOrigin[] origins) {
+        int n = currencies.size();
+        for (int cell = 0; cell < rates.length; cell++) {
+            if (origins[cell] != RateOrigin.DIRECT) {
+                rates[cell] = RateMatrixSnapshot.ABSENT;
+                buyRates[cell] = RateMatrixSnapshot.ABSENT;
+                sellRates[cell] = RateMatrixSnapshot.ABSENT;
+                lastUpdated[cell] = null;
+                origins[cell] = null;
+            }
+        }
+
+        // Tasas invertidas a partir de la fila en sentido contrario
+        for (int source = 0; source < n; source++) {
+            for (int target = 0; target < n; target++) {
+                int cell = source * n + target;
+                int reverse = target * n + source;
+                if (source != target && origins[cell] == null && origins[reverse] == RateOrigin.DIRECT) {
+                    long inverted = invert(rates[reverse]);
+                    if (inverted != RateMatrixSnapshot.ABSENT) {
+                        rates[cell] = inverted;
+                        lastUpdated[cell] = lastUpdated[reverse];
+                        origins[cell] = RateOrigin.INVERTED;
+                    } else {
+                        log.warn("Tasa invertida de {} a {} fuera del rango de la matriz, el par queda sin tasa",
+                                currencies.code(source), currencies.code(target));
+                    }
+                }
+            }
+        }
+
+        // Tasas cruzadas a través de la moneda pivote
+        int pivot = currencies.id(pivotCurrency);
+        if (pivot < 0) {
+            log.warn("Moneda pivote {} no disponible, no se derivan tasas cruzadas", pivotCurrency);
+            return;
+        }
+        for (int source = 0; source < n; source++) {
+            int toPivot = source * n + pivot;
+            if (source == pivot || origins[toPivot] == null || origins[toPivot] == RateOrigin.CROSS) {
+                continue;
+            }
+            for (int target = 0; target < n; target++) {
+                int cell = source * n + target;
+                int fromPivot = pivot * n + target;
+                if (target == source || target == pivot || origins[cell] != null
+                        || origins[fromPivot] == null || origins[fromPivot] == RateOrigin.CROSS) {
+                    continue;
+                }
+                long cross = cross(leg(rates, origins, source, pivot, n), leg(rates, origins, pivot, target, n));
+                if (cross != RateMatrixSnapshot.ABSENT) {
+                    rates[cell] = cross;
+                    lastUpdated[cell] = oldest(lastUpdated[toPivot], lastUpdated[fromPivot]);
+                    origins[cell] = RateOrigin.CROSS;
+                } else {
+                    log.warn("Tasa cruzada de {} a {} fuera del rango de la matriz, el par queda sin tasa",
+                            currencies.code(source), currencies.code(target));
+                }
+            }
+        }
+    }
+
+    /**
+     * Valor exacto de un tramo: para tramos invertidos se recalcula a partir de la fila directa
+     * para no acumular el redondeo de la celda invertida.
+     */
+    private static BigDecimal leg(long[] rates, RateOrigin[] origins, int source, int target, int n) {
+        int cell = source * n + target;
+        if (origins[cell] == RateOrigin.INVERTED) {
+            return exactInverse(rates[target * n + source]);
+        }
+        return toDecimal(rates[cell]);
+    }
+
+    /**
+     * Tasa invertida de una tasa directa de punto fijo, o {@link RateMatrixSnapshot#ABSENT} si no cabe o se
+     * redondea a cero.
+     */
+    static long invert(long rate) {
+        return toFixedPoint(exactInverse(rate));
+    }
+
+    /**
+     * Inversa sin redondear a la escala de la matriz de una tasa directa de punto fijo.
+     */
+    static BigDecimal exactInverse(long rate) {
+        return BigDecimal.ONE.divide(toDecimal(rate), PRECISION);
+    }
+
+    /**
+     * Tasa cruzada de punto fijo a partir de los valores exactos de sus tramos, o
+     * {@link RateMatrixSnapshot#ABSENT} si no cabe o se redondea a cero.
+     */
+    static long cross(BigDecimal toPivot, BigDecimal fromPivot) {
+        return toFixedPoint(toPivot.multiply(fromPivot, PRECISION));
+    }
+
+    static LocalDateTime oldest(LocalDateTime first, LocalDateTime second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return first.isBefore(second) ? first : second;
+    }
+
+    static BigDecimal toDecimal(long fixedPoint) {
+        return BigDecimal.valueOf(fixedPoint, RateMatrixSnapshot.SCALE);
+    }
+
+    private static long toFixedPoint(BigDecimal value) {
+        BigDecimal scaled = value.setScale(RateMatrixSnapshot.SCALE, RoundingMode.HALF_UP);
+        // Cero se reserva para los pares sin tasa: un valor que se redondea a cero tampoco cabe
+        return scaled.precision() > 18 || scaled.signum() == 0 ? RateMatrixSnapshot.ABSENT
+                : scaled.unscaledValue().longValue();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.currency_exchange_service.rate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Aritmética de punto fijo sobre {@code long} para las conversiones.
+ * Multiplica un monto por una tasa y redondea con {@link RoundingMode#HALF_UP} a la escala pedida,
+ * produciendo exactamente el mismo {@link BigDecimal} (valor y escala) que
+ * {@code amount.multiply(rate).setScale(scale, RoundingMode.HALF_UP)}. Si un operando no cabe en
+ * un {@code long} o el producto se desborda, se recurre a {@link BigDecimal}.
+ */
+public final class FixedPoint {
+
+    // Potencias de diez representables en un long: 10^0 .. 10^18
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Multiplica un monto por una tasa expresada como valor de punto fijo.
+     *
+     * @param amount Monto a convertir
+     * @param rate Tasa sin escalar
+     * @param rateScale Escala de la tasa
+     * @param scale Escala del resultado
+     * @return Producto redondeado HALF_UP a {@code scale} decimales
+     */
+    public static BigDecimal multiply(BigDecimal amount, long rate, int rateScale, int scale) {
+        if (amount.scale() >= 0 && amount.precision() < POWERS_OF_TEN.length) {
+            long result = multiplyRounded(amount.unscaledValue().longValue(), amount.scale(), rate, rateScale, scale);
+            if (result != Long.MIN_VALUE) {
+                return BigDecimal.valueOf(result, scale);
+            }
+        }
+        return amount.multiply(BigDecimal.valueOf(rate, rateScale)).setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Multiplica un monto por una tasa decimal.
+     *
+     * @param amount Monto a convertir
+     * @param rate Tasa de cambio
+     * @param scale Escala del resultado
+     * @return Producto redondeado HALF_UP a {@code scale} decimales
+     */
+    public static BigDecimal multiply(BigDecimal amount, BigDecimal rate, int scale) {
+        if (rate.scale() >= 0 && rate.precision() < POWERS_OF_TEN.length) {
+            return multiply(amount, rate.unscaledValue().longValue(), rate.scale(), scale);
+        }
+        return amount.multiply(rate).setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Producto de dos valores de punto fijo redondeado HALF_UP a la escala pedida.
+     *
+     * @return Resultado sin escalar, o {@link Long#MIN_VALUE} si no cabe en un {@code long}
+     */
+    static long multiplyRounded(long amount, int amountScale, long rate, int rateScale, int scale) {
+        long high = Math.multiplyHigh(amount, rate);
+        long product = amount * rate;
+        // El producto de 128 bits cabe en 64 si la parte alta es la extensión de signo de la baja
+        if (high != (product >> 63) || product == Long.MIN_VALUE) {
+            return Long.MIN_VALUE;
+        }
+
+        int shift = amountScale + rateScale - scale;
+        if (shift == 0) {
+            return product;
+        }
+        if (shift < 0) {
+            if (-shift >= POWERS_OF_TEN.length) {
+                return Long.MIN_VALUE;
+            }
+            long factor = POWERS_OF_TEN[-shift];
+            long scaledHigh = Math.multiplyHigh(product, factor);
+            long scaled = product * factor;
+            return scaledHigh != (scaled >> 63) || scaled == Long.MIN_VALUE ? Long.MIN_VALUE : scaled;
+        }
+        if (shift >= POWERS_OF_TEN.length) {
+            // Divisor fuera del rango de long; caso inusual que resuelve BigDecimal
+            return Long.MIN_VALUE;
+        }
+        long divisor = POWERS_OF_TEN[shift];
+        long quotient = product / divisor;
+        long remainder = Math.abs(product % divisor);
+        // HALF_UP: alejarse de cero cuando el resto es al menos la mitad del divisor
+        if (remainder >= divisor - remainder) {
+            quotient += product < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
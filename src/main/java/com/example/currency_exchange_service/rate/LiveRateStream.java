@@ -0,0 +1,224 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.dto.ExchangeRateResponse;
+import com.example.currency_exchange_service.exception.InvalidSubscriptionException;
+import com.example.currency_exchange_service.exception.SubscriberLimitException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Tasas de cambio en vivo para muchos suscriptores.
+ * <p>
+ * Todos los suscriptores comparten el flujo de instantáneas de la {@link RateMatrix}: cada publicación se
+ * multidifunde una sola vez, sin consultas por suscriptor. Cada instantánea contiene todas las tasas, por
+ * lo que un suscriptor lento solo necesita la más reciente: las tasas se leen de la instantánea vigente en
+ * el momento en que el suscriptor pide más, y solo se envían los pares cuyo valor cambió desde el último
+ * envío (conflación). Así, la memoria por suscriptor queda acotada por el número de pares suscritos, como
+ * máximo {@code currency.rate-stream.max-pairs}, y el número de suscriptores por
+ * {@code currency.rate-stream.max-subscribers}.
+ */
+@Component
+@Slf4j
+public class LiveRateStream {
+
+    private static final Pattern PAIR = Pattern.compile("[A-Z]{3}_[A-Z]{3}");
+
+    private final RateMatrix rateMatrix;
+    private final CurrencyRegistry currencyRegistry;
+    private final int maxPairs;
+    private final int maxSubscribers;
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public LiveRateStream(
+            RateMatrix rateMatrix,
+            CurrencyRegistry currencyRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${currency.rate-stream.max-pairs:50}") int maxPairs,
+            @Value("${currency.rate-stream.max-subscribers:50000}") int maxSubscribers) {
+        this.rateMatrix = rateMatrix;
+        this.currencyRegistry = currencyRegistry;
+        this.maxPairs = maxPairs;
+        this.maxSubscribers = maxSubscribers;
+        Gauge.builder("currency.rates.stream.subscribers", subscribers, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Suscribe a las tasas de un conjunto de pares. Primero se emite la tasa vigente de cada par y luego
+     * cada cambio; los pares sin tasa se emiten cuando la tengan.
+     *
+     * @param pairs Pares separados por comas con el formato {@code ORIGEN_DESTINO}, por ejemplo {@code USD_EUR,MXN_PEN}
+     * @return Flujo infinito de tasas; falla con {@link InvalidSubscriptionException} si los pares no son
+     * válidos o con {@link SubscriberLimitException} si se alcanzó el máximo de suscriptores
+     */
+    public Flux<ExchangeRateResponse> subscribe(String pairs) {
+        return Flux.defer(() -> {
+            String[][] parsed = parse(pairs);
+            if (subscribers.incrementAndGet() > maxSubscribers) {
+                subscribers.decrementAndGet();
+                log.warn("Suscripción a tasas en vivo rechazada: se alcanzó el máximo de {} suscriptores", maxSubscribers);
+                return Flux.error(new SubscriberLimitException(
+                        "Se alcanzó el máximo de " + maxSubscribers + " suscriptores de tasas en vivo"));
+            }
+            return Flux.<ExchangeRateResponse>create(sink -> {
+                        Subscription subscription = new Subscription(parsed, sink);
+                        // Cada publicación solo avisa de un cambio: las tasas se leen de la instantánea vigente
+                        // cuando el suscriptor tiene demanda, así que nunca se envía un valor superado
+                        Disposable published = rateMatrix.updates()
+                                .onBackpressureLatest()
+                                .publishOn(Schedulers.parallel(), 1)
+                                .subscribe(snapshot -> subscription.drain());
+                        sink.onRequest(requested -> subscription.drain());
+                        sink.onDispose(published);
+                    })
+                    .doFinally(signal -> subscribers.decrementAndGet());
+        });
+    }
+
+    /**
+     * Número de suscriptores activos.
+     */
+    public int subscribers() {
+        return subscribers.get();
+    }
+
+    private String[][] parse(String pairs) {
+        if (pairs == null || pairs.isBlank()) {
+            throw new InvalidSubscriptionException("Debe indicar al menos un par de monedas");
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String pair : pairs.split(",")) {
+            String normalized = pair.strip().toUpperCase(Locale.ROOT);
+            if (!PAIR.matcher(normalized).matches()) {
+                throw new InvalidSubscriptionException("Par de monedas no válido: " + pair.strip() + " (formato ORIGEN_DESTINO)");
+            }
+            distinct.add(normalized);
+        }
+        if (distinct.size() > maxPairs) {
+            throw new InvalidSubscriptionException("Se admiten como máximo " + maxPairs + " pares por suscripción");
+        }
+        String[][] parsed = new String[distinct.size()][];
+        int i = 0;
+        for (String pair : distinct) {
+            String[] codes = pair.split("_");
+            for (String code : codes) {
+                if (currencyRegistry.id(code) < 0) {
+                    throw new InvalidSubscriptionException("Moneda no encontrada: " + code);
+                }
+            }
+            if (codes[0].equals(codes[1])) {
+                throw new InvalidSubscriptionException("Las monedas origen y destino son iguales: " + pair);
+            }
+            parsed[i++] = codes;
+        }
+        return parsed;
+    }
+
+    /**
+     * Estado de un suscriptor: últimos valores enviados de cada par. Las tasas se envían solo mientras hay
+     * demanda, recorriendo los pares en turno rotativo para que ninguno acapare el envío.
+     */
+    private final class Subscription {
+
+        private final String[][] pairs;
+        private final FluxSink<ExchangeRateResponse> sink;
+        private final long[] rates;
+        private final BigDecimal[] buyRates;
+        private final BigDecimal[] sellRates;
+        private final LocalDateTime[] lastUpdated;
+        private final AtomicInteger wip = new AtomicInteger();
+        private int cursor;
+        // Versión de la última instantánea en la que ya no quedaba ningún par por enviar
+        private long sentVersion = -1;
+
+        Subscription(String[][] pairs, FluxSink<ExchangeRateResponse> sink) {
+            this.pairs = pairs;
+            this.sink = sink;
+            this.rates = new long[pairs.length];
+            this.buyRates = new BigDecimal[pairs.length];
+            this.sellRates = new BigDecimal[pairs.length];
+            this.lastUpdated = new LocalDateTime[pairs.length];
+        }
+
+        /**
+         * Envía los pares que cambiaron mientras haya demanda. Puede invocarse de forma concurrente desde
+         * las publicaciones y las solicitudes del suscriptor: solo un hilo envía a la vez.
+         */
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    ExchangeRateResponse next = next(rateMatrix.current());
+                    if (next == null) {
+                        break;
+                    }
+                    sink.next(next);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Siguiente par cuyo valor difiere del último enviado, o {@code null} si no queda ninguno.
+         */
+        private ExchangeRateResponse next(RateMatrixSnapshot snapshot) {
+            if (snapshot.version() == sentVersion) {
+                return null;
+            }
+            for (int scanned = 0; scanned < pairs.length; scanned++) {
+                int i = cursor;
+                cursor = (cursor + 1) % pairs.length;
+                int source = snapshot.id(pairs[i][0]);
+                int target = snapshot.id(pairs[i][1]);
+                if (!snapshot.hasRate(source, target)) {
+                    continue;
+                }
+                long rate = snapshot.rateFixedPoint(source, target);
+                BigDecimal buyRate = snapshot.buyRate(source, target);
+                BigDecimal sellRate = snapshot.sellRate(source, target);
+                LocalDateTime updated = snapshot.lastUpdated(source, target);
+                if (rate == rates[i] && Objects.equals(updated, lastUpdated[i])
+                        && Objects.equals(buyRate, buyRates[i]) && Objects.equals(sellRate, sellRates[i])) {
+                    continue;
+                }
+                rates[i] = rate;
+                buyRates[i] = buyRate;
+                sellRates[i] = sellRate;
+                lastUpdated[i] = updated;
+                BigDecimal decimalRate = snapshot.rate(source, target);
+                return ExchangeRateResponse.builder()
+                        .sourceCurrency(pairs[i][0])
+                        .targetCurrency(pairs[i][1])
+                        .rate(decimalRate)
+                        .buyRate(buyRate != null ? buyRate : decimalRate)
+                        .sellRate(sellRate != null ? sellRate : decimalRate)
+                        .lastUpdated(updated)
+                        .rateVersion(snapshot.version())
+                        .stale(false)
+                        .rateAgeMillis(RateStalenessPolicy.ageMillis(updated, LocalDateTime.now()))
+                        .build();
+            }
+            sentVersion = snapshot.version();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.repository.ExchangeRateHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de las versiones de las tasas de cambio, para consultar la tasa vigente de un par
+ * en un instante pasado sin acceder a la base de datos.
+ * <p>
+ * Cada par tiene una línea de tiempo inmutable ordenada por inicio de vigencia, con las tasas como
+ * valores de punto fijo con escala {@value RateMatrixSnapshot#SCALE}; la tasa vigente en un instante
+ * se encuentra por búsqueda binaria, en O(log n). Las nuevas versiones reemplazan la línea de tiempo del
+ * par (copy-on-write), por lo que las lecturas no usan bloqueos. Los pares sin versiones propias se
+ * derivan en cada consulta igual que en la matriz de tasas ({@link CrossRateEngine}): inversa del par en
+ * sentido contrario o cruce a través de la moneda pivote, con los tramos vigentes en el mismo instante.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateHistory {
+
+    private final ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+    private final CrossRateEngine crossRateEngine;
+
+    private final Map<String, PairTimeline> timelines = new ConcurrentHashMap<>();
+
+    /**
+     * Tasa vigente de un par en un instante.
+     *
+     * @param rateFixedPoint Tasa como valor de punto fijo con escala {@value RateMatrixSnapshot#SCALE}
+     * @param rate Tasa promedio
+     * @param buyRate Tasa de compra, o {@code null} si no está definida
+     * @param sellRate Tasa de venta, o {@code null} si no está definida
+     * @param validFrom Inicio de vigencia; para tasas cruzadas, el del tramo más antiguo
+     * @param origin Origen de la tasa
+     */
+    public record HistoricalRate(long rateFixedPoint, BigDecimal rate, BigDecimal buyRate, BigDecimal sellRate,
+                                 LocalDateTime validFrom, RateOrigin origin) {
+    }
+
+    /**
+     * Carga las versiones almacenadas cuando la base de datos está poblada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        load().subscribe(
+                versions -> log.info("Historial de tasas cargado: {} versiones de {} pares", versions, timelines.size()),
+                error -> log.error("No se pudo cargar el historial de tasas", error));
+    }
+
+    /**
+     * Lee todas las versiones de {@code exchange_rate_history} y las incorpora al índice. Las versiones
+     * registradas en memoria mientras tanto se conservan.
+     *
+     * @return Número de versiones leídas
+     */
+    public Mono<Integer> load() {
+        return exchangeRateHistoryRepository.findAll()
+                .collectList()
+                .map(versions -> {
+                    int start = 0;
+                    for (int i = 1; i <= versions.size(); i++) {
+                        if (i == versions.size() || !samePair(versions.get(start), versions.get(i))) {
+                            List<ExchangeRate> pairVersions = versions.subList(start, i);
+                            ExchangeRate first = pairVersions.get(0);
+                            PairTimeline loaded = PairTimeline.of(pairVersions);
+                            timelines.merge(key(first.getSourceCurrencyCode(), first.getTargetCurrencyCode()), loaded,
+                                    (recorded, stored) -> stored.withAll(recorded));
+                            start = i;
+                        }
+                    }
+                    return versions.size();
+                });
+    }
+
+    /**
+     * Registra versiones nuevas de tasas ya escritas en {@code exchange_rate_history}.
+     *
+     * @param exchangeRates Tasas con el inicio de vigencia en {@code lastUpdated}
+     */
+    public void record(Collection<ExchangeRate> exchangeRates) {
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            timelines.compute(key(exchangeRate.getSourceCurrencyCode(), exchangeRate.getTargetCurrencyCode()),
+                    (pair, timeline) -> (timeline != null ? timeline : PairTimeline.EMPTY).with(exchangeRate));
+        }
+    }
+
+    /**
+     * Tasa vigente de un par en un instante: la versión con el mayor inicio de vigencia que no es
+     * posterior al instante o, si el par no tiene versiones vigentes, la tasa derivada.
+     *
+     * @param sourceCurrency Código de moneda origen
+     * @param targetCurrency Código de moneda destino
+     * @param asOf Instante de la consulta
+     * @return Tasa vigente, o {@code null} si el par no tenía tasa en ese instante
+     */
+    public HistoricalRate at(String sourceCurrency, String targetCurrency, LocalDateTime asOf) {
+        if (sourceCurrency.equals(targetCurrency)) {
+            return null;
+        }
+        long instant = instant(asOf);
+        PairTimeline direct = timelines.get(key(sourceCurrency, targetCurrency));
+        int version = direct != null ? direct.floor(instant) : -1;
+        if (version >= 0) {
+            return new HistoricalRate(direct.rates[version], toDecimal(direct.rates[version]),
+                    toDecimal(direct.buyRates[version]), toDecimal(direct.sellRates[version]),
+                    direct.validFrom[version], RateOrigin.DIRECT);
+        }
+
+        PairTimeline reverse = timelines.get(key(targetCurrency, sourceCurrency));
+        version = reverse != null ? reverse.floor(instant) : -1;
+        if (version >= 0) {
+            long inverted = CrossRateEngine.invert(reverse.rates[version]);
+            return inverted == RateMatrixSnapshot.ABSENT ? null
+                    : derived(inverted, reverse.validFrom[version], RateOrigin.INVERTED);
+        }
+
+        String pivot = crossRateEngine.pivotCurrency();
+        if (sourceCurrency.equals(pivot) || targetCurrency.equals(pivot)) {
+            return null;
+        }
+        Leg toPivot = leg(sourceCurrency, pivot, instant);
+        Leg fromPivot = toPivot != null ? leg(pivot, targetCurrency, instant) : null;
+        if (fromPivot == null) {
+            return null;
+        }
+        long cross = CrossRateEngine.cross(toPivot.rate(), fromPivot.rate());
+        return cross == RateMatrixSnapshot.ABSENT ? null
+                : derived(cross, CrossRateEngine.oldest(toPivot.validFrom(), fromPivot.validFrom()), RateOrigin.CROSS);
+    }
+
+    /**
+     * Número de pares con versiones.
+     */
+    public int size() {
+        return timelines.size();
+    }
+
+    /**
+     * Tramo de una tasa cruzada: valor exacto (sin redondear para los tramos invertidos) e inicio de vigencia.
+     */
+    private record Leg(BigDecimal rate, LocalDateTime validFrom) {
+    }
+
+    private Leg leg(String sourceCurrency, String targetCurrency, long instant) {
+        PairTimeline direct = timelines.get(key(sourceCurrency, targetCurrency));
+        int version = direct != null ? direct.floor(instant) : -1;
+        if (version >= 0) {
+            return new Leg(CrossRateEngine.toDecimal(direct.rates[version]), direct.validFrom[version]);
+        }
+        PairTimeline reverse = timelines.get(key(targetCurrency, sourceCurrency));
+        version = reverse != null ? reverse.floor(instant) : -1;
+        if (version >= 0 && CrossRateEngine.invert(reverse.rates[version]) != RateMatrixSnapshot.ABSENT) {
+            return new Leg(CrossRateEngine.exactInverse(reverse.rates[version]), reverse.validFrom[version]);
+        }
+        return null;
+    }
+
+    /**
+     * Tasa derivada: solo incluye la tasa promedio, como en la matriz de tasas.
+     */
+    private static HistoricalRate derived(long rate, LocalDateTime validFrom, RateOrigin origin) {
+        return new HistoricalRate(rate, toDecimal(rate), null, null, validFrom, origin);
+    }
+
+    private static boolean samePair(ExchangeRate first, ExchangeRate second) {
+        return first.getSourceCurrencyCode().equals(second.getSourceCurrencyCode())
+                && first.getTargetCurrencyCode().equals(second.getTargetCurrencyCode());
+    }
+
+    private static String key(String sourceCurrency, String targetCurrency) {
+        return sourceCurrency + "_" + targetCurrency;
+    }
+
+    /**
+     * Instante como microsegundos desde la época, la precisión de {@code TIMESTAMP} en la base de datos.
+     */
+    private static long instant(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    private static long toFixedPoint(BigDecimal value) {
+        return value == null ? RateMatrixSnapshot.ABSENT
+                : value.setScale(RateMatrixSnapshot.SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal toDecimal(long fixedPoint) {
+        return fixedPoint == RateMatrixSnapshot.ABSENT ? null : BigDecimal.valueOf(fixedPoint, RateMatrixSnapshot.SCALE);
+    }
+
+    /**
+     * Versiones de un par ordenadas por inicio de vigencia, en arreglos paralelos. Inmutable.
+     */
+    private static final class PairTimeline {
+
+        static final PairTimeline EMPTY = new PairTimeline(new long[0], new LocalDateTime[0], new long[0], new long[0], new long[0]);
+
+        private final long[] instants;
+        private final LocalDateTime[] validFrom;
+        private final long[] rates;
+        private final long[] buyRates;
+        private final long[] sellRates;
+
+        private PairTimeline(long[] instants, LocalDateTime[] validFrom, long[] rates, long[] buyRates, long[] sellRates) {
+            this.instants = instants;
+            this.validFrom = validFrom;
+            this.rates = rates;
+            this.buyRates = buyRates;
+            this.sellRates = sellRates;
+        }
+
+        /**
+         * Línea de tiempo a partir de versiones ordenadas por inicio de vigencia.
+         */
+        static PairTimeline of(List<ExchangeRate> versions) {
+            int size = versions.size();
+            PairTimeline timeline = new PairTimeline(new long[size], new LocalDateTime[size], new long[size],
+                    new long[size], new long[size]);
+            for (int i = 0; i < size; i++) {
+                timeline.set(i, versions.get(i));
+            }
+            return timeline;
+        }
+
+        /**
+         * Índice de la última versión que empieza en o antes del instante, o -1 si no hay ninguna.
+         */
+        int floor(long instant) {
+            int low = 0;
+            int high = instants.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (instants[middle] <= instant) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return high;
+        }
+
+        /**
+         * Copia con una versión agregada en su posición; si ya hay una con el mismo inicio de vigencia, la reemplaza.
+         */
+        PairTimeline with(ExchangeRate version) {
+            long instant = instant(version.getLastUpdated());
+            int position = floor(instant);
+            if (position >= 0 && instants[position] == instant) {
+                PairTimeline copy = new PairTimeline(instants.clone(), validFrom.clone(), rates.clone(), buyRates.clone(),
+                        sellRates.clone());
+                copy.set(position, version);
+                return copy;
+            }
+            int insert = position + 1;
+            int size = instants.length + 1;
+            PairTimeline copy = new PairTimeline(insert(instants, insert, size), insert(validFrom, insert, size),
+                    insert(rates, insert, size), insert(buyRates, insert, size), insert(sellRates, insert, size));
+            copy.set(insert, version);
+            return copy;
+        }
+
+        /**
+         * Copia con las versiones de otra línea de tiempo agregadas.
+         */
+        PairTimeline withAll(PairTimeline other) {
+            List<ExchangeRate> versions = new ArrayList<>(other.instants.length);
+            for (int i = 0; i < other.instants.length; i++) {
+                versions.add(ExchangeRate.builder()
+                        .rate(toDecimal(other.rates[i]))
+                        .buyRate(toDecimal(other.buyRates[i]))
+                        .sellRate(toDecimal(other.sellRates[i]))
+                        .lastUpdated(other.validFrom[i])
+                        .build());
+            }
+            PairTimeline merged = this;
+            for (ExchangeRate version : versions) {
+                merged = merged.with(version);
+            }
+            return merged;
+        }
+
+        private void set(int index, ExchangeRate version) {
+            instants[index] = instant(version.getLastUpdated());
+            validFrom[index] = version.getLastUpdated();
+            rates[index] = toFixedPoint(version.getRate());
+            buyRates[index] = toFixedPoint(version.getBuyRate());
+            sellRates[index] = toFixedPoint(version.getSellRate());
+        }
+
+        private static long[] insert(long[] values, int index, int size) {
+            long[] copy = new long[size];
+            System.arraycopy(values, 0, copy, 0, index);
+            System.arraycopy(values, index, copy, index + 1, values.length - index);
+            return copy;
+        }
+
+        private static LocalDateTime[] insert(LocalDateTime[] values, int index, int size) {
+            LocalDateTime[] copy = Arrays.copyOf(values, size);
+            System.arraycopy(values, index, copy, index + 1, values.length - index);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Formatos de los archivos de tasas de cambio que acepta la importación masiva. Cada línea del archivo
+ * es una tasa; las líneas en blanco se ignoran.
+ */
+public enum RateImportFormat {
+
+    /**
+     * CSV sin comillas con una línea de cabecera, que se ignora, y las columnas
+     * {@code sourceCurrencyCode,targetCurrencyCode,rate,buyRate,sellRate[,lastUpdated]}.
+     * Las tasas de compra y venta pueden quedar vacías; {@code lastUpdated} es una fecha ISO-8601 opcional.
+     */
+    CSV("text/csv", true) {
+        @Override
+        public ExchangeRate parse(String line, ObjectMapper objectMapper) {
+            String[] fields = line.split(",", -1);
+            if (fields.length < 5 || fields.length > 6) {
+                throw new IllegalArgumentException("se esperaban 5 o 6 columnas y hay " + fields.length);
+            }
+            try {
+                return ExchangeRate.builder()
+                        .sourceCurrencyCode(fields[0].trim())
+                        .targetCurrencyCode(fields[1].trim())
+                        .rate(decimal(fields[2]))
+                        .buyRate(decimal(fields[3]))
+                        .sellRate(decimal(fields[4]))
+                        .lastUpdated(fields.length == 6 && !fields[5].isBlank() ? LocalDateTime.parse(fields[5].trim()) : null)
+                        .build();
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("valor no válido: " + e.getMessage(), e);
+            }
+        }
+    },
+
+    /**
+     * Un objeto JSON por línea con los campos de {@link ExchangeRate}: {@code sourceCurrencyCode},
+     * {@code targetCurrencyCode}, {@code rate} y, opcionalmente, {@code buyRate}, {@code sellRate} y
+     * {@code lastUpdated}. El {@code id} se ignora.
+     */
+    NDJSON("application/x-ndjson", false) {
+        @Override
+        public ExchangeRate parse(String line, ObjectMapper objectMapper) {
+            try {
+                ExchangeRate exchangeRate = objectMapper.readValue(line, ExchangeRate.class);
+                exchangeRate.setId(null);
+                return exchangeRate;
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("JSON no válido: " + e.getOriginalMessage(), e);
+            }
+        }
+    };
+
+    private final String contentType;
+    private final boolean header;
+
+    RateImportFormat(String contentType, boolean header) {
+        this.contentType = contentType;
+        this.header = header;
+    }
+
+    /**
+     * Tipo de contenido HTTP del formato.
+     */
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Indica si la primera línea del archivo es una cabecera.
+     */
+    public boolean hasHeader() {
+        return header;
+    }
+
+    /**
+     * Interpreta una línea del archivo. No valida las monedas ni los valores de las tasas.
+     *
+     * @param line Línea sin el fin de línea
+     * @param objectMapper Mapeador para los formatos JSON
+     * @return Tasa leída, sin {@code id}
+     * @throws IllegalArgumentException si la línea no tiene el formato esperado
+     */
+    public abstract ExchangeRate parse(String line, ObjectMapper objectMapper);
+
+    /**
+     * Formato correspondiente a la extensión de un archivo: {@code .ndjson} y {@code .jsonl} son NDJSON,
+     * cualquier otra, CSV.
+     */
+    public static RateImportFormat forFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") ? NDJSON : CSV;
+    }
+
+    private static BigDecimal decimal(String field) {
+        String value = field.trim();
+        return value.isEmpty() ? null : new BigDecimal(value);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.dto.RateImportResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Importación de tasas sin pasar por la API: si la aplicación se inicia con {@code --import-rates=<archivo>},
+ * importa las tasas de ese archivo, informa las filas por segundo y termina el proceso.
+ * <p>
+ * El formato se deduce de la extensión ({@code .ndjson} o {@code .jsonl} para NDJSON, CSV en otro caso)
+ * o se indica con {@code --import-format=CSV|NDJSON}. El proceso termina con código 1 si se rechazó alguna fila.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateImportJob implements ApplicationRunner {
+
+    // Tamaño de los buffers de lectura del archivo
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final RateImporter rateImporter;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String file = option(args, "import-rates");
+        if (file == null) {
+            return;
+        }
+        String formatOption = option(args, "import-format");
+        RateImportFormat format = formatOption != null
+                ? RateImportFormat.valueOf(formatOption.toUpperCase(Locale.ROOT))
+                : RateImportFormat.forFileName(file);
+
+        RateImportResponse result = rateImporter.importRates(
+                        DataBufferUtils.read(Path.of(file), DefaultDataBufferFactory.sharedInstance, READ_BUFFER_SIZE), format)
+                .block();
+        log.info("Importadas {} tasas de {} ({}) en {} ms: {} filas/s, {} rechazadas",
+                result.getRowsImported(), file, format, result.getDurationMillis(), result.getRowsPerSecond(),
+                result.getRowsRejected());
+        result.getErrors().forEach(error -> log.warn("Fila rechazada: {}", error));
+
+        int exitCode = result.getRowsRejected() > 0 ? 1 : 0;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyIndex;
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.dto.RateImportResponse;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Importación masiva de tasas de cambio desde archivos CSV o NDJSON.
+ * <p>
+ * El archivo se lee como un flujo de buffers y se divide en líneas a medida que llega, sin cargarlo
+ * completo en memoria. Cada fila se valida contra el {@link CurrencyRegistry}; las filas no válidas se
+ * descartan y se informan. Las filas cuyo {@code lastUpdated} es anterior al de la tasa vigente del par (en la
+ * matriz de tasas o en una fila anterior del mismo archivo) se omiten y se cuentan aparte, para que un archivo
+ * con datos más antiguos no reemplace tasas más recientes. Las válidas se escriben en grupos de {@code currency.rate-import.batch-size}
+ * con sentencias {@code MERGE} de varias filas por grupo (tasas vigentes y sus versiones), todas en una
+ * misma transacción. Solo tras
+ * confirmarla se publican las tasas en memoria a través del {@link RateUpdater}, con un único
+ * intercambio de la matriz de tasas.
+ */
+@Component
+@Slf4j
+public class RateImporter {
+
+    // Filas rechazadas que se detallan en el resultado; el resto solo se cuenta
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final ResolvableType STRING_TYPE = ResolvableType.forClass(String.class);
+
+    private final CurrencyRegistry currencyRegistry;
+    private final TransactionalOperator transactionalOperator;
+    private final RateUpdater rateUpdater;
+    private final RateMatrix rateMatrix;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final StringDecoder lineDecoder = StringDecoder.textPlainOnly(List.of("\n"), true);
+
+    public RateImporter(
+            CurrencyRegistry currencyRegistry,
+            TransactionalOperator transactionalOperator,
+            RateUpdater rateUpdater,
+            RateMatrix rateMatrix,
+            ObjectMapper objectMapper,
+            @Value("${currency.rate-import.batch-size:500}") int batchSize) {
+        this.currencyRegistry = currencyRegistry;
+        this.transactionalOperator = transactionalOperator;
+        this.rateUpdater = rateUpdater;
+        this.rateMatrix = rateMatrix;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Importa las tasas de un archivo. Si la escritura falla, la transacción se revierte y las tasas en
+     * memoria no cambian.
+     *
+     * @param content Contenido del archivo
+     * @param format Formato del archivo
+     * @return Resultado de la importación
+     */
+    public Mono<RateImportResponse> importRates(Flux<DataBuffer> content, RateImportFormat format) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            ImportState state = new ImportState(format, LocalDateTime.now(), rateMatrix.current());
+            return knownCurrencies()
+                    .flatMap(currencies -> lineDecoder.decode(content, STRING_TYPE, null, null)
+                            .<ExchangeRate>handle((line, sink) -> {
+                                ExchangeRate exchangeRate = state.accept(line, currencies);
+                                if (exchangeRate != null) {
+                                    sink.next(exchangeRate);
+                                }
+                            })
+                            .buffer(batchSize)
+                            .concatMap(batch -> rateUpdater.write(state.latestOf(batch)))
+                            .then()
+                            .as(transactionalOperator::transactional))
+                    .then(Mono.fromSupplier(() -> {
+                        RateImportResponse response = state.toResponse(publish(state), System.nanoTime() - startedAt);
+                        log.info("Importación de tasas {}: {} filas leídas, {} importadas, {} rechazadas, {} antiguas, {} pares en {} ms ({} filas/s)",
+                                format, response.getRowsRead(), response.getRowsImported(), response.getRowsRejected(),
+                                response.getRowsStale(), response.getPairsUpdated(), response.getDurationMillis(), response.getRowsPerSecond());
+                        return response;
+                    }));
+        });
+    }
+
+    /**
+     * Publica en memoria las tasas importadas; si no hubo ninguna, la matriz no cambia.
+     *
+     * @return Versión de la matriz publicada, o {@code null} si no se publicó ninguna
+     */
+    private Long publish(ImportState state) {
+        if (state.latest.isEmpty()) {
+            return null;
+        }
+        return rateUpdater.publish(state.latest.values(), state.earlierVersions).version();
+    }
+
+    /**
+     * Monedas conocidas. Fuera del ciclo normal de arranque (importación por línea de comandos) el
+     * registro puede no estar cargado todavía, y se carga aquí.
+     */
+    private Mono<CurrencyIndex> knownCurrencies() {
+        return currencyRegistry.isLoaded() ? Mono.just(currencyRegistry.current()) : currencyRegistry.refresh();
+    }
+
+    /**
+     * Estado de una importación. Los operadores de Reactor lo invocan en serie.
+     */
+    private final class ImportState {
+
+        private final RateImportFormat format;
+        private final LocalDateTime importedAt;
+        private final RateMatrixSnapshot snapshot;
+        // Inicio de vigencia más reciente importado de cada par
+        private final Map<String, LocalDateTime> newest = new HashMap<>();
+        // Última tasa importada de cada par, publicada en memoria al final
+        private final Map<String, ExchangeRate> latest = new LinkedHashMap<>();
+        // Versiones ya escritas en grupos anteriores y reemplazadas por otra con distinto inicio de vigencia
+        private final List<ExchangeRate> earlierVersions = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private long lineNumber;
+        private long rowsRead;
+        private long rowsImported;
+        private long rowsRejected;
+        private long rowsStale;
+
+        ImportState(RateImportFormat format, LocalDateTime importedAt, RateMatrixSnapshot snapshot) {
+            this.format = format;
+            this.importedAt = importedAt;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Interpreta y valida una línea.
+         *
+         * @return Tasa a importar, o {@code null} si la línea se ignora o se rechaza
+         */
+        ExchangeRate accept(String line, CurrencyIndex currencies) {
+            lineNumber++;
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || (lineNumber == 1 && format.hasHeader())) {
+                return null;
+            }
+            rowsRead++;
+            ExchangeRate exchangeRate;
+            try {
+                exchangeRate = format.parse(trimmed, objectMapper);
+            } catch (IllegalArgumentException e) {
+                reject(e.getMessage());
+                return null;
+            }
+            RateValidator.normalize(exchangeRate);
+            String invalid = RateValidator.validate(exchangeRate, currencies);
+            if (invalid != null) {
+                reject(invalid);
+                return null;
+            }
+            if (exchangeRate.getLastUpdated() == null) {
+                exchangeRate.setLastUpdated(importedAt);
+            }
+            if (isStale(exchangeRate)) {
+                rowsStale++;
+                return null;
+            }
+            rowsImported++;
+            return exchangeRate;
+        }
+
+        /**
+         * Última tasa de cada par de un grupo (un {@code MERGE} no admite dos filas con la misma clave),
+         * registrada también para la publicación final.
+         */
+        List<ExchangeRate> latestOf(List<ExchangeRate> batch) {
+            Map<String, ExchangeRate> pairs = new LinkedHashMap<>();
+            for (ExchangeRate exchangeRate : batch) {
+                String pair = exchangeRate.getSourceCurrencyCode() + "_" + exchangeRate.getTargetCurrencyCode();
+                ExchangeRate inBatch = pairs.put(pair, exchangeRate);
+                ExchangeRate previous = latest.put(pair, exchangeRate);
+                if (inBatch == null && previous != null
+                        && !previous.getLastUpdated().equals(exchangeRate.getLastUpdated())) {
+                    earlierVersions.add(previous);
+                }
+            }
+            return new ArrayList<>(pairs.values());
+        }
+
+        /**
+         * Indica si la tasa es anterior a la última importada del par o, si no hay ninguna, a su tasa directa
+         * en la matriz; si no lo es, pasa a ser la más reciente del par.
+         */
+        private boolean isStale(ExchangeRate exchangeRate) {
+            String pair = exchangeRate.getSourceCurrencyCode() + "_" + exchangeRate.getTargetCurrencyCode();
+            LocalDateTime current = newest.get(pair);
+            if (current != null ? current.isAfter(exchangeRate.getLastUpdated()) : snapshot.hasNewerDirectRate(exchangeRate)) {
+                return true;
+            }
+            newest.put(pair, exchangeRate.getLastUpdated());
+            return false;
+        }
+
+        private void reject(String reason) {
+            rowsRejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("línea " + lineNumber + ": " + reason);
+            }
+        }
+
+        RateImportResponse toResponse(Long rateVersion, long elapsedNanos) {
+            double seconds = Math.max(elapsedNanos / 1e9, 1e-9);
+            return RateImportResponse.builder()
+                    .format(format)
+                    .rowsRead(rowsRead)
+                    .rowsImported(rowsImported)
+                    .rowsRejected(rowsRejected)
+                    .rowsStale(rowsStale)
+                    .pairsUpdated(latest.size())
+                    .errors(errors)
+                    .durationMillis(elapsedNanos / 1_000_000)
+                    .rowsPerSecond(Math.round(rowsRead / seconds))
+                    .rateVersion(rateVersion)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrenciesChangedEvent;
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.repository.ExchangeRateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Matriz de tasas de cambio en memoria.
+ * Publica instantáneas inmutables ({@link RateMatrixSnapshot}) mediante copy-on-write y un
+ * intercambio atómico de referencia, de modo que las lecturas no usan bloqueos ni acceden a la base de datos.
+ * Las publicaciones se serializan bajo un único monitor: cada instantánea se construye una sola vez, recibe
+ * la versión siguiente y se emite antes de que empiece la siguiente publicación.
+ * Los pares sin fila directa se derivan al publicar cada instantánea mediante el {@link CrossRateEngine}.
+ * Las dimensiones de la matriz siguen al {@link CurrencyRegistry}: cada cambio en las monedas
+ * conocidas provoca una recarga. Cada instantánea publicada se emite además en un único flujo
+ * compartido ({@link #updates()}) para los suscriptores de tasas en vivo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateMatrix {
+
+    private final CurrencyRegistry currencyRegistry;
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final CrossRateEngine crossRateEngine;
+
+    private final AtomicReference<RateMatrixSnapshot> current = new AtomicReference<>(RateMatrixSnapshot.empty());
+    // Multidifusión sin búfer: cada suscriptor decide cómo absorber las instantáneas que no alcanza a consumir.
+    // Su monitor serializa además las publicaciones
+    private final Sinks.Many<RateMatrixSnapshot> published = Sinks.many().multicast().directBestEffort();
+
+    /**
+     * Instantánea vigente. La lectura es una simple lectura volátil.
+     */
+    public RateMatrixSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Flujo compartido de las instantáneas publicadas a partir de la suscripción, sin repetir las anteriores.
+     * Se emiten en orden de versión en el hilo que publica, por lo que los suscriptores no deben bloquear.
+     */
+    public Flux<RateMatrixSnapshot> updates() {
+        return published.asFlux();
+    }
+
+    /**
+     * Recarga la matriz cuando cambian las monedas conocidas, incluida la carga inicial del registro.
+     */
+    @EventListener(CurrenciesChangedEvent.class)
+    public void onCurrenciesChanged() {
+        reload().subscribe(
+                snapshot -> log.info("Matriz de tasas cargada: {} monedas, versión {}", snapshot.size(), snapshot.version()),
+                error -> log.error("No se pudo cargar la matriz de tasas", error));
+    }
+
+    /**
+     * Reconstruye la matriz completa desde la base de datos y la publica.
+     * Si otra instantánea se publica mientras se lee la base de datos, la recarga se repite
+     * para no sobrescribir cambios más recientes.
+     *
+     * @return Instantánea publicada
+     */
+    public Mono<RateMatrixSnapshot> reload() {
+        return Mono.defer(() -> {
+            RateMatrixSnapshot previous = current.get();
+            return exchangeRateRepository.findAll().collectList()
+                    .mapNotNull(exchangeRates -> {
+                        synchronized (published) {
+                            if (current.get() != previous) {
+                                return null;
+                            }
+                            return publish(RateMatrixSnapshot.build(previous.version() + 1,
+                                    currencyRegistry.current(), exchangeRates, crossRateEngine));
+                        }
+                    });
+        }).repeatWhenEmpty(Integer.MAX_VALUE, attempts -> attempts);
+    }
+
+    /**
+     * Publica una nueva instantánea con las tasas indicadas reemplazadas.
+     *
+     * @param exchangeRates Tasas nuevas o modificadas
+     * @return Instantánea publicada
+     */
+    public RateMatrixSnapshot apply(Collection<ExchangeRate> exchangeRates) {
+        synchronized (published) {
+            RateMatrixSnapshot snapshot = current.get();
+            return publish(snapshot.withRates(exchangeRates, snapshot.version() + 1, currencyRegistry.current(), crossRateEngine));
+        }
+    }
+
+    /**
+     * Publica y emite una instantánea; se invoca bajo el monitor de {@code published}.
+     */
+    private RateMatrixSnapshot publish(RateMatrixSnapshot snapshot) {
+        current.set(snapshot);
+        published.tryEmitNext(snapshot);
+        return snapshot;
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyIndex;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Instantánea inmutable de todas las tasas de cambio en una matriz densa N×N.
+ * La matriz se indexa con los identificadores compactos del registro de monedas
+ * ({@link CurrencyIndex}) y la tasa del par (origen, destino) se guarda en
+ * {@code origen * N + destino} como valor de punto fijo con escala {@value #SCALE},
+ * la misma escala que la columna {@code DECIMAL(19, 6)} de {@code exchange_rates}.
+ * Un valor {@value #ABSENT} indica que el par no tiene tasa, por lo que las tasas que se redondean a cero
+ * con esa escala se rechazan al construir la instantánea. Las celdas sin fila directa se
+ * completan al construir la instantánea mediante el {@link CrossRateEngine}.
+ */
+@Slf4j
+public final class RateMatrixSnapshot {
+
+    public static final int SCALE = 6;
+    public static final long ABSENT = 0L;
+
+    private final long version;
+    private final Instant publishedAt;
+    private final CurrencyIndex currencies;
+    private final int n;
+    private final long[] rates;
+    private final long[] buyRates;
+    private final long[] sellRates;
+    private final LocalDateTime[] lastUpdated;
+    private final RateOrigin[] origins;
+
+    private RateMatrixSnapshot(long version, CurrencyIndex currencies, long[] rates, long[] buyRates, long[] sellRates,
+                               LocalDateTime[] lastUpdated, RateOrigin[] origins) {
+        this.version = version;
+        this.publishedAt = Instant.now();
+        this.currencies = currencies;
+        this.n = currencies.size();
+        this.rates = rates;
+        this.buyRates = buyRates;
+        this.sellRates = sellRates;
+        this.lastUpdated = lastUpdated;
+        this.origins = origins;
+    }
+
+    /**
+     * Instantánea vacía usada hasta que se completa la primera carga.
+     */
+    public static RateMatrixSnapshot empty() {
+        return new RateMatrixSnapshot(0L, CurrencyIndex.empty(), new long[0], new long[0], new long[0], new LocalDateTime[0],
+                new RateOrigin[0]);
+    }
+
+    /**
+     * Construye una instantánea completa a partir de las tasas almacenadas.
+     *
+     * @param version Versión de la instantánea
+     * @param currencies Índice de monedas que define las dimensiones de la matriz
+     * @param exchangeRates Tasas de cambio almacenadas
+     * @param crossRateEngine Motor que deriva los pares sin fila directa
+     * @return Nueva instantánea
+     */
+    public static RateMatrixSnapshot build(long version, CurrencyIndex currencies, Collection<ExchangeRate> exchangeRates,
+                                           CrossRateEngine crossRateEngine) {
+        int cells = currencies.size() * currencies.size();
+        RateMatrixSnapshot snapshot = new RateMatrixSnapshot(version, currencies, new long[cells], new long[cells],
+                new long[cells], new LocalDateTime[cells], new RateOrigin[cells]);
+        snapshot.putAll(exchangeRates);
+        snapshot.deriveWith(crossRateEngine);
+        return snapshot;
+    }
+
+    /**
+     * Crea una copia de esta instantánea con las tasas indicadas reemplazadas (copy-on-write).
+     * Si el índice de monedas creció, la matriz se amplía; las tasas derivadas se recalculan.
+     *
+     * @param exchangeRates Tasas nuevas o modificadas
+     * @param newVersion Versión de la nueva instantánea
+     * @param newCurrencies Índice de monedas vigente; extiende el de esta instantánea
+     * @param crossRateEngine Motor que deriva los pares sin fila directa
+     * @return Nueva instantánea; esta instancia no se modifica
+     */
+    public RateMatrixSnapshot withRates(Collection<ExchangeRate> exchangeRates, long newVersion,
+                                        CurrencyIndex newCurrencies, CrossRateEngine crossRateEngine) {
+        int size = newCurrencies.size();
+        int cells = size * size;
+        long[] newRates = new long[cells];
+        long[] newBuyRates = new long[cells];
+        long[] newSellRates = new long[cells];
+        LocalDateTime[] newLastUpdated = new LocalDateTime[cells];
+        RateOrigin[] newOrigins = new RateOrigin[cells];
+        for (int row = 0; row < n; row++) {
+            System.arraycopy(rates, row * n, newRates, row * size, n);
+            System.arraycopy(buyRates, row * n, newBuyRates, row * size, n);
+            System.arraycopy(sellRates, row * n, newSellRates, row * size, n);
+            System.arraycopy(lastUpdated, row * n, newLastUpdated, row * size, n);
+            System.arraycopy(origins, row * n, newOrigins, row * size, n);
+        }
+
+        RateMatrixSnapshot snapshot = new RateMatrixSnapshot(newVersion, newCurrencies, newRates, newBuyRates,
+                newSellRates, newLastUpdated, newOrigins);
+        snapshot.putAll(exchangeRates);
+        snapshot.deriveWith(crossRateEngine);
+        return snapshot;
+    }
+
+    /**
+     * Escribe las tasas en la matriz. Solo se invoca durante la construcción,
+     * antes de que la instantánea se publique.
+     */
+    private void putAll(Collection<ExchangeRate> exchangeRates) {
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            int source = currencies.id(exchangeRate.getSourceCurrencyCode());
+            int target = currencies.id(exchangeRate.getTargetCurrencyCode());
+            if (source < 0 || target < 0) {
+                log.warn("Tasa ignorada en la matriz, moneda desconocida: {} a {}",
+                        exchangeRate.getSourceCurrencyCode(), exchangeRate.getTargetCurrencyCode());
+                continue;
+            }
+            try {
+                int cell = source * n + target;
+                rates[cell] = toFixedPoint(exchangeRate.getRate());
+                buyRates[cell] = exchangeRate.getBuyRate() != null ? toFixedPoint(exchangeRate.getBuyRate()) : ABSENT;
+                sellRates[cell] = exchangeRate.getSellRate() != null ? toFixedPoint(exchangeRate.getSellRate()) : ABSENT;
+                lastUpdated[cell] = exchangeRate.getLastUpdated();
+                origins[cell] = RateOrigin.DIRECT;
+            } catch (ArithmeticException e) {
+                log.warn("Tasa ignorada en la matriz, fuera de rango: {} a {}",
+                        exchangeRate.getSourceCurrencyCode(), exchangeRate.getTargetCurrencyCode());
+            }
+        }
+    }
+
+    private void deriveWith(CrossRateEngine crossRateEngine) {
+        crossRateEngine.derive(currencies, rates, buyRates, sellRates, lastUpdated, origins);
+    }
+
+    private static long toFixedPoint(BigDecimal value) {
+        long fixedPoint = value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        if (fixedPoint == ABSENT) {
+            throw new ArithmeticException("Tasa menor que la resolución de la matriz: " + value);
+        }
+        return fixedPoint;
+    }
+
+    private static BigDecimal toDecimal(long fixedPoint) {
+        return fixedPoint == ABSENT ? null : BigDecimal.valueOf(fixedPoint, SCALE);
+    }
+
+    /**
+     * Versión de la instantánea; aumenta con cada publicación.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Instante en que se construyó la instantánea.
+     */
+    public Instant publishedAt() {
+        return publishedAt;
+    }
+
+    /**
+     * Número de monedas de la matriz.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Índice de monedas con el que se construyó la instantánea.
+     */
+    public CurrencyIndex currencies() {
+        return currencies;
+    }
+
+    /**
+     * Identificador de una moneda en la matriz.
+     *
+     * @param code Código ISO de la moneda
+     * @return Identificador de la moneda, o -1 si no está en la matriz
+     */
+    public int id(CharSequence code) {
+        int id = currencies.id(code);
+        return id < n ? id : -1;
+    }
+
+    /**
+     * Código ISO de la moneda con el identificador indicado.
+     */
+    public String code(int id) {
+        return currencies.code(id);
+    }
+
+    /**
+     * Indica si existe tasa para el par (origen, destino). Los identificadores asignados después de
+     * construir la instantánea no tienen tasa.
+     */
+    public boolean hasRate(int source, int target) {
+        return source >= 0 && target >= 0 && source < n && target < n && rates[source * n + target] != ABSENT;
+    }
+
+    /**
+     * Tasa del par como valor de punto fijo con escala {@value #SCALE}.
+     */
+    public long rateFixedPoint(int source, int target) {
+        return rates[source * n + target];
+    }
+
+    /**
+     * Tasa promedio del par.
+     */
+    public BigDecimal rate(int source, int target) {
+        return toDecimal(rates[source * n + target]);
+    }
+
+    /**
+     * Tasa de compra del par, o {@code null} si no está definida.
+     */
+    public BigDecimal buyRate(int source, int target) {
+        return toDecimal(buyRates[source * n + target]);
+    }
+
+    /**
+     * Tasa de venta del par, o {@code null} si no está definida.
+     */
+    public BigDecimal sellRate(int source, int target) {
+        return toDecimal(sellRates[source * n + target]);
+    }
+
+    /**
+     * Fecha de última actualización de la tasa del par.
+     */
+    public LocalDateTime lastUpdated(int source, int target) {
+        return lastUpdated[source * n + target];
+    }
+
+    /**
+     * Indica si el par de la tasa tiene una tasa directa con {@code lastUpdated} posterior al de la tasa indicada,
+     * es decir, si la tasa indicada es más antigua que la vigente.
+     */
+    public boolean hasNewerDirectRate(ExchangeRate exchangeRate) {
+        int source = id(exchangeRate.getSourceCurrencyCode());
+        int target = id(exchangeRate.getTargetCurrencyCode());
+        if (!hasRate(source, target) || origin(source, target) != RateOrigin.DIRECT) {
+            return false;
+        }
+        LocalDateTime current = lastUpdated(source, target);
+        return current != null && exchangeRate.getLastUpdated() != null && current.isAfter(exchangeRate.getLastUpdated());
+    }
+
+    /**
+     * Origen de la tasa del par, o {@code null} si el par no tiene tasa.
+     */
+    public RateOrigin origin(int source, int target) {
+        return origins[source * n + target];
+    }
+}
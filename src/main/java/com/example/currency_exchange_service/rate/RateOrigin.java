@@ -0,0 +1,13 @@
+package com.example.currency_exchange_service.rate;
+
+/**
+ * Origen de una tasa de la matriz.
+ */
+public enum RateOrigin {
+    /** Fila almacenada en {@code exchange_rates}. */
+    DIRECT,
+    /** Inversa de la fila almacenada en sentido contrario. */
+    INVERTED,
+    /** Derivada a través de la moneda pivote. */
+    CROSS
+}
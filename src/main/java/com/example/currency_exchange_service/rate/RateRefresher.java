@@ -0,0 +1,182 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyIndex;
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.provider.RateProviderClient;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Refresco periódico de las tasas de cambio desde el proveedor externo.
+ * <p>
+ * Cada {@code currency.provider.refresh-interval} consulta las tasas de {@code currency.provider.base-currency}
+ * a todas las monedas registradas mediante {@link RateProviderClient} y escribe con {@link RateUpdater} las que
+ * cambiaron, en una transacción y con una sola instantánea nueva de la matriz. El proveedor solo informa tasas
+ * promedio: las tasas de compra y venta almacenadas del par se desplazan en la misma proporción, conservando
+ * su diferencial. Las tasas directas que el proveedor informa sin cambios con una fecha posterior se confirman
+ * ({@link RateUpdater#confirm(List)}): su {@code lastUpdated} avanza sin agregar versiones al historial, de modo
+ * que los pares estables no superan su antigüedad máxima. Desactivado por defecto ({@code currency.provider.enabled}).
+ */
+@Component
+@Slf4j
+public class RateRefresher {
+
+    private final RateProviderClient rateProviderClient;
+    private final CurrencyRegistry currencyRegistry;
+    private final RateMatrix rateMatrix;
+    private final RateUpdater rateUpdater;
+    private final boolean enabled;
+    private final Duration refreshInterval;
+    private final String baseCurrency;
+
+    private Disposable refreshLoop;
+
+    public RateRefresher(
+            RateProviderClient rateProviderClient,
+            CurrencyRegistry currencyRegistry,
+            RateMatrix rateMatrix,
+            RateUpdater rateUpdater,
+            @Value("${currency.provider.enabled:false}") boolean enabled,
+            @Value("${currency.provider.refresh-interval:1m}") Duration refreshInterval,
+            @Value("${currency.provider.base-currency:${currency.cross-rate.pivot:USD}}") String baseCurrency) {
+        this.rateProviderClient = rateProviderClient;
+        this.currencyRegistry = currencyRegistry;
+        this.rateMatrix = rateMatrix;
+        this.rateUpdater = rateUpdater;
+        this.enabled = enabled;
+        this.refreshInterval = refreshInterval;
+        this.baseCurrency = baseCurrency.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Programa los refrescos cuando la base de datos está poblada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        refreshLoop = Flux.interval(refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh()
+                        .onErrorResume(error -> {
+                            log.error("No se pudieron refrescar las tasas desde el proveedor", error);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshLoop != null) {
+            refreshLoop.dispose();
+        }
+    }
+
+    /**
+     * Consulta las tasas al proveedor y escribe las que cambiaron.
+     *
+     * @return Número de pares escritos
+     */
+    public Mono<Integer> refresh() {
+        return Mono.defer(() -> {
+            CurrencyIndex currencies = currencyRegistry.current();
+            if (!currencies.contains(baseCurrency)) {
+                return Mono.just(0);
+            }
+            List<String> targetCurrencies = new ArrayList<>(currencies.size());
+            for (int id = 0; id < currencies.size(); id++) {
+                String code = currencies.code(id);
+                if (currencies.contains(code) && !code.equals(baseCurrency)) {
+                    targetCurrencies.add(code);
+                }
+            }
+            return rateProviderClient.fetchRates(baseCurrency, targetCurrencies)
+                    .flatMap(exchangeRates -> {
+                        List<ExchangeRate> confirmed = new ArrayList<>();
+                        List<ExchangeRate> changed = changed(exchangeRates, currencyRegistry.current(), confirmed);
+                        Mono<Integer> written = changed.isEmpty() ? Mono.just(0) : rateUpdater.update(changed)
+                                .doOnNext(snapshot -> log.info("Tasas refrescadas desde el proveedor: {} pares, versión {}",
+                                        changed.size(), snapshot.version()))
+                                .thenReturn(changed.size());
+                        if (confirmed.isEmpty()) {
+                            return written;
+                        }
+                        return written.flatMap(count -> rateUpdater.confirm(confirmed)
+                                .doOnNext(snapshot -> log.debug("Tasas confirmadas por el proveedor: {} pares, versión {}",
+                                        confirmed.size(), snapshot.version()))
+                                .thenReturn(count));
+                    });
+        });
+    }
+
+    /**
+     * Tasas válidas que difieren de las vigentes en la matriz, con las tasas de compra y venta del par
+     * desplazadas en la misma proporción que la tasa promedio. Las tasas directas iguales a las vigentes y con
+     * una fecha posterior se agregan a {@code confirmed} con los valores vigentes y la nueva fecha.
+     */
+    private List<ExchangeRate> changed(List<ExchangeRate> exchangeRates, CurrencyIndex currencies, List<ExchangeRate> confirmed) {
+        RateMatrixSnapshot snapshot = rateMatrix.current();
+        List<ExchangeRate> changed = new ArrayList<>(exchangeRates.size());
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            RateValidator.normalize(exchangeRate);
+            String invalid = RateValidator.validate(exchangeRate, currencies);
+            if (invalid != null) {
+                log.warn("Tasa del proveedor rechazada ({} a {}): {}", exchangeRate.getSourceCurrencyCode(),
+                        exchangeRate.getTargetCurrencyCode(), invalid);
+                continue;
+            }
+            int source = snapshot.id(exchangeRate.getSourceCurrencyCode());
+            int target = snapshot.id(exchangeRate.getTargetCurrencyCode());
+            if (!snapshot.hasRate(source, target)) {
+                changed.add(exchangeRate);
+                continue;
+            }
+            BigDecimal current = snapshot.rate(source, target);
+            if (current.compareTo(exchangeRate.getRate().setScale(RateMatrixSnapshot.SCALE, RoundingMode.HALF_UP)) == 0) {
+                LocalDateTime lastUpdated = snapshot.lastUpdated(source, target);
+                if (snapshot.origin(source, target) == RateOrigin.DIRECT && exchangeRate.getLastUpdated() != null
+                        && (lastUpdated == null || exchangeRate.getLastUpdated().isAfter(lastUpdated))) {
+                    confirmed.add(ExchangeRate.builder()
+                            .sourceCurrencyCode(exchangeRate.getSourceCurrencyCode())
+                            .targetCurrencyCode(exchangeRate.getTargetCurrencyCode())
+                            .rate(current)
+                            .buyRate(snapshot.buyRate(source, target))
+                            .sellRate(snapshot.sellRate(source, target))
+                            .lastUpdated(exchangeRate.getLastUpdated())
+                            .build());
+                }
+                continue;
+            }
+            if (snapshot.origin(source, target) == RateOrigin.DIRECT) {
+                exchangeRate.setBuyRate(shift(snapshot.buyRate(source, target), current, exchangeRate.getRate()));
+                exchangeRate.setSellRate(shift(snapshot.sellRate(source, target), current, exchangeRate.getRate()));
+            }
+            changed.add(exchangeRate);
+        }
+        return changed;
+    }
+
+    private static BigDecimal shift(BigDecimal value, BigDecimal from, BigDecimal to) {
+        if (value == null) {
+            return null;
+        }
+        return value.multiply(to).divide(from, RateMatrixSnapshot.SCALE, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.currency_exchange_service.rate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Antigüedad máxima de las tasas vigentes por par de monedas.
+ * <p>
+ * La antigüedad de una tasa es el tiempo transcurrido desde su {@code lastUpdated}; para las tasas
+ * cruzadas, desde el del tramo más antiguo. Cuando las fuentes de tasas (ticks, proveedor externo) se
+ * detienen, las tasas envejecen y, al superar el máximo del par, las conversiones y consultas del par
+ * fallan en lugar de aplicar una tasa demasiado antigua. El máximo general es
+ * {@code currency.rate-staleness.max-age} y {@code currency.rate-staleness.pair-max-age} lo sustituye
+ * para pares concretos, por ejemplo {@code USD_EUR=2m,USD_JPY=30s}. Un máximo de cero no impone límite.
+ */
+@Component
+public class RateStalenessPolicy {
+
+    private final Duration defaultMaxAge;
+    private final Map<String, Duration> pairMaxAges;
+
+    public RateStalenessPolicy(
+            @Value("${currency.rate-staleness.max-age:0s}") Duration defaultMaxAge,
+            @Value("${currency.rate-staleness.pair-max-age:}") String pairMaxAges) {
+        this.defaultMaxAge = defaultMaxAge;
+        this.pairMaxAges = parse(pairMaxAges);
+    }
+
+    /**
+     * Antigüedad de una tasa en milisegundos, o {@code null} si se desconoce su fecha de actualización.
+     * Las fechas futuras, por desfase de reloj de la fuente, cuentan como antigüedad cero.
+     */
+    public static Long ageMillis(LocalDateTime lastUpdated, LocalDateTime now) {
+        if (lastUpdated == null) {
+            return null;
+        }
+        return Math.max(0, Duration.between(lastUpdated, now).toMillis());
+    }
+
+    /**
+     * Antigüedad máxima admitida para un par; {@link Duration#ZERO} si no tiene límite.
+     */
+    public Duration maxAge(String sourceCurrency, String targetCurrency) {
+        if (pairMaxAges.isEmpty()) {
+            return defaultMaxAge;
+        }
+        return pairMaxAges.getOrDefault(sourceCurrency + "_" + targetCurrency, defaultMaxAge);
+    }
+
+    /**
+     * Indica si una tasa con la antigüedad indicada supera el máximo del par.
+     *
+     * @param ageMillis Antigüedad de la tasa, o {@code null} si se desconoce
+     */
+    public boolean exceeds(String sourceCurrency, String targetCurrency, Long ageMillis) {
+        if (ageMillis == null) {
+            return false;
+        }
+        Duration maxAge = maxAge(sourceCurrency, targetCurrency);
+        return !maxAge.isZero() && ageMillis > maxAge.toMillis();
+    }
+
+    private static Map<String, Duration> parse(String pairMaxAges) {
+        Map<String, Duration> parsed = new HashMap<>();
+        if (pairMaxAges == null || pairMaxAges.isBlank()) {
+            return parsed;
+        }
+        for (String entry : pairMaxAges.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Antigüedad máxima de par no válida: " + entry.strip()
+                        + " (formato ORIGEN_DESTINO=duración)");
+            }
+            parsed.put(entry.substring(0, separator).strip().toUpperCase(Locale.ROOT),
+                    DurationStyle.detectAndParse(entry.substring(separator + 1).strip()));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyIndex;
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.dto.RateTickBatchResponse;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ingesta continua de ticks de tasas de cambio enviados por tesorería como un flujo NDJSON.
+ * <p>
+ * Los ticks se agrupan en ventanas de {@code currency.rate-ticks.coalesce-window} (o de
+ * {@code currency.rate-ticks.max-batch-size} ticks, lo que ocurra primero) y, dentro de cada ventana,
+ * solo el tick más reciente de cada par se escribe: el de mayor {@code lastUpdated} o, a igualdad, el
+ * último recibido. Los ticks más antiguos que la tasa directa vigente del par se omiten. Cada ventana se escribe con {@link RateUpdater#update(List)}: una sentencia
+ * {@code MERGE} por ventana en una transacción y, tras confirmarla, una única instantánea nueva de la
+ * matriz de tasas con todos los pares de la ventana y sus tasas derivadas. Como las conversiones leen la
+ * matriz antes que la caché de tasas, ningún lector ve una parte de la ventana aplicada y otra no.
+ * Las ventanas se escriben de una en una; mientras tanto, el cuerpo de la solicitud se deja de leer.
+ */
+@Component
+@Slf4j
+public class RateTickIngestor {
+
+    // Ticks rechazados que se detallan en cada resultado; el resto solo se cuenta
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final ResolvableType STRING_TYPE = ResolvableType.forClass(String.class);
+
+    private final CurrencyRegistry currencyRegistry;
+    private final RateUpdater rateUpdater;
+    private final RateMatrix rateMatrix;
+    private final ObjectMapper objectMapper;
+    private final Duration coalesceWindow;
+    private final int maxBatchSize;
+    private final StringDecoder lineDecoder = StringDecoder.textPlainOnly(List.of("\n"), true);
+
+    public RateTickIngestor(
+            CurrencyRegistry currencyRegistry,
+            RateUpdater rateUpdater,
+            RateMatrix rateMatrix,
+            ObjectMapper objectMapper,
+            @Value("${currency.rate-ticks.coalesce-window:100ms}") Duration coalesceWindow,
+            @Value("${currency.rate-ticks.max-batch-size:5000}") int maxBatchSize) {
+        this.currencyRegistry = currencyRegistry;
+        this.rateUpdater = rateUpdater;
+        this.rateMatrix = rateMatrix;
+        this.objectMapper = objectMapper;
+        this.coalesceWindow = coalesceWindow;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Ingiere un flujo de ticks, un objeto JSON por línea con los campos de {@link ExchangeRate}. Los
+     * ticks sin {@code lastUpdated} toman la hora de recepción.
+     *
+     * @param content Cuerpo NDJSON
+     * @return Resultado de cada ventana escrita, en orden
+     */
+    public Flux<RateTickBatchResponse> ingest(Flux<DataBuffer> content) {
+        return knownCurrencies().flatMapMany(currencies -> lineDecoder.decode(content, STRING_TYPE, null, null)
+                .index()
+                .filter(line -> !line.getT2().isBlank())
+                .map(line -> parse(line.getT1() + 1, line.getT2().strip(), currencies))
+                .bufferTimeout(maxBatchSize, coalesceWindow, true)
+                .concatMap(this::write, 1));
+    }
+
+    /**
+     * Combina los ticks de una ventana por par y escribe el más reciente de cada uno.
+     */
+    private Mono<RateTickBatchResponse> write(List<Tick> ticks) {
+        Map<String, ExchangeRate> latest = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        long rejected = 0;
+        for (Tick tick : ticks) {
+            if (tick.error() != null) {
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("línea " + tick.lineNumber() + ": " + tick.error());
+                }
+                continue;
+            }
+            ExchangeRate rate = tick.rate();
+            latest.merge(rate.getSourceCurrencyCode() + "_" + rate.getTargetCurrencyCode(), rate,
+                    (previous, next) -> next.getLastUpdated().isBefore(previous.getLastUpdated()) ? previous : next);
+        }
+        int coalesced = latest.size();
+        RateMatrixSnapshot current = rateMatrix.current();
+        latest.values().removeIf(current::hasNewerDirectRate);
+        RateTickBatchResponse.RateTickBatchResponseBuilder response = RateTickBatchResponse.builder()
+                .ticksReceived(ticks.size())
+                .ticksRejected(rejected)
+                .ticksCoalesced(ticks.size() - rejected - coalesced)
+                .ticksStale(coalesced - latest.size())
+                .pairsUpdated(latest.size())
+                .errors(errors);
+        if (latest.isEmpty()) {
+            return Mono.just(response.build());
+        }
+        return rateUpdater.update(new ArrayList<>(latest.values()))
+                .map(snapshot -> {
+                    log.debug("Ventana de ticks: {} recibidos, {} pares escritos, versión {}",
+                            ticks.size(), latest.size(), snapshot.version());
+                    return response.rateVersion(snapshot.version()).build();
+                });
+    }
+
+    private Tick parse(long lineNumber, String line, CurrencyIndex currencies) {
+        ExchangeRate exchangeRate;
+        try {
+            exchangeRate = RateImportFormat.NDJSON.parse(line, objectMapper);
+        } catch (IllegalArgumentException e) {
+            return new Tick(lineNumber, null, e.getMessage());
+        }
+        RateValidator.normalize(exchangeRate);
+        String invalid = RateValidator.validate(exchangeRate, currencies);
+        if (invalid != null) {
+            return new Tick(lineNumber, null, invalid);
+        }
+        if (exchangeRate.getLastUpdated() == null) {
+            exchangeRate.setLastUpdated(LocalDateTime.now());
+        }
+        return new Tick(lineNumber, exchangeRate, null);
+    }
+
+    private Mono<CurrencyIndex> knownCurrencies() {
+        return currencyRegistry.isLoaded() ? Mono.just(currencyRegistry.current()) : currencyRegistry.refresh();
+    }
+
+    /**
+     * Tick leído: la tasa si es válida o el motivo del rechazo.
+     */
+    private record Tick(long lineNumber, ExchangeRate rate, String error) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.ExchangeRateCache;
+import com.example.currency_exchange_service.cluster.RateChangeBus;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.repository.ExchangeRateBatchRepository;
+import com.example.currency_exchange_service.repository.ExchangeRateHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Punto único de actualización de tasas de cambio en tiempo de ejecución.
+ * Escribe las tasas en {@code exchange_rates}, agrega cada valor como una versión nueva en
+ * {@code exchange_rate_history} y luego las publica en memoria: la {@link RateMatrix} se sustituye con un
+ * único intercambio atómico de instantánea, las versiones se agregan al {@link RateHistory} y se
+ * descartan de la {@link ExchangeRateCache} las entradas de los pares modificados. Por último, los cambios se
+ * difunden a las demás instancias del servicio mediante el {@link RateChangeBus}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateUpdater {
+
+    private final ExchangeRateBatchRepository exchangeRateBatchRepository;
+    private final ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final RateMatrix rateMatrix;
+    private final RateHistory rateHistory;
+    private final ExchangeRateCache exchangeRateCache;
+    private final RateChangeBus rateChangeBus;
+
+    /**
+     * Escribe las tasas en una transacción y, tras confirmarla, las publica en memoria.
+     *
+     * @param exchangeRates Tasas nuevas o modificadas, como máximo una por par de monedas
+     * @return Instantánea de la matriz publicada
+     */
+    public Mono<RateMatrixSnapshot> update(List<ExchangeRate> exchangeRates) {
+        return write(exchangeRates)
+                .as(transactionalOperator::transactional)
+                .then(Mono.fromSupplier(() -> publish(exchangeRates)));
+    }
+
+    /**
+     * Escribe las tasas y sus versiones en la transacción en curso, si la hay, sin publicarlas en memoria.
+     * Las tasas sin {@code lastUpdated} toman la fecha actual como inicio de vigencia.
+     *
+     * @param exchangeRates Tasas nuevas o modificadas, como máximo una por par de monedas
+     * @return Señal de finalización
+     */
+    public Mono<Void> write(List<ExchangeRate> exchangeRates) {
+        return Mono.defer(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (ExchangeRate exchangeRate : exchangeRates) {
+                if (exchangeRate.getLastUpdated() == null) {
+                    exchangeRate.setLastUpdated(now);
+                }
+            }
+            return exchangeRateBatchRepository.upsert(exchangeRates)
+                    .then(exchangeRateHistoryRepository.append(exchangeRates))
+                    .then();
+        });
+    }
+
+    /**
+     * Publica en memoria tasas ya escritas en la base de datos.
+     *
+     * @param exchangeRates Tasas nuevas o modificadas
+     * @return Instantánea de la matriz publicada
+     */
+    public RateMatrixSnapshot publish(Collection<ExchangeRate> exchangeRates) {
+        return publish(exchangeRates, List.of());
+    }
+
+    /**
+     * Publica en memoria tasas ya escritas en la base de datos, junto con versiones anteriores de esos
+     * pares escritas en la misma operación (por ejemplo, en otro grupo de una importación).
+     *
+     * @param exchangeRates Tasas vigentes nuevas o modificadas, como máximo una por par de monedas
+     * @param earlierVersions Versiones anteriores que solo se agregan al historial
+     * @return Instantánea de la matriz publicada
+     */
+    public RateMatrixSnapshot publish(Collection<ExchangeRate> exchangeRates, Collection<ExchangeRate> earlierVersions) {
+        rateHistory.record(earlierVersions);
+        RateMatrixSnapshot snapshot = publishLocally(exchangeRates);
+        if (!exchangeRates.isEmpty()) {
+            long version = rateChangeBus.broadcast(exchangeRates).version();
+            log.debug("Difundidas {} tasas a las demás instancias, versión {}", exchangeRates.size(), version);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Confirma tasas que la fuente volvió a informar sin cambios: avanza su {@code lastUpdated} en
+     * {@code exchange_rates} y en la matriz, sin agregar versiones al historial, para que su antigüedad se
+     * mida desde la última confirmación. Las confirmaciones se difunden a las demás instancias, que las aplican
+     * en su matriz con {@link #confirmReplicated}.
+     *
+     * @param exchangeRates Tasas vigentes del par con el nuevo {@code lastUpdated}, como máximo una por par
+     * @return Instantánea de la matriz publicada
+     */
+    public Mono<RateMatrixSnapshot> confirm(List<ExchangeRate> exchangeRates) {
+        return exchangeRateBatchRepository.confirm(exchangeRates)
+                .then(Mono.fromSupplier(() -> {
+                    RateMatrixSnapshot snapshot = confirmReplicated(exchangeRates);
+                    if (!exchangeRates.isEmpty()) {
+                        long version = rateChangeBus.broadcast(List.of(), exchangeRates).version();
+                        log.debug("Difundidas {} confirmaciones a las demás instancias, versión {}", exchangeRates.size(), version);
+                    }
+                    return snapshot;
+                }));
+    }
+
+    /**
+     * Publica en memoria confirmaciones de tasas sin cambios que otra instancia ya escribió en la base de datos
+     * y difundió: avanza su {@code lastUpdated} en la matriz sin agregar versiones al historial ni volver a
+     * difundirlas.
+     *
+     * @param exchangeRates Tasas confirmadas con el nuevo {@code lastUpdated}, como máximo una por par
+     * @return Instantánea de la matriz publicada
+     */
+    public RateMatrixSnapshot confirmReplicated(Collection<ExchangeRate> exchangeRates) {
+        RateMatrixSnapshot snapshot = rateMatrix.apply(exchangeRates);
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            exchangeRateCache.invalidate(exchangeRate.getSourceCurrencyCode(), exchangeRate.getTargetCurrencyCode());
+        }
+        log.debug("Confirmadas {} tasas sin cambios, versión {}", exchangeRates.size(), snapshot.version());
+        return snapshot;
+    }
+
+    /**
+     * Publica en memoria tasas que otra instancia ya escribió en la base de datos y difundió, sin volver a
+     * difundirlas.
+     *
+     * @param exchangeRates Tasas recibidas, como máximo una por par de monedas
+     * @return Instantánea de la matriz publicada
+     */
+    public RateMatrixSnapshot publishReplicated(Collection<ExchangeRate> exchangeRates) {
+        return publishLocally(exchangeRates);
+    }
+
+    private RateMatrixSnapshot publishLocally(Collection<ExchangeRate> exchangeRates) {
+        RateMatrixSnapshot snapshot = rateMatrix.apply(exchangeRates);
+        rateHistory.record(exchangeRates);
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            exchangeRateCache.invalidate(exchangeRate.getSourceCurrencyCode(), exchangeRate.getTargetCurrencyCode());
+        }
+        log.debug("Publicadas {} tasas en la matriz, versión {}", exchangeRates.size(), snapshot.version());
+        return snapshot;
+    }
+}
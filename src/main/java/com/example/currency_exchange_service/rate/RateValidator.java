@@ -0,0 +1,78 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyIndex;
+import com.example.currency_exchange_service.model.ExchangeRate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+/**
+ * Validación de las tasas de cambio recibidas de fuentes externas (importación masiva y ticks de tesorería).
+ */
+final class RateValidator {
+
+    // Dígitos enteros admitidos por DECIMAL(19, 6)
+    private static final int MAX_INTEGER_DIGITS = 13;
+
+    private RateValidator() {
+    }
+
+    /**
+     * Pasa a mayúsculas los códigos de moneda presentes.
+     */
+    static void normalize(ExchangeRate exchangeRate) {
+        if (exchangeRate.getSourceCurrencyCode() != null) {
+            exchangeRate.setSourceCurrencyCode(exchangeRate.getSourceCurrencyCode().toUpperCase(Locale.ROOT));
+        }
+        if (exchangeRate.getTargetCurrencyCode() != null) {
+            exchangeRate.setTargetCurrencyCode(exchangeRate.getTargetCurrencyCode().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Valida una tasa: monedas conocidas y distintas, y tasas positivas que caben en {@code DECIMAL(19, 6)}.
+     * Una tasa que se redondea a cero con esa escala se rechaza: en la base de datos y en la matriz de
+     * tasas no se distinguiría de un par sin tasa.
+     *
+     * @return Motivo del rechazo, o {@code null} si la tasa es válida
+     */
+    static String validate(ExchangeRate exchangeRate, CurrencyIndex currencies) {
+        if (exchangeRate.getSourceCurrencyCode() == null || exchangeRate.getTargetCurrencyCode() == null) {
+            return "faltan los códigos de moneda";
+        }
+        if (!currencies.contains(exchangeRate.getSourceCurrencyCode())) {
+            return "moneda origen desconocida: " + exchangeRate.getSourceCurrencyCode();
+        }
+        if (!currencies.contains(exchangeRate.getTargetCurrencyCode())) {
+            return "moneda destino desconocida: " + exchangeRate.getTargetCurrencyCode();
+        }
+        if (exchangeRate.getSourceCurrencyCode().equals(exchangeRate.getTargetCurrencyCode())) {
+            return "las monedas origen y destino son iguales";
+        }
+        if (exchangeRate.getRate() == null) {
+            return "falta la tasa";
+        }
+        String invalid = validateAmount("tasa", exchangeRate.getRate());
+        if (invalid == null && exchangeRate.getBuyRate() != null) {
+            invalid = validateAmount("tasa de compra", exchangeRate.getBuyRate());
+        }
+        if (invalid == null && exchangeRate.getSellRate() != null) {
+            invalid = validateAmount("tasa de venta", exchangeRate.getSellRate());
+        }
+        return invalid;
+    }
+
+    private static String validateAmount(String name, BigDecimal value) {
+        if (value.signum() <= 0) {
+            return "la " + name + " debe ser positiva";
+        }
+        if (value.setScale(RateMatrixSnapshot.SCALE, RoundingMode.HALF_UP).signum() == 0) {
+            return "la " + name + " es menor que 0.000001, la resolución de las tasas";
+        }
+        if (value.precision() - value.scale() > MAX_INTEGER_DIGITS) {
+            return "la " + name + " está fuera de rango";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.currency_exchange_service.repository;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Consultas del histórico de conversiones con filtros dinámicos.
+ * Fragmento de {@link ConversionHistoryRepository}.
+ */
+public interface ConversionHistoryQueries {
+
+    /**
+     * Busca conversiones que cumplan con los filtros indicados, en una sola consulta SQL.
+     * Los filtros {@code null} se omiten. Los resultados se ordenan de la conversión más reciente
+     * a la más antigua.
+     *
+     * @param sourceCurrencyCode Filtro opcional por moneda de origen
+     * @param targetCurrencyCode Filtro opcional por moneda de destino
+     * @param startDate Filtro opcional por fecha de inicio (inclusive)
+     * @param endDate Filtro opcional por fecha de fin (inclusive)
+     * @return Flujo de conversiones que cumplen con los filtros
+     */
+    Flux<ConversionHistory> findByFilters(String sourceCurrencyCode, String targetCurrencyCode,
+                                          LocalDateTime startDate, LocalDateTime endDate);
+
+    /**
+     * Busca una página de conversiones que cumplan con los filtros indicados, ordenadas por
+     * {@code (conversion_date, id)} de forma descendente y comenzando justo después de la posición
+     * indicada (paginación por clave, sin {@code OFFSET}).
+     *
+     * @param sourceCurrencyCode Filtro opcional por moneda de origen
+     * @param targetCurrencyCode Filtro opcional por moneda de destino
+     * @param startDate Filtro opcional por fecha de inicio (inclusive)
+     * @param endDate Filtro opcional por fecha de fin (inclusive)
+     * @param afterDate Fecha de la última conversión de la página anterior, o {@code null} para la primera página
+     * @param afterId Identificador de la última conversión de la página anterior
+     * @param limit Número máximo de conversiones
+     * @return Flujo de conversiones de la página
+     */
+    Flux<ConversionHistory> findPage(String sourceCurrencyCode, String targetCurrencyCode,
+                                     LocalDateTime startDate, LocalDateTime endDate,
+                                     LocalDateTime afterDate, Long afterId, int limit);
+
+    /**
+     * Busca las conversiones de un usuario, opcionalmente en un rango de fechas, de la más reciente a la
+     * más antigua. Usa el índice {@code (user_id, conversion_date, id)}.
+     *
+     * @param userId Usuario que realizó las conversiones
+     * @param startDate Filtro opcional por fecha de inicio (inclusive)
+     * @param endDate Filtro opcional por fecha de fin (inclusive)
+     * @return Flujo de conversiones del usuario
+     */
+    Flux<ConversionHistory> findByUser(String userId, LocalDateTime startDate, LocalDateTime endDate);
+
+    /**
+     * Busca una página de conversiones de un usuario, con la misma paginación por clave que
+     * {@link #findPage}.
+     *
+     * @param userId Usuario que realizó las conversiones
+     * @param startDate Filtro opcional por fecha de inicio (inclusive)
+     * @param endDate Filtro opcional por fecha de fin (inclusive)
+     * @param afterDate Fecha de la última conversión de la página anterior, o {@code null} para la primera página
+     * @param afterId Identificador de la última conversión de la página anterior
+     * @param limit Número máximo de conversiones
+     * @return Flujo de conversiones de la página
+     */
+    Flux<ConversionHistory> findUserPage(String userId, LocalDateTime startDate, LocalDateTime endDate,
+                                         LocalDateTime afterDate, Long afterId, int limit);
+
+    /**
+     * Busca las conversiones más antiguas anteriores a una fecha, ordenadas por {@code (conversion_date, id)}
+     * de forma ascendente.
+     *
+     * @param before Fecha límite (exclusiva)
+     * @param limit Número máximo de conversiones
+     * @return Flujo de conversiones, de la más antigua a la más reciente
+     */
+    Flux<ConversionHistory> findOldest(LocalDateTime before, int limit);
+}
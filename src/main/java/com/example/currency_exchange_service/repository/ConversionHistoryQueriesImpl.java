@@ -0,0 +1,95 @@
+package com.example.currency_exchange_service.repository;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Implementación de las consultas dinámicas del histórico de conversiones con {@link R2dbcEntityTemplate}.
+ * Cada combinación de filtros se traduce en una única sentencia {@code SELECT ... WHERE} que usa los
+ * índices de {@code conversion_history}, sin leer la tabla completa ni filtrar en memoria.
+ */
+@RequiredArgsConstructor
+public class ConversionHistoryQueriesImpl implements ConversionHistoryQueries {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("conversionDate"), Sort.Order.desc("id"));
+    private static final Sort OLDEST_FIRST = Sort.by(Sort.Order.asc("conversionDate"), Sort.Order.asc("id"));
+
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<ConversionHistory> findByFilters(String sourceCurrencyCode, String targetCurrencyCode,
+                                                 LocalDateTime startDate, LocalDateTime endDate) {
+        Criteria criteria = filters(sourceCurrencyCode, targetCurrencyCode, startDate, endDate);
+        return template.select(Query.query(criteria).sort(NEWEST_FIRST), ConversionHistory.class);
+    }
+
+    @Override
+    public Flux<ConversionHistory> findPage(String sourceCurrencyCode, String targetCurrencyCode,
+                                            LocalDateTime startDate, LocalDateTime endDate,
+                                            LocalDateTime afterDate, Long afterId, int limit) {
+        Criteria criteria = after(filters(sourceCurrencyCode, targetCurrencyCode, startDate, endDate), afterDate, afterId);
+        return template.select(Query.query(criteria).sort(NEWEST_FIRST).limit(limit), ConversionHistory.class);
+    }
+
+    @Override
+    public Flux<ConversionHistory> findByUser(String userId, LocalDateTime startDate, LocalDateTime endDate) {
+        Criteria criteria = dateRange(Criteria.where("userId").is(userId), startDate, endDate);
+        return template.select(Query.query(criteria).sort(NEWEST_FIRST), ConversionHistory.class);
+    }
+
+    @Override
+    public Flux<ConversionHistory> findUserPage(String userId, LocalDateTime startDate, LocalDateTime endDate,
+                                                LocalDateTime afterDate, Long afterId, int limit) {
+        Criteria criteria = after(dateRange(Criteria.where("userId").is(userId), startDate, endDate), afterDate, afterId);
+        return template.select(Query.query(criteria).sort(NEWEST_FIRST).limit(limit), ConversionHistory.class);
+    }
+
+    @Override
+    public Flux<ConversionHistory> findOldest(LocalDateTime before, int limit) {
+        Criteria criteria = Criteria.where("conversionDate").lessThan(before);
+        return template.select(Query.query(criteria).sort(OLDEST_FIRST).limit(limit), ConversionHistory.class);
+    }
+
+    private static Criteria filters(String sourceCurrencyCode, String targetCurrencyCode,
+                                    LocalDateTime startDate, LocalDateTime endDate) {
+        Criteria criteria = Criteria.empty();
+        if (sourceCurrencyCode != null) {
+            criteria = criteria.and("sourceCurrencyCode").is(sourceCurrencyCode);
+        }
+        if (targetCurrencyCode != null) {
+            criteria = criteria.and("targetCurrencyCode").is(targetCurrencyCode);
+        }
+        return dateRange(criteria, startDate, endDate);
+    }
+
+    private static Criteria dateRange(Criteria criteria, LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate != null) {
+            criteria = criteria.and("conversionDate").greaterThanOrEquals(startDate);
+        }
+        if (endDate != null) {
+            criteria = criteria.and("conversionDate").lessThanOrEquals(endDate);
+        }
+        return criteria;
+    }
+
+    /**
+     * Agrega la condición {@code (conversion_date, id) < (afterDate, afterId)}: rango del índice a partir
+     * de la posición anterior. La disyunción equivalente no delimita un rango del índice, por lo que se le
+     * antepone el conjunto redundante {@code conversion_date <= afterDate}, que sí lo delimita.
+     */
+    static Criteria after(Criteria criteria, LocalDateTime afterDate, Long afterId) {
+        if (afterDate == null || afterId == null) {
+            return criteria;
+        }
+        return criteria.and("conversionDate").lessThanOrEquals(afterDate)
+                .and(Criteria.where("conversionDate").lessThan(afterDate)
+                        .or(Criteria.where("conversionDate").is(afterDate).and("id").lessThan(afterId)));
+    }
+}
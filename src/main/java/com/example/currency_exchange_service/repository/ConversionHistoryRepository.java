@@ -9,9 +9,10 @@ import java.time.LocalDateTime;
 
 /**
  * Repositorio para acceder a los datos del histórico de conversiones.
+ * Las consultas con filtros combinados están en {@link ConversionHistoryQueries}.
  */
 @Repository
-public interface ConversionHistoryRepository extends ReactiveCrudRepository<ConversionHistory, Long> {
+public interface ConversionHistoryRepository extends ReactiveCrudRepository<ConversionHistory, Long>, ConversionHistoryQueries {
     
     /**
      * Busca conversiones por moneda de origen.
@@ -0,0 +1,174 @@
+package com.example.currency_exchange_service.repository;
+
+import com.example.currency_exchange_service.rollup.RollupDelta;
+import com.example.currency_exchange_service.rollup.RollupGranularity;
+import com.example.currency_exchange_service.rollup.RollupKey;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Acceso a la tabla {@code conversion_rollups} de agregados de volumen de conversiones.
+ * Los agregados se actualizan sumando incrementos con {@code MERGE}, de modo que cada vaciado
+ * es una sola sentencia independientemente de cuántas conversiones resume.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ConversionRollupRepository {
+
+    private static final String MERGE_PREFIX = "MERGE INTO conversion_rollups r USING (VALUES ";
+    private static final String MERGE_SUFFIX = ") AS d (granularity, source_currency_code, target_currency_code, bucket_start, "
+            + "conversion_count, original_sum, converted_sum, original_min, original_max) "
+            + "ON r.granularity = d.granularity AND r.source_currency_code = d.source_currency_code "
+            + "AND r.target_currency_code = d.target_currency_code AND r.bucket_start = d.bucket_start "
+            + "WHEN MATCHED THEN UPDATE SET conversion_count = r.conversion_count + d.conversion_count, "
+            + "original_sum = r.original_sum + d.original_sum, converted_sum = r.converted_sum + d.converted_sum, "
+            + "original_min = LEAST(COALESCE(r.original_min, d.original_min), COALESCE(d.original_min, r.original_min)), "
+            + "original_max = GREATEST(COALESCE(r.original_max, d.original_max), COALESCE(d.original_max, r.original_max)) "
+            + "WHEN NOT MATCHED THEN INSERT (granularity, source_currency_code, target_currency_code, bucket_start, "
+            + "conversion_count, original_sum, converted_sum, original_min, original_max) VALUES (d.granularity, "
+            + "d.source_currency_code, d.target_currency_code, d.bucket_start, d.conversion_count, d.original_sum, "
+            + "d.converted_sum, d.original_min, d.original_max)";
+
+    private static final String BACKFILL = "INSERT INTO conversion_rollups (granularity, source_currency_code, "
+            + "target_currency_code, bucket_start, conversion_count, original_sum, converted_sum, original_min, original_max) "
+            + "SELECT '%1$s', source_currency_code, target_currency_code, DATE_TRUNC(%1$s, conversion_date), COUNT(*), "
+            + "SUM(original_amount), SUM(converted_amount), MIN(original_amount), MAX(original_amount) "
+            + "FROM conversion_history WHERE conversion_date < :cutoff "
+            + "GROUP BY source_currency_code, target_currency_code, DATE_TRUNC(%1$s, conversion_date)";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Suma incrementos a los agregados existentes, o los crea, con una única sentencia {@code MERGE}.
+     *
+     * @param deltas Incrementos, como máximo uno por clave
+     * @return Número de filas afectadas
+     */
+    public Mono<Long> merge(List<RollupDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return Mono.just(0L);
+        }
+        StringBuilder sql = new StringBuilder(MERGE_PREFIX);
+        for (int i = 0; i < deltas.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(CAST(:granularity").append(i).append(" AS VARCHAR(6)), CAST(:source").append(i)
+                    .append(" AS VARCHAR(3)), CAST(:target").append(i).append(" AS VARCHAR(3)), CAST(:bucket").append(i)
+                    .append(" AS TIMESTAMP), CAST(:count").append(i).append(" AS BIGINT), CAST(:originalSum").append(i)
+                    .append(" AS DECIMAL(38, 6)), CAST(:convertedSum").append(i).append(" AS DECIMAL(38, 6)), CAST(:min")
+                    .append(i).append(" AS DECIMAL(19, 6)), CAST(:max").append(i).append(" AS DECIMAL(19, 6)))");
+        }
+        sql.append(MERGE_SUFFIX);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < deltas.size(); i++) {
+            RollupDelta delta = deltas.get(i);
+            RollupKey key = delta.key();
+            spec = spec.bind("granularity" + i, key.granularity().name())
+                    .bind("source" + i, key.sourceCurrency())
+                    .bind("target" + i, key.targetCurrency())
+                    .bind("bucket" + i, key.bucket())
+                    .bind("count" + i, delta.count())
+                    .bind("originalSum" + i, delta.originalSum())
+                    .bind("convertedSum" + i, delta.convertedSum());
+            spec = bindNullable(spec, "min" + i, delta.originalMin());
+            spec = bindNullable(spec, "max" + i, delta.originalMax());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    /**
+     * Busca los agregados de una granularidad, con filtros opcionales por par y rango de intervalos,
+     * ordenados por intervalo y par.
+     *
+     * @param granularity Granularidad de los agregados
+     * @param sourceCurrencyCode Filtro opcional por moneda origen
+     * @param targetCurrencyCode Filtro opcional por moneda destino
+     * @param startBucket Filtro opcional por inicio del primer intervalo (inclusive)
+     * @param endBucket Filtro opcional por inicio del último intervalo (inclusive)
+     * @return Flujo de agregados
+     */
+    public Flux<RollupDelta> findByFilters(RollupGranularity granularity, String sourceCurrencyCode, String targetCurrencyCode,
+                                           LocalDateTime startBucket, LocalDateTime endBucket) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM conversion_rollups WHERE granularity = :granularity");
+        if (sourceCurrencyCode != null) {
+            sql.append(" AND source_currency_code = :source");
+        }
+        if (targetCurrencyCode != null) {
+            sql.append(" AND target_currency_code = :target");
+        }
+        if (startBucket != null) {
+            sql.append(" AND bucket_start >= :start");
+        }
+        if (endBucket != null) {
+            sql.append(" AND bucket_start <= :end");
+        }
+        sql.append(" ORDER BY bucket_start, source_currency_code, target_currency_code");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("granularity", granularity.name());
+        if (sourceCurrencyCode != null) {
+            spec = spec.bind("source", sourceCurrencyCode);
+        }
+        if (targetCurrencyCode != null) {
+            spec = spec.bind("target", targetCurrencyCode);
+        }
+        if (startBucket != null) {
+            spec = spec.bind("start", startBucket);
+        }
+        if (endBucket != null) {
+            spec = spec.bind("end", endBucket);
+        }
+        return spec.map(ConversionRollupRepository::toDelta).all();
+    }
+
+    /**
+     * Indica si la tabla de agregados tiene filas.
+     */
+    public Mono<Boolean> isEmpty() {
+        return databaseClient.sql("SELECT COUNT(*) FROM (SELECT 1 FROM conversion_rollups LIMIT 1)")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(rows -> rows == 0);
+    }
+
+    /**
+     * Calcula los agregados de una granularidad a partir de las conversiones de {@code conversion_history}
+     * anteriores a una fecha.
+     *
+     * @param granularity Granularidad a calcular
+     * @param cutoff Fecha límite (exclusiva) de las conversiones a incluir
+     * @return Número de agregados creados
+     */
+    public Mono<Long> backfill(RollupGranularity granularity, LocalDateTime cutoff) {
+        // El nombre de la granularidad coincide con la unidad de DATE_TRUNC y no admite parámetros
+        return databaseClient.sql(BACKFILL.formatted(granularity.name()))
+                .bind("cutoff", cutoff)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static RollupDelta toDelta(Readable row) {
+        RollupKey key = new RollupKey(
+                RollupGranularity.valueOf(row.get("granularity", String.class)),
+                row.get("source_currency_code", String.class),
+                row.get("target_currency_code", String.class),
+                row.get("bucket_start", LocalDateTime.class));
+        return new RollupDelta(key,
+                row.get("conversion_count", Long.class),
+                row.get("original_sum", BigDecimal.class),
+                row.get("converted_sum", BigDecimal.class),
+                row.get("original_min", BigDecimal.class),
+                row.get("original_max", BigDecimal.class));
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, BigDecimal value) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, BigDecimal.class);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.currency_exchange_service.repository;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Escrituras por lotes en la tabla {@code exchange_rates}.
+ * Cada lote de tasas se inserta o actualiza por par de monedas con una única sentencia {@code MERGE}
+ * de varias filas, en lugar de una sentencia por tasa. Una fila existente solo se reemplaza por una tasa con
+ * {@code last_updated} igual o posterior, de modo que una escritura con datos más antiguos no pisa una tasa
+ * más reciente.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExchangeRateBatchRepository {
+
+    private static final String MERGE_PREFIX = "MERGE INTO exchange_rates r USING (VALUES ";
+    private static final String MERGE_SUFFIX = ") AS d (source_currency_code, target_currency_code, rate, buy_rate, "
+            + "sell_rate, last_updated) "
+            + "ON r.source_currency_code = d.source_currency_code AND r.target_currency_code = d.target_currency_code "
+            + "WHEN MATCHED AND d.last_updated >= r.last_updated THEN UPDATE SET rate = d.rate, buy_rate = d.buy_rate, sell_rate = d.sell_rate, "
+            + "last_updated = d.last_updated "
+            + "WHEN NOT MATCHED THEN INSERT (source_currency_code, target_currency_code, rate, buy_rate, sell_rate, "
+            + "last_updated) VALUES (d.source_currency_code, d.target_currency_code, d.rate, d.buy_rate, d.sell_rate, "
+            + "d.last_updated)";
+
+    private static final String CONFIRM_PREFIX = "MERGE INTO exchange_rates r USING (VALUES ";
+    private static final String CONFIRM_SUFFIX = ") AS d (source_currency_code, target_currency_code, last_updated) "
+            + "ON r.source_currency_code = d.source_currency_code AND r.target_currency_code = d.target_currency_code "
+            + "WHEN MATCHED AND d.last_updated > r.last_updated THEN UPDATE SET last_updated = d.last_updated";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Inserta o actualiza las tasas indicadas con una única sentencia {@code MERGE}. Las tasas más antiguas
+     * que la fila existente del par no la modifican.
+     *
+     * @param exchangeRates Tasas a escribir, como máximo una por par de monedas
+     * @return Número de filas afectadas
+     */
+    public Mono<Long> upsert(List<ExchangeRate> exchangeRates) {
+        if (exchangeRates.isEmpty()) {
+            return Mono.just(0L);
+        }
+        StringBuilder sql = new StringBuilder(MERGE_PREFIX);
+        for (int i = 0; i < exchangeRates.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(CAST(:source").append(i).append(" AS VARCHAR(3)), CAST(:target").append(i)
+                    .append(" AS VARCHAR(3)), CAST(:rate").append(i).append(" AS DECIMAL(19, 6)), CAST(:buy").append(i)
+                    .append(" AS DECIMAL(19, 6)), CAST(:sell").append(i).append(" AS DECIMAL(19, 6)), CAST(:updated")
+                    .append(i).append(" AS TIMESTAMP))");
+        }
+        sql.append(MERGE_SUFFIX);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < exchangeRates.size(); i++) {
+            ExchangeRate exchangeRate = exchangeRates.get(i);
+            spec = spec.bind("source" + i, exchangeRate.getSourceCurrencyCode())
+                    .bind("target" + i, exchangeRate.getTargetCurrencyCode())
+                    .bind("rate" + i, exchangeRate.getRate())
+                    .bind("updated" + i, exchangeRate.getLastUpdated());
+            spec = bindNullable(spec, "buy" + i, exchangeRate.getBuyRate());
+            spec = bindNullable(spec, "sell" + i, exchangeRate.getSellRate());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    /**
+     * Avanza el {@code last_updated} de tasas existentes cuyo valor no cambió, con una única sentencia
+     * {@code MERGE}. Los pares sin fila y las filas con una fecha igual o posterior no se modifican.
+     *
+     * @param exchangeRates Tasas confirmadas, como máximo una por par de monedas
+     * @return Número de filas afectadas
+     */
+    public Mono<Long> confirm(List<ExchangeRate> exchangeRates) {
+        if (exchangeRates.isEmpty()) {
+            return Mono.just(0L);
+        }
+        StringBuilder sql = new StringBuilder(CONFIRM_PREFIX);
+        for (int i = 0; i < exchangeRates.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(CAST(:source").append(i).append(" AS VARCHAR(3)), CAST(:target").append(i)
+                    .append(" AS VARCHAR(3)), CAST(:updated").append(i).append(" AS TIMESTAMP))");
+        }
+        sql.append(CONFIRM_SUFFIX);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < exchangeRates.size(); i++) {
+            ExchangeRate exchangeRate = exchangeRates.get(i);
+            spec = spec.bind("source" + i, exchangeRate.getSourceCurrencyCode())
+                    .bind("target" + i, exchangeRate.getTargetCurrencyCode())
+                    .bind("updated" + i, exchangeRate.getLastUpdated());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, BigDecimal value) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, BigDecimal.class);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.currency_exchange_service.repository;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Acceso a la tabla {@code exchange_rate_history}, que guarda cada valor que tomó la tasa de un par y
+ * desde cuándo estuvo vigente. Las filas se representan como {@link ExchangeRate} sin {@code id}, con
+ * el inicio de vigencia en {@code lastUpdated}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExchangeRateHistoryRepository {
+
+    private static final String MERGE_PREFIX = "MERGE INTO exchange_rate_history h USING (VALUES ";
+    private static final String MERGE_SUFFIX = ") AS d (source_currency_code, target_currency_code, valid_from, rate, "
+            + "buy_rate, sell_rate) "
+            + "ON h.source_currency_code = d.source_currency_code AND h.target_currency_code = d.target_currency_code "
+            + "AND h.valid_from = d.valid_from "
+            + "WHEN MATCHED THEN UPDATE SET rate = d.rate, buy_rate = d.buy_rate, sell_rate = d.sell_rate "
+            + "WHEN NOT MATCHED THEN INSERT (source_currency_code, target_currency_code, valid_from, rate, buy_rate, "
+            + "sell_rate) VALUES (d.source_currency_code, d.target_currency_code, d.valid_from, d.rate, d.buy_rate, "
+            + "d.sell_rate)";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Agrega versiones de tasas con una única sentencia {@code MERGE}. Una versión con el mismo par e
+     * inicio de vigencia que otra existente la reemplaza.
+     *
+     * @param exchangeRates Tasas con el inicio de vigencia en {@code lastUpdated}, como máximo una por par
+     * @return Número de filas afectadas
+     */
+    public Mono<Long> append(List<ExchangeRate> exchangeRates) {
+        if (exchangeRates.isEmpty()) {
+            return Mono.just(0L);
+        }
+        StringBuilder sql = new StringBuilder(MERGE_PREFIX);
+        for (int i = 0; i < exchangeRates.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(CAST(:source").append(i).append(" AS VARCHAR(3)), CAST(:target").append(i)
+                    .append(" AS VARCHAR(3)), CAST(:validFrom").append(i).append(" AS TIMESTAMP), CAST(:rate").append(i)
+                    .append(" AS DECIMAL(19, 6)), CAST(:buy").append(i).append(" AS DECIMAL(19, 6)), CAST(:sell")
+                    .append(i).append(" AS DECIMAL(19, 6)))");
+        }
+        sql.append(MERGE_SUFFIX);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < exchangeRates.size(); i++) {
+            ExchangeRate exchangeRate = exchangeRates.get(i);
+            spec = spec.bind("source" + i, exchangeRate.getSourceCurrencyCode())
+                    .bind("target" + i, exchangeRate.getTargetCurrencyCode())
+                    .bind("validFrom" + i, exchangeRate.getLastUpdated())
+                    .bind("rate" + i, exchangeRate.getRate());
+            spec = bindNullable(spec, "buy" + i, exchangeRate.getBuyRate());
+            spec = bindNullable(spec, "sell" + i, exchangeRate.getSellRate());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    /**
+     * Todas las versiones, ordenadas por par y por inicio de vigencia.
+     */
+    public Flux<ExchangeRate> findAll() {
+        return databaseClient.sql("SELECT * FROM exchange_rate_history "
+                        + "ORDER BY source_currency_code, target_currency_code, valid_from")
+                .map(ExchangeRateHistoryRepository::toExchangeRate)
+                .all();
+    }
+
+    private static ExchangeRate toExchangeRate(Readable row) {
+        return ExchangeRate.builder()
+                .sourceCurrencyCode(row.get("source_currency_code", String.class))
+                .targetCurrencyCode(row.get("target_currency_code", String.class))
+                .rate(row.get("rate", BigDecimal.class))
+                .buyRate(row.get("buy_rate", BigDecimal.class))
+                .sellRate(row.get("sell_rate", BigDecimal.class))
+                .lastUpdated(row.get("valid_from", LocalDateTime.class))
+                .build();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, BigDecimal value) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, BigDecimal.class);
+    }
+}
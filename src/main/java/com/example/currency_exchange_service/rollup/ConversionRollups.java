@@ -0,0 +1,340 @@
+package com.example.currency_exchange_service.rollup;
+
+import com.example.currency_exchange_service.history.ConversionRecordListener;
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.repository.ConversionRollupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Agregados de volumen de conversiones por par de monedas e intervalo (minuto, hora y día), mantenidos
+ * de forma incremental a medida que se guarda el historial.
+ * <p>
+ * Cada lote guardado por {@link com.example.currency_exchange_service.history.ConversionHistoryWriter}
+ * se suma a acumuladores segmentados en memoria ({@link RollupAccumulator}), uno por clave. Cada
+ * {@code currency.rollup.flush-interval} los incrementos acumulados se vacían a {@code conversion_rollups}
+ * con sentencias {@code MERGE}; si un vaciado falla, sus incrementos vuelven a los acumuladores.
+ * Las consultas leen la tabla y suman los incrementos aún no vaciados, por lo que su costo depende
+ * del número de intervalos y no del número de conversiones.
+ * <p>
+ * Los incrementos en vaciado pasan de los acumuladores a la lista en vaciado en un mismo paso, y cada
+ * sentencia {@code MERGE} los retira de ella al terminar; ambos pasos y la lectura de los incrementos de
+ * una consulta se hacen bajo el mismo monitor. Una consulta que lee la tabla con una sentencia en curso, o
+ * mientras se envía o termina alguna, no sabe si la tabla ya incluye los incrementos en vaciado y se repite, de modo que ningún incremento se cuenta dos veces ni se omite.
+ * Tras {@value #QUERY_ATTEMPTS_BEFORE_PAUSE} intentos la consulta pausa los vaciados nuevos hasta terminar, de
+ * modo que una lectura más lenta que el intervalo de vaciado no se repite indefinidamente mientras siguen
+ * llegando conversiones; si aun así no termina en 10 segundos, falla.
+ */
+@Component
+@Slf4j
+public class ConversionRollups implements ConversionRecordListener {
+
+    private static final int MERGE_CHUNK_SIZE = 200;
+    private static final Duration QUERY_RETRY_DELAY = Duration.ofMillis(5);
+    private static final int QUERY_ATTEMPTS_BEFORE_PAUSE = 10;
+    private static final Duration QUERY_TIMEOUT = Duration.ofSeconds(10);
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::bucket)
+            .thenComparing(RollupKey::sourceCurrency)
+            .thenComparing(RollupKey::targetCurrency);
+
+    private final ConversionRollupRepository conversionRollupRepository;
+    private final Duration flushInterval;
+    private final Map<RollupKey, RollupAccumulator> accumulators = new ConcurrentHashMap<>();
+    // Los registros toman el bloqueo de lectura una vez por lote; solo la retirada de acumuladores inactivos
+    // toma el de escritura, para que ningún registro quede en un acumulador ya retirado
+    private final ReadWriteLock evictionLock = new ReentrantReadWriteLock();
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    // Incrementos de los vaciados en curso, por vaciado y clave; el monitor de esta lista protege también
+    // los contadores de confirmaciones
+    private final List<Map<RollupKey, RollupDelta>> flushing = new ArrayList<>();
+    private long commits;
+    private int committing;
+    // Consultas que pausan los vaciados nuevos para terminar
+    private int pausedBy;
+    private Disposable flushLoop;
+
+    public ConversionRollups(
+            ConversionRollupRepository conversionRollupRepository,
+            @Value("${currency.rollup.flush-interval:5s}") Duration flushInterval) {
+        this.conversionRollupRepository = conversionRollupRepository;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Al iniciar, calcula los agregados a partir del historial guardado antes del arranque si la tabla está
+     * vacía, e inicia el vaciado periódico. Las conversiones posteriores se suman en los acumuladores.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        flushLoop = conversionRollupRepository.isEmpty()
+                .filter(Boolean::booleanValue)
+                .flatMapMany(empty -> Flux.fromArray(RollupGranularity.values())
+                        .concatMap(granularity -> conversionRollupRepository.backfill(granularity, startedAt)))
+                .reduce(0L, Long::sum)
+                .filter(backfilled -> backfilled > 0)
+                .doOnNext(backfilled -> log.info("Calculados {} agregados de volumen a partir del historial existente", backfilled))
+                .onErrorResume(error -> {
+                    log.error("No se pudieron calcular los agregados del historial existente", error);
+                    return Mono.empty();
+                })
+                .thenMany(Flux.interval(flushInterval))
+                .onBackpressureDrop()
+                .concatMap(tick -> flush(), 1)
+                .subscribe();
+    }
+
+    /**
+     * Detiene el vaciado periódico y vacía los incrementos pendientes.
+     */
+    @PreDestroy
+    public void stop() {
+        if (flushLoop != null) {
+            flushLoop.dispose();
+        }
+        flush().block(Duration.ofSeconds(30));
+    }
+
+    @Override
+    public void onRecorded(List<ConversionHistory> histories) {
+        evictionLock.readLock().lock();
+        try {
+            for (ConversionHistory history : histories) {
+                for (RollupGranularity granularity : RollupGranularity.values()) {
+                    RollupKey key = new RollupKey(granularity, history.getSourceCurrencyCode(), history.getTargetCurrencyCode(),
+                            granularity.bucket(history.getConversionDate()));
+                    accumulators.computeIfAbsent(key, RollupAccumulator::new)
+                            .add(history.getOriginalAmount(), history.getConvertedAmount());
+                }
+            }
+        } finally {
+            evictionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los agregados de una granularidad, incluidos los incrementos aún no vaciados, ordenados por
+     * intervalo y par. Los intervalos sin conversiones no se incluyen.
+     *
+     * @param granularity Granularidad de los agregados
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional: se incluye el intervalo que contiene esta fecha
+     * @param endDate Filtro opcional: se incluye el intervalo que contiene esta fecha
+     * @return Flujo de agregados
+     */
+    public Flux<RollupDelta> query(RollupGranularity granularity, String sourceCurrency, String targetCurrency,
+                                   LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDateTime startBucket = startDate != null ? granularity.bucket(startDate) : null;
+        LocalDateTime endBucket = endDate != null ? granularity.bucket(endDate) : null;
+        AtomicBoolean pausing = new AtomicBoolean();
+        return Mono.defer(() -> {
+                    long before;
+                    synchronized (flushing) {
+                        if (committing > 0) {
+                            return Mono.<List<RollupDelta>>empty();
+                        }
+                        before = commits;
+                    }
+                    return conversionRollupRepository.findByFilters(granularity, sourceCurrency, targetCurrency, startBucket, endBucket)
+                            .collectMap(RollupDelta::key, delta -> delta, HashMap::new)
+                            .flatMap(stored -> {
+                                List<RollupDelta> pending = pending(before);
+                                if (pending == null) {
+                                    // Se envió o terminó una sentencia MERGE durante la lectura de la tabla
+                                    return Mono.empty();
+                                }
+                                for (RollupDelta delta : pending) {
+                                    RollupKey key = delta.key();
+                                    if (key.granularity() == granularity
+                                            && (sourceCurrency == null || sourceCurrency.equals(key.sourceCurrency()))
+                                            && (targetCurrency == null || targetCurrency.equals(key.targetCurrency()))
+                                            && (startBucket == null || !key.bucket().isBefore(startBucket))
+                                            && (endBucket == null || !key.bucket().isAfter(endBucket))) {
+                                        stored.merge(key, delta, RollupDelta::merge);
+                                    }
+                                }
+                                List<RollupDelta> result = new ArrayList<>(stored.values());
+                                result.sort(Comparator.comparing(RollupDelta::key, KEY_ORDER));
+                                return Mono.just(result);
+                            });
+                })
+                .repeatWhenEmpty(attempts -> attempts
+                        .doOnNext(attempt -> {
+                            if (attempt + 1 == QUERY_ATTEMPTS_BEFORE_PAUSE) {
+                                pauseFlushes(pausing);
+                            }
+                        })
+                        .delayElements(QUERY_RETRY_DELAY))
+                .timeout(QUERY_TIMEOUT)
+                .doFinally(signal -> resumeFlushes(pausing))
+                .flatMapIterable(Function.identity());
+    }
+
+    private void pauseFlushes(AtomicBoolean pausing) {
+        synchronized (flushing) {
+            if (pausing.compareAndSet(false, true)) {
+                pausedBy++;
+                log.debug("Consulta de agregados repetida {} veces; se pausan los vaciados", QUERY_ATTEMPTS_BEFORE_PAUSE);
+            }
+        }
+    }
+
+    private void resumeFlushes(AtomicBoolean pausing) {
+        synchronized (flushing) {
+            if (pausing.compareAndSet(true, false)) {
+                pausedBy--;
+            }
+        }
+    }
+
+    /**
+     * Incrementos aún no guardados en la tabla: los en vaciado y los de los acumuladores, o {@code null} si
+     * el número de confirmaciones ya no es el indicado.
+     */
+    private List<RollupDelta> pending(long expectedCommits) {
+        synchronized (flushing) {
+            if (commits != expectedCommits) {
+                return null;
+            }
+            List<RollupDelta> pending = new ArrayList<>();
+            flushing.forEach(deltas -> pending.addAll(deltas.values()));
+            accumulators.values().forEach(accumulator -> {
+                RollupDelta delta = accumulator.peek();
+                if (delta != null) {
+                    pending.add(delta);
+                }
+            });
+            return pending;
+        }
+    }
+
+    /**
+     * Vacía los incrementos acumulados a {@code conversion_rollups}, en sentencias de hasta
+     * {@value #MERGE_CHUNK_SIZE} agregados, y retira los acumuladores que quedaron inactivos. Mientras
+     * alguna consulta pausa los vaciados no hace nada; los incrementos esperan al siguiente.
+     */
+    Mono<Void> flush() {
+        return Mono.defer(() -> {
+            Map<RollupKey, RollupDelta> deltas = new HashMap<>();
+            synchronized (flushing) {
+                if (pausedBy > 0) {
+                    return Mono.<Void>empty();
+                }
+                drain().forEach(delta -> deltas.put(delta.key(), delta));
+                if (deltas.isEmpty()) {
+                    return Mono.<Void>empty();
+                }
+                flushing.add(deltas);
+            }
+            return Flux.fromIterable(List.copyOf(deltas.values()))
+                    .buffer(MERGE_CHUNK_SIZE)
+                    .concatMap(chunk -> {
+                        AtomicBoolean sent = new AtomicBoolean();
+                        return Mono.defer(() -> {
+                                    beginCommit(sent);
+                                    return conversionRollupRepository.merge(chunk);
+                                })
+                                // Una sentencia cancelada pudo haberse confirmado: no se reintenta
+                                .doOnSuccess(rows -> endCommit(deltas, chunk, sent, false))
+                                .doOnCancel(() -> endCommit(deltas, chunk, sent, false))
+                                .onErrorResume(error -> {
+                                    log.error("No se pudieron guardar {} agregados de volumen; se reintentarán", chunk.size(), error);
+                                    endCommit(deltas, chunk, sent, true);
+                                    return Mono.just(0L);
+                                });
+                    })
+                    .reduce(0L, Long::sum)
+                    .doOnNext(rows -> log.debug("Guardados {} agregados de volumen", rows))
+                    // Los incrementos que no llegaron a enviarse (vaciado cancelado) vuelven a los acumuladores
+                    .doFinally(signal -> endFlush(deltas))
+                    .then();
+        });
+    }
+
+    private void beginCommit(AtomicBoolean sent) {
+        synchronized (flushing) {
+            sent.set(true);
+            committing++;
+            commits++;
+        }
+    }
+
+    private void endCommit(Map<RollupKey, RollupDelta> deltas, List<RollupDelta> chunk, AtomicBoolean sent, boolean failed) {
+        synchronized (flushing) {
+            // Solo una vez por sentencia enviada; las no enviadas las devuelve endFlush
+            if (!sent.compareAndSet(true, false)) {
+                return;
+            }
+            chunk.forEach(delta -> deltas.remove(delta.key()));
+            if (failed) {
+                chunk.forEach(this::restore);
+            }
+            committing--;
+            commits++;
+        }
+    }
+
+    private void endFlush(Map<RollupKey, RollupDelta> deltas) {
+        synchronized (flushing) {
+            deltas.values().forEach(this::restore);
+            flushing.removeIf(candidate -> candidate == deltas);
+        }
+    }
+
+    private List<RollupDelta> drain() {
+        List<RollupDelta> deltas = new ArrayList<>();
+        List<RollupKey> idle = new ArrayList<>();
+        accumulators.forEach((key, accumulator) -> {
+            RollupDelta delta = accumulator.drain();
+            if (delta != null) {
+                deltas.add(delta);
+            } else {
+                idle.add(key);
+            }
+        });
+        if (!idle.isEmpty()) {
+            evictionLock.writeLock().lock();
+            try {
+                // Sin registros en curso: un acumulador que sigue vacío se puede retirar sin perder conversiones
+                for (RollupKey key : idle) {
+                    RollupAccumulator accumulator = accumulators.get(key);
+                    if (accumulator != null && accumulator.peek() == null) {
+                        accumulators.remove(key);
+                    }
+                }
+            } finally {
+                evictionLock.writeLock().unlock();
+            }
+        }
+        return deltas;
+    }
+
+    private void restore(RollupDelta delta) {
+        evictionLock.readLock().lock();
+        try {
+            accumulators.computeIfAbsent(delta.key(), RollupAccumulator::new).restore(delta);
+        } finally {
+            evictionLock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.currency_exchange_service.rollup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumulador en memoria de un agregado, con contadores segmentados ({@link LongAdder} y {@link LongAccumulator})
+ * para que los hilos que registran conversiones del mismo par e intervalo no compitan por una misma celda.
+ * <p>
+ * Los montos se acumulan en punto fijo con escala {@value #SCALE} (la de {@code conversion_history}).
+ * Los montos con valor absoluto de {@value #FAST_PATH_LIMIT} unidades o más se acumulan aparte en
+ * {@link BigDecimal}, con sincronización: así la suma en {@code long} no puede desbordarse salvo con
+ * más de 2^23 conversiones de ese tamaño entre dos vaciados.
+ */
+class RollupAccumulator {
+
+    static final int SCALE = 6;
+    private static final long FAST_PATH_LIMIT = 1_000_000L;
+    private static final long FAST_PATH_LIMIT_UNSCALED = FAST_PATH_LIMIT * 1_000_000L;
+
+    private final RollupKey key;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder originalSum = new LongAdder();
+    private final LongAdder convertedSum = new LongAdder();
+    private final LongAccumulator originalMin = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator originalMax = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    // Montos fuera del rango del camino rápido; protegidos por this
+    private BigDecimal largeOriginalSum = BigDecimal.ZERO;
+    private BigDecimal largeConvertedSum = BigDecimal.ZERO;
+    private BigDecimal largeOriginalMin;
+    private BigDecimal largeOriginalMax;
+
+    RollupAccumulator(RollupKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Registra una conversión.
+     */
+    void add(BigDecimal originalAmount, BigDecimal convertedAmount) {
+        long original = unscaled(originalAmount);
+        if (original != Long.MIN_VALUE) {
+            originalSum.add(original);
+            originalMin.accumulate(original);
+            originalMax.accumulate(original);
+        } else {
+            addLargeOriginal(originalAmount);
+        }
+        long converted = unscaled(convertedAmount);
+        if (converted != Long.MIN_VALUE) {
+            convertedSum.add(converted);
+        } else {
+            addLargeConverted(convertedAmount);
+        }
+        // El contador va al final: un agregado con conversiones nunca se ve sin sus montos
+        count.increment();
+    }
+
+    /**
+     * Devuelve a este acumulador los valores de un vaciado que no se pudo guardar.
+     */
+    void restore(RollupDelta delta) {
+        synchronized (this) {
+            largeOriginalSum = largeOriginalSum.add(delta.originalSum());
+            largeConvertedSum = largeConvertedSum.add(delta.convertedSum());
+            if (delta.originalMin() != null) {
+                largeOriginalMin = largeOriginalMin == null ? delta.originalMin() : largeOriginalMin.min(delta.originalMin());
+            }
+            if (delta.originalMax() != null) {
+                largeOriginalMax = largeOriginalMax == null ? delta.originalMax() : largeOriginalMax.max(delta.originalMax());
+            }
+        }
+        count.add(delta.count());
+    }
+
+    /**
+     * Devuelve los valores acumulados desde el último vaciado y los pone a cero.
+     * Una conversión registrada en paralelo puede quedar repartida entre este vaciado y el siguiente.
+     *
+     * @return Valores acumulados, o {@code null} si no hubo conversiones
+     */
+    RollupDelta drain() {
+        long drainedCount = count.sumThenReset();
+        if (drainedCount == 0) {
+            return null;
+        }
+        return delta(drainedCount, originalSum.sumThenReset(), convertedSum.sumThenReset(),
+                originalMin.getThenReset(), originalMax.getThenReset(), true);
+    }
+
+    /**
+     * Valores acumulados desde el último vaciado, sin modificarlos.
+     *
+     * @return Valores acumulados, o {@code null} si no hay conversiones pendientes
+     */
+    RollupDelta peek() {
+        long pendingCount = count.sum();
+        if (pendingCount == 0) {
+            return null;
+        }
+        return delta(pendingCount, originalSum.sum(), convertedSum.sum(), originalMin.get(), originalMax.get(), false);
+    }
+
+    private synchronized RollupDelta delta(long n, long original, long converted, long min, long max, boolean reset) {
+        BigDecimal minAmount = min == Long.MAX_VALUE ? null : BigDecimal.valueOf(min, SCALE);
+        BigDecimal maxAmount = max == Long.MIN_VALUE ? null : BigDecimal.valueOf(max, SCALE);
+        RollupDelta delta = new RollupDelta(key, n,
+                BigDecimal.valueOf(original, SCALE).add(largeOriginalSum),
+                BigDecimal.valueOf(converted, SCALE).add(largeConvertedSum),
+                minAmount, maxAmount)
+                .merge(new RollupDelta(key, 0, BigDecimal.ZERO, BigDecimal.ZERO, largeOriginalMin, largeOriginalMax));
+        if (reset) {
+            largeOriginalSum = BigDecimal.ZERO;
+            largeConvertedSum = BigDecimal.ZERO;
+            largeOriginalMin = null;
+            largeOriginalMax = null;
+        }
+        return delta;
+    }
+
+    private synchronized void addLargeOriginal(BigDecimal amount) {
+        largeOriginalSum = largeOriginalSum.add(amount);
+        largeOriginalMin = largeOriginalMin == null ? amount : largeOriginalMin.min(amount);
+        largeOriginalMax = largeOriginalMax == null ? amount : largeOriginalMax.max(amount);
+    }
+
+    private synchronized void addLargeConverted(BigDecimal amount) {
+        largeConvertedSum = largeConvertedSum.add(amount);
+    }
+
+    /**
+     * Monto en punto fijo, o {@link Long#MIN_VALUE} si está fuera del rango del camino rápido.
+     */
+    private static long unscaled(BigDecimal amount) {
+        if (amount.precision() - amount.scale() > 7) {
+            return Long.MIN_VALUE;
+        }
+        long unscaled = amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValue();
+        return Math.abs(unscaled) < FAST_PATH_LIMIT_UNSCALED ? unscaled : Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.currency_exchange_service.rollup;
+
+import java.math.BigDecimal;
+
+/**
+ * Valores acumulados de un agregado: número de conversiones, sumas de montos y extremos del monto original.
+ * Los extremos son {@code null} cuando no hay conversiones.
+ */
+public record RollupDelta(RollupKey key, long count, BigDecimal originalSum, BigDecimal convertedSum,
+                          BigDecimal originalMin, BigDecimal originalMax) {
+
+    /**
+     * Combina dos agregados de la misma clave.
+     */
+    public RollupDelta merge(RollupDelta other) {
+        return new RollupDelta(key, count + other.count, originalSum.add(other.originalSum),
+                convertedSum.add(other.convertedSum), min(originalMin, other.originalMin), max(originalMax, other.originalMax));
+    }
+
+    private static BigDecimal min(BigDecimal a, BigDecimal b) {
+        return a == null ? b : b == null ? a : a.min(b);
+    }
+
+    private static BigDecimal max(BigDecimal a, BigDecimal b) {
+        return a == null ? b : b == null ? a : a.max(b);
+    }
+}
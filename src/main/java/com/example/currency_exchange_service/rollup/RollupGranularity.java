@@ -0,0 +1,39 @@
+package com.example.currency_exchange_service.rollup;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Granularidad de los agregados de volumen de conversiones.
+ */
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Inicio del intervalo que contiene una fecha.
+     *
+     * @param dateTime Fecha de la conversión
+     * @return Fecha truncada a la granularidad
+     */
+    public LocalDateTime bucket(LocalDateTime dateTime) {
+        return dateTime.truncatedTo(unit);
+    }
+
+    /**
+     * Inicio del intervalo siguiente.
+     *
+     * @param bucket Inicio de un intervalo
+     * @return Inicio del intervalo que le sigue
+     */
+    public LocalDateTime next(LocalDateTime bucket) {
+        return bucket.plus(1, unit);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.currency_exchange_service.rollup;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clave de un agregado: granularidad, par de monedas e inicio del intervalo.
+ */
+public record RollupKey(RollupGranularity granularity, String sourceCurrency, String targetCurrency, LocalDateTime bucket) {
+}
@@ -0,0 +1,55 @@
+package com.example.currency_exchange_service.security;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Origen de una solicitud: usuario autenticado y dirección IP del cliente, ambos opcionales.
+ * <p>
+ * Se lee del contexto de Reactor de la solicitud en curso, sin bloquear: el usuario del contexto de
+ * seguridad que carga Spring Security y la IP que guarda {@link RequestOriginWebFilter}.
+ *
+ * @param userId Nombre del usuario autenticado, o {@code null} si la solicitud es anónima
+ * @param ipAddress Dirección IP del cliente, o {@code null} si no se conoce
+ */
+public record RequestOrigin(String userId, String ipAddress) {
+
+    /**
+     * Clave del contexto de Reactor con la dirección IP del cliente.
+     */
+    static final String IP_ADDRESS_KEY = RequestOrigin.class.getName() + ".ipAddress";
+
+    /**
+     * Origen sin usuario ni dirección, fuera de una solicitud HTTP.
+     */
+    public static final RequestOrigin UNKNOWN = new RequestOrigin(null, null);
+
+    /**
+     * Origen de la solicitud en curso.
+     *
+     * @return Origen de la solicitud; {@link #UNKNOWN} fuera de una solicitud HTTP
+     */
+    public static Mono<RequestOrigin> current() {
+        return Mono.deferContextual(context -> {
+            String ipAddress = context.getOrDefault(IP_ADDRESS_KEY, null);
+            return ReactiveSecurityContextHolder.getContext()
+                    .map(SecurityContext::getAuthentication)
+                    .filter(authentication -> authentication.isAuthenticated()
+                            && !(authentication instanceof AnonymousAuthenticationToken))
+                    .map(Authentication::getName)
+                    .map(userId -> new RequestOrigin(userId, ipAddress))
+                    .defaultIfEmpty(ipAddress != null ? new RequestOrigin(null, ipAddress) : UNKNOWN);
+        });
+    }
+
+    /**
+     * Contexto de Reactor con la dirección IP del cliente, para {@code contextWrite}.
+     */
+    public static Context withIpAddress(String ipAddress) {
+        return Context.of(IP_ADDRESS_KEY, ipAddress);
+    }
+}
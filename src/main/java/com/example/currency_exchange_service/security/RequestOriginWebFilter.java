@@ -0,0 +1,39 @@
+package com.example.currency_exchange_service.security;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Guarda la dirección IP del cliente en el contexto de Reactor de cada solicitud, para que
+ * {@link RequestOrigin#current()} la lea sin acceder al {@link ServerWebExchange}.
+ * <p>
+ * Se usa la dirección remota de la conexión; detrás de un proxy, {@code server.forward-headers-strategy}
+ * hace que refleje la cabecera {@code X-Forwarded-For}.
+ */
+@Component
+public class RequestOriginWebFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String ipAddress = ipAddress(exchange.getRequest().getRemoteAddress());
+        if (ipAddress == null) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange).contextWrite(RequestOrigin.withIpAddress(ipAddress));
+    }
+
+    private static String ipAddress(InetSocketAddress remoteAddress) {
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return null;
+        }
+        // getHostAddress no resuelve DNS; se quita el identificador de zona IPv6 (columna de 45 caracteres)
+        String address = remoteAddress.getAddress().getHostAddress();
+        int zone = address.indexOf('%');
+        return zone >= 0 ? address.substring(0, zone) : address;
+    }
+}
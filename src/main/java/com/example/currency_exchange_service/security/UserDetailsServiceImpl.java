@@ -1,22 +1,33 @@
 package com.example.currency_exchange_service.security;
 
+import com.example.currency_exchange_service.cache.SingleFlight;
 import com.example.currency_exchange_service.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+
 /**
  * Implementación del servicio de detalles de usuario reactivo.
- * Carga los detalles de usuario desde la base de datos.
+ * Carga los detalles de usuario desde la base de datos. Las solicitudes autenticadas concurrentes
+ * de un mismo usuario comparten una sola consulta.
  */
 @Service
-@RequiredArgsConstructor
 public class UserDetailsServiceImpl implements ReactiveUserDetailsService {
 
     private final UserRepository userRepository;
+    private final SingleFlight<String, UserDetails> lookups;
+
+    public UserDetailsServiceImpl(
+            UserRepository userRepository,
+            @Value("${currency.single-flight.timeout:5s}") Duration lookupTimeout) {
+        this.userRepository = userRepository;
+        this.lookups = new SingleFlight<>("usuario", lookupTimeout);
+    }
 
     /**
      * Carga los detalles de usuario por nombre de usuario.
@@ -26,8 +37,8 @@ public class UserDetailsServiceImpl implements ReactiveUserDetailsService {
      */
     @Override
     public Mono<UserDetails> findByUsername(String username) {
-        return userRepository.findByUsername(username)
+        return lookups.execute(username, () -> userRepository.findByUsername(username)
                 .cast(UserDetails.class)
-                .switchIfEmpty(Mono.error(new UsernameNotFoundException("Usuario no encontrado: " + username)));
+                .switchIfEmpty(Mono.error(() -> new UsernameNotFoundException("Usuario no encontrado: " + username))));
     }
 }
@@ -0,0 +1,51 @@
+package com.example.currency_exchange_service.service;
+
+import com.example.currency_exchange_service.dto.ConversionDistributionResponse;
+import com.example.currency_exchange_service.dto.ConversionVolumeResponse;
+import com.example.currency_exchange_service.rollup.RollupGranularity;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Interfaz para el servicio de analítica de conversiones.
+ */
+public interface ConversionAnalyticsService {
+
+    /**
+     * Obtiene el volumen de conversiones por par de monedas e intervalo.
+     *
+     * @param granularity Granularidad de los intervalos
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @return Flujo de volúmenes ordenados por intervalo y par
+     */
+    Flux<ConversionVolumeResponse> getConversionVolume(
+            RollupGranularity granularity,
+            String sourceCurrency,
+            String targetCurrency,
+            LocalDateTime startDate,
+            LocalDateTime endDate);
+
+    /**
+     * Obtiene la distribución estimada de los montos y los usuarios e IPs distintos por par de monedas
+     * y ventana.
+     *
+     * @param granularity Granularidad de las ventanas
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @param combined Si es {@code true}, combina las ventanas del rango en una sola distribución por par
+     * @return Flujo de distribuciones ordenadas por ventana y par, o solo por par si se combinan
+     */
+    Flux<ConversionDistributionResponse> getConversionDistribution(
+            RollupGranularity granularity,
+            String sourceCurrency,
+            String targetCurrency,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            boolean combined);
+}
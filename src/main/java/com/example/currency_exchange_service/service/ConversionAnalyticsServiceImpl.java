@@ -0,0 +1,92 @@
+package com.example.currency_exchange_service.service;
+
+import com.example.currency_exchange_service.dto.ConversionDistributionResponse;
+import com.example.currency_exchange_service.dto.ConversionVolumeResponse;
+import com.example.currency_exchange_service.rollup.ConversionRollups;
+import com.example.currency_exchange_service.rollup.RollupDelta;
+import com.example.currency_exchange_service.rollup.RollupGranularity;
+import com.example.currency_exchange_service.sketch.AmountDistribution;
+import com.example.currency_exchange_service.sketch.ConversionSketches;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Implementación del servicio de analítica de conversiones, servida desde los agregados
+ * incrementales de {@link ConversionRollups} y los sketches de {@link ConversionSketches}
+ * sin leer {@code conversion_history}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConversionAnalyticsServiceImpl implements ConversionAnalyticsService {
+
+    private final ConversionRollups conversionRollups;
+    private final ConversionSketches conversionSketches;
+
+    @Override
+    public Flux<ConversionVolumeResponse> getConversionVolume(
+            RollupGranularity granularity,
+            String sourceCurrency,
+            String targetCurrency,
+            LocalDateTime startDate,
+            LocalDateTime endDate) {
+
+        log.info("Consultando volumen de conversiones: granularity={}, sourceCurrency={}, targetCurrency={}, startDate={}, endDate={}",
+                granularity, sourceCurrency, targetCurrency, startDate, endDate);
+
+        return conversionRollups.query(granularity, sourceCurrency, targetCurrency, startDate, endDate)
+                .map(this::toVolumeResponse);
+    }
+
+    @Override
+    public Flux<ConversionDistributionResponse> getConversionDistribution(
+            RollupGranularity granularity,
+            String sourceCurrency,
+            String targetCurrency,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            boolean combined) {
+
+        log.info("Consultando distribución de conversiones: granularity={}, sourceCurrency={}, targetCurrency={}, startDate={}, endDate={}, combined={}",
+                granularity, sourceCurrency, targetCurrency, startDate, endDate, combined);
+
+        return conversionSketches.query(granularity, sourceCurrency, targetCurrency, startDate, endDate, combined)
+                .map(this::toDistributionResponse);
+    }
+
+    private ConversionVolumeResponse toVolumeResponse(RollupDelta rollup) {
+        return ConversionVolumeResponse.builder()
+                .granularity(rollup.key().granularity())
+                .sourceCurrency(rollup.key().sourceCurrency())
+                .targetCurrency(rollup.key().targetCurrency())
+                .bucketStart(rollup.key().bucket())
+                .count(rollup.count())
+                .originalAmountSum(rollup.originalSum())
+                .convertedAmountSum(rollup.convertedSum())
+                .originalAmountMin(rollup.originalMin())
+                .originalAmountMax(rollup.originalMax())
+                .build();
+    }
+
+    private ConversionDistributionResponse toDistributionResponse(AmountDistribution distribution) {
+        return ConversionDistributionResponse.builder()
+                .granularity(distribution.key().granularity())
+                .sourceCurrency(distribution.key().sourceCurrency())
+                .targetCurrency(distribution.key().targetCurrency())
+                .bucketStart(distribution.key().bucket())
+                .bucketEnd(distribution.bucketEnd())
+                .count(distribution.count())
+                .originalAmountP50(distribution.p50())
+                .originalAmountP95(distribution.p95())
+                .originalAmountP99(distribution.p99())
+                .originalAmountMin(distribution.min())
+                .originalAmountMax(distribution.max())
+                .distinctUsers(distribution.distinctUsers())
+                .distinctIpAddresses(distribution.distinctIpAddresses())
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.currency_exchange_service.service;
 
+import com.example.currency_exchange_service.dto.ConversionHistoryPage;
 import com.example.currency_exchange_service.dto.ConversionHistoryResponse;
 import com.example.currency_exchange_service.dto.CurrencyExchangeRequest;
 import com.example.currency_exchange_service.dto.CurrencyExchangeResponse;
@@ -23,6 +24,14 @@ public interface CurrencyExchangeService {
      */
     Mono<CurrencyExchangeResponse> convertCurrency(CurrencyExchangeRequest request);
 
+    /**
+     * Convierte un lote de montos, emitiendo las respuestas en el orden de las solicitudes.
+     *
+     * @param requests Flujo de solicitudes de conversión
+     * @return Flujo de respuestas en el orden de las solicitudes
+     */
+    Flux<CurrencyExchangeResponse> convertBatch(Flux<CurrencyExchangeRequest> requests);
+
     /**
      * Obtiene la tasa de cambio entre dos monedas.
      *
@@ -32,6 +41,16 @@ public interface CurrencyExchangeService {
      */
     Mono<ExchangeRateResponse> getExchangeRateInfo(String sourceCurrency, String targetCurrency);
 
+    /**
+     * Obtiene la tasa de cambio entre dos monedas vigente en un instante.
+     *
+     * @param sourceCurrency Código de moneda origen
+     * @param targetCurrency Código de moneda destino
+     * @param asOf Instante de la tasa; si es {@code null}, se devuelve la tasa vigente
+     * @return Respuesta con información de la tasa de cambio
+     */
+    Mono<ExchangeRateResponse> getExchangeRateInfo(String sourceCurrency, String targetCurrency, LocalDateTime asOf);
+
     /**
      * Obtiene el historial de conversiones realizadas.
      *
@@ -46,4 +65,54 @@ public interface CurrencyExchangeService {
             String targetCurrency,
             LocalDateTime startDate,
             LocalDateTime endDate);
+
+    /**
+     * Obtiene una página del historial de conversiones con filtros opcionales,
+     * de la conversión más reciente a la más antigua.
+     *
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @param cursor Token de continuación de la página anterior (opcional)
+     * @param size Tamaño de página (opcional)
+     * @return Página de conversiones y token de la página siguiente
+     */
+    Mono<ConversionHistoryPage> getConversionHistoryPage(
+            String sourceCurrency,
+            String targetCurrency,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            String cursor,
+            Integer size);
+
+    /**
+     * Obtiene el historial de conversiones de un usuario, de la más reciente a la más antigua.
+     *
+     * @param userId Usuario que realizó las conversiones
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @return Flujo de conversiones del usuario
+     */
+    Flux<ConversionHistoryResponse> getUserConversionHistory(
+            String userId,
+            LocalDateTime startDate,
+            LocalDateTime endDate);
+
+    /**
+     * Obtiene una página del historial de conversiones de un usuario, de la más reciente a la más antigua.
+     *
+     * @param userId Usuario que realizó las conversiones
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @param cursor Token de continuación de la página anterior (opcional)
+     * @param size Tamaño de página (opcional)
+     * @return Página de conversiones del usuario y token de la página siguiente
+     */
+    Mono<ConversionHistoryPage> getUserConversionHistoryPage(
+            String userId,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            String cursor,
+            Integer size);
 }
@@ -1,18 +1,31 @@
 package com.example.currency_exchange_service.service;
 
+import com.example.currency_exchange_service.cache.ExchangeRateCache;
+import com.example.currency_exchange_service.cache.SingleFlight;
+import com.example.currency_exchange_service.dto.ConversionHistoryPage;
 import com.example.currency_exchange_service.dto.ConversionHistoryResponse;
 import com.example.currency_exchange_service.dto.CurrencyExchangeRequest;
 import com.example.currency_exchange_service.dto.CurrencyExchangeResponse;
 import com.example.currency_exchange_service.dto.ExchangeRateResponse;
-import com.example.currency_exchange_service.exception.CurrencyNotFoundException;
 import com.example.currency_exchange_service.exception.ExchangeRateNotFoundException;
+import com.example.currency_exchange_service.exception.StaleRateException;
+import com.example.currency_exchange_service.history.ConversionHistoryWriter;
+import com.example.currency_exchange_service.history.HistoryArchive;
+import com.example.currency_exchange_service.history.HistoryCursor;
+import com.example.currency_exchange_service.metrics.ConversionMetrics;
+import com.example.currency_exchange_service.metrics.ConversionMetrics.Stage;
 import com.example.currency_exchange_service.model.ConversionHistory;
 import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.rate.FixedPoint;
+import com.example.currency_exchange_service.rate.RateHistory;
+import com.example.currency_exchange_service.rate.RateHistory.HistoricalRate;
+import com.example.currency_exchange_service.rate.RateMatrix;
+import com.example.currency_exchange_service.rate.RateMatrixSnapshot;
+import com.example.currency_exchange_service.rate.RateStalenessPolicy;
 import com.example.currency_exchange_service.repository.ConversionHistoryRepository;
-import com.example.currency_exchange_service.repository.CurrencyRepository;
-import com.example.currency_exchange_service.repository.ExchangeRateRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.currency_exchange_service.security.RequestOrigin;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -21,45 +34,100 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Implementación del servicio de conversión de monedas.
  * Proporciona funcionalidad para convertir montos entre diferentes monedas
- * con caché de resultados y patrones de resiliencia.
+ * leyendo las tasas de la matriz en memoria, con caché de tasas por par como respaldo.
+ * Las conversiones y consultas con fecha {@code asOf} usan la tasa vigente en ese instante según el
+ * {@link RateHistory}. Las tasas vigentes informan su antigüedad y se rechazan si superan la antigüedad
+ * máxima del par según {@link RateStalenessPolicy}.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class CurrencyExchangeServiceImpl implements CurrencyExchangeService {
 
-    private final CurrencyRepository currencyRepository;
-    private final ExchangeRateRepository exchangeRateRepository;
+    private final RateMatrix rateMatrix;
+    private final RateHistory rateHistory;
+    private final RateStalenessPolicy rateStalenessPolicy;
+    private final ExchangeRateCache exchangeRateCache;
     private final ConversionHistoryRepository conversionHistoryRepository;
+    private final ConversionHistoryWriter conversionHistoryWriter;
+    private final HistoryArchive historyArchive;
+    private final ConversionMetrics conversionMetrics;
+    private final SingleFlight<HistoryQuery, ConversionHistoryPage> historyQueries;
+    private final Arithmetic arithmetic;
 
-    // Caché manual usando ConcurrentHashMap
-    private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
+    /**
+     * Aritmética usada para calcular el monto convertido. Ambas producen el mismo resultado.
+     */
+    public enum Arithmetic {
+        /** Producto y redondeo con {@link BigDecimal}. */
+        BIG_DECIMAL,
+        /** Producto y redondeo sobre {@code long} (ver {@link FixedPoint}), con BigDecimal ante desbordamiento. */
+        FIXED_POINT
+    }
 
-    // Clase para almacenar respuestas en caché con timestamp
-    private static class CachedResponse {
-        private final CurrencyExchangeResponse response;
-        private final LocalDateTime timestamp;
+    // Parámetros de las conversiones por lotes
+    private static final int BATCH_PREFETCH = 64;
+    private static final int BATCH_MAX_QUOTES = 1024;
+    private static final int BATCH_HISTORY_CHUNK_SIZE = 256;
+    private static final Duration BATCH_HISTORY_MAX_WAIT = Duration.ofMillis(100);
 
-        public CachedResponse(CurrencyExchangeResponse response) {
-            this.response = response;
-            this.timestamp = LocalDateTime.now();
-        }
+    // Tamaño de página del historial
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
 
-        public boolean isExpired() {
-            // Expirar después de 5 minutos (300 segundos)
-            return Duration.between(timestamp, LocalDateTime.now()).getSeconds() > 300;
-        }
+    /**
+     * Tasa resuelta para un par, su valor de punto fijo en la matriz ({@link RateMatrixSnapshot#ABSENT}
+     * si no proviene de la matriz), versión de la matriz de la que proviene ({@code null} si no proviene de ella),
+     * antigüedad en milisegundos ({@code null} para tasas históricas o sin fecha) y si es un valor obsoleto
+     * servido sin esperar a la base de datos. Visible en el paquete para los benchmarks JMH.
+     */
+    record RateQuote(BigDecimal rate, long rateFixedPoint, Long version, Long ageMillis, boolean stale) {
+    }
+
+    /**
+     * Filtros y posición de una página del historial; clave para agrupar consultas idénticas concurrentes.
+     */
+    private record HistoryQuery(String sourceCurrency, String targetCurrency, String userId,
+                                LocalDateTime startDate, LocalDateTime endDate,
+                                HistoryCursor after, int size) {
+    }
+
+    public CurrencyExchangeServiceImpl(
+            RateMatrix rateMatrix,
+            RateHistory rateHistory,
+            RateStalenessPolicy rateStalenessPolicy,
+            ExchangeRateCache exchangeRateCache,
+            ConversionHistoryRepository conversionHistoryRepository,
+            ConversionHistoryWriter conversionHistoryWriter,
+            HistoryArchive historyArchive,
+            ConversionMetrics conversionMetrics,
+            @Value("${currency.single-flight.timeout:5s}") Duration queryTimeout,
+            @Value("${currency.conversion.arithmetic:FIXED_POINT}") Arithmetic arithmetic) {
+        this.rateMatrix = rateMatrix;
+        this.rateHistory = rateHistory;
+        this.rateStalenessPolicy = rateStalenessPolicy;
+        this.exchangeRateCache = exchangeRateCache;
+        this.conversionHistoryRepository = conversionHistoryRepository;
+        this.conversionHistoryWriter = conversionHistoryWriter;
+        this.historyArchive = historyArchive;
+        this.conversionMetrics = conversionMetrics;
+        this.historyQueries = new SingleFlight<>("historial", queryTimeout);
+        this.arithmetic = arithmetic;
     }
 
     /**
      * Convierte un monto de una moneda a otra.
-     * Los resultados se almacenan en caché durante 5 minutos para optimizar operaciones repetidas.
+     * La tasa se lee de la matriz de tasas en memoria, o del historial de tasas si la solicitud indica
+     * {@code asOf} (ver {@link #resolveRate(String, String, String, LocalDateTime)}), y el
+     * registro del historial se encola para escritura diferida, sin esperar a la base de datos, con el
+     * usuario y la IP de la solicitud (ver {@link RequestOrigin}). Cada etapa se mide en {@link ConversionMetrics}.
      *
      * @param request Solicitud con monto, moneda origen y moneda destino
      * @return Respuesta con el monto convertido y la tasa de cambio aplicada
@@ -68,90 +136,232 @@ public class CurrencyExchangeServiceImpl implements CurrencyExchangeService {
     public Mono<CurrencyExchangeResponse> convertCurrency(CurrencyExchangeRequest request) {
         log.info("Convirtiendo {} {} a {}", request.getAmount(), request.getSourceCurrency(), request.getTargetCurrency());
 
-        // Clave para la caché
-        String cacheKey = request.getSourceCurrency() + "_" + request.getTargetCurrency() + "_" + request.getAmount();
+        String pair = conversionMetrics.pairTag(request.getSourceCurrency(), request.getTargetCurrency());
+        return conversionMetrics.timeConversion(pair, resolveRate(request.getSourceCurrency(), request.getTargetCurrency(), pair,
+                        request.getAsOf())
+                .map(quote -> conversionMetrics.time(Stage.CALCULATION, pair,
+                        () -> calculateConversion(request.getAmount(), quote, request)))
+                .flatMap(response -> conversionMetrics.time(Stage.HISTORY_SAVE, pair,
+                                RequestOrigin.current()
+                                        .flatMap(origin -> conversionHistoryWriter.enqueue(toHistory(response, origin))))
+                        .thenReturn(response)));
+    }
 
-        // Verificar si existe en caché y no ha expirado
-        CachedResponse cachedResponse = cache.get(cacheKey);
-        if (cachedResponse != null && !cachedResponse.isExpired()) {
-            log.info("Usando respuesta en caché para: {}", cacheKey);
-            return Mono.just(cachedResponse.response);
-        }
+    /**
+     * Convierte un lote de montos, emitiendo las respuestas en el mismo orden que las solicitudes.
+     * La tasa vigente de cada par distinto y el origen de la solicitud se resuelven una sola vez por lote y el
+     * historial se encola en grupos para escritura diferida. Las solicitudes se consumen según la demanda del cliente, con precarga acotada,
+     * de modo que un lote muy grande no se mantiene completo en memoria.
+     * <p>
+     * Las tasas resueltas se recuerdan por par, hasta {@value #BATCH_MAX_QUOTES} pares, descartando el usado hace
+     * más tiempo; las solicitudes con {@code asOf} se resuelven cada una del historial de tasas en memoria, sin
+     * recordarse. Una solicitud que falla no interrumpe el lote: se emite en su lugar una respuesta con
+     * {@code error} y no se guarda en el historial.
+     *
+     * @param requests Flujo de solicitudes de conversión
+     * @return Flujo de respuestas en el orden de las solicitudes
+     */
+    @Override
+    public Flux<CurrencyExchangeResponse> convertBatch(Flux<CurrencyExchangeRequest> requests) {
+        log.info("Convirtiendo lote de solicitudes");
 
-        // Si no está en caché o ha expirado, realizar la conversión
-        return validateCurrencies(request.getSourceCurrency(), request.getTargetCurrency())
-                .then(getExchangeRate(request.getSourceCurrency(), request.getTargetCurrency()))
-                .map(exchangeRate -> calculateConversion(request.getAmount(), exchangeRate, request))
-                .flatMap(response -> {
-                    // Guardar en caché
-                    cache.put(cacheKey, new CachedResponse(response));
-                    log.info("Guardando respuesta en caché para: {}", cacheKey);
-
-                    // Guardar en el historial de conversiones
-                    ConversionHistory history = ConversionHistory.builder()
-                            .sourceCurrencyCode(request.getSourceCurrency())
-                            .targetCurrencyCode(request.getTargetCurrency())
-                            .originalAmount(request.getAmount())
-                            .convertedAmount(response.getConvertedAmount())
-                            .exchangeRate(response.getExchangeRate())
-                            .conversionDate(LocalDateTime.now())
-                            .build();
+        return RequestOrigin.current().flatMapMany(origin -> {
+            // Tasas vigentes resueltas en este lote; concatMap invoca el mapeo de forma secuencial
+            Map<String, Mono<RateQuote>> quotes = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Mono<RateQuote>> eldest) {
+                    return size() > BATCH_MAX_QUOTES;
+                }
+            };
 
-                    return conversionHistoryRepository.save(history)
-                            .thenReturn(response);
-                });
+            return requests
+                    .concatMap(request -> batchQuote(request, quotes)
+                            .map(quote -> calculateConversion(request.getAmount(), quote, request))
+                            .onErrorResume(error -> {
+                                log.warn("Conversión fallida en el lote: {} {} a {}: {}", request.getAmount(),
+                                        request.getSourceCurrency(), request.getTargetCurrency(), error.getMessage());
+                                return Mono.just(CurrencyExchangeResponse.builder()
+                                        .amount(request.getAmount())
+                                        .sourceCurrency(request.getSourceCurrency())
+                                        .targetCurrency(request.getTargetCurrency())
+                                        .error(error.getMessage())
+                                        .build());
+                            }), BATCH_PREFETCH)
+                    .bufferTimeout(BATCH_HISTORY_CHUNK_SIZE, BATCH_HISTORY_MAX_WAIT, true)
+                    .concatMap(chunk -> conversionHistoryWriter
+                            .enqueueAll(chunk.stream()
+                                    .filter(response -> response.getError() == null)
+                                    .map(response -> toHistory(response, origin))
+                                    .toList())
+                            .then(Mono.just(chunk)), 1)
+                    .flatMapIterable(Function.identity());
+        });
+    }
+
+    private Mono<RateQuote> batchQuote(CurrencyExchangeRequest request, Map<String, Mono<RateQuote>> quotes) {
+        String source = request.getSourceCurrency();
+        String target = request.getTargetCurrency();
+        if (request.getAsOf() != null) {
+            return resolveRate(source, target, conversionMetrics.pairTag(source, target), request.getAsOf());
+        }
+        return quotes.computeIfAbsent(source + "_" + target,
+                pair -> resolveRate(source, target, conversionMetrics.pairTag(source, target), null).cache());
     }
 
     /**
-     * Valida que las monedas origen y destino existan en la base de datos.
+     * Resuelve la tasa de un par. Se lee sin bloqueos de la instantánea vigente de la matriz de tasas;
+     * solo los pares ausentes de la matriz se resuelven a través de la caché de tasas y la base de datos, que
+     * sirve el último valor conocido si la base de datos no responde dentro del presupuesto de latencia
+     * (ver {@link ExchangeRateCache#lookup(String, String)}). Las tasas vigentes que superan la antigüedad
+     * máxima del par se rechazan con {@link StaleRateException}.
+     * Con {@code asOf}, la tasa se lee del historial de tasas en memoria.
      *
      * @param sourceCurrency Código de moneda origen
      * @param targetCurrency Código de moneda destino
-     * @return Mono vacío si ambas monedas son válidas
+     * @param pair Etiqueta del par para las métricas
+     * @param asOf Instante opcional de la tasa a aplicar
+     * @return Tasa del par y versión de la matriz de la que proviene
      */
-    private Mono<Void> validateCurrencies(String sourceCurrency, String targetCurrency) {
-        return currencyRepository.findByCode(sourceCurrency)
-                .switchIfEmpty(Mono.error(new CurrencyNotFoundException("Moneda origen no encontrada: " + sourceCurrency)))
-                .then(currencyRepository.findByCode(targetCurrency)
-                        .switchIfEmpty(Mono.error(new CurrencyNotFoundException("Moneda destino no encontrada: " + targetCurrency))))
-                .then();
+    private Mono<RateQuote> resolveRate(String sourceCurrency, String targetCurrency, String pair, LocalDateTime asOf) {
+        if (asOf != null) {
+            return historicalRate(sourceCurrency, targetCurrency, asOf, pair)
+                    .map(historical -> new RateQuote(historical.rate(), historical.rateFixedPoint(), null, null, false));
+        }
+        RateQuote matrixQuote = conversionMetrics.time(Stage.MATRIX_LOOKUP, pair,
+                () -> matrixQuote(sourceCurrency, targetCurrency));
+        if (matrixQuote != null) {
+            return withinMaxAge(sourceCurrency, targetCurrency, matrixQuote);
+        }
+        return conversionMetrics.time(Stage.CACHE_LOOKUP, pair, exchangeRateCache.lookup(sourceCurrency, targetCurrency))
+                .flatMap(cached -> {
+                    if (cached.stale()) {
+                        conversionMetrics.recordStale(pair);
+                    }
+                    ExchangeRate exchangeRate = cached.exchangeRate();
+                    return withinMaxAge(sourceCurrency, targetCurrency, new RateQuote(exchangeRate.getRate(),
+                            RateMatrixSnapshot.ABSENT, null,
+                            RateStalenessPolicy.ageMillis(exchangeRate.getLastUpdated(), LocalDateTime.now()), cached.stale()));
+                });
     }
 
     /**
-     * Obtiene la tasa de cambio entre dos monedas.
-     *
-     * @param sourceCurrency Código de moneda origen
-     * @param targetCurrency Código de moneda destino
-     * @return Tasa de cambio entre las monedas
+     * Rechaza la tasa si supera la antigüedad máxima del par.
      */
-    private Mono<ExchangeRate> getExchangeRate(String sourceCurrency, String targetCurrency) {
-        return exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode(sourceCurrency, targetCurrency)
-                .switchIfEmpty(Mono.error(new ExchangeRateNotFoundException(
-                        "Tasa de cambio no encontrada para " + sourceCurrency + " a " + targetCurrency)));
+    private Mono<RateQuote> withinMaxAge(String sourceCurrency, String targetCurrency, RateQuote quote) {
+        if (rateStalenessPolicy.exceeds(sourceCurrency, targetCurrency, quote.ageMillis())) {
+            return Mono.error(staleRate(sourceCurrency, targetCurrency, quote.ageMillis()));
+        }
+        return Mono.just(quote);
+    }
+
+    private StaleRateException staleRate(String sourceCurrency, String targetCurrency, long ageMillis) {
+        return new StaleRateException("La tasa de " + sourceCurrency + " a " + targetCurrency + " tiene "
+                + ageMillis / 1000 + " s de antigüedad y supera el máximo de "
+                + rateStalenessPolicy.maxAge(sourceCurrency, targetCurrency).toSeconds() + " s");
+    }
+
+    /**
+     * Tasa del par en la instantánea vigente de la matriz, o {@code null} si el par no está en la matriz.
+     */
+    private RateQuote matrixQuote(String sourceCurrency, String targetCurrency) {
+        RateMatrixSnapshot snapshot = rateMatrix.current();
+        int source = snapshot.id(sourceCurrency);
+        int target = snapshot.id(targetCurrency);
+        if (!snapshot.hasRate(source, target)) {
+            return null;
+        }
+        return new RateQuote(snapshot.rate(source, target), snapshot.rateFixedPoint(source, target), snapshot.version(),
+                RateStalenessPolicy.ageMillis(snapshot.lastUpdated(source, target), LocalDateTime.now()), false);
+    }
+
+    /**
+     * Tasa vigente de un par en un instante según el historial de tasas.
+     */
+    private Mono<HistoricalRate> historicalRate(String sourceCurrency, String targetCurrency, LocalDateTime asOf, String pair) {
+        HistoricalRate historical = conversionMetrics.time(Stage.RATE_HISTORY_LOOKUP, pair,
+                () -> rateHistory.at(sourceCurrency, targetCurrency, asOf));
+        if (historical == null) {
+            return Mono.error(new ExchangeRateNotFoundException(
+                    "Tasa de cambio no encontrada para " + sourceCurrency + " a " + targetCurrency + " en " + asOf));
+        }
+        return Mono.just(historical);
+    }
+
+    /**
+     * Construye el registro de historial de una conversión realizada.
+     */
+    private ConversionHistory toHistory(CurrencyExchangeResponse response, RequestOrigin origin) {
+        return ConversionHistory.builder()
+                .sourceCurrencyCode(response.getSourceCurrency())
+                .targetCurrencyCode(response.getTargetCurrency())
+                .originalAmount(response.getAmount())
+                .convertedAmount(response.getConvertedAmount())
+                .exchangeRate(response.getExchangeRate())
+                .conversionDate(LocalDateTime.now())
+                .ipAddress(origin.ipAddress())
+                .userId(origin.userId())
+                .build();
     }
 
     /**
      * Calcula la conversión de moneda aplicando la tasa de cambio.
+     * Visible en el paquete para los benchmarks JMH.
      *
      * @param amount Monto a convertir
-     * @param exchangeRate Tasa de cambio a aplicar
+     * @param quote Tasa de cambio a aplicar
      * @param request Solicitud original
      * @return Respuesta con el monto convertido
      */
-    private CurrencyExchangeResponse calculateConversion(BigDecimal amount, ExchangeRate exchangeRate, CurrencyExchangeRequest request) {
-        BigDecimal convertedAmount = amount.multiply(exchangeRate.getRate()).setScale(2, RoundingMode.HALF_UP);
+    CurrencyExchangeResponse calculateConversion(BigDecimal amount, RateQuote quote, CurrencyExchangeRequest request) {
+        BigDecimal convertedAmount = switch (arithmetic) {
+            case BIG_DECIMAL -> amount.multiply(quote.rate()).setScale(2, RoundingMode.HALF_UP);
+            case FIXED_POINT -> quote.rateFixedPoint() != RateMatrixSnapshot.ABSENT
+                    ? FixedPoint.multiply(amount, quote.rateFixedPoint(), RateMatrixSnapshot.SCALE, 2)
+                    : FixedPoint.multiply(amount, quote.rate(), 2);
+        };
 
         return CurrencyExchangeResponse.builder()
                 .amount(amount)
                 .convertedAmount(convertedAmount)
                 .sourceCurrency(request.getSourceCurrency())
                 .targetCurrency(request.getTargetCurrency())
-                .exchangeRate(exchangeRate.getRate())
+                .exchangeRate(quote.rate())
+                .rateVersion(quote.version())
+                .stale(quote.stale())
+                .rateAgeMillis(quote.ageMillis())
                 .build();
     }
 
     /**
-     * Obtiene información detallada sobre la tasa de cambio entre dos monedas.
+     * Obtiene la tasa de cambio entre dos monedas vigente en un instante, leída del historial de tasas
+     * en memoria sin consultar la base de datos.
+     *
+     * @param sourceCurrency Código de moneda origen
+     * @param targetCurrency Código de moneda destino
+     * @param asOf Instante de la tasa; si es {@code null}, se devuelve la tasa vigente
+     * @return Respuesta con información de la tasa de cambio
+     */
+    @Override
+    public Mono<ExchangeRateResponse> getExchangeRateInfo(String sourceCurrency, String targetCurrency, LocalDateTime asOf) {
+        if (asOf == null) {
+            return getExchangeRateInfo(sourceCurrency, targetCurrency);
+        }
+        log.info("Obteniendo tasa de cambio de {} a {} vigente en {}", sourceCurrency, targetCurrency, asOf);
+
+        return historicalRate(sourceCurrency, targetCurrency, asOf, conversionMetrics.pairTag(sourceCurrency, targetCurrency))
+                .map(historical -> ExchangeRateResponse.builder()
+                        .sourceCurrency(sourceCurrency)
+                        .targetCurrency(targetCurrency)
+                        .rate(historical.rate())
+                        .buyRate(historical.buyRate() != null ? historical.buyRate() : historical.rate())
+                        .sellRate(historical.sellRate() != null ? historical.sellRate() : historical.rate())
+                        .lastUpdated(historical.validFrom())
+                        .asOf(asOf)
+                        .build());
+    }
+
+    /**
+     * Obtiene información detallada sobre la tasa de cambio vigente entre dos monedas.
      *
      * @param sourceCurrency Código de moneda origen
      * @param targetCurrency Código de moneda destino
@@ -161,18 +371,57 @@ public class CurrencyExchangeServiceImpl implements CurrencyExchangeService {
     public Mono<ExchangeRateResponse> getExchangeRateInfo(String sourceCurrency, String targetCurrency) {
         log.info("Obteniendo información de tasa de cambio de {} a {}", sourceCurrency, targetCurrency);
 
-        return validateCurrencies(sourceCurrency, targetCurrency)
-                .then(exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode(sourceCurrency, targetCurrency))
-                .switchIfEmpty(Mono.error(new ExchangeRateNotFoundException(
-                        "Tasa de cambio no encontrada para " + sourceCurrency + " a " + targetCurrency)))
-                .map(exchangeRate -> ExchangeRateResponse.builder()
-                        .sourceCurrency(exchangeRate.getSourceCurrencyCode())
-                        .targetCurrency(exchangeRate.getTargetCurrencyCode())
-                        .rate(exchangeRate.getRate())
-                        .buyRate(exchangeRate.getBuyRate() != null ? exchangeRate.getBuyRate() : exchangeRate.getRate())
-                        .sellRate(exchangeRate.getSellRate() != null ? exchangeRate.getSellRate() : exchangeRate.getRate())
-                        .lastUpdated(exchangeRate.getLastUpdated())
-                        .build());
+        RateMatrixSnapshot snapshot = rateMatrix.current();
+        int source = snapshot.id(sourceCurrency);
+        int target = snapshot.id(targetCurrency);
+        if (snapshot.hasRate(source, target)) {
+            return withinMaxAge(toExchangeRateResponse(snapshot, source, target));
+        }
+
+        return exchangeRateCache.lookup(sourceCurrency, targetCurrency)
+                .flatMap(cached -> {
+                    ExchangeRate exchangeRate = cached.exchangeRate();
+                    return withinMaxAge(ExchangeRateResponse.builder()
+                            .sourceCurrency(exchangeRate.getSourceCurrencyCode())
+                            .targetCurrency(exchangeRate.getTargetCurrencyCode())
+                            .rate(exchangeRate.getRate())
+                            .buyRate(exchangeRate.getBuyRate() != null ? exchangeRate.getBuyRate() : exchangeRate.getRate())
+                            .sellRate(exchangeRate.getSellRate() != null ? exchangeRate.getSellRate() : exchangeRate.getRate())
+                            .lastUpdated(exchangeRate.getLastUpdated())
+                            .stale(cached.stale())
+                            .rateAgeMillis(RateStalenessPolicy.ageMillis(exchangeRate.getLastUpdated(), LocalDateTime.now()))
+                            .build());
+                });
+    }
+
+    /**
+     * Rechaza la respuesta si la tasa supera la antigüedad máxima del par.
+     */
+    private Mono<ExchangeRateResponse> withinMaxAge(ExchangeRateResponse response) {
+        if (rateStalenessPolicy.exceeds(response.getSourceCurrency(), response.getTargetCurrency(), response.getRateAgeMillis())) {
+            return Mono.error(staleRate(response.getSourceCurrency(), response.getTargetCurrency(), response.getRateAgeMillis()));
+        }
+        return Mono.just(response);
+    }
+
+    /**
+     * Construye la respuesta de tasa de cambio a partir de una celda de la matriz.
+     */
+    private ExchangeRateResponse toExchangeRateResponse(RateMatrixSnapshot snapshot, int source, int target) {
+        BigDecimal rate = snapshot.rate(source, target);
+        BigDecimal buyRate = snapshot.buyRate(source, target);
+        BigDecimal sellRate = snapshot.sellRate(source, target);
+        return ExchangeRateResponse.builder()
+                .sourceCurrency(snapshot.code(source))
+                .targetCurrency(snapshot.code(target))
+                .rate(rate)
+                .buyRate(buyRate != null ? buyRate : rate)
+                .sellRate(sellRate != null ? sellRate : rate)
+                .lastUpdated(snapshot.lastUpdated(source, target))
+                .rateVersion(snapshot.version())
+                .stale(false)
+                .rateAgeMillis(RateStalenessPolicy.ageMillis(snapshot.lastUpdated(source, target), LocalDateTime.now()))
+                .build();
     }
 
     /**
@@ -194,38 +443,131 @@ public class CurrencyExchangeServiceImpl implements CurrencyExchangeService {
         log.info("Consultando historial de conversiones con filtros: sourceCurrency={}, targetCurrency={}, startDate={}, endDate={}",
                 sourceCurrency, targetCurrency, startDate, endDate);
 
-        Flux<ConversionHistory> historyFlux;
-
-        // Aplicar filtros según los parámetros proporcionados
-        if (sourceCurrency != null && targetCurrency != null) {
-            // Filtrar por moneda origen y destino
-            historyFlux = conversionHistoryRepository.findAll()
-                    .filter(h -> h.getSourceCurrencyCode().equals(sourceCurrency) &&
-                                h.getTargetCurrencyCode().equals(targetCurrency));
-        } else if (sourceCurrency != null) {
-            // Filtrar solo por moneda origen
-            historyFlux = conversionHistoryRepository.findBySourceCurrencyCode(sourceCurrency);
-        } else if (targetCurrency != null) {
-            // Filtrar solo por moneda destino
-            historyFlux = conversionHistoryRepository.findByTargetCurrencyCode(targetCurrency);
-        } else {
-            // Sin filtro de moneda
-            historyFlux = conversionHistoryRepository.findAll();
-        }
+        // Todos los filtros se aplican en una sola consulta SQL, combinada con los segmentos archivados del rango
+        return Flux.mergeComparing(HistoryArchive.NEWEST_FIRST,
+                        conversionHistoryRepository.findByFilters(sourceCurrency, targetCurrency, startDate, endDate),
+                        historyArchive.find(sourceCurrency, targetCurrency, null, startDate, endDate, null, null))
+                .map(this::toHistoryResponse);
+    }
 
-        // Aplicar filtros de fecha si se proporcionan
-        if (startDate != null && endDate != null) {
-            historyFlux = historyFlux.filter(h ->
-                    !h.getConversionDate().isBefore(startDate) &&
-                    !h.getConversionDate().isAfter(endDate));
-        } else if (startDate != null) {
-            historyFlux = historyFlux.filter(h -> !h.getConversionDate().isBefore(startDate));
-        } else if (endDate != null) {
-            historyFlux = historyFlux.filter(h -> !h.getConversionDate().isAfter(endDate));
-        }
+    /**
+     * Obtiene una página del historial de conversiones con filtros opcionales, de la conversión más
+     * reciente a la más antigua. Cada página es un recorrido de rango del índice a partir de la posición
+     * del cursor, por lo que las páginas profundas cuestan lo mismo que la primera. Las solicitudes
+     * idénticas concurrentes comparten una sola consulta (ver {@link SingleFlight}).
+     *
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @param cursor Token de continuación de la página anterior, o {@code null} para la primera página
+     * @param size Tamaño de página; por defecto {@value #DEFAULT_HISTORY_PAGE_SIZE}, como máximo {@value #MAX_HISTORY_PAGE_SIZE}
+     * @return Página de conversiones y token de la página siguiente
+     */
+    @Override
+    public Mono<ConversionHistoryPage> getConversionHistoryPage(
+            String sourceCurrency,
+            String targetCurrency,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            String cursor,
+            Integer size) {
+
+        log.info("Consultando página del historial de conversiones: sourceCurrency={}, targetCurrency={}, startDate={}, endDate={}, size={}",
+                sourceCurrency, targetCurrency, startDate, endDate, size);
+
+        return Mono.defer(() -> {
+            int pageSize = size == null ? DEFAULT_HISTORY_PAGE_SIZE : Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+            HistoryCursor after = cursor != null ? HistoryCursor.decode(cursor) : null;
+            HistoryQuery query = new HistoryQuery(sourceCurrency, targetCurrency, null, startDate, endDate, after, pageSize);
+            return historyQueries.execute(query, () -> findHistoryPage(query));
+        });
+    }
+
+    /**
+     * Obtiene el historial de conversiones de un usuario, de la más reciente a la más antigua.
+     * La consulta usa el índice {@code (user_id, conversion_date, id)} y se combina con los segmentos
+     * archivados del rango.
+     *
+     * @param userId Usuario que realizó las conversiones
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @return Flujo de conversiones del usuario
+     */
+    @Override
+    public Flux<ConversionHistoryResponse> getUserConversionHistory(String userId, LocalDateTime startDate, LocalDateTime endDate) {
+        log.info("Consultando historial de conversiones del usuario {}: startDate={}, endDate={}", userId, startDate, endDate);
+
+        return Flux.mergeComparing(HistoryArchive.NEWEST_FIRST,
+                        conversionHistoryRepository.findByUser(userId, startDate, endDate),
+                        historyArchive.find(null, null, userId, startDate, endDate, null, null))
+                .map(this::toHistoryResponse);
+    }
+
+    /**
+     * Obtiene una página del historial de conversiones de un usuario, con la misma paginación por clave
+     * que {@link #getConversionHistoryPage}.
+     *
+     * @param userId Usuario que realizó las conversiones
+     * @param startDate Filtro opcional por fecha de inicio
+     * @param endDate Filtro opcional por fecha de fin
+     * @param cursor Token de continuación de la página anterior, o {@code null} para la primera página
+     * @param size Tamaño de página; por defecto {@value #DEFAULT_HISTORY_PAGE_SIZE}, como máximo {@value #MAX_HISTORY_PAGE_SIZE}
+     * @return Página de conversiones del usuario y token de la página siguiente
+     */
+    @Override
+    public Mono<ConversionHistoryPage> getUserConversionHistoryPage(
+            String userId,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            String cursor,
+            Integer size) {
+
+        log.info("Consultando página del historial del usuario {}: startDate={}, endDate={}, size={}",
+                userId, startDate, endDate, size);
 
-        // Convertir entidades a DTOs
-        return historyFlux.map(history -> ConversionHistoryResponse.builder()
+        return Mono.defer(() -> {
+            int pageSize = size == null ? DEFAULT_HISTORY_PAGE_SIZE : Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+            HistoryCursor after = cursor != null ? HistoryCursor.decode(cursor) : null;
+            HistoryQuery query = new HistoryQuery(null, null, userId, startDate, endDate, after, pageSize);
+            return historyQueries.execute(query, () -> findHistoryPage(query));
+        });
+    }
+
+    /**
+     * Consulta una página del historial, combinando las filas vivas con las archivadas. Se pide un
+     * registro más que el tamaño de página para saber si existe una página siguiente.
+     */
+    private Mono<ConversionHistoryPage> findHistoryPage(HistoryQuery query) {
+        HistoryCursor after = query.after();
+        LocalDateTime afterDate = after != null ? after.conversionDate() : null;
+        Long afterId = after != null ? after.id() : null;
+        Flux<ConversionHistory> live = query.userId() != null
+                ? conversionHistoryRepository.findUserPage(query.userId(), query.startDate(), query.endDate(),
+                        afterDate, afterId, query.size() + 1)
+                : conversionHistoryRepository.findPage(query.sourceCurrency(), query.targetCurrency(),
+                        query.startDate(), query.endDate(), afterDate, afterId, query.size() + 1);
+        return Flux.mergeComparing(HistoryArchive.NEWEST_FIRST, live,
+                        historyArchive.find(query.sourceCurrency(), query.targetCurrency(), query.userId(),
+                                query.startDate(), query.endDate(), afterDate, afterId))
+                .take(query.size() + 1)
+                .collectList()
+                .map(rows -> {
+                    boolean hasMore = rows.size() > query.size();
+                    List<ConversionHistory> page = hasMore ? rows.subList(0, query.size()) : rows;
+                    ConversionHistory last = page.isEmpty() ? null : page.get(page.size() - 1);
+                    return ConversionHistoryPage.builder()
+                            .items(page.stream().map(this::toHistoryResponse).toList())
+                            .nextCursor(hasMore ? new HistoryCursor(last.getConversionDate(), last.getId()).encode() : null)
+                            .build();
+                });
+    }
+
+    /**
+     * Convierte un registro del historial en su DTO de respuesta.
+     */
+    private ConversionHistoryResponse toHistoryResponse(ConversionHistory history) {
+        return ConversionHistoryResponse.builder()
                 .id(history.getId())
                 .sourceCurrency(history.getSourceCurrencyCode())
                 .targetCurrency(history.getTargetCurrencyCode())
@@ -233,6 +575,8 @@ public class CurrencyExchangeServiceImpl implements CurrencyExchangeService {
                 .convertedAmount(history.getConvertedAmount())
                 .exchangeRate(history.getExchangeRate())
                 .conversionDate(history.getConversionDate())
-                .build());
+                .ipAddress(history.getIpAddress())
+                .userId(history.getUserId())
+                .build();
     }
 }
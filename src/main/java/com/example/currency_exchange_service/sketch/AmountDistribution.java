@@ -0,0 +1,18 @@
+package com.example.currency_exchange_service.sketch;
+
+import com.example.currency_exchange_service.rollup.RollupKey;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Distribución estimada de las conversiones de un par en una o varias ventanas consecutivas: percentiles
+ * y extremos del monto original, y número aproximado de usuarios e IPs distintos.
+ *
+ * @param key Granularidad, par e inicio de la primera ventana
+ * @param bucketEnd Fin (exclusivo) de la última ventana
+ */
+public record AmountDistribution(RollupKey key, LocalDateTime bucketEnd, long count, BigDecimal p50, BigDecimal p95,
+                                 BigDecimal p99, BigDecimal min, BigDecimal max, long distinctUsers,
+                                 long distinctIpAddresses) {
+}
@@ -0,0 +1,318 @@
+package com.example.currency_exchange_service.sketch;
+
+import com.example.currency_exchange_service.history.ConversionRecordListener;
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.rollup.RollupGranularity;
+import com.example.currency_exchange_service.rollup.RollupKey;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Distribución de las conversiones por par de monedas y ventana de tiempo (minuto, hora y día), mantenida
+ * con sketches combinables a medida que se guarda el historial: percentiles del monto original
+ * ({@link QuantileSketch}, error relativo del 1 %) y usuarios e IPs distintos ({@link HyperLogLog}).
+ * <p>
+ * Cada granularidad conserva solo sus últimas {@code currency.sketch.retention.*} ventanas; al abrirse
+ * una nueva se descarta la más antigua, y las conversiones anteriores a las ventanas conservadas se
+ * ignoran, por lo que la memoria queda acotada por el número de pares. Las consultas combinan copias de
+ * los sketches sin leer {@code conversion_history}. Cada {@code currency.sketch.snapshot-interval}, si
+ * hubo cambios, los sketches se guardan en {@code currency.sketch.snapshot-file} con un renombrado
+ * atómico, y se cargan al iniciar.
+ */
+@Component
+@Slf4j
+public class ConversionSketches implements ConversionRecordListener {
+
+    private static final int MAGIC = 0x43534b31; // "CSK1"
+    private static final int VERSION = 1;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::bucket)
+            .thenComparing(RollupKey::sourceCurrency)
+            .thenComparing(RollupKey::targetCurrency);
+
+    private final Map<RollupGranularity, Integer> retention = new EnumMap<>(RollupGranularity.class);
+    private final Path snapshotFile;
+    private final Duration snapshotInterval;
+    private final Map<RollupKey, WindowSketch> windows = new ConcurrentHashMap<>();
+    // Ventanas conservadas de cada granularidad, de la más antigua a la más reciente
+    private final Map<RollupGranularity, NavigableSet<LocalDateTime>> buckets = new EnumMap<>(RollupGranularity.class);
+    private volatile boolean changed;
+    private Disposable snapshotLoop;
+
+    public ConversionSketches(
+            @Value("${currency.sketch.retention.minutes:60}") int minuteWindows,
+            @Value("${currency.sketch.retention.hours:48}") int hourWindows,
+            @Value("${currency.sketch.retention.days:30}") int dayWindows,
+            @Value("${currency.sketch.snapshot-file:data/conversion-sketches.bin}") Path snapshotFile,
+            @Value("${currency.sketch.snapshot-interval:1m}") Duration snapshotInterval) {
+        this.retention.put(RollupGranularity.MINUTE, minuteWindows);
+        this.retention.put(RollupGranularity.HOUR, hourWindows);
+        this.retention.put(RollupGranularity.DAY, dayWindows);
+        this.snapshotFile = snapshotFile;
+        this.snapshotInterval = snapshotInterval;
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            buckets.put(granularity, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    /**
+     * Al iniciar, carga la última instantánea guardada e inicia el guardado periódico.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        snapshotLoop = Mono.fromCallable(this::load)
+                .subscribeOn(Schedulers.boundedElastic())
+                .filter(loaded -> loaded > 0)
+                .doOnNext(loaded -> log.info("Cargadas {} ventanas de sketches de conversiones desde {}", loaded, snapshotFile))
+                .onErrorResume(error -> {
+                    log.error("No se pudo cargar la instantánea de sketches de conversiones {}", snapshotFile, error);
+                    return Mono.empty();
+                })
+                .thenMany(Flux.interval(snapshotInterval))
+                .onBackpressureDrop()
+                .concatMap(tick -> save(), 1)
+                .subscribe();
+    }
+
+    /**
+     * Detiene el guardado periódico y guarda los sketches.
+     */
+    @PreDestroy
+    public void stop() {
+        if (snapshotLoop != null) {
+            snapshotLoop.dispose();
+        }
+        save().block(Duration.ofSeconds(30));
+    }
+
+    @Override
+    public synchronized void onRecorded(List<ConversionHistory> histories) {
+        for (ConversionHistory history : histories) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                LocalDateTime bucket = granularity.bucket(history.getConversionDate());
+                if (retain(granularity, bucket)) {
+                    windows.computeIfAbsent(new RollupKey(granularity, history.getSourceCurrencyCode(),
+                            history.getTargetCurrencyCode(), bucket), key -> new WindowSketch()).add(history);
+                }
+            }
+        }
+        changed = true;
+    }
+
+    /**
+     * Busca la distribución de las conversiones en las ventanas conservadas de una granularidad, ordenada
+     * por ventana y par. Las ventanas sin conversiones no se incluyen.
+     *
+     * @param granularity Granularidad de las ventanas
+     * @param sourceCurrency Filtro opcional por moneda origen
+     * @param targetCurrency Filtro opcional por moneda destino
+     * @param startDate Filtro opcional: se incluye la ventana que contiene esta fecha
+     * @param endDate Filtro opcional: se incluye la ventana que contiene esta fecha
+     * @param combined Si es {@code true}, combina las ventanas del rango en una sola distribución por par
+     * @return Flujo de distribuciones
+     */
+    public Flux<AmountDistribution> query(RollupGranularity granularity, String sourceCurrency, String targetCurrency,
+                                          LocalDateTime startDate, LocalDateTime endDate, boolean combined) {
+        return Flux.defer(() -> {
+            LocalDateTime startBucket = startDate != null ? granularity.bucket(startDate) : null;
+            LocalDateTime endBucket = endDate != null ? granularity.bucket(endDate) : null;
+            List<RollupKey> keys = new ArrayList<>();
+            windows.keySet().forEach(key -> {
+                if (key.granularity() == granularity
+                        && (sourceCurrency == null || sourceCurrency.equals(key.sourceCurrency()))
+                        && (targetCurrency == null || targetCurrency.equals(key.targetCurrency()))
+                        && (startBucket == null || !key.bucket().isBefore(startBucket))
+                        && (endBucket == null || !key.bucket().isAfter(endBucket))) {
+                    keys.add(key);
+                }
+            });
+            keys.sort(KEY_ORDER);
+
+            List<AmountDistribution> result = new ArrayList<>();
+            if (!combined) {
+                for (RollupKey key : keys) {
+                    WindowSketch window = windows.get(key);
+                    if (window != null) {
+                        result.add(distribution(key, granularity.next(key.bucket()), window.copy()));
+                    }
+                }
+                return Flux.fromIterable(result);
+            }
+
+            // Primera clave de cada par, para el inicio de la distribución combinada
+            Map<String, RollupKey> firstKeys = new LinkedHashMap<>();
+            Map<String, LocalDateTime> lastBuckets = new LinkedHashMap<>();
+            Map<String, WindowSketch> merged = new LinkedHashMap<>();
+            for (RollupKey key : keys) {
+                WindowSketch window = windows.get(key);
+                if (window != null) {
+                    String pair = key.sourceCurrency() + "_" + key.targetCurrency();
+                    firstKeys.putIfAbsent(pair, key);
+                    lastBuckets.put(pair, key.bucket());
+                    merged.computeIfAbsent(pair, p -> new WindowSketch()).merge(window);
+                }
+            }
+            merged.forEach((pair, window) -> result.add(
+                    distribution(firstKeys.get(pair), granularity.next(lastBuckets.get(pair)), window)));
+            result.sort(Comparator.comparing(AmountDistribution::key, Comparator
+                    .comparing(RollupKey::sourceCurrency)
+                    .thenComparing(RollupKey::targetCurrency)));
+            return Flux.fromIterable(result);
+        });
+    }
+
+    /**
+     * Guarda los sketches en la instantánea si cambiaron desde el último guardado.
+     */
+    Mono<Void> save() {
+        return Mono.fromRunnable(() -> {
+                    if (!changed) {
+                        return;
+                    }
+                    changed = false;
+                    try {
+                        int saved = writeSnapshot();
+                        log.debug("Guardadas {} ventanas de sketches de conversiones en {}", saved, snapshotFile);
+                    } catch (IOException e) {
+                        changed = true;
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(error -> {
+                    log.error("No se pudo guardar la instantánea de sketches de conversiones {}", snapshotFile, error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Lee la instantánea, si existe, y combina sus ventanas con las registradas desde el arranque.
+     *
+     * @return Número de ventanas leídas
+     */
+    synchronized int load() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(snapshotFile), 64 * 1024)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Formato de instantánea de sketches no reconocido");
+            }
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                RollupGranularity granularity = RollupGranularity.values()[in.readByte()];
+                String sourceCurrency = in.readUTF();
+                String targetCurrency = in.readUTF();
+                LocalDateTime bucket = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+                WindowSketch window = WindowSketch.readFrom(in);
+                if (retain(granularity, bucket)) {
+                    windows.computeIfAbsent(new RollupKey(granularity, sourceCurrency, targetCurrency, bucket),
+                            key -> new WindowSketch()).merge(window);
+                }
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Escribe todas las ventanas en un archivo temporal y lo renombra sobre la instantánea anterior.
+     *
+     * @return Número de ventanas guardadas
+     */
+    private int writeSnapshot() throws IOException {
+        Map<RollupKey, WindowSketch> copies = new LinkedHashMap<>();
+        windows.forEach((key, window) -> copies.put(key, window.copy()));
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + TEMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(copies.size());
+            for (Map.Entry<RollupKey, WindowSketch> entry : copies.entrySet()) {
+                RollupKey key = entry.getKey();
+                out.writeByte(key.granularity().ordinal());
+                out.writeUTF(key.sourceCurrency());
+                out.writeUTF(key.targetCurrency());
+                out.writeLong(key.bucket().toEpochSecond(ZoneOffset.UTC));
+                entry.getValue().writeTo(out);
+            }
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return copies.size();
+    }
+
+    /**
+     * Registra la ventana entre las conservadas de su granularidad, descartando la más antigua si se
+     * supera la retención.
+     *
+     * @return {@code false} si la ventana es anterior a todas las conservadas y ya no hay lugar para ella
+     */
+    private boolean retain(RollupGranularity granularity, LocalDateTime bucket) {
+        NavigableSet<LocalDateTime> retained = buckets.get(granularity);
+        if (retained.contains(bucket)) {
+            return true;
+        }
+        int limit = retention.get(granularity);
+        if (limit <= 0 || (retained.size() >= limit && bucket.isBefore(retained.first()))) {
+            return false;
+        }
+        retained.add(bucket);
+        while (retained.size() > limit) {
+            LocalDateTime evicted = retained.pollFirst();
+            windows.keySet().removeIf(key -> key.granularity() == granularity && key.bucket().equals(evicted));
+        }
+        return true;
+    }
+
+    private static AmountDistribution distribution(RollupKey key, LocalDateTime bucketEnd, WindowSketch window) {
+        QuantileSketch amounts = window.amounts();
+        return new AmountDistribution(key, bucketEnd, amounts.count(),
+                amount(amounts.quantile(0.50)), amount(amounts.quantile(0.95)), amount(amounts.quantile(0.99)),
+                amount(amounts.min()), amount(amounts.max()),
+                window.users().estimate(), window.ipAddresses().estimate());
+    }
+
+    private static BigDecimal amount(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
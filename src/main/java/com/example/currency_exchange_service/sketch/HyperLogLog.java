@@ -0,0 +1,95 @@
+package com.example.currency_exchange_service.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Contador aproximado de valores distintos (HyperLogLog) en memoria fija: {@code 2^}{@value #PRECISION}
+ * registros de un byte, con un error estándar de alrededor de {@code 1.04 / sqrt(2^p)} (2,3 %). Para
+ * cardinalidades bajas se usa el conteo lineal de registros vacíos, que es casi exacto. Dos contadores
+ * se combinan con el máximo de cada registro. No es seguro para uso concurrente.
+ */
+final class HyperLogLog {
+
+    static final int PRECISION = 11;
+
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final int MAX_RANK = Long.SIZE - PRECISION + 1;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    /**
+     * Agrega un valor; los valores {@code null} se ignoran.
+     */
+    void add(String value) {
+        if (value == null) {
+            return;
+        }
+        long hash = hash(value);
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION) + 1, MAX_RANK);
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * Combina los registros de otro contador con los de este.
+     */
+    void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Número estimado de valores distintos agregados.
+     */
+    long estimate() {
+        double sum = 0;
+        int empty = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                empty++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && empty > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / empty);
+        }
+        return Math.round(estimate);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.write(registers);
+    }
+
+    static HyperLogLog readFrom(DataInput in) throws IOException {
+        HyperLogLog counter = new HyperLogLog();
+        in.readFully(counter.registers);
+        return counter;
+    }
+
+    /**
+     * Hash de 64 bits: FNV-1a sobre los caracteres seguido de la mezcla final de MurmurHash3, para que
+     * los bits altos (el registro) y los bajos (el rango) queden bien distribuidos.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53a7a63L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.currency_exchange_service.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Sketch de cuantiles con error relativo acotado, al estilo de DDSketch.
+ * <p>
+ * Cada valor positivo se cuenta en el intervalo logarítmico {@code (γ^(i-1), γ^i]} con
+ * {@code γ = (1 + α) / (1 - α)}, y el cuantil se estima con el punto medio del intervalo, por lo que el
+ * error relativo es como máximo {@code α} ({@value #RELATIVE_ACCURACY}). Los contadores forman un arreglo
+ * denso que solo cubre los intervalos entre el menor y el mayor valor observados, con un máximo de
+ * {@value #MAX_BINS}; si se supera, los intervalos más bajos se combinan. Dos sketches se combinan sumando
+ * sus contadores, con el mismo resultado que si se hubieran agregado todos los valores a uno solo.
+ * No es seguro para uso concurrente.
+ */
+final class QuantileSketch {
+
+    static final double RELATIVE_ACCURACY = 0.01;
+    static final int MAX_BINS = 2048;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    // Índice logarítmico de counts[0]
+    private int offset;
+    private long[] counts = new long[0];
+    // Valores no positivos, que no tienen índice logarítmico
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Agrega un valor.
+     */
+    void add(double value) {
+        if (value > 0) {
+            int index = index(value);
+            int bin = Math.max(index, ensure(index, index)) - offset;
+            counts[bin]++;
+        } else {
+            zeroCount++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Suma los contadores de otro sketch a este.
+     */
+    void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (other.counts.length > 0) {
+            int low = ensure(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[Math.max(other.offset + i, low) - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Estimación del cuantil {@code q}, limitada al rango de valores observados.
+     *
+     * @param q Cuantil entre 0 y 1
+     * @return Valor estimado, o {@code NaN} si el sketch está vacío
+     */
+    double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = q * (count - 1);
+        long cumulative = zeroCount;
+        if (cumulative > rank) {
+            return min;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative > rank) {
+                return Math.max(min, Math.min(max, value(offset + i)));
+            }
+        }
+        return max;
+    }
+
+    long count() {
+        return count;
+    }
+
+    double min() {
+        return min;
+    }
+
+    double max() {
+        return max;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(zeroCount);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(offset);
+        out.writeInt(counts.length);
+        for (long binCount : counts) {
+            out.writeLong(binCount);
+        }
+    }
+
+    static QuantileSketch readFrom(DataInput in) throws IOException {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.count = in.readLong();
+        sketch.zeroCount = in.readLong();
+        sketch.min = in.readDouble();
+        sketch.max = in.readDouble();
+        sketch.offset = in.readInt();
+        int bins = in.readInt();
+        if (bins < 0 || bins > MAX_BINS) {
+            throw new IOException("Número de intervalos no válido: " + bins);
+        }
+        sketch.counts = new long[bins];
+        for (int i = 0; i < bins; i++) {
+            sketch.counts[i] = in.readLong();
+        }
+        return sketch;
+    }
+
+    /**
+     * Amplía el arreglo para cubrir los índices {@code [low, high]}. Si el rango resultante supera
+     * {@value #MAX_BINS} intervalos, los más bajos se combinan en el primero que se conserva.
+     *
+     * @return Menor índice cubierto; los índices menores deben contarse en él
+     */
+    private int ensure(int low, int high) {
+        if (counts.length > 0) {
+            if (low >= offset && high < offset + counts.length) {
+                return offset;
+            }
+            low = Math.min(low, offset);
+            high = Math.max(high, offset + counts.length - 1);
+        }
+        int newOffset = Math.max(low, high - MAX_BINS + 1);
+        long[] resized = new long[high - newOffset + 1];
+        for (int i = 0; i < counts.length; i++) {
+            resized[Math.max(offset + i, newOffset) - newOffset] += counts[i];
+        }
+        counts = resized;
+        offset = newOffset;
+        return offset;
+    }
+
+    private static int index(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.currency_exchange_service.sketch;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Sketches de un par de monedas en una ventana de tiempo: cuantiles del monto original y usuarios e IPs
+ * distintos. Los métodos están sincronizados: las conversiones se agregan desde el ciclo de vaciado del
+ * historial mientras las consultas y las instantáneas leen copias.
+ */
+final class WindowSketch {
+
+    private final QuantileSketch amounts;
+    private final HyperLogLog users;
+    private final HyperLogLog ipAddresses;
+
+    WindowSketch() {
+        this(new QuantileSketch(), new HyperLogLog(), new HyperLogLog());
+    }
+
+    private WindowSketch(QuantileSketch amounts, HyperLogLog users, HyperLogLog ipAddresses) {
+        this.amounts = amounts;
+        this.users = users;
+        this.ipAddresses = ipAddresses;
+    }
+
+    synchronized void add(ConversionHistory history) {
+        amounts.add(history.getOriginalAmount().doubleValue());
+        users.add(history.getUserId());
+        ipAddresses.add(history.getIpAddress());
+    }
+
+    /**
+     * Combina otra ventana con esta.
+     */
+    void merge(WindowSketch other) {
+        WindowSketch copy = other.copy();
+        synchronized (this) {
+            amounts.merge(copy.amounts);
+            users.merge(copy.users);
+            ipAddresses.merge(copy.ipAddresses);
+        }
+    }
+
+    /**
+     * Copia independiente, para leerla o combinarla sin bloquear las conversiones.
+     */
+    synchronized WindowSketch copy() {
+        WindowSketch copy = new WindowSketch();
+        copy.amounts.merge(amounts);
+        copy.users.merge(users);
+        copy.ipAddresses.merge(ipAddresses);
+        return copy;
+    }
+
+    QuantileSketch amounts() {
+        return amounts;
+    }
+
+    HyperLogLog users() {
+        return users;
+    }
+
+    HyperLogLog ipAddresses() {
+        return ipAddresses;
+    }
+
+    synchronized void writeTo(DataOutput out) throws IOException {
+        amounts.writeTo(out);
+        users.writeTo(out);
+        ipAddresses.writeTo(out);
+    }
+
+    static WindowSketch readFrom(DataInput in) throws IOException {
+        return new WindowSketch(QuantileSketch.readFrom(in), HyperLogLog.readFrom(in), HyperLogLog.readFrom(in));
+    }
+}
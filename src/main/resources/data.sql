@@ -64,3 +64,13 @@ VALUES (17, 'USD', 'MXN', 16.76, CURRENT_TIMESTAMP());
 
 MERGE INTO exchange_rates (id, source_currency_code, target_currency_code, rate, last_updated)
 VALUES (18, 'MXN', 'USD', 0.060, CURRENT_TIMESTAMP());
+
+-- Las tasas insertadas sin id (importación masiva) continúan tras los ids sembrados
+ALTER TABLE exchange_rates ALTER COLUMN id RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM exchange_rates);
+
+-- Primera versión de las tasas de los pares sin historial
+INSERT INTO exchange_rate_history (source_currency_code, target_currency_code, valid_from, rate, buy_rate, sell_rate)
+SELECT r.source_currency_code, r.target_currency_code, r.last_updated, r.rate, r.buy_rate, r.sell_rate
+FROM exchange_rates r
+WHERE NOT EXISTS (SELECT 1 FROM exchange_rate_history h
+                  WHERE h.source_currency_code = r.source_currency_code AND h.target_currency_code = r.target_currency_code);
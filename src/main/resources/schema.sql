@@ -15,6 +15,17 @@ CREATE TABLE IF NOT EXISTS exchange_rates (
     CONSTRAINT unique_currency_pair UNIQUE (source_currency_code, target_currency_code)
 );
 
+-- Versiones de las tasas de cada par: exchange_rates solo guarda la vigente
+CREATE TABLE IF NOT EXISTS exchange_rate_history (
+    source_currency_code VARCHAR(3) NOT NULL,
+    target_currency_code VARCHAR(3) NOT NULL,
+    valid_from TIMESTAMP NOT NULL,
+    rate DECIMAL(19, 6) NOT NULL,
+    buy_rate DECIMAL(19, 6),
+    sell_rate DECIMAL(19, 6),
+    PRIMARY KEY (source_currency_code, target_currency_code, valid_from)
+);
+
 CREATE TABLE IF NOT EXISTS conversion_history (
     id IDENTITY PRIMARY KEY,
     source_currency_code VARCHAR(3) NOT NULL,
@@ -27,6 +38,18 @@ CREATE TABLE IF NOT EXISTS conversion_history (
     user_id VARCHAR(50)
 );
 
+-- Filtros del historial: par de monedas (o solo origen) con rango de fechas, y solo rango de fechas.
+-- El id final da el orden estable (conversion_date, id) de la paginación por clave.
+CREATE INDEX IF NOT EXISTS idx_conversion_history_pair_date
+    ON conversion_history (source_currency_code, target_currency_code, conversion_date, id);
+CREATE INDEX IF NOT EXISTS idx_conversion_history_target_date
+    ON conversion_history (target_currency_code, conversion_date, id);
+CREATE INDEX IF NOT EXISTS idx_conversion_history_date
+    ON conversion_history (conversion_date, id);
+-- Historial por usuario (atención al cliente)
+CREATE INDEX IF NOT EXISTS idx_conversion_history_user_date
+    ON conversion_history (user_id, conversion_date, id);
+
 CREATE TABLE IF NOT EXISTS users (
     id IDENTITY PRIMARY KEY,
     username VARCHAR(50) NOT NULL UNIQUE,
@@ -35,3 +58,21 @@ CREATE TABLE IF NOT EXISTS users (
     role VARCHAR(20) NOT NULL,
     enabled BOOLEAN NOT NULL
 );
+
+-- Agregados de volumen de conversiones por granularidad (MINUTE, HOUR, DAY), par de monedas e intervalo
+CREATE TABLE IF NOT EXISTS conversion_rollups (
+    granularity VARCHAR(6) NOT NULL,
+    source_currency_code VARCHAR(3) NOT NULL,
+    target_currency_code VARCHAR(3) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    conversion_count BIGINT NOT NULL,
+    original_sum DECIMAL(38, 6) NOT NULL,
+    converted_sum DECIMAL(38, 6) NOT NULL,
+    original_min DECIMAL(19, 6),
+    original_max DECIMAL(19, 6),
+    PRIMARY KEY (granularity, source_currency_code, target_currency_code, bucket_start)
+);
+
+-- Consultas de agregados de todos los pares en un rango de intervalos
+CREATE INDEX IF NOT EXISTS idx_conversion_rollups_bucket
+    ON conversion_rollups (granularity, bucket_start);
@@ -0,0 +1,50 @@
+package com.example.currency_exchange_service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Pruebas unitarias para el índice de códigos de moneda.
+ */
+class CurrencyIndexTest {
+
+    /**
+     * Prueba que actualizar el índice con las mismas monedas, o retirar monedas que no están indexadas,
+     * devuelve la misma instancia.
+     */
+    @Test
+    void withCodes_UnchangedSetReturnsSameIndex() {
+        // Dado
+        CurrencyIndex index = CurrencyIndex.of(List.of("USD", "EUR", "PEN"));
+
+        // Entonces
+        assertSame(index, index.withCodes(List.of("EUR", "USD", "PEN", "invalid")));
+        assertSame(index, index.without(List.of("GBP", "invalid")));
+    }
+
+    /**
+     * Prueba que una moneda retirada que vuelve recupera su identificador en lugar de recibir uno nuevo.
+     */
+    @Test
+    void withCodes_ReturningCodeReusesItsId() {
+        // Dado
+        CurrencyIndex index = CurrencyIndex.of(List.of("USD", "EUR", "PEN"));
+        CurrencyIndex retired = index.without(List.of("EUR"));
+
+        // Cuando
+        CurrencyIndex restored = retired.withCodes(List.of("USD", "EUR", "PEN", "GBP"));
+
+        // Entonces
+        assertFalse(retired.contains("EUR"));
+        assertEquals(-1, retired.id("EUR"));
+        assertEquals(1, restored.id("EUR"));
+        assertEquals(3, restored.id("GBP"));
+        assertEquals(4, restored.size());
+        assertEquals("EUR", restored.code(1));
+    }
+}
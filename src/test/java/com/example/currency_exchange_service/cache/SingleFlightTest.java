@@ -0,0 +1,101 @@
+package com.example.currency_exchange_service.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pruebas unitarias para la coalescencia de solicitudes concurrentes.
+ */
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>("prueba", Duration.ofSeconds(5));
+
+    /**
+     * Prueba que las solicitudes concurrentes de una misma clave comparten una sola carga
+     * y que la clave se libera al terminar.
+     */
+    @Test
+    void execute_ConcurrentCallsShareOneLoad() {
+        // Dado
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<String> result = Sinks.one();
+        Mono<String> first = singleFlight.execute("USD_EUR", () -> {
+            loads.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<String> second = singleFlight.execute("USD_EUR", () -> {
+            loads.incrementAndGet();
+            return result.asMono();
+        });
+
+        // Cuando
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> result.tryEmitValue("0.93"))
+                .assertNext(tuple -> {
+                    assertEquals("0.93", tuple.getT1());
+                    assertEquals("0.93", tuple.getT2());
+                })
+                .verifyComplete();
+
+        // Entonces
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    /**
+     * Prueba que el error de la carga se propaga a todos los suscriptores y que una solicitud
+     * posterior inicia una carga nueva.
+     */
+    @Test
+    void execute_ErrorPropagatesAndKeyIsReleased() {
+        // Dado
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<String> result = Sinks.one();
+        Mono<String> first = singleFlight.execute("USD_EUR", () -> {
+            loads.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<String> second = singleFlight.execute("USD_EUR", () -> {
+            loads.incrementAndGet();
+            return result.asMono();
+        });
+
+        // Cuando
+        StepVerifier.create(Mono.zipDelayError(first.onErrorReturn("error"), second.onErrorReturn("error")))
+                .then(() -> result.tryEmitError(new IllegalStateException("fallo")))
+                .assertNext(tuple -> {
+                    assertEquals("error", tuple.getT1());
+                    assertEquals("error", tuple.getT2());
+                })
+                .verifyComplete();
+
+        // Entonces
+        StepVerifier.create(singleFlight.execute("USD_EUR", () -> {
+                    loads.incrementAndGet();
+                    return Mono.just("0.94");
+                }))
+                .expectNext("0.94")
+                .verifyComplete();
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Prueba que una carga que excede su tiempo máximo falla con {@link TimeoutException}.
+     */
+    @Test
+    void execute_TimeoutPerKey() {
+        StepVerifier.withVirtualTime(() -> singleFlight.execute("USD_EUR", Duration.ofMillis(100), Mono::never))
+                .thenAwait(Duration.ofMillis(100))
+                .expectError(TimeoutException.class)
+                .verify();
+        assertEquals(0, singleFlight.inFlight());
+    }
+}
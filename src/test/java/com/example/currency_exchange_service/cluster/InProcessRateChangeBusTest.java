@@ -0,0 +1,130 @@
+package com.example.currency_exchange_service.cluster;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas unitarias para la difusión de cambios de tasas entre instancias de la misma JVM.
+ */
+class InProcessRateChangeBusTest {
+
+    private final List<InProcessRateChangeBus> buses = new ArrayList<>();
+
+    @AfterEach
+    void leaveGroup() {
+        buses.forEach(InProcessRateChangeBus::leave);
+    }
+
+    /**
+     * Prueba que los cambios llegan en orden de versión a las demás instancias del grupo y que una instancia
+     * que se une tarde recibe una instantánea con el último valor de cada par.
+     */
+    @Test
+    void broadcast_DeliversChangesAndReconcilesLateMembers() {
+        // Dado
+        RateChangeJournal journalA = new RateChangeJournal("a");
+        InProcessRateChangeBus busA = bus(journalA, "broadcast");
+        InProcessRateChangeBus busB = bus(new RateChangeJournal("b"), "broadcast");
+        busA.join();
+        busB.join();
+
+        // Cuando
+        busA.broadcast(List.of(rate("USD", "EUR", "0.94")));
+        busA.broadcast(List.of(rate("USD", "EUR", "0.95"), rate("USD", "GBP", "0.80")));
+        InProcessRateChangeBus busC = bus(new RateChangeJournal("c"), "broadcast");
+        busC.join();
+
+        // Entonces
+        StepVerifier.create(busB.received())
+                .expectNextMatches(event -> event.nodeId().equals(journalA.nodeId()) && event.version() == 1 && !event.snapshot())
+                .expectNextMatches(event -> event.version() == 2 && event.exchangeRates().size() == 2)
+                .thenCancel()
+                .verify();
+        StepVerifier.create(busC.received())
+                .expectNextMatches(event -> event.snapshot() && event.version() == 2 && event.exchangeRates().size() == 2
+                        && event.exchangeRates().stream().anyMatch(rate -> rate.getRate().equals(new BigDecimal("0.95"))))
+                .thenCancel()
+                .verify();
+    }
+
+    /**
+     * Prueba que la reconciliación solo incluye los pares modificados después de la versión ya aplicada y
+     * que los eventos ya aplicados se reconocen como duplicados.
+     */
+    @Test
+    void since_OnlyIncludesPairsChangedAfterAppliedVersion() {
+        // Dado
+        RateChangeJournal origin = new RateChangeJournal("a");
+        RateChangeJournal destination = new RateChangeJournal("b");
+        RateChangeEvent first = origin.record(List.of(rate("USD", "EUR", "0.94"), rate("USD", "GBP", "0.80")));
+        origin.record(List.of(rate("USD", "GBP", "0.81")));
+
+        // Cuando
+        boolean appliedFirst = destination.advance(first);
+        RateChangeEvent snapshot = origin.since(destination.applied(origin.nodeId()));
+
+        // Entonces
+        assertTrue(appliedFirst);
+        assertFalse(destination.advance(first));
+        assertEquals(2, snapshot.version());
+        assertEquals(1, snapshot.exchangeRates().size());
+        assertEquals(new BigDecimal("0.81"), snapshot.exchangeRates().get(0).getRate());
+        assertTrue(destination.advance(snapshot));
+        assertNull(origin.since(destination.applied(origin.nodeId())));
+    }
+
+    /**
+     * Prueba que la reconciliación incluye aparte las confirmaciones sin cambios posteriores a la versión ya
+     * aplicada, sin repetir el cambio de valor ya aplicado del par.
+     */
+    @Test
+    void since_IncludesConfirmationsAfterAppliedVersion() {
+        // Dado
+        RateChangeJournal origin = new RateChangeJournal("a");
+        RateChangeJournal destination = new RateChangeJournal("b");
+        LocalDateTime confirmedAt = LocalDateTime.now().plusMinutes(1);
+        ExchangeRate confirmed = rate("USD", "EUR", "0.94");
+        confirmed.setLastUpdated(confirmedAt);
+        destination.advance(origin.record(List.of(rate("USD", "EUR", "0.94"))));
+
+        // Cuando
+        RateChangeEvent live = origin.record(List.of(), List.of(confirmed, rate("USD", "GBP", "0.80")));
+        RateChangeEvent snapshot = origin.since(destination.applied(origin.nodeId()));
+
+        // Entonces
+        assertTrue(live.exchangeRates().isEmpty());
+        assertEquals(2, live.confirmedRates().size());
+        assertEquals(2, snapshot.version());
+        assertTrue(snapshot.exchangeRates().isEmpty());
+        assertEquals(2, snapshot.confirmedRates().size());
+        assertTrue(snapshot.confirmedRates().stream().anyMatch(rate -> rate.getLastUpdated().equals(confirmedAt)));
+        assertEquals(1, origin.since(0).exchangeRates().size());
+    }
+
+    private InProcessRateChangeBus bus(RateChangeJournal journal, String group) {
+        InProcessRateChangeBus bus = new InProcessRateChangeBus(journal, group);
+        buses.add(bus);
+        return bus;
+    }
+
+    private static ExchangeRate rate(String source, String target, String rate) {
+        return ExchangeRate.builder()
+                .sourceCurrencyCode(source)
+                .targetCurrencyCode(target)
+                .rate(new BigDecimal(rate))
+                .lastUpdated(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.currency_exchange_service.cluster;
+
+import com.example.currency_exchange_service.CurrencyExchangeServiceApplication;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.rate.RateMatrix;
+import com.example.currency_exchange_service.rate.RateMatrixSnapshot;
+import com.example.currency_exchange_service.rate.RateUpdater;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de integración de la aplicación de cambios de tasas difundidos entre dos instancias del servicio
+ * en la misma JVM, cada una con su propia base de datos en memoria.
+ */
+class RateChangeReplicatorTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = start("a");
+        nodeB = start("b");
+        // Las matrices se cargan de forma asíncrona al arrancar
+        await(() -> snapshot(nodeA).hasRate(snapshot(nodeA).id("USD"), snapshot(nodeA).id("GBP"))
+                && snapshot(nodeB).hasRate(snapshot(nodeB).id("USD"), snapshot(nodeB).id("GBP")));
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    /**
+     * Prueba que una tasa confirmada sin cambios en una instancia avanza su {@code lastUpdated} en la matriz
+     * de la otra, aunque esta no consulte al proveedor.
+     */
+    @Test
+    void confirm_AdvancesLastUpdatedOnOtherNode() {
+        // Dado
+        RateMatrixSnapshot current = snapshot(nodeA);
+        int usd = current.id("USD");
+        int gbp = current.id("GBP");
+        LocalDateTime confirmedAt = LocalDateTime.now().plusMinutes(1).truncatedTo(ChronoUnit.MILLIS);
+        ExchangeRate confirmed = ExchangeRate.builder()
+                .sourceCurrencyCode("USD")
+                .targetCurrencyCode("GBP")
+                .rate(current.rate(usd, gbp))
+                .buyRate(current.buyRate(usd, gbp))
+                .sellRate(current.sellRate(usd, gbp))
+                .lastUpdated(confirmedAt)
+                .build();
+
+        // Cuando
+        nodeA.getBean(RateUpdater.class).confirm(List.of(confirmed)).block();
+
+        // Entonces
+        await(() -> confirmedAt.equals(snapshot(nodeB).lastUpdated(usd, gbp)));
+        assertEquals(new BigDecimal("0.790000"), snapshot(nodeB).rate(usd, gbp));
+        assertEquals(confirmedAt, snapshot(nodeA).lastUpdated(usd, gbp));
+    }
+
+    private static ConfigurableApplicationContext start(String name) {
+        // Como argumentos de línea de comandos, para que prevalezcan sobre application.properties
+        return new SpringApplicationBuilder(CurrencyExchangeServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///replicator-" + name + ";DB_CLOSE_DELAY=-1",
+                "--currency.cluster.bus=in-process",
+                "--currency.cluster.in-process.group=replicator",
+                "--currency.cluster.node-name=" + name);
+    }
+
+    private static RateMatrixSnapshot snapshot(ConfigurableApplicationContext node) {
+        return node.getBean(RateMatrix.class).current();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(Duration.ofMillis(20).toNanos());
+        }
+        assertTrue(condition.getAsBoolean(), "la condición no se cumplió en 10 segundos");
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.currency_exchange_service.cluster;
+
+import com.example.currency_exchange_service.CurrencyExchangeServiceApplication;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.rate.RateMatrix;
+import com.example.currency_exchange_service.rate.RateMatrixSnapshot;
+import com.example.currency_exchange_service.rate.RateUpdater;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.tcp.TcpClient;
+import reactor.netty.tcp.TcpServer;
+import reactor.test.StepVerifier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de integración de la difusión de cambios de tasas por TCP entre dos instancias del servicio en
+ * localhost, cada una con su propia base de datos en memoria.
+ */
+class TcpRateChangeBusTest {
+
+    private static final String SECRET = "secreto-de-prueba";
+
+    private static int portA;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        portA = freePort();
+        int portB = freePort();
+        nodeA = start("a", portA, portB);
+        nodeB = start("b", portB, portA);
+        // Las matrices se cargan de forma asíncrona al arrancar
+        await(() -> rate(nodeA, "USD", "EUR") != null && rate(nodeB, "USD", "EUR") != null);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    /**
+     * Prueba que una tasa actualizada en una instancia se publica en la matriz de la otra.
+     */
+    @Test
+    void update_ReachesOtherNode() {
+        // Dado
+        RateUpdater rateUpdater = nodeA.getBean(RateUpdater.class);
+
+        // Cuando
+        rateUpdater.update(List.of(rate("USD", "EUR", "0.9512"))).block();
+
+        // Entonces
+        await(() -> new BigDecimal("0.951200").equals(rate(nodeB, "USD", "EUR")));
+        assertEquals(new BigDecimal("0.951200"), rate(nodeA, "USD", "EUR"));
+    }
+
+    /**
+     * Prueba que una instancia desconectada recibe al reconectarse una instantánea con el último valor de
+     * cada par que cambió mientras no estaba conectada.
+     */
+    @Test
+    void reconnect_ReconcilesMissedChanges() throws InterruptedException {
+        // Dado: la instancia B se desconecta
+        TcpRateChangeBus busB = nodeB.getBean(TcpRateChangeBus.class);
+        RateUpdater rateUpdater = nodeA.getBean(RateUpdater.class);
+        busB.stop();
+
+        // Cuando: A cambia dos veces USD_GBP y una vez USD_JPY
+        rateUpdater.update(List.of(rate("USD", "GBP", "0.8001"))).block();
+        rateUpdater.update(List.of(rate("USD", "GBP", "0.8002"), rate("USD", "JPY", "149.5"))).block();
+        Thread.sleep(300);
+        assertEquals(new BigDecimal("0.790000"), rate(nodeB, "USD", "GBP"));
+        busB.start();
+
+        // Entonces
+        await(() -> new BigDecimal("0.800200").equals(rate(nodeB, "USD", "GBP"))
+                && new BigDecimal("149.500000").equals(rate(nodeB, "USD", "JPY")));
+        RateChangeJournal journalA = nodeA.getBean(RateChangeJournal.class);
+        await(() -> nodeB.getBean(RateChangeJournal.class).applied(journalA.nodeId()) == journalA.version());
+    }
+
+    /**
+     * Prueba que una instancia cierra sin responder la conexión de quien se suscribe sin firmar el mensaje.
+     */
+    @Test
+    void subscribe_WithoutSignatureIsRejected() {
+        // Dado
+        List<String> replies = new CopyOnWriteArrayList<>();
+
+        // Cuando
+        Connection connection = TcpClient.create()
+                .host("127.0.0.1")
+                .port(portA)
+                .handle((inbound, outbound) -> outbound
+                        .sendString(Mono.just("{\"nodeId\":\"intruso\",\"applied\":{}}\n"), StandardCharsets.UTF_8)
+                        .then()
+                        .thenMany(inbound.receive().asString(StandardCharsets.UTF_8))
+                        .doOnNext(replies::add)
+                        .then())
+                .connectNow();
+
+        // Entonces
+        connection.onDispose().block(Duration.ofSeconds(5));
+        assertTrue(replies.isEmpty());
+    }
+
+    /**
+     * Prueba que los cambios de una instancia que no conoce el secreto compartido no se entregan.
+     */
+    @Test
+    void receive_EventWithInvalidSignatureIsDiscarded() throws Exception {
+        // Dado: una instancia ajena que firma con otro secreto
+        ObjectMapper objectMapper = nodeA.getBean(ObjectMapper.class);
+        String json = objectMapper.writeValueAsString(
+                new RateChangeEvent("intruso", 1, false, List.of(rate("USD", "EUR", "0.5")), List.of()));
+        String forged = sign("otro-secreto", json) + " " + json + "\n";
+        AtomicInteger connections = new AtomicInteger();
+        DisposableServer intruder = TcpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle((inbound, outbound) -> {
+                    connections.incrementAndGet();
+                    return outbound.sendString(Mono.just(forged), StandardCharsets.UTF_8).then(inbound.receive().then());
+                })
+                .bindNow();
+        TcpRateChangeBus bus = new TcpRateChangeBus(new RateChangeJournal("c"), objectMapper, SECRET, "127.0.0.1", 0,
+                "127.0.0.1:" + intruder.port(), Duration.ofMillis(100), 16);
+
+        try {
+            // Cuando
+            bus.start();
+
+            // Entonces
+            StepVerifier.create(bus.received())
+                    .expectSubscription()
+                    .expectNoEvent(Duration.ofMillis(500))
+                    .thenCancel()
+                    .verify();
+            assertTrue(connections.get() > 0);
+        } finally {
+            bus.stop();
+            intruder.disposeNow();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String name, int port, int peerPort) {
+        // Como argumentos de línea de comandos, para que prevalezcan sobre application.properties
+        return new SpringApplicationBuilder(CurrencyExchangeServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///cluster-" + name + ";DB_CLOSE_DELAY=-1",
+                "--currency.cluster.bus=tcp",
+                "--currency.cluster.node-name=" + name,
+                "--currency.cluster.tcp.secret=" + SECRET,
+                "--currency.cluster.tcp.port=" + port,
+                "--currency.cluster.tcp.peers=127.0.0.1:" + peerPort,
+                "--currency.cluster.tcp.reconnect-interval=100ms");
+    }
+
+    private static BigDecimal rate(ConfigurableApplicationContext node, String source, String target) {
+        RateMatrixSnapshot snapshot = node.getBean(RateMatrix.class).current();
+        int sourceId = snapshot.id(source);
+        int targetId = snapshot.id(target);
+        return snapshot.hasRate(sourceId, targetId) ? snapshot.rate(sourceId, targetId) : null;
+    }
+
+    private static ExchangeRate rate(String source, String target, String rate) {
+        return ExchangeRate.builder()
+                .sourceCurrencyCode(source)
+                .targetCurrencyCode(target)
+                .rate(new BigDecimal(rate))
+                .lastUpdated(LocalDateTime.now())
+                .build();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(Duration.ofMillis(20).toNanos());
+        }
+        assertTrue(condition.getAsBoolean(), "la condición no se cumplió en 10 segundos");
+    }
+
+    private static String sign(String secret, String json) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.currency_exchange_service.controller;
+
+import com.example.currency_exchange_service.dto.ConversionHistoryResponse;
+import com.example.currency_exchange_service.metrics.ConversionMetrics;
+import com.example.currency_exchange_service.service.CurrencyExchangeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para los modos de streaming del historial de conversiones.
+ */
+@WebFluxTest(controllers = ConversionHistoryController.class,
+        excludeAutoConfiguration = {ReactiveSecurityAutoConfiguration.class, ReactiveUserDetailsServiceAutoConfiguration.class},
+        properties = "currency.history.stream.heartbeat-interval=100ms")
+class ConversionHistoryControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private CurrencyExchangeService currencyExchangeService;
+
+    @MockBean
+    private ConversionMetrics conversionMetrics;
+
+    /**
+     * Prueba que la exportación NDJSON escribe una conversión por línea.
+     */
+    @Test
+    void streamConversionHistory_Ndjson() {
+        // Dado
+        when(currencyExchangeService.getConversionHistory("USD", null, null, null))
+                .thenReturn(Flux.just(history(2L), history(1L)));
+
+        // Cuando y Entonces
+        Flux<ConversionHistoryResponse> body = webTestClient.get()
+                .uri("/api/v1/conversion-history?sourceCurrency=USD")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(ConversionHistoryResponse.class)
+                .getResponseBody();
+
+        StepVerifier.create(body)
+                .expectNext(history(2L), history(1L))
+                .verifyComplete();
+    }
+
+    /**
+     * Prueba que el flujo SSE envía un evento por conversión, con su identificador, y termina al agotarse el resultado.
+     */
+    @Test
+    void streamConversionHistoryEvents_OneEventPerRow() {
+        // Dado
+        when(currencyExchangeService.getConversionHistory(null, null, null, null))
+                .thenReturn(Flux.just(history(2L), history(1L)).delayElements(Duration.ofMillis(150)));
+
+        // Cuando
+        Flux<ServerSentEvent<ConversionHistoryResponse>> events = webTestClient.get()
+                .uri("/api/v1/conversion-history")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<ConversionHistoryResponse>>() { })
+                .getResponseBody();
+
+        // Entonces
+        StepVerifier.create(events.filter(event -> event.data() != null).map(ServerSentEvent::id))
+                .expectNext("2", "1")
+                .verifyComplete();
+    }
+
+    /**
+     * Prueba que los latidos SSE se envían como comentarios entre las filas.
+     */
+    @Test
+    void streamConversionHistoryEvents_HeartbeatsAreComments() {
+        // Dado
+        when(currencyExchangeService.getConversionHistory(null, null, null, null))
+                .thenReturn(Flux.just(history(1L)).delaySubscription(Duration.ofMillis(350)));
+
+        // Cuando
+        String body = webTestClient.get()
+                .uri("/api/v1/conversion-history")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Entonces
+        assertTrue(body.startsWith(":heartbeat"), body);
+        assertTrue(body.contains("id:1"), body);
+    }
+
+    private static ConversionHistoryResponse history(Long id) {
+        return ConversionHistoryResponse.builder()
+                .id(id)
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .originalAmount(new BigDecimal("100"))
+                .convertedAmount(new BigDecimal("93.00"))
+                .exchangeRate(new BigDecimal("0.93"))
+                .conversionDate(LocalDateTime.of(2024, 1, 2, 3, 4, 5))
+                .build();
+    }
+}
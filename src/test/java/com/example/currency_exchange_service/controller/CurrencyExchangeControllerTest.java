@@ -3,18 +3,23 @@ package com.example.currency_exchange_service.controller;
 import com.example.currency_exchange_service.dto.CurrencyExchangeRequest;
 import com.example.currency_exchange_service.dto.CurrencyExchangeResponse;
 import com.example.currency_exchange_service.exception.CurrencyNotFoundException;
+import com.example.currency_exchange_service.metrics.ConversionMetrics;
 import com.example.currency_exchange_service.service.CurrencyExchangeService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -23,7 +28,8 @@ import static org.mockito.Mockito.when;
  * Pruebas unitarias para el controlador de conversión de monedas.
  */
 @ExtendWith(SpringExtension.class)
-@WebFluxTest(CurrencyExchangeController.class)
+@WebFluxTest(controllers = CurrencyExchangeController.class,
+        excludeAutoConfiguration = {ReactiveSecurityAutoConfiguration.class, ReactiveUserDetailsServiceAutoConfiguration.class})
 class CurrencyExchangeControllerTest {
 
     @Autowired
@@ -32,6 +38,9 @@ class CurrencyExchangeControllerTest {
     @MockBean
     private CurrencyExchangeService currencyExchangeService;
 
+    @MockBean
+    private ConversionMetrics conversionMetrics;
+
     /**
      * Prueba la conversión exitosa de moneda.
      */
@@ -110,4 +119,44 @@ class CurrencyExchangeControllerTest {
                 .exchange()
                 .expectStatus().isNotFound();
     }
+
+    /**
+     * Prueba la conversión por lotes con entrada y salida NDJSON.
+     */
+    @Test
+    void convertBatch_Ndjson() {
+        // Dado
+        CurrencyExchangeResponse first = CurrencyExchangeResponse.builder()
+                .amount(new BigDecimal("100"))
+                .convertedAmount(new BigDecimal("93.00"))
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .exchangeRate(new BigDecimal("0.93"))
+                .build();
+        CurrencyExchangeResponse second = CurrencyExchangeResponse.builder()
+                .amount(new BigDecimal("10"))
+                .convertedAmount(new BigDecimal("37.20"))
+                .sourceCurrency("USD")
+                .targetCurrency("PEN")
+                .exchangeRate(new BigDecimal("3.72"))
+                .build();
+
+        when(currencyExchangeService.convertBatch(any()))
+                .thenAnswer(invocation -> invocation.<Flux<CurrencyExchangeRequest>>getArgument(0)
+                        .map(request -> request.getTargetCurrency().equals("EUR") ? first : second));
+
+        String body = "{\"amount\": 100, \"sourceCurrency\": \"USD\", \"targetCurrency\": \"EUR\"}\n"
+                + "{\"amount\": 10, \"sourceCurrency\": \"USD\", \"targetCurrency\": \"PEN\"}\n";
+
+        // Cuando y Entonces
+        webTestClient.post()
+                .uri("/api/v1/currency-exchange/convert/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(CurrencyExchangeResponse.class)
+                .isEqualTo(List.of(first, second));
+    }
 }
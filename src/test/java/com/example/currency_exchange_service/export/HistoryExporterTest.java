@@ -0,0 +1,122 @@
+package com.example.currency_exchange_service.export;
+
+import com.example.currency_exchange_service.model.ConversionHistories;
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.repository.ConversionHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pruebas de integración para la exportación masiva del historial de conversiones.
+ */
+@SpringBootTest
+class HistoryExporterTest {
+
+    // Fechas fuera del rango de otras pruebas para no mezclar registros
+    private static final LocalDateTime BASE = LocalDateTime.of(1960, 7, 1, 9, 30);
+
+    @Autowired
+    private ConversionHistoryRepository conversionHistoryRepository;
+
+    @Autowired
+    private HistoryExporter historyExporter;
+
+    @TempDir
+    private Path directory;
+
+    private List<ConversionHistory> saved;
+
+    /**
+     * Guarda registros de prueba, uno de ellos con campos de texto que requieren comillas en CSV.
+     */
+    @BeforeEach
+    void setUp() {
+        saved = conversionHistoryRepository.deleteAll(conversionHistoryRepository.findByFilters(null, null, BASE, BASE.plusDays(1)))
+                .thenMany(conversionHistoryRepository.saveAll(List.of(
+                        history(BASE, "10.0.0.1", "admin"),
+                        history(BASE.plusMinutes(5).plusNanos(250_000_000), null, "ana, \"auditora\""))))
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Prueba que el CSV tiene cabecera y una línea por conversión, de la más reciente a la más antigua,
+     * con montos en escala 6 y campos entre comillas cuando hace falta.
+     */
+    @Test
+    void export_Csv() {
+        // Cuando
+        String csv = DataBufferUtils.join(historyExporter.export(null, null, BASE, BASE.plusDays(1), HistoryExportFormat.CSV,
+                        false, DefaultDataBufferFactory.sharedInstance))
+                .map(buffer -> {
+                    String text = buffer.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(buffer);
+                    return text;
+                })
+                .block();
+
+        // Entonces
+        assertEquals("id,conversionDate,sourceCurrencyCode,targetCurrencyCode,originalAmount,convertedAmount,exchangeRate,ipAddress,userId\r\n"
+                        + saved.get(1).getId() + ",1960-07-01T09:35:00.250000,USD,EUR,1234.500000,-0.010000,0.930000,,\"ana, \"\"auditora\"\"\"\r\n"
+                        + saved.get(0).getId() + ",1960-07-01T09:30:00,USD,EUR,1234.500000,-0.010000,0.930000,10.0.0.1,admin\r\n",
+                csv);
+    }
+
+    /**
+     * Prueba que la exportación binaria comprimida a archivo escribe un registro con prefijo de longitud
+     * por conversión y devuelve el número de conversiones exportadas.
+     */
+    @Test
+    void exportToFile_BinaryGzip() throws IOException {
+        // Dado
+        Path file = directory.resolve("export/history.chx.gz");
+
+        // Cuando
+        Long rows = historyExporter.exportToFile(file, "USD", "EUR", BASE, BASE.plusDays(1), HistoryExportFormat.BINARY, true)
+                .block();
+
+        // Entonces
+        assertEquals(2L, rows);
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+            assertEquals(0x43485831, in.readInt());
+            assertEquals(1, in.readUnsignedByte());
+            for (ConversionHistory expected : List.of(saved.get(1), saved.get(0))) {
+                int length = in.readInt();
+                byte[] record = in.readNBytes(length);
+                DataInputStream fields = new DataInputStream(new ByteArrayInputStream(record));
+                assertEquals(expected.getId(), fields.readLong());
+                assertEquals(expected.getConversionDate().toEpochSecond(ZoneOffset.UTC), fields.readLong());
+                assertEquals(expected.getConversionDate().getNano(), fields.readInt());
+            }
+            assertEquals(-1, in.read());
+        }
+    }
+
+    private static ConversionHistory history(LocalDateTime date, String ipAddress, String userId) {
+        return ConversionHistories.builder("USD", "EUR", date)
+                .originalAmount(new BigDecimal("1234.5"))
+                .convertedAmount(new BigDecimal("-0.01"))
+                .ipAddress(ipAddress)
+                .userId(userId)
+                .build();
+    }
+}
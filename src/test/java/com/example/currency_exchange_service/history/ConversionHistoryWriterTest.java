@@ -0,0 +1,190 @@
+package com.example.currency_exchange_service.history;
+
+import com.example.currency_exchange_service.model.ConversionHistories;
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.repository.ConversionHistoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas de integración para la escritura diferida del historial de conversiones.
+ */
+@SpringBootTest
+class ConversionHistoryWriterTest {
+
+    @Autowired
+    private ConversionHistoryWriter conversionHistoryWriter;
+
+    @Autowired
+    private ConversionHistoryRepository conversionHistoryRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Prueba que los registros encolados se guardan en la base de datos, incluidos los campos opcionales.
+     */
+    @Test
+    void enqueueAll_RecordsAreFlushedToDatabase() {
+        // Dado
+        LocalDateTime conversionDate = LocalDateTime.of(2001, 2, 3, 4, 5, 6);
+        List<ConversionHistory> histories = List.of(
+                history("USD", "EUR", conversionDate, "ana"),
+                history("EUR", "USD", conversionDate, null),
+                history("USD", "PEN", conversionDate, "luis"));
+
+        // Cuando
+        StepVerifier.create(conversionHistoryWriter.enqueueAll(histories))
+                .verifyComplete();
+
+        // Entonces
+        StepVerifier.create(Flux.defer(() -> conversionHistoryRepository.findAll()
+                                .filter(history -> history.getConversionDate().equals(conversionDate)))
+                        .collectList()
+                        .filter(saved -> saved.size() == 3)
+                        .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(100)).take(50)))
+                .expectNextMatches(saved -> saved.stream().anyMatch(history -> history.getUserId() == null)
+                        && saved.stream().anyMatch(history -> "ana".equals(history.getUserId())))
+                .verifyComplete();
+    }
+
+    /**
+     * Prueba que una reinserción interrumpida del archivo de desbordamiento continúa tras las líneas ya
+     * guardadas, sin duplicarlas, y que al terminar elimina el archivo y su control.
+     */
+    @Test
+    void stop_ResumesInterruptedSpillReplayFromCheckpoint(@TempDir Path directory) throws IOException {
+        // Dado: la primera de tres líneas ya se reinsertó
+        LocalDateTime conversionDate = LocalDateTime.of(2001, 3, 4, 5, 6, 7);
+        Path spillFile = directory.resolve("spill.ndjson");
+        Path replaying = directory.resolve("spill.ndjson.replaying");
+        Path checkpoint = directory.resolve("spill.ndjson.replayed");
+        List<String> lines = new ArrayList<>();
+        for (String userId : List.of("ana", "luis", "eva")) {
+            lines.add(objectMapper.writeValueAsString(history("USD", "EUR", conversionDate, userId)));
+        }
+        Files.write(replaying, lines, StandardCharsets.UTF_8);
+        Files.writeString(checkpoint, "1", StandardCharsets.UTF_8);
+        ConversionHistoryWriter writer = new ConversionHistoryWriter(databaseClient, objectMapper, new SimpleMeterRegistry(),
+                10, 2, Duration.ofHours(1), ConversionHistoryWriter.OverflowPolicy.SPILL, Duration.ZERO, spillFile,
+                3, Duration.ofMillis(10), List.of());
+
+        // Cuando
+        writer.stop();
+
+        // Entonces
+        StepVerifier.create(conversionHistoryRepository.findAll()
+                        .filter(history -> history.getConversionDate().equals(conversionDate))
+                        .map(ConversionHistory::getUserId)
+                        .collectList())
+                .expectNextMatches(userIds -> userIds.size() == 2 && !userIds.contains("ana"))
+                .verifyComplete();
+        assertFalse(Files.exists(replaying));
+        assertFalse(Files.exists(checkpoint));
+    }
+
+    /**
+     * Prueba que una última línea a medio escribir del archivo de desbordamiento se aparte en el archivo de
+     * rechazados sin impedir que se reinserten las anteriores ni que se eliminen el archivo y su control.
+     */
+    @Test
+    void stop_RejectsTruncatedSpillLineAndReplaysTheRest(@TempDir Path directory) throws IOException {
+        // Dado: dos líneas completas y una cortada por una caída al desbordar
+        LocalDateTime conversionDate = LocalDateTime.of(2001, 5, 6, 7, 8, 9);
+        Path spillFile = directory.resolve("spill.ndjson");
+        List<String> lines = new ArrayList<>();
+        for (String userId : List.of("ana", "luis", "eva")) {
+            lines.add(objectMapper.writeValueAsString(history("USD", "EUR", conversionDate, userId)));
+        }
+        String truncated = lines.get(2).substring(0, lines.get(2).length() / 2);
+        Files.writeString(spillFile, lines.get(0) + "\n" + lines.get(1) + "\n" + truncated, StandardCharsets.UTF_8);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ConversionHistoryWriter writer = new ConversionHistoryWriter(databaseClient, objectMapper, meterRegistry,
+                10, 2, Duration.ofHours(1), ConversionHistoryWriter.OverflowPolicy.SPILL, Duration.ZERO, spillFile,
+                3, Duration.ofMillis(10), List.of());
+
+        // Cuando
+        writer.stop();
+
+        // Entonces
+        StepVerifier.create(conversionHistoryRepository.findAll()
+                        .filter(history -> history.getConversionDate().equals(conversionDate))
+                        .map(ConversionHistory::getUserId)
+                        .collectList())
+                .expectNextMatches(userIds -> userIds.size() == 2 && userIds.containsAll(List.of("ana", "luis")))
+                .verifyComplete();
+        assertFalse(Files.exists(spillFile));
+        assertFalse(Files.exists(directory.resolve("spill.ndjson.replaying")));
+        assertFalse(Files.exists(directory.resolve("spill.ndjson.replayed")));
+        assertEquals(List.of(truncated), Files.readAllLines(directory.resolve("spill.ndjson.rejected"), StandardCharsets.UTF_8));
+        assertEquals(1.0, meterRegistry.counter("conversion.history.failed").count());
+    }
+
+    /**
+     * Prueba que al detener la aplicación con una inserción en curso se espera a que termine en lugar de
+     * cancelarla y perder el lote.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void stop_WaitsForInsertInProgress() {
+        // Dado: una inserción que tarda en completarse
+        DatabaseClient slowClient = mock(DatabaseClient.class);
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, RETURNS_SELF);
+        FetchSpec<Map<String, Object>> fetchSpec = mock(FetchSpec.class);
+        when(slowClient.sql(anyString())).thenReturn(spec);
+        when(spec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.delay(Duration.ofMillis(500)).thenReturn(1L));
+        List<List<ConversionHistory>> recorded = new CopyOnWriteArrayList<>();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ConversionHistoryWriter writer = new ConversionHistoryWriter(slowClient, objectMapper, meterRegistry,
+                10, 1, Duration.ofHours(1), ConversionHistoryWriter.OverflowPolicy.DROP, Duration.ZERO,
+                Path.of("target", "unused-spill.ndjson"), 0, Duration.ZERO, List.of(recorded::add));
+        writer.start();
+        writer.enqueue(history("USD", "EUR", LocalDateTime.of(2001, 6, 7, 8, 9, 10), "ana")).block();
+        verify(spec, timeout(2000)).fetch();
+
+        // Cuando
+        writer.stop();
+
+        // Entonces
+        assertEquals(1, recorded.size());
+        assertEquals(0, writer.pending());
+        assertEquals(0.0, meterRegistry.counter("conversion.history.failed").count());
+    }
+
+    private static ConversionHistory history(String source, String target, LocalDateTime conversionDate, String userId) {
+        return ConversionHistories.builder(source, target, conversionDate).ipAddress("127.0.0.1").userId(userId).build();
+    }
+}
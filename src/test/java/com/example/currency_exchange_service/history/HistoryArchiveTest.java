@@ -0,0 +1,80 @@
+package com.example.currency_exchange_service.history;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.repository.ConversionHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.currency_exchange_service.model.ConversionHistories.history;
+
+/**
+ * Pruebas de integración para el archivo del historial de conversiones.
+ */
+@SpringBootTest
+class HistoryArchiveTest {
+
+    // Fechas fuera del rango de otras pruebas para no archivar sus registros
+    private static final LocalDateTime BASE = LocalDateTime.of(1970, 3, 1, 12, 0);
+
+    @Autowired
+    private ConversionHistoryRepository conversionHistoryRepository;
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * Prueba que las conversiones anteriores al corte se mueven a segmentos diarios, se borran de la tabla
+     * y se pueden consultar del más reciente al más antiguo, con filtros y posición de continuación.
+     */
+    @Test
+    void archive_MovesOldRowsToSegmentsAndFindsThem() throws IOException {
+        // Dado
+        List<ConversionHistory> saved = conversionHistoryRepository.saveAll(List.of(
+                        history("USD", "EUR", BASE),
+                        history("USD", "EUR", BASE.plusHours(1)),
+                        history("USD", "PEN", BASE.plusDays(1)),
+                        history("USD", "EUR", BASE.plusDays(1)),
+                        history("EUR", "USD", BASE.plusDays(2))))
+                .collectList()
+                .block();
+        HistoryArchive archive = new HistoryArchive(conversionHistoryRepository, true, Duration.ofDays(90),
+                Duration.ofHours(1), directory, 2, 1);
+
+        // Cuando
+        StepVerifier.create(archive.archive(BASE.plusYears(1)))
+                .expectNext(5L)
+                .verifyComplete();
+
+        // Entonces
+        StepVerifier.create(conversionHistoryRepository.findByFilters(null, null, BASE, BASE.plusDays(3)))
+                .verifyComplete();
+        StepVerifier.create(archive.find("USD", "EUR", null, BASE, BASE.plusDays(3), null, null))
+                .expectNextMatches(history -> history.getId().equals(saved.get(3).getId()))
+                .expectNextMatches(history -> history.getId().equals(saved.get(1).getId())
+                        && history.getExchangeRate().compareTo(new BigDecimal("0.93")) == 0)
+                .expectNextMatches(history -> history.getId().equals(saved.get(0).getId()))
+                .verifyComplete();
+        StepVerifier.create(archive.find(null, null, null, null, null, BASE.plusDays(1), saved.get(3).getId()))
+                .expectNextMatches(history -> history.getId().equals(saved.get(2).getId()))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        // Un archivo recién abierto encuentra los mismos segmentos
+        HistoryArchive reopened = new HistoryArchive(conversionHistoryRepository, true, Duration.ofDays(90),
+                Duration.ofHours(1), directory, 2, 1);
+        reopened.loadSegments();
+        StepVerifier.create(reopened.find(null, null, null, BASE.plusDays(2), null, null, null))
+                .expectNextMatches(history -> history.getSourceCurrencyCode().equals("EUR"))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.currency_exchange_service.history;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Pruebas unitarias para el formato de los segmentos del archivo del historial.
+ */
+class HistorySegmentCodecTest {
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * Prueba que un segmento conserva todas las columnas, incluidos valores nulos, montos fuera del rango
+     * de {@code long} y fechas con nanosegundos.
+     */
+    @Test
+    void writeAndRead_RoundTrip() throws IOException {
+        // Dado
+        LocalDateTime date = LocalDateTime.of(2020, 5, 17, 8, 30, 15, 123_456_000);
+        List<ConversionHistory> rows = List.of(
+                ConversionHistory.builder().id(10L).sourceCurrencyCode("USD").targetCurrencyCode("EUR")
+                        .originalAmount(new BigDecimal("100.5")).convertedAmount(new BigDecimal("93.465"))
+                        .exchangeRate(new BigDecimal("0.930000")).conversionDate(date)
+                        .ipAddress("10.0.0.1").userId("admin").build(),
+                ConversionHistory.builder().id(7L).sourceCurrencyCode("USD").targetCurrencyCode("JPY")
+                        .originalAmount(new BigDecimal("-0.000001")).convertedAmount(new BigDecimal("98765432109876543.123456"))
+                        .exchangeRate(new BigDecimal("151.250000")).conversionDate(date.minusDays(400))
+                        .build());
+        Path file = directory.resolve("segment.seg");
+
+        // Cuando
+        HistorySegmentCodec.write(file, rows);
+        List<ConversionHistory> read = HistorySegmentCodec.read(file);
+
+        // Entonces
+        assertEquals(2, read.size());
+        assertEquals(10L, read.get(0).getId());
+        assertEquals(date, read.get(0).getConversionDate());
+        assertEquals("admin", read.get(0).getUserId());
+        assertEquals(0, read.get(0).getConvertedAmount().compareTo(new BigDecimal("93.465")));
+        assertEquals(7L, read.get(1).getId());
+        assertEquals(date.minusDays(400), read.get(1).getConversionDate());
+        assertEquals("JPY", read.get(1).getTargetCurrencyCode());
+        assertEquals(0, read.get(1).getOriginalAmount().compareTo(new BigDecimal("-0.000001")));
+        assertEquals(0, read.get(1).getConvertedAmount().compareTo(new BigDecimal("98765432109876543.123456")));
+        assertNull(read.get(1).getIpAddress());
+        assertNull(read.get(1).getUserId());
+    }
+}
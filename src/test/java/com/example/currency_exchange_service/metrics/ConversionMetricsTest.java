@@ -0,0 +1,69 @@
+package com.example.currency_exchange_service.metrics;
+
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.exception.CurrencyNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pruebas unitarias para las métricas del flujo de conversión.
+ */
+class ConversionMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConversionMetrics conversionMetrics;
+
+    /**
+     * Configuración inicial para las pruebas.
+     */
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        CurrencyRegistry currencyRegistry = new CurrencyRegistry(null, event -> { }, Duration.ofMinutes(1));
+        currencyRegistry.update(List.of("USD", "EUR", "PEN"));
+        conversionMetrics = new ConversionMetrics(meterRegistry, currencyRegistry, 2);
+    }
+
+    /**
+     * Prueba que la etiqueta de par agrupa los códigos desconocidos y los pares que superan el límite.
+     */
+    @Test
+    void pairTag_CardinalityIsBounded() {
+        // Cuando
+        conversionMetrics.time(ConversionMetrics.Stage.CALCULATION, conversionMetrics.pairTag("USD", "EUR"), () -> 1);
+        conversionMetrics.time(ConversionMetrics.Stage.CALCULATION, conversionMetrics.pairTag("USD", "PEN"), () -> 1);
+
+        // Entonces
+        assertEquals("USD_EUR", conversionMetrics.pairTag("USD", "EUR"));
+        assertEquals(ConversionMetrics.OTHER_PAIR, conversionMetrics.pairTag("EUR", "PEN"));
+        assertEquals(ConversionMetrics.UNKNOWN_PAIR, conversionMetrics.pairTag("USD", "XYZ"));
+    }
+
+    /**
+     * Prueba que la duración total se registra con el resultado de la conversión y que los errores
+     * se cuentan por tipo de excepción.
+     */
+    @Test
+    void timeConversion_TaggedByOutcome() {
+        // Cuando
+        StepVerifier.create(conversionMetrics.timeConversion("USD_EUR", Mono.just(1))).expectNext(1).verifyComplete();
+        StepVerifier.create(conversionMetrics.timeConversion("USD_EUR", Mono.error(new IllegalStateException())))
+                .verifyError(IllegalStateException.class);
+        conversionMetrics.recordError(new CurrencyNotFoundException("Moneda origen no encontrada: XYZ"), HttpStatus.NOT_FOUND);
+
+        // Entonces
+        assertEquals(1, meterRegistry.get("currency.conversion").tags("pair", "USD_EUR", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("currency.conversion").tags("pair", "USD_EUR", "outcome", "error").timer().count());
+        assertEquals(1.0, meterRegistry.get("currency.errors")
+                .tags("exception", "CurrencyNotFoundException", "status", "404").counter().count());
+    }
+}
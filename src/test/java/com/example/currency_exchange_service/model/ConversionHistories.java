@@ -0,0 +1,33 @@
+package com.example.currency_exchange_service.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Conversiones de prueba compartidas por las pruebas del historial: 100 a 93.00 con la tasa 0.930000.
+ */
+public final class ConversionHistories {
+
+    private ConversionHistories() {
+    }
+
+    /**
+     * Conversión de prueba entre el par indicado, sin usuario ni dirección IP.
+     */
+    public static ConversionHistory history(String source, String target, LocalDateTime conversionDate) {
+        return builder(source, target, conversionDate).build();
+    }
+
+    /**
+     * Constructor de una conversión de prueba entre el par indicado, para ajustar los demás campos.
+     */
+    public static ConversionHistory.ConversionHistoryBuilder builder(String source, String target, LocalDateTime conversionDate) {
+        return ConversionHistory.builder()
+                .sourceCurrencyCode(source)
+                .targetCurrencyCode(target)
+                .originalAmount(new BigDecimal("100"))
+                .convertedAmount(new BigDecimal("93.00"))
+                .exchangeRate(new BigDecimal("0.930000"))
+                .conversionDate(conversionDate);
+    }
+}
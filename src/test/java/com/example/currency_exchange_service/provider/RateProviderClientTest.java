@@ -0,0 +1,154 @@
+package com.example.currency_exchange_service.provider;
+
+import com.example.currency_exchange_service.config.ResilienceConfig;
+import com.example.currency_exchange_service.exception.RateProviderException;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pruebas unitarias para el cliente resiliente del proveedor de tasas: cobertura de solicitudes lentas,
+ * reintentos y circuit breaker con la configuración de {@link ResilienceConfig}.
+ */
+class RateProviderClientTest {
+
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private ReactiveResilience4JCircuitBreakerFactory circuitBreakerFactory;
+    private RetryRegistry retryRegistry;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        circuitBreakerFactory = new ReactiveResilience4JCircuitBreakerFactory(circuitBreakerRegistry, TimeLimiterRegistry.ofDefaults());
+        new ResilienceConfig().currencyExchangeCustomizer().customize(circuitBreakerFactory);
+        retryRegistry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(3)
+                .waitDuration(Duration.ofMillis(10))
+                .build());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    /**
+     * Prueba que, si la solicitud no responde en el plazo de cobertura, se envía una segunda solicitud y se
+     * usa su respuesta sin esperar a la primera.
+     */
+    @Test
+    void fetchRates_HedgesSlowRequest() {
+        // Dado: la primera solicitud tarda más que el límite de tiempo del circuit breaker
+        FakeRateProvider provider = new FakeRateProvider(call -> call == 1
+                ? Mono.delay(Duration.ofSeconds(5)).thenReturn(rates("0.90"))
+                : Mono.just(rates("0.91")));
+        RateProviderClient client = client(provider, true);
+
+        // Cuando / Entonces
+        StepVerifier.create(client.fetchRates("USD", List.of("EUR")))
+                .assertNext(rates -> assertEquals(new BigDecimal("0.91"), rates.get(0).getRate()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        assertEquals(2, provider.calls.get());
+        assertEquals(1, meterRegistry.get("currency.provider.hedges").counter().count());
+        assertEquals(1, meterRegistry.get("currency.provider.hedges.won").counter().count());
+    }
+
+    /**
+     * Prueba que una solicitud rápida no envía cobertura y que el plazo de cobertura pasa a ser el
+     * percentil de la latencia observada, con el mínimo configurado.
+     */
+    @Test
+    void fetchRates_UsesLatencyPercentileAsHedgeDelay() {
+        // Dado
+        FakeRateProvider provider = new FakeRateProvider(call -> Mono.just(rates("0.92")));
+        RateProviderClient client = client(provider, true);
+        assertEquals(Duration.ofMillis(100), client.hedgeDelay());
+
+        // Cuando
+        for (int i = 0; i < 20; i++) {
+            client.fetchRates("USD", List.of("EUR")).block();
+        }
+
+        // Entonces
+        assertEquals(20, provider.calls.get());
+        assertEquals(0, meterRegistry.get("currency.provider.hedges").counter().count());
+        assertEquals(Duration.ofMillis(20), client.hedgeDelay());
+    }
+
+    /**
+     * Prueba que los fallos se reintentan y que, con la tasa de fallos de {@code currencyExchange}
+     * superada, el circuito se abre y deja de llamar al proveedor.
+     */
+    @Test
+    void fetchRates_RetriesAndOpensCircuit() {
+        // Dado
+        FakeRateProvider provider = new FakeRateProvider(call -> Mono.error(new RateProviderException("no disponible")));
+        RateProviderClient client = client(provider, false);
+
+        // Cuando / Entonces
+        StepVerifier.create(client.fetchRates("USD", List.of("EUR")))
+                .expectError(RateProviderException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(3, provider.calls.get());
+
+        StepVerifier.create(client.fetchRates("USD", List.of("EUR")))
+                .expectError(CallNotPermittedException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(5, provider.calls.get());
+        assertEquals(CircuitBreaker.State.OPEN,
+                circuitBreakerRegistry.circuitBreaker(RateProviderClient.CIRCUIT_BREAKER).getState());
+    }
+
+    private RateProviderClient client(RateProvider provider, boolean hedgeEnabled) {
+        return new RateProviderClient(provider, circuitBreakerFactory, retryRegistry, meterRegistry, hedgeEnabled, 0.95,
+                Duration.ofMillis(100), Duration.ofMillis(20));
+    }
+
+    private static List<ExchangeRate> rates(String rate) {
+        return List.of(ExchangeRate.builder()
+                .sourceCurrencyCode("USD")
+                .targetCurrencyCode("EUR")
+                .rate(new BigDecimal(rate))
+                .build());
+    }
+
+    /**
+     * Proveedor simulado que responde según el número de llamada, empezando en 1.
+     */
+    private static final class FakeRateProvider implements RateProvider {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final IntFunction<Mono<List<ExchangeRate>>> responses;
+
+        FakeRateProvider(IntFunction<Mono<List<ExchangeRate>>> responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public String name() {
+            return "fake";
+        }
+
+        @Override
+        public Mono<List<ExchangeRate>> fetchRates(String baseCurrency, Collection<String> targetCurrencies) {
+            return Mono.defer(() -> responses.apply(calls.incrementAndGet()));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyIndex;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Pruebas unitarias para la triangulación de tasas cruzadas de la matriz de tasas.
+ */
+class CrossRateEngineTest {
+
+    private final CrossRateEngine crossRateEngine = new CrossRateEngine("USD");
+
+    private CurrencyIndex currencies;
+    private LocalDateTime now;
+
+    /**
+     * Configuración inicial para las pruebas.
+     */
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        currencies = CurrencyIndex.of(List.of("USD", "EUR", "PEN", "MXN", "GBP"));
+    }
+
+    /**
+     * Prueba que un par sin fila se deriva a través de la moneda pivote.
+     */
+    @Test
+    void derive_CrossRateThroughPivot() {
+        // Dado
+        RateMatrixSnapshot snapshot = RateMatrixSnapshot.build(1L, currencies, List.of(
+                rate("MXN", "USD", "0.060", now.minusHours(1)),
+                rate("USD", "PEN", "3.72", now)), crossRateEngine);
+
+        // Entonces
+        int mxn = snapshot.id("MXN");
+        int pen = snapshot.id("PEN");
+        assertEquals(RateOrigin.CROSS, snapshot.origin(mxn, pen));
+        assertEquals(new BigDecimal("0.223200"), snapshot.rate(mxn, pen));
+        assertEquals(now.minusHours(1), snapshot.lastUpdated(mxn, pen));
+    }
+
+    /**
+     * Prueba que un par con fila solo en sentido contrario usa la tasa invertida,
+     * también como tramo de una tasa cruzada.
+     */
+    @Test
+    void derive_InvertedRates() {
+        // Dado
+        RateMatrixSnapshot snapshot = RateMatrixSnapshot.build(1L, currencies, List.of(
+                rate("USD", "PEN", "4", now),
+                rate("USD", "GBP", "0.8", now)), crossRateEngine);
+
+        // Entonces
+        int usd = snapshot.id("USD");
+        int pen = snapshot.id("PEN");
+        int gbp = snapshot.id("GBP");
+        assertEquals(RateOrigin.INVERTED, snapshot.origin(pen, usd));
+        assertEquals(new BigDecimal("0.250000"), snapshot.rate(pen, usd));
+        assertEquals(new BigDecimal("0.200000"), snapshot.rate(pen, gbp));
+        assertEquals(new BigDecimal("5.000000"), snapshot.rate(gbp, pen));
+        assertFalse(snapshot.hasRate(snapshot.id("EUR"), pen));
+    }
+
+    /**
+     * Prueba que una fila directa tiene prioridad y que las tasas derivadas se recalculan
+     * al publicar una nueva instantánea.
+     */
+    @Test
+    void derive_DirectRateWinsAndUpdatesRecompute() {
+        // Dado
+        RateMatrixSnapshot snapshot = RateMatrixSnapshot.build(1L, currencies, List.of(
+                rate("EUR", "USD", "1.10", now),
+                rate("USD", "PEN", "3.70", now),
+                rate("EUR", "PEN", "4.00", now)), crossRateEngine);
+        int eur = snapshot.id("EUR");
+        int pen = snapshot.id("PEN");
+        int usd = snapshot.id("USD");
+        assertEquals(RateOrigin.DIRECT, snapshot.origin(eur, pen));
+        assertEquals(new BigDecimal("4.000000"), snapshot.rate(eur, pen));
+
+        // Cuando
+        RateMatrixSnapshot updated = snapshot.withRates(List.of(rate("USD", "PEN", "3.80", now)), 2L, currencies, crossRateEngine);
+
+        // Entonces
+        assertEquals(new BigDecimal("0.263158"), updated.rate(pen, usd));
+        assertEquals(new BigDecimal("0.270270"), snapshot.rate(pen, usd));
+        assertEquals(new BigDecimal("4.000000"), updated.rate(eur, pen));
+    }
+
+    /**
+     * Prueba que una tasa directa o derivada que se redondea a cero con la escala de la matriz no se
+     * confunde con una tasa: el par queda sin tasa en lugar de tomar el valor cero.
+     */
+    @Test
+    void derive_RatesBelowResolutionAreNotPublished() {
+        // Dado
+        RateMatrixSnapshot snapshot = RateMatrixSnapshot.build(1L, currencies, List.of(
+                rate("EUR", "PEN", "0.0000004", now),
+                rate("MXN", "USD", "0.001", now),
+                rate("USD", "GBP", "0.0004", now)), crossRateEngine);
+
+        // Entonces
+        int eur = snapshot.id("EUR");
+        int pen = snapshot.id("PEN");
+        int mxn = snapshot.id("MXN");
+        int gbp = snapshot.id("GBP");
+        assertFalse(snapshot.hasRate(eur, pen));
+        assertFalse(snapshot.hasRate(pen, eur));
+        assertFalse(snapshot.hasRate(mxn, gbp));
+        assertEquals(new BigDecimal("2500000.000000"), snapshot.rate(gbp, mxn));
+        assertEquals(RateMatrixSnapshot.ABSENT, CrossRateEngine.cross(new BigDecimal("0.001"), new BigDecimal("0.0004")));
+    }
+
+    private static ExchangeRate rate(String source, String target, String rate, LocalDateTime lastUpdated) {
+        return ExchangeRate.builder()
+                .sourceCurrencyCode(source)
+                .targetCurrencyCode(target)
+                .rate(new BigDecimal(rate))
+                .lastUpdated(lastUpdated)
+                .build();
+    }
+}
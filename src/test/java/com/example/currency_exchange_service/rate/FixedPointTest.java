@@ -0,0 +1,76 @@
+package com.example.currency_exchange_service.rate;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pruebas de propiedades para la aritmética de punto fijo: para cualquier monto y tasa, el resultado
+ * debe ser idéntico (valor y escala) al cálculo con {@link BigDecimal}.
+ */
+class FixedPointTest {
+
+    private static final int SAMPLES = 100_000;
+
+    /**
+     * Prueba la equivalencia con montos y tasas aleatorios en todo el rango, incluidos negativos,
+     * escalas variadas y productos que desbordan un long.
+     */
+    @Test
+    void multiply_EquivalentToBigDecimalForRandomValues() {
+        Random random = new Random(20240517L);
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal amount = randomDecimal(random, 1 + random.nextInt(22), random.nextInt(8));
+            BigDecimal rate = randomDecimal(random, 1 + random.nextInt(13), random.nextInt(9));
+            assertEquivalent(amount, rate);
+        }
+    }
+
+    /**
+     * Prueba la equivalencia con tasas de la matriz (escala 6) y montos en el rango habitual,
+     * donde el redondeo HALF_UP decide el último centavo.
+     */
+    @Test
+    void multiply_EquivalentToBigDecimalForMatrixRates() {
+        Random random = new Random(7L);
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 100_000_000_000L), random.nextInt(4));
+            long rate = random.nextLong(1, 100_000_000_000L);
+            BigDecimal expected = amount.multiply(BigDecimal.valueOf(rate, RateMatrixSnapshot.SCALE))
+                    .setScale(2, RoundingMode.HALF_UP);
+            assertEquals(expected, FixedPoint.multiply(amount, rate, RateMatrixSnapshot.SCALE, 2),
+                    () -> amount + " x " + BigDecimal.valueOf(rate, RateMatrixSnapshot.SCALE));
+        }
+    }
+
+    /**
+     * Prueba los casos límite: empates de redondeo, ceros, escalas negativas y extremos de long.
+     */
+    @Test
+    void multiply_EquivalentToBigDecimalForEdgeCases() {
+        List<String> values = List.of("0", "0.00", "1", "-1", "0.005", "-0.005", "0.015", "2.5", "-2.5",
+                "100", "0.93", "3.725", "1E+3", "1E-10", "9223372036854775807", "-9223372036854775808",
+                "922337203685477.5807", "99999999999999999.99", "0.000001", "123456789.123456");
+        for (String amount : values) {
+            for (String rate : values) {
+                assertEquivalent(new BigDecimal(amount), new BigDecimal(rate));
+            }
+        }
+    }
+
+    private static void assertEquivalent(BigDecimal amount, BigDecimal rate) {
+        BigDecimal expected = amount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+        assertEquals(expected, FixedPoint.multiply(amount, rate, 2), () -> amount + " x " + rate);
+    }
+
+    private static BigDecimal randomDecimal(Random random, int digits, int scale) {
+        BigInteger unscaled = new BigInteger(digits * 4, random).mod(BigInteger.TEN.pow(digits));
+        return new BigDecimal(random.nextBoolean() ? unscaled : unscaled.negate(), scale);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.dto.ExchangeRateResponse;
+import com.example.currency_exchange_service.exception.InvalidSubscriptionException;
+import com.example.currency_exchange_service.exception.SubscriberLimitException;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pruebas unitarias para el flujo de tasas en vivo.
+ */
+class LiveRateStreamTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    private RateMatrix rateMatrix;
+    private LiveRateStream liveRateStream;
+
+    @BeforeEach
+    void setUp() {
+        CurrencyRegistry currencyRegistry = new CurrencyRegistry(null, event -> { }, Duration.ofMinutes(1));
+        currencyRegistry.update(List.of("USD", "EUR", "GBP"));
+        rateMatrix = new RateMatrix(currencyRegistry, null, new CrossRateEngine("USD"));
+        liveRateStream = new LiveRateStream(rateMatrix, currencyRegistry, new SimpleMeterRegistry(), 2, 1);
+    }
+
+    /**
+     * Prueba que primero se envían las tasas vigentes y que un suscriptor que no consume a tiempo recibe
+     * solo el valor más reciente de los pares que cambiaron.
+     */
+    @Test
+    void subscribe_ConflatesToLatestRatePerPair() {
+        // Dado
+        rateMatrix.apply(List.of(rate("USD", "EUR", "0.90", NOW), rate("USD", "GBP", "0.80", NOW)));
+
+        // Cuando / Entonces
+        StepVerifier.create(liveRateStream.subscribe("usd_eur, USD_GBP"), 0)
+                .thenRequest(2)
+                .assertNext(rate -> assertRate(rate, "USD", "EUR", "0.900000"))
+                .assertNext(rate -> assertRate(rate, "USD", "GBP", "0.800000"))
+                .then(() -> {
+                    rateMatrix.apply(List.of(rate("USD", "EUR", "0.91", NOW.plusSeconds(1))));
+                    rateMatrix.apply(List.of(rate("USD", "EUR", "0.92", NOW.plusSeconds(2))));
+                    rateMatrix.apply(List.of(rate("USD", "EUR", "0.93", NOW.plusSeconds(3))));
+                })
+                .thenRequest(10)
+                .assertNext(rate -> {
+                    assertRate(rate, "USD", "EUR", "0.930000");
+                    assertEquals(rateMatrix.current().version(), rate.getRateVersion());
+                })
+                .expectNoEvent(Duration.ofMillis(200))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, liveRateStream.subscribers());
+    }
+
+    /**
+     * Prueba que se rechazan los pares no válidos y las suscripciones que superan el máximo de suscriptores.
+     */
+    @Test
+    void subscribe_RejectsInvalidPairsAndExtraSubscribers() {
+        // Dado / Cuando / Entonces
+        for (String pairs : List.of("", "USDEUR", "USD_XXX", "EUR_EUR", "USD_EUR,USD_GBP,EUR_GBP")) {
+            StepVerifier.create(liveRateStream.subscribe(pairs))
+                    .expectError(InvalidSubscriptionException.class)
+                    .verify(Duration.ofSeconds(5));
+        }
+
+        Disposable first = liveRateStream.subscribe("USD_EUR").subscribe();
+        StepVerifier.create(liveRateStream.subscribe("USD_GBP"))
+                .expectError(SubscriberLimitException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1, liveRateStream.subscribers());
+        first.dispose();
+        assertEquals(0, liveRateStream.subscribers());
+    }
+
+    private static void assertRate(ExchangeRateResponse rate, String source, String target, String expected) {
+        assertEquals(source, rate.getSourceCurrency());
+        assertEquals(target, rate.getTargetCurrency());
+        assertEquals(new BigDecimal(expected), rate.getRate());
+    }
+
+    private static ExchangeRate rate(String source, String target, String rate, LocalDateTime lastUpdated) {
+        return ExchangeRate.builder()
+                .sourceCurrencyCode(source)
+                .targetCurrencyCode(target)
+                .rate(new BigDecimal(rate))
+                .lastUpdated(lastUpdated)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.rate.RateHistory.HistoricalRate;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Pruebas unitarias para las consultas de tasas en un instante pasado del historial de tasas.
+ */
+class RateHistoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final RateHistory rateHistory = new RateHistory(null, new CrossRateEngine("USD"));
+
+    /**
+     * Prueba que la consulta devuelve la última versión que empieza en o antes del instante, aunque
+     * las versiones se registren desordenadas.
+     */
+    @Test
+    void at_ReturnsVersionInForceAtInstant() {
+        // Dado
+        rateHistory.record(List.of(
+                rate("USD", "EUR", "0.93", START.plusHours(2)),
+                rate("USD", "EUR", "0.91", START)));
+        rateHistory.record(List.of(rate("USD", "EUR", "0.92", START.plusHours(1))));
+
+        // Entonces
+        assertNull(rateHistory.at("USD", "EUR", START.minusNanos(1000)));
+        assertEquals(new BigDecimal("0.910000"), rateHistory.at("USD", "EUR", START).rate());
+        assertEquals(new BigDecimal("0.910000"), rateHistory.at("USD", "EUR", START.plusMinutes(59)).rate());
+        HistoricalRate exact = rateHistory.at("USD", "EUR", START.plusHours(1));
+        assertEquals(new BigDecimal("0.920000"), exact.rate());
+        assertEquals(START.plusHours(1), exact.validFrom());
+        assertEquals(RateOrigin.DIRECT, exact.origin());
+        assertEquals(new BigDecimal("0.930000"), rateHistory.at("USD", "EUR", START.plusYears(1)).rate());
+    }
+
+    /**
+     * Prueba que una versión con el mismo inicio de vigencia que otra ya registrada la reemplaza.
+     */
+    @Test
+    void record_SameValidFromReplacesVersion() {
+        // Dado
+        rateHistory.record(List.of(rate("USD", "EUR", "0.91", START)));
+
+        // Cuando
+        rateHistory.record(List.of(rate("USD", "EUR", "0.95", START)));
+
+        // Entonces
+        assertEquals(new BigDecimal("0.950000"), rateHistory.at("USD", "EUR", START.plusDays(1)).rate());
+        assertEquals(1, rateHistory.size());
+    }
+
+    /**
+     * Prueba que los pares sin versiones propias se derivan con los tramos vigentes en el instante:
+     * inversa del par contrario y cruce a través de la moneda pivote.
+     */
+    @Test
+    void at_DerivesInvertedAndCrossRates() {
+        // Dado
+        rateHistory.record(List.of(
+                rate("USD", "PEN", "4", START),
+                rate("USD", "PEN", "3.5", START.plusHours(2)),
+                rate("MXN", "USD", "0.05", START.plusHours(1))));
+
+        // Entonces
+        HistoricalRate inverted = rateHistory.at("PEN", "USD", START.plusHours(1));
+        assertEquals(new BigDecimal("0.250000"), inverted.rate());
+        assertEquals(RateOrigin.INVERTED, inverted.origin());
+        assertNull(inverted.buyRate());
+
+        assertNull(rateHistory.at("MXN", "PEN", START.plusMinutes(30)));
+        HistoricalRate cross = rateHistory.at("MXN", "PEN", START.plusMinutes(90));
+        assertEquals(new BigDecimal("0.200000"), cross.rate());
+        assertEquals(RateOrigin.CROSS, cross.origin());
+        assertEquals(START, cross.validFrom());
+        assertEquals(new BigDecimal("0.175000"), rateHistory.at("MXN", "PEN", START.plusHours(3)).rate());
+        assertEquals(new BigDecimal("5.714286"), rateHistory.at("PEN", "MXN", START.plusHours(3)).rate());
+    }
+
+    private static ExchangeRate rate(String source, String target, String rate, LocalDateTime validFrom) {
+        return ExchangeRate.builder()
+                .sourceCurrencyCode(source)
+                .targetCurrencyCode(target)
+                .rate(new BigDecimal(rate))
+                .lastUpdated(validFrom)
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.ExchangeRateCache;
+import com.example.currency_exchange_service.dto.RateImportResponse;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.repository.ExchangeRateBatchRepository;
+import com.example.currency_exchange_service.repository.ExchangeRateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de integración para la importación masiva de tasas de cambio.
+ */
+@SpringBootTest
+class RateImporterTest {
+
+    @Autowired
+    private RateImporter rateImporter;
+
+    @Autowired
+    private RateMatrix rateMatrix;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private ExchangeRateCache exchangeRateCache;
+
+    @Autowired
+    private ExchangeRateBatchRepository exchangeRateBatchRepository;
+
+    /**
+     * Prueba que un CSV recibido en trozos que cortan las líneas se importa fila a fila: las filas no
+     * válidas se rechazan con su número de línea, la última tasa de un par repetido prevalece y la matriz
+     * publica las tasas importadas.
+     */
+    @Test
+    void importRates_Csv() {
+        // Dado
+        Flux<DataBuffer> content = chunks("sourceCurrencyCode,targetCurrencyCode,rate,buyRate,sellRate\r\n"
+                + "CHF,CNY,7.9,7.8,8.0\r\n"
+                + "chf,XXX,1.0,,\r\n"
+                + "\r\n"
+                + "CNY,CHF,-0.12,,\r\n"
+                + "CNY,CHF,0.126,,\r\n"
+                + "CHF,CNY,8.01,,\r\n"
+                + "CHF,CNY\r\n", 7);
+
+        // Cuando
+        RateImportResponse response = rateImporter.importRates(content, RateImportFormat.CSV).block();
+
+        // Entonces
+        assertEquals(6, response.getRowsRead());
+        assertEquals(3, response.getRowsImported());
+        assertEquals(3, response.getRowsRejected());
+        assertEquals(2, response.getPairsUpdated());
+        assertEquals(List.of(
+                "línea 3: moneda destino desconocida: XXX",
+                "línea 5: la tasa debe ser positiva",
+                "línea 8: se esperaban 5 o 6 columnas y hay 2"), response.getErrors());
+
+        RateMatrixSnapshot snapshot = rateMatrix.current();
+        assertEquals(response.getRateVersion(), snapshot.version());
+        assertEquals(new BigDecimal("8.010000"), snapshot.rate(snapshot.id("CHF"), snapshot.id("CNY")));
+        assertEquals(RateOrigin.DIRECT, snapshot.origin(snapshot.id("CHF"), snapshot.id("CNY")));
+        assertEquals(0, new BigDecimal("0.126").compareTo(
+                exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("CNY", "CHF").block().getRate()));
+    }
+
+    /**
+     * Prueba que importar de nuevo un par actualiza su fila existente y descarta la tasa en caché.
+     */
+    @Test
+    void importRates_NdjsonUpdatesExistingPair() {
+        // Dado
+        rateImporter.importRates(chunks("{\"sourceCurrencyCode\":\"CNY\",\"targetCurrencyCode\":\"CHF\",\"rate\":0.125}\n", 64),
+                RateImportFormat.NDJSON).block();
+        assertEquals(0, new BigDecimal("0.125").compareTo(exchangeRateCache.get("CNY", "CHF").block().getRate()));
+        Long id = exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("CNY", "CHF").block().getId();
+
+        // Cuando
+        RateImportResponse response = rateImporter.importRates(chunks(
+                "{\"sourceCurrencyCode\":\"CNY\",\"targetCurrencyCode\":\"CHF\",\"rate\":0.127,\"buyRate\":0.126}\n"
+                        + "{\"sourceCurrencyCode\":\"CNY\"\n", 16), RateImportFormat.NDJSON).block();
+
+        // Entonces
+        assertEquals(1, response.getRowsImported());
+        assertEquals(1, response.getRowsRejected());
+        assertTrue(response.getErrors().get(0).startsWith("línea 2: JSON no válido"));
+        assertEquals(id, exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("CNY", "CHF").block().getId());
+        assertTrue(id > 18, "las filas nuevas no deben chocar con los ids sembrados");
+        assertEquals(0, new BigDecimal("0.127").compareTo(exchangeRateCache.get("CNY", "CHF").block().getRate()));
+    }
+
+    /**
+     * Prueba que las filas más antiguas que la tasa vigente del par, en la matriz o en una fila anterior del
+     * mismo archivo, se omiten y se cuentan, y que el {@code MERGE} no reemplaza una tasa más reciente.
+     */
+    @Test
+    void importRates_SkipsRowsOlderThanCurrentRate() {
+        // Dado
+        rateImporter.importRates(chunks(
+                "{\"sourceCurrencyCode\":\"MXN\",\"targetCurrencyCode\":\"PEN\",\"rate\":0.20,\"lastUpdated\":\"2024-01-02T00:00:00\"}\n",
+                64), RateImportFormat.NDJSON).block();
+
+        // Cuando
+        RateImportResponse response = rateImporter.importRates(chunks(
+                "{\"sourceCurrencyCode\":\"MXN\",\"targetCurrencyCode\":\"PEN\",\"rate\":0.18,\"lastUpdated\":\"2024-01-01T00:00:00\"}\n"
+                        + "{\"sourceCurrencyCode\":\"MXN\",\"targetCurrencyCode\":\"PEN\",\"rate\":0.21,\"lastUpdated\":\"2024-01-03T00:00:00\"}\n"
+                        + "{\"sourceCurrencyCode\":\"MXN\",\"targetCurrencyCode\":\"PEN\",\"rate\":0.19,\"lastUpdated\":\"2024-01-02T12:00:00\"}\n",
+                64), RateImportFormat.NDJSON).block();
+        exchangeRateBatchRepository.upsert(List.of(ExchangeRate.builder()
+                .sourceCurrencyCode("MXN")
+                .targetCurrencyCode("PEN")
+                .rate(new BigDecimal("0.17"))
+                .lastUpdated(LocalDateTime.of(2023, 1, 1, 0, 0))
+                .build())).block();
+
+        // Entonces
+        assertEquals(3, response.getRowsRead());
+        assertEquals(1, response.getRowsImported());
+        assertEquals(2, response.getRowsStale());
+        assertEquals(0, response.getRowsRejected());
+        RateMatrixSnapshot snapshot = rateMatrix.current();
+        assertEquals(new BigDecimal("0.210000"), snapshot.rate(snapshot.id("MXN"), snapshot.id("PEN")));
+        assertEquals(0, new BigDecimal("0.21").compareTo(
+                exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("MXN", "PEN").block().getRate()));
+    }
+
+    /**
+     * Divide el texto en buffers del tamaño indicado, sin respetar los finales de línea.
+     */
+    private static Flux<DataBuffer> chunks(String text, int size) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return Flux.range(0, (bytes.length + size - 1) / size)
+                .map(i -> DefaultDataBufferFactory.sharedInstance.wrap(
+                        Arrays.copyOfRange(bytes, i * size, Math.min(bytes.length, (i + 1) * size))));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.provider.RateProviderClient;
+import com.example.currency_exchange_service.repository.ExchangeRateHistoryRepository;
+import com.example.currency_exchange_service.repository.ExchangeRateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas de integración para el refresco de tasas desde el proveedor externo.
+ */
+@SpringBootTest
+class RateRefresherTest {
+
+    @Autowired
+    private CurrencyRegistry currencyRegistry;
+
+    @Autowired
+    private RateMatrix rateMatrix;
+
+    @Autowired
+    private RateUpdater rateUpdater;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+
+    /**
+     * Prueba que una tasa que el proveedor informa sin cambios durante más tiempo que la antigüedad máxima del
+     * par se confirma: su antigüedad se mide desde la última confirmación, sin agregar versiones al historial.
+     */
+    @Test
+    void refresh_UnchangedRateAdvancesLastUpdated() {
+        // Dado: USD_MXN escrita hace dos horas, con una antigüedad máxima de una hora
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        RateStalenessPolicy policy = new RateStalenessPolicy(Duration.ZERO, "USD_MXN=1h");
+        rateUpdater.update(List.of(rate("17.05", now.minusHours(2)))).block();
+        assertTrue(policy.exceeds("USD", "MXN", RateStalenessPolicy.ageMillis(lastUpdated(), now)));
+        long versions = historyVersions();
+
+        RateProviderClient rateProviderClient = mock(RateProviderClient.class);
+        when(rateProviderClient.fetchRates(anyString(), any())).thenReturn(Mono.just(List.of(rate("17.05", now))));
+        RateRefresher rateRefresher = new RateRefresher(rateProviderClient, currencyRegistry, rateMatrix, rateUpdater,
+                false, Duration.ofMinutes(1), "USD");
+
+        // Cuando
+        Integer written = rateRefresher.refresh().block();
+
+        // Entonces
+        assertEquals(0, written);
+        assertEquals(now, lastUpdated());
+        assertFalse(policy.exceeds("USD", "MXN", RateStalenessPolicy.ageMillis(lastUpdated(), now)));
+        RateMatrixSnapshot snapshot = rateMatrix.current();
+        assertEquals(new BigDecimal("17.050000"), snapshot.rate(snapshot.id("USD"), snapshot.id("MXN")));
+        assertEquals(now, exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("USD", "MXN").block().getLastUpdated());
+        assertEquals(versions, historyVersions());
+    }
+
+    private LocalDateTime lastUpdated() {
+        RateMatrixSnapshot snapshot = rateMatrix.current();
+        return snapshot.lastUpdated(snapshot.id("USD"), snapshot.id("MXN"));
+    }
+
+    private long historyVersions() {
+        return exchangeRateHistoryRepository.findAll()
+                .filter(rate -> rate.getSourceCurrencyCode().equals("USD") && rate.getTargetCurrencyCode().equals("MXN"))
+                .count()
+                .block();
+    }
+
+    private static ExchangeRate rate(String rate, LocalDateTime lastUpdated) {
+        return ExchangeRate.builder()
+                .sourceCurrencyCode("USD")
+                .targetCurrencyCode("MXN")
+                .rate(new BigDecimal(rate))
+                .lastUpdated(lastUpdated)
+                .build();
+    }
+}
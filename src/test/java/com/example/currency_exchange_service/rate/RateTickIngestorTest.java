@@ -0,0 +1,116 @@
+package com.example.currency_exchange_service.rate;
+
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.cache.ExchangeRateCache;
+import com.example.currency_exchange_service.dto.RateTickBatchResponse;
+import com.example.currency_exchange_service.repository.ExchangeRateRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de integración para la ingesta continua de ticks de tasas de cambio.
+ */
+@SpringBootTest
+class RateTickIngestorTest {
+
+    @Autowired
+    private CurrencyRegistry currencyRegistry;
+
+    @Autowired
+    private RateUpdater rateUpdater;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RateMatrix rateMatrix;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private ExchangeRateCache exchangeRateCache;
+
+    /**
+     * Prueba que en cada ventana solo se escribe el tick más reciente de cada par, que los ticks no
+     * válidos se rechazan sin detener el flujo y que cada ventana publica una instantánea de la matriz.
+     */
+    @Test
+    void ingest_CoalescesTicksPerPairInEachWindow() {
+        // Dado: ventanas de 4 ticks, sin cierre por tiempo
+        RateTickIngestor ingestor = new RateTickIngestor(currencyRegistry, rateUpdater, rateMatrix, objectMapper, Duration.ofMinutes(1), 4);
+        Flux<DataBuffer> content = chunks("{\"sourceCurrencyCode\":\"JPY\",\"targetCurrencyCode\":\"CAD\",\"rate\":0.0090}\n"
+                + "{\"sourceCurrencyCode\":\"jpy\",\"targetCurrencyCode\":\"CAD\",\"rate\":0.0091}\n"
+                + "{\"sourceCurrencyCode\":\"AUD\",\"targetCurrencyCode\":\"CAD\",\"rate\":0.91,\"lastUpdated\":\"2024-01-02T00:00:00\"}\n"
+                + "{\"sourceCurrencyCode\":\"AUD\",\"targetCurrencyCode\":\"CAD\",\"rate\":0.89,\"lastUpdated\":\"2024-01-01T00:00:00\"}\n"
+                + "\n"
+                + "{\"sourceCurrencyCode\":\"JPY\",\"targetCurrencyCode\":\"XXX\",\"rate\":1}\n"
+                + "{\"sourceCurrencyCode\":\"JPY\",\"targetCurrencyCode\":\"CAD\",\"rate\":0.0092}\n", 13);
+
+        // Cuando
+        List<RateTickBatchResponse> windows = ingestor.ingest(content).collectList().block();
+
+        // Entonces
+        assertEquals(2, windows.size());
+        RateTickBatchResponse first = windows.get(0);
+        assertEquals(4, first.getTicksReceived());
+        assertEquals(2, first.getTicksCoalesced());
+        assertEquals(2, first.getPairsUpdated());
+        RateTickBatchResponse second = windows.get(1);
+        assertEquals(2, second.getTicksReceived());
+        assertEquals(1, second.getTicksRejected());
+        assertEquals(List.of("línea 6: moneda destino desconocida: XXX"), second.getErrors());
+        assertTrue(second.getRateVersion() > first.getRateVersion());
+
+        RateMatrixSnapshot snapshot = rateMatrix.current();
+        assertEquals(second.getRateVersion(), snapshot.version());
+        assertEquals(new BigDecimal("0.009200"), snapshot.rate(snapshot.id("JPY"), snapshot.id("CAD")));
+        assertEquals(new BigDecimal("0.910000"), snapshot.rate(snapshot.id("AUD"), snapshot.id("CAD")));
+        assertEquals(0, new BigDecimal("0.91").compareTo(
+                exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("AUD", "CAD").block().getRate()));
+        assertEquals(0, new BigDecimal("0.0092").compareTo(exchangeRateCache.get("JPY", "CAD").block().getRate()));
+    }
+
+    /**
+     * Prueba que una ventana sin ticks válidos no publica una instantánea nueva.
+     */
+    @Test
+    void ingest_OnlyRejectedTicks() {
+        // Dado
+        RateTickIngestor ingestor = new RateTickIngestor(currencyRegistry, rateUpdater, rateMatrix, objectMapper, Duration.ofMinutes(1), 4);
+
+        // Cuando
+        RateTickBatchResponse window = ingestor.ingest(chunks("{\"sourceCurrencyCode\":\"JPY\"\n", 64)).single().block();
+
+        // Entonces
+        assertEquals(1, window.getTicksRejected());
+        assertEquals(0, window.getPairsUpdated());
+        assertTrue(window.getErrors().get(0).startsWith("línea 1: JSON no válido"));
+        assertNull(window.getRateVersion());
+    }
+
+    /**
+     * Divide el texto en buffers del tamaño indicado, sin respetar los finales de línea.
+     */
+    private static Flux<DataBuffer> chunks(String text, int size) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return Flux.range(0, (bytes.length + size - 1) / size)
+                .map(i -> DefaultDataBufferFactory.sharedInstance.wrap(
+                        Arrays.copyOfRange(bytes, i * size, Math.min(bytes.length, (i + 1) * size))));
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.currency_exchange_service.repository;
+
+import com.example.currency_exchange_service.model.ConversionHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindTarget;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.currency_exchange_service.model.ConversionHistories.history;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de integración para las consultas del historial con filtros dinámicos.
+ */
+@SpringBootTest
+class ConversionHistoryRepositoryTest {
+
+    // Fechas fuera del rango de otras pruebas para no mezclar registros
+    private static final LocalDateTime BASE = LocalDateTime.of(1990, 1, 1, 0, 0);
+
+    @Autowired
+    private ConversionHistoryRepository conversionHistoryRepository;
+
+    @Autowired
+    private R2dbcEntityTemplate template;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Guarda registros de prueba en días consecutivos.
+     */
+    @BeforeEach
+    void setUp() {
+        conversionHistoryRepository.deleteAll(conversionHistoryRepository.findByFilters(null, null, BASE, BASE.plusDays(10)))
+                .thenMany(conversionHistoryRepository.saveAll(List.of(
+                        history("USD", "EUR", BASE.plusDays(1)),
+                        history("USD", "EUR", BASE.plusDays(2)),
+                        history("USD", "PEN", BASE.plusDays(3)),
+                        history("EUR", "USD", BASE.plusDays(4)))))
+                .blockLast();
+    }
+
+    /**
+     * Prueba el filtro por par de monedas y rango de fechas, con los resultados del más reciente al más antiguo.
+     */
+    @Test
+    void findByFilters_PairAndDateRange() {
+        StepVerifier.create(conversionHistoryRepository.findByFilters("USD", "EUR", BASE, BASE.plusDays(10)))
+                .expectNextMatches(history -> history.getConversionDate().equals(BASE.plusDays(2)))
+                .expectNextMatches(history -> history.getConversionDate().equals(BASE.plusDays(1)))
+                .verifyComplete();
+    }
+
+    /**
+     * Prueba combinaciones parciales de filtros.
+     */
+    @Test
+    void findByFilters_PartialFilters() {
+        StepVerifier.create(conversionHistoryRepository.findByFilters("USD", null, BASE.plusDays(2), BASE.plusDays(10)))
+                .expectNextCount(2)
+                .verifyComplete();
+        StepVerifier.create(conversionHistoryRepository.findByFilters(null, "USD", BASE, BASE.plusDays(10)))
+                .expectNextMatches(history -> history.getSourceCurrencyCode().equals("EUR"))
+                .verifyComplete();
+        StepVerifier.create(conversionHistoryRepository.findByFilters(null, null, BASE.plusDays(3), BASE.plusDays(3)))
+                .expectNextMatches(history -> history.getTargetCurrencyCode().equals("PEN"))
+                .verifyComplete();
+    }
+
+    /**
+     * Prueba que la paginación por clave recorre todos los registros una sola vez, incluidos los que
+     * comparten la misma fecha, en orden (conversion_date, id) descendente.
+     */
+    @Test
+    void findPage_KeysetPagination() {
+        // Dado
+        conversionHistoryRepository.saveAll(List.of(
+                        history("GBP", "USD", BASE.plusDays(5)),
+                        history("GBP", "USD", BASE.plusDays(5)),
+                        history("GBP", "USD", BASE.plusDays(5))))
+                .blockLast();
+
+        // Cuando
+        List<ConversionHistory> first = conversionHistoryRepository
+                .findPage(null, null, BASE, BASE.plusDays(10), null, null, 3).collectList().block();
+        ConversionHistory last = first.get(first.size() - 1);
+        List<ConversionHistory> second = conversionHistoryRepository
+                .findPage(null, null, BASE, BASE.plusDays(10), last.getConversionDate(), last.getId(), 10)
+                .collectList().block();
+
+        // Entonces
+        assertEquals(3, first.size());
+        assertTrue(first.stream().allMatch(history -> history.getConversionDate().equals(BASE.plusDays(5))));
+        assertEquals(4, second.size());
+        assertEquals(BASE.plusDays(4), second.get(0).getConversionDate());
+        assertTrue(first.get(0).getId() > first.get(1).getId() && first.get(1).getId() > first.get(2).getId());
+    }
+
+    /**
+     * Prueba que el historial de un usuario solo incluye sus conversiones y se pagina por clave.
+     */
+    @Test
+    void findUserPage_OnlyUserConversions() {
+        // Dado
+        ConversionHistory other = history("USD", "EUR", BASE.plusDays(6));
+        other.setUserId("repo-test-other");
+        List<ConversionHistory> own = List.of(history("USD", "EUR", BASE.plusDays(6)), history("EUR", "PEN", BASE.plusDays(7)));
+        own.forEach(history -> history.setUserId("repo-test-user"));
+        conversionHistoryRepository.saveAll(List.of(own.get(0), own.get(1), other)).blockLast();
+
+        // Cuando
+        List<ConversionHistory> first = conversionHistoryRepository
+                .findUserPage("repo-test-user", BASE, BASE.plusDays(10), null, null, 1).collectList().block();
+        List<ConversionHistory> second = conversionHistoryRepository
+                .findUserPage("repo-test-user", BASE, BASE.plusDays(10), first.get(0).getConversionDate(), first.get(0).getId(), 10)
+                .collectList().block();
+
+        // Entonces
+        assertEquals(1, first.size());
+        assertEquals("PEN", first.get(0).getTargetCurrencyCode());
+        assertEquals(1, second.size());
+        assertEquals(BASE.plusDays(6), second.get(0).getConversionDate());
+        StepVerifier.create(conversionHistoryRepository.findByUser("repo-test-user", BASE.plusDays(7), null))
+                .expectNextMatches(history -> history.getUserId().equals("repo-test-user"))
+                .verifyComplete();
+    }
+
+    /**
+     * Prueba que la continuación de la paginación por clave se resuelve como un rango del índice por fecha
+     * y no recorriendo la tabla completa.
+     */
+    @Test
+    void findPage_ContinuationUsesDateIndexRange() {
+        // Dado
+        Criteria criteria = ConversionHistoryQueriesImpl.after(Criteria.empty(), BASE.plusDays(3), 10L);
+        StatementMapper statementMapper = template.getDataAccessStrategy().getStatementMapper().forType(ConversionHistory.class);
+        PreparedOperation<?> select = statementMapper.getMappedObject(statementMapper.createSelect("conversion_history")
+                .withProjection("*")
+                .withCriteria(criteria)
+                .withSort(Sort.by(Sort.Order.desc("conversionDate"), Sort.Order.desc("id")))
+                .limit(10));
+
+        // Cuando
+        String plan = databaseClient.sql(explain(select)).map(row -> row.get(0, String.class)).one().block();
+
+        // Entonces
+        assertTrue(plan.contains("IDX_CONVERSION_HISTORY_DATE: CONVERSION_DATE <="), plan);
+    }
+
+    private static PreparedOperation<Object> explain(PreparedOperation<?> select) {
+        return new PreparedOperation<>() {
+            @Override
+            public Object getSource() {
+                return select.getSource();
+            }
+
+            @Override
+            public void bindTo(BindTarget target) {
+                select.bindTo(target);
+            }
+
+            @Override
+            public String toQuery() {
+                return "EXPLAIN " + select.toQuery();
+            }
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.currency_exchange_service.rollup;
+
+import com.example.currency_exchange_service.model.ConversionHistories;
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.repository.ConversionRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas de integración para los agregados incrementales de volumen de conversiones.
+ */
+@SpringBootTest
+class ConversionRollupsTest {
+
+    // Fechas fuera del rango de otras pruebas para no mezclar agregados
+    private static final LocalDateTime BASE = LocalDateTime.of(1980, 6, 1, 10, 0);
+
+    @Autowired
+    private ConversionRollups conversionRollups;
+
+    /**
+     * Prueba que los agregados incluyen los incrementos pendientes, se conservan al vaciarse a la tabla
+     * y se suman a los incrementos posteriores del mismo intervalo.
+     */
+    @Test
+    void onRecorded_AggregatesArePendingThenFlushedAndMerged() {
+        // Dado
+        conversionRollups.onRecorded(List.of(
+                history("100", "93.00", BASE.plusMinutes(1)),
+                history("2000000.5", "1860000.47", BASE.plusMinutes(2)),
+                history("50", "46.50", BASE.plusHours(1))));
+
+        // Cuando y Entonces
+        StepVerifier.create(conversionRollups.query(RollupGranularity.HOUR, "USD", "EUR", BASE, BASE.plusHours(1)))
+                .expectNextMatches(rollup -> matches(rollup, BASE, 2, "2000100.5", "1860093.47", "100", "2000000.5"))
+                .expectNextMatches(rollup -> matches(rollup, BASE.plusHours(1), 1, "50", "46.50", "50", "50"))
+                .verifyComplete();
+
+        StepVerifier.create(conversionRollups.flush()).verifyComplete();
+        conversionRollups.onRecorded(List.of(history("10", "9.30", BASE.plusMinutes(30))));
+
+        StepVerifier.create(conversionRollups.query(RollupGranularity.DAY, "USD", null, BASE, BASE))
+                .expectNextMatches(rollup -> matches(rollup, BASE.toLocalDate().atStartOfDay(), 4,
+                        "2000160.5", "1860149.27", "10", "2000000.5"))
+                .verifyComplete();
+        StepVerifier.create(conversionRollups.flush()).verifyComplete();
+        StepVerifier.create(conversionRollups.query(RollupGranularity.MINUTE, null, "EUR", BASE, BASE.plusMinutes(59)))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    /**
+     * Prueba que una consulta durante un vaciado no cuenta dos veces los incrementos que la sentencia
+     * {@code MERGE} ya hizo visibles en la tabla antes de terminar.
+     */
+    @Test
+    void query_DuringFlushCountsEachConversionOnce() {
+        // Dado: una tabla en memoria cuyo MERGE se confirma antes de que la sentencia termine
+        Map<RollupKey, RollupDelta> table = new ConcurrentHashMap<>();
+        Sinks.One<Long> merged = Sinks.one();
+        ConversionRollupRepository repository = mock(ConversionRollupRepository.class);
+        when(repository.merge(anyList())).thenAnswer(invocation -> {
+            List<RollupDelta> chunk = invocation.getArgument(0);
+            return Mono.fromRunnable(() -> chunk.forEach(delta -> table.merge(delta.key(), delta, RollupDelta::merge)))
+                    .then(merged.asMono());
+        });
+        when(repository.findByFilters(any(), any(), any(), any(), any())).thenAnswer(invocation -> Flux.defer(() ->
+                Flux.fromIterable(table.values()).filter(delta -> delta.key().granularity() == invocation.getArgument(0))));
+        ConversionRollups rollups = new ConversionRollups(repository, Duration.ofHours(1));
+        rollups.onRecorded(List.of(history("100", "93.00", BASE), history("50", "46.50", BASE.plusMinutes(1))));
+        Disposable flush = rollups.flush().subscribe();
+
+        // Cuando y Entonces
+        StepVerifier.create(rollups.query(RollupGranularity.HOUR, "USD", "EUR", null, null))
+                .then(() -> merged.tryEmitValue(1L))
+                .expectNextMatches(rollup -> matches(rollup, BASE, 2, "150", "139.50", "50", "100"))
+                .verifyComplete();
+        assertTrue(flush.isDisposed());
+    }
+
+    /**
+     * Prueba que una consulta cuya lectura de la tabla tarda más que el intervalo entre vaciados termina,
+     * y sin contar dos veces, aunque sigan llegando conversiones y vaciándose.
+     */
+    @Test
+    void query_SlowerThanFlushesCompletes() {
+        // Dado: una tabla en memoria que tarda en leerse y vaciados continuos de otro intervalo
+        Map<RollupKey, RollupDelta> table = new ConcurrentHashMap<>();
+        ConversionRollupRepository repository = mock(ConversionRollupRepository.class);
+        when(repository.merge(anyList())).thenAnswer(invocation -> {
+            List<RollupDelta> chunk = invocation.getArgument(0);
+            return Mono.fromCallable(() -> {
+                chunk.forEach(delta -> table.merge(delta.key(), delta, RollupDelta::merge));
+                return (long) chunk.size();
+            });
+        });
+        when(repository.findByFilters(any(), any(), any(), any(), any())).thenAnswer(invocation -> Flux.defer(() ->
+                        Flux.fromIterable(List.copyOf(table.values()))
+                                .filter(delta -> delta.key().granularity() == invocation.getArgument(0))
+                                .filter(delta -> delta.key().bucket().equals(BASE)))
+                .delaySubscription(Duration.ofMillis(30)));
+        ConversionRollups rollups = new ConversionRollups(repository, Duration.ofHours(1));
+        rollups.onRecorded(List.of(history("100", "93.00", BASE), history("50", "46.50", BASE.plusMinutes(1))));
+        Disposable writes = Flux.interval(Duration.ofMillis(2))
+                .onBackpressureDrop()
+                .concatMap(tick -> {
+                    rollups.onRecorded(List.of(history("10", "9.30", BASE.plusHours(2))));
+                    return rollups.flush();
+                })
+                .subscribe();
+
+        try {
+            // Cuando y Entonces
+            StepVerifier.create(rollups.query(RollupGranularity.HOUR, "USD", "EUR", BASE, BASE))
+                    .expectNextMatches(rollup -> matches(rollup, BASE, 2, "150", "139.50", "50", "100"))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(5));
+        } finally {
+            writes.dispose();
+        }
+    }
+
+    private static boolean matches(RollupDelta rollup, LocalDateTime bucket, long count, String originalSum,
+                                   String convertedSum, String min, String max) {
+        return rollup.key().bucket().equals(bucket)
+                && rollup.count() == count
+                && rollup.originalSum().compareTo(new BigDecimal(originalSum)) == 0
+                && rollup.convertedSum().compareTo(new BigDecimal(convertedSum)) == 0
+                && rollup.originalMin().compareTo(new BigDecimal(min)) == 0
+                && rollup.originalMax().compareTo(new BigDecimal(max)) == 0;
+    }
+
+    private static ConversionHistory history(String original, String converted, LocalDateTime conversionDate) {
+        return ConversionHistories.builder("USD", "EUR", conversionDate)
+                .originalAmount(new BigDecimal(original))
+                .convertedAmount(new BigDecimal(converted))
+                .build();
+    }
+}
@@ -1,27 +1,59 @@
 package com.example.currency_exchange_service.service;
 
+import com.example.currency_exchange_service.cache.CurrencyRegistry;
+import com.example.currency_exchange_service.cache.ExchangeRateCache;
+import com.example.currency_exchange_service.dto.ConversionHistoryPage;
+import com.example.currency_exchange_service.dto.ConversionHistoryResponse;
 import com.example.currency_exchange_service.dto.CurrencyExchangeRequest;
 import com.example.currency_exchange_service.dto.CurrencyExchangeResponse;
 import com.example.currency_exchange_service.exception.CurrencyNotFoundException;
 import com.example.currency_exchange_service.exception.ExchangeRateNotFoundException;
+import com.example.currency_exchange_service.exception.InvalidCursorException;
+import com.example.currency_exchange_service.exception.StaleRateException;
+import com.example.currency_exchange_service.history.ConversionHistoryWriter;
+import com.example.currency_exchange_service.history.HistoryArchive;
+import com.example.currency_exchange_service.metrics.ConversionMetrics;
+import com.example.currency_exchange_service.model.ConversionHistories;
+import com.example.currency_exchange_service.model.ConversionHistory;
 import com.example.currency_exchange_service.model.Currency;
 import com.example.currency_exchange_service.model.ExchangeRate;
+import com.example.currency_exchange_service.rate.CrossRateEngine;
+import com.example.currency_exchange_service.rate.RateHistory;
+import com.example.currency_exchange_service.rate.RateMatrix;
+import com.example.currency_exchange_service.rate.RateStalenessPolicy;
+import com.example.currency_exchange_service.repository.ConversionHistoryRepository;
 import com.example.currency_exchange_service.repository.CurrencyRepository;
 import com.example.currency_exchange_service.repository.ExchangeRateRepository;
+import com.example.currency_exchange_service.security.RequestOrigin;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
-
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -36,9 +68,19 @@ class CurrencyExchangeServiceImplTest {
     @Mock
     private ExchangeRateRepository exchangeRateRepository;
 
-    // Ya no necesitamos el circuit breaker
+    @Mock
+    private ConversionHistoryRepository conversionHistoryRepository;
 
-    @InjectMocks
+    @Mock
+    private ConversionHistoryWriter conversionHistoryWriter;
+
+    private CurrencyRegistry currencyRegistry;
+    private SimpleMeterRegistry meterRegistry;
+    private RateMatrix rateMatrix;
+    private RateHistory rateHistory;
+    private ConversionMetrics conversionMetrics;
+    private ExchangeRateCache exchangeRateCache;
+    private HistoryArchive historyArchive;
     private CurrencyExchangeServiceImpl currencyExchangeService;
 
     private Currency usdCurrency;
@@ -51,6 +93,21 @@ class CurrencyExchangeServiceImplTest {
      */
     @BeforeEach
     void setUp() {
+        currencyRegistry = new CurrencyRegistry(currencyRepository, event -> { }, Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        conversionMetrics = new ConversionMetrics(meterRegistry, currencyRegistry, 50);
+        exchangeRateCache = new ExchangeRateCache(currencyRepository, currencyRegistry,
+                exchangeRateRepository, conversionMetrics, 100, Duration.ofMinutes(5), Duration.ofMinutes(4), Duration.ofSeconds(5),
+                Duration.ofMillis(100), Duration.ofHours(1));
+        rateMatrix = new RateMatrix(currencyRegistry, exchangeRateRepository, new CrossRateEngine("USD"));
+        // Sin segmentos cargados: las consultas del historial solo leen el repositorio simulado
+        historyArchive = new HistoryArchive(conversionHistoryRepository, false, Duration.ofDays(90),
+                Duration.ofHours(1), Path.of("target/test-archive"), 1000, 100);
+        rateHistory = new RateHistory(null, new CrossRateEngine("USD"));
+        currencyExchangeService = service(new RateStalenessPolicy(Duration.ZERO, ""));
+        lenient().when(conversionHistoryWriter.enqueue(any(ConversionHistory.class))).thenReturn(Mono.empty());
+        lenient().when(conversionHistoryWriter.enqueueAll(anyList())).thenReturn(Mono.empty());
+
         usdCurrency = Currency.builder()
                 .id(1L)
                 .code("USD")
@@ -76,8 +133,12 @@ class CurrencyExchangeServiceImplTest {
                 .sourceCurrency("USD")
                 .targetCurrency("EUR")
                 .build();
+    }
 
-        // Ya no necesitamos configurar el circuit breaker
+    private CurrencyExchangeServiceImpl service(RateStalenessPolicy rateStalenessPolicy) {
+        return new CurrencyExchangeServiceImpl(rateMatrix, rateHistory, rateStalenessPolicy, exchangeRateCache,
+                conversionHistoryRepository, conversionHistoryWriter, historyArchive, conversionMetrics, Duration.ofSeconds(5),
+                CurrencyExchangeServiceImpl.Arithmetic.FIXED_POINT);
     }
 
     /**
@@ -108,6 +169,29 @@ class CurrencyExchangeServiceImplTest {
                 .verifyComplete();
     }
 
+    /**
+     * Prueba que el registro del historial incluye el usuario autenticado y la IP de la solicitud.
+     */
+    @Test
+    void convertCurrency_RecordsRequestOrigin() {
+        // Dado
+        when(currencyRepository.findByCode("USD")).thenReturn(Mono.just(usdCurrency));
+        when(currencyRepository.findByCode("EUR")).thenReturn(Mono.just(eurCurrency));
+        when(exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("USD", "EUR"))
+                .thenReturn(Mono.just(usdToEurRate));
+
+        // Cuando
+        Mono<CurrencyExchangeResponse> result = currencyExchangeService.convertCurrency(request)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                        new UsernamePasswordAuthenticationToken("ana", null, List.of())))
+                .contextWrite(RequestOrigin.withIpAddress("10.0.0.7"));
+
+        // Entonces
+        StepVerifier.create(result).expectNextCount(1).verifyComplete();
+        verify(conversionHistoryWriter).enqueue(argThat(history ->
+                "ana".equals(history.getUserId()) && "10.0.0.7".equals(history.getIpAddress())));
+    }
+
     /**
      * Prueba el error cuando no se encuentra la moneda origen.
      */
@@ -210,4 +294,281 @@ class CurrencyExchangeServiceImplTest {
                         response.getExchangeRate().equals(new BigDecimal("0.93")))
                 .verifyComplete();
     }
+
+    /**
+     * Prueba que la tasa en caché se reutiliza para montos distintos del mismo par.
+     */
+    @Test
+    void convertCurrency_CacheIsKeyedByPair() {
+        // Dado
+        when(currencyRepository.findByCode("USD")).thenReturn(Mono.just(usdCurrency));
+        when(currencyRepository.findByCode("EUR")).thenReturn(Mono.just(eurCurrency));
+        when(exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("USD", "EUR"))
+                .thenReturn(Mono.just(usdToEurRate));
+
+        CurrencyExchangeRequest otherAmount = CurrencyExchangeRequest.builder()
+                .amount(new BigDecimal("250"))
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .build();
+
+        // Cuando
+        StepVerifier.create(currencyExchangeService.convertCurrency(request))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // Entonces: la segunda conversión no valida monedas ni consulta la tasa
+        StepVerifier.create(currencyExchangeService.convertCurrency(otherAmount))
+                .expectNextMatches(response -> response.getConvertedAmount().equals(new BigDecimal("232.50")))
+                .verifyComplete();
+
+        verify(currencyRepository, times(1)).findByCode("USD");
+        verify(exchangeRateRepository, times(1)).findBySourceCurrencyCodeAndTargetCurrencyCode("USD", "EUR");
+    }
+
+    /**
+     * Prueba que con la matriz de tasas cargada la conversión no consulta la base de datos
+     * e informa la versión de la instantánea utilizada.
+     */
+    @Test
+    void convertCurrency_ServedFromRateMatrix() {
+        // Dado
+        currencyRegistry.update(List.of("USD", "EUR"));
+        long version = rateMatrix.apply(List.of(usdToEurRate)).version();
+
+        // Cuando y Entonces
+        StepVerifier.create(currencyExchangeService.convertCurrency(request))
+                .expectNextMatches(response ->
+                        response.getConvertedAmount().equals(new BigDecimal("93.00")) &&
+                        response.getExchangeRate().compareTo(new BigDecimal("0.93")) == 0 &&
+                        response.getRateVersion() == version)
+                .verifyComplete();
+
+        verifyNoInteractions(currencyRepository, exchangeRateRepository);
+    }
+
+    /**
+     * Prueba que, si la base de datos no responde dentro del presupuesto de latencia, se sirve de inmediato
+     * el último valor conocido marcado como obsoleto, y que la carga sigue en segundo plano para las
+     * conversiones siguientes.
+     */
+    @Test
+    void convertCurrency_ServesLastKnownRateWhenDatabaseIsSlow() {
+        // Dado: la tasa se cargó una vez y luego se descartó de la caché
+        when(currencyRepository.findByCode("USD")).thenReturn(Mono.just(usdCurrency));
+        when(currencyRepository.findByCode("EUR")).thenReturn(Mono.just(eurCurrency));
+        ExchangeRate updatedRate = ExchangeRate.builder()
+                .sourceCurrencyCode("USD")
+                .targetCurrencyCode("EUR")
+                .rate(new BigDecimal("0.95"))
+                .lastUpdated(LocalDateTime.now())
+                .build();
+        when(exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("USD", "EUR"))
+                .thenReturn(Mono.just(usdToEurRate))
+                .thenReturn(Mono.just(updatedRate).delayElement(Duration.ofMillis(500)));
+        StepVerifier.create(currencyExchangeService.convertCurrency(request))
+                .expectNextMatches(response -> !response.isStale())
+                .verifyComplete();
+        exchangeRateCache.invalidate("USD", "EUR");
+
+        // Cuando: la base de datos tarda más que el presupuesto de 100 ms
+        StepVerifier.create(currencyExchangeService.convertCurrency(request))
+                // Entonces
+                .expectNextMatches(response -> response.isStale()
+                        && response.getExchangeRate().compareTo(new BigDecimal("0.93")) == 0
+                        && response.getRateAgeMillis() != null)
+                .expectComplete()
+                .verify(Duration.ofMillis(400));
+        assertEquals(1, meterRegistry.get("currency.conversion.stale").counter().count());
+
+        StepVerifier.create(Mono.delay(Duration.ofMillis(600)).then(currencyExchangeService.convertCurrency(request)))
+                .expectNextMatches(response -> !response.isStale()
+                        && response.getExchangeRate().compareTo(new BigDecimal("0.95")) == 0)
+                .verifyComplete();
+        verify(exchangeRateRepository, times(2)).findBySourceCurrencyCodeAndTargetCurrencyCode("USD", "EUR");
+    }
+
+    /**
+     * Prueba que se rechaza una tasa que supera la antigüedad máxima de su par y se informa la antigüedad
+     * de las que no la superan.
+     */
+    @Test
+    void convertCurrency_RejectsRateOlderThanPairMaxAge() {
+        // Dado
+        CurrencyExchangeServiceImpl service = service(new RateStalenessPolicy(Duration.ZERO, "usd_eur=1m"));
+        currencyRegistry.update(List.of("USD", "EUR", "GBP"));
+        rateMatrix.apply(List.of(
+                ExchangeRate.builder().sourceCurrencyCode("USD").targetCurrencyCode("EUR")
+                        .rate(new BigDecimal("0.93")).lastUpdated(LocalDateTime.now().minusMinutes(2)).build(),
+                ExchangeRate.builder().sourceCurrencyCode("USD").targetCurrencyCode("GBP")
+                        .rate(new BigDecimal("0.79")).lastUpdated(LocalDateTime.now().minusMinutes(2)).build()));
+        CurrencyExchangeRequest toPound = CurrencyExchangeRequest.builder()
+                .amount(new BigDecimal("100"))
+                .sourceCurrency("USD")
+                .targetCurrency("GBP")
+                .build();
+
+        // Cuando y Entonces: USD_EUR admite 1 minuto; USD_GBP no tiene límite
+        StepVerifier.create(service.convertCurrency(request))
+                .expectError(StaleRateException.class)
+                .verify();
+        StepVerifier.create(service.convertCurrency(toPound))
+                .expectNextMatches(response -> !response.isStale() && response.getRateAgeMillis() >= 120_000)
+                .verifyComplete();
+    }
+
+    /**
+     * Prueba que una conversión con fecha usa la tasa vigente en ese instante según el historial de tasas,
+     * sin consultar la base de datos, y que antes de la primera versión no hay tasa.
+     */
+    @Test
+    void convertCurrency_AsOfUsesRateHistory() {
+        // Dado
+        LocalDateTime validFrom = LocalDateTime.of(2024, 3, 1, 12, 0);
+        rateHistory.record(List.of(
+                ExchangeRate.builder().sourceCurrencyCode("USD").targetCurrencyCode("EUR")
+                        .rate(new BigDecimal("0.90")).lastUpdated(validFrom).build(),
+                ExchangeRate.builder().sourceCurrencyCode("USD").targetCurrencyCode("EUR")
+                        .rate(new BigDecimal("0.95")).lastUpdated(validFrom.plusDays(1)).build()));
+        request.setAsOf(validFrom.plusHours(6));
+
+        // Cuando y Entonces
+        StepVerifier.create(currencyExchangeService.convertCurrency(request))
+                .expectNextMatches(response ->
+                        response.getConvertedAmount().equals(new BigDecimal("90.00")) &&
+                        response.getExchangeRate().compareTo(new BigDecimal("0.90")) == 0 &&
+                        response.getRateVersion() == null)
+                .verifyComplete();
+
+        request.setAsOf(validFrom.minusSeconds(1));
+        StepVerifier.create(currencyExchangeService.convertCurrency(request))
+                .expectError(ExchangeRateNotFoundException.class)
+                .verify();
+
+        verifyNoInteractions(currencyRepository, exchangeRateRepository);
+    }
+
+    /**
+     * Prueba que la conversión por lotes conserva el orden, resuelve cada par una sola vez
+     * y encola el historial en grupo.
+     */
+    @Test
+    void convertBatch_ResolvesEachPairOnce() {
+        // Dado
+        when(currencyRepository.findByCode("USD")).thenReturn(Mono.just(usdCurrency));
+        when(currencyRepository.findByCode("EUR")).thenReturn(Mono.just(eurCurrency));
+        when(exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("USD", "EUR"))
+                .thenReturn(Mono.just(usdToEurRate));
+
+        Flux<CurrencyExchangeRequest> requests = Flux.range(1, 5)
+                .map(i -> CurrencyExchangeRequest.builder()
+                        .amount(BigDecimal.valueOf(i * 100L))
+                        .sourceCurrency("USD")
+                        .targetCurrency("EUR")
+                        .build());
+
+        // Cuando y Entonces
+        StepVerifier.create(currencyExchangeService.convertBatch(requests))
+                .expectNextMatches(response -> response.getConvertedAmount().equals(new BigDecimal("93.00")))
+                .expectNextMatches(response -> response.getConvertedAmount().equals(new BigDecimal("186.00")))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        verify(exchangeRateRepository, times(1)).findBySourceCurrencyCodeAndTargetCurrencyCode("USD", "EUR");
+        verify(conversionHistoryWriter, times(1)).enqueueAll(anyList());
+    }
+
+    /**
+     * Prueba que una solicitud fallida del lote se responde con un registro de error, sin interrumpir el
+     * lote ni guardarse en el historial.
+     */
+    @Test
+    void convertBatch_FailingItemEmitsErrorRecordAndContinues() {
+        // Dado
+        when(currencyRepository.findByCode("USD")).thenReturn(Mono.just(usdCurrency));
+        when(currencyRepository.findByCode("EUR")).thenReturn(Mono.just(eurCurrency));
+        when(currencyRepository.findByCode("XXX")).thenReturn(Mono.empty());
+        when(exchangeRateRepository.findBySourceCurrencyCodeAndTargetCurrencyCode("USD", "EUR"))
+                .thenReturn(Mono.just(usdToEurRate));
+
+        Flux<CurrencyExchangeRequest> requests = Flux.just("EUR", "XXX", "EUR")
+                .map(target -> CurrencyExchangeRequest.builder()
+                        .amount(BigDecimal.valueOf(100))
+                        .sourceCurrency("USD")
+                        .targetCurrency(target)
+                        .build());
+
+        // Cuando y Entonces
+        StepVerifier.create(currencyExchangeService.convertBatch(requests))
+                .expectNextMatches(response -> response.getError() == null
+                        && response.getConvertedAmount().equals(new BigDecimal("93.00")))
+                .expectNextMatches(response -> response.getTargetCurrency().equals("XXX")
+                        && response.getConvertedAmount() == null
+                        && "Moneda destino no encontrada: XXX".equals(response.getError()))
+                .expectNextMatches(response -> response.getError() == null)
+                .verifyComplete();
+
+        verify(conversionHistoryWriter).enqueueAll(argThat(histories -> histories.size() == 2));
+    }
+
+    /**
+     * Prueba que, con el registro de monedas cargado, un código desconocido se rechaza
+     * sin consultar la base de datos.
+     */
+    @Test
+    void convertCurrency_UnknownCurrencyRejectedByRegistry() {
+        // Dado
+        currencyRegistry.update(List.of("USD", "PEN"));
+
+        // Cuando
+        Mono<CurrencyExchangeResponse> result = currencyExchangeService.convertCurrency(request);
+
+        // Entonces
+        StepVerifier.create(result)
+                .expectErrorMatches(throwable ->
+                        throwable instanceof CurrencyNotFoundException &&
+                        throwable.getMessage().equals("Moneda destino no encontrada: EUR"))
+                .verify();
+        verifyNoInteractions(currencyRepository, exchangeRateRepository);
+    }
+
+    /**
+     * Prueba que la página del historial incluye el cursor de la página siguiente solo cuando hay más
+     * resultados, y que el cursor se traduce en la posición de continuación de la consulta.
+     */
+    @Test
+    void getConversionHistoryPage_ReturnsCursorForNextPage() {
+        // Dado
+        LocalDateTime date = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        when(conversionHistoryRepository.findPage(null, null, null, null, null, null, 3))
+                .thenReturn(Flux.just(history(30L, date), history(20L, date), history(10L, date)));
+        when(conversionHistoryRepository.findPage(null, null, null, null, date, 20L, 3))
+                .thenReturn(Flux.just(history(10L, date)));
+
+        // Cuando
+        ConversionHistoryPage first = currencyExchangeService
+                .getConversionHistoryPage(null, null, null, null, null, 2).block();
+        ConversionHistoryPage second = currencyExchangeService
+                .getConversionHistoryPage(null, null, null, null, first.getNextCursor(), 2).block();
+
+        // Entonces
+        assertEquals(List.of(30L, 20L), first.getItems().stream().map(ConversionHistoryResponse::getId).toList());
+        assertEquals(List.of(10L), second.getItems().stream().map(ConversionHistoryResponse::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    /**
+     * Prueba que un cursor inválido se rechaza sin consultar la base de datos.
+     */
+    @Test
+    void getConversionHistoryPage_InvalidCursor() {
+        StepVerifier.create(currencyExchangeService.getConversionHistoryPage(null, null, null, null, "no-es-un-cursor", 10))
+                .expectError(InvalidCursorException.class)
+                .verify();
+        verifyNoInteractions(conversionHistoryRepository);
+    }
+
+    private static ConversionHistory history(Long id, LocalDateTime conversionDate) {
+        return ConversionHistories.builder("USD", "EUR", conversionDate).id(id).build();
+    }
 }
@@ -0,0 +1,137 @@
+package com.example.currency_exchange_service.sketch;
+
+import com.example.currency_exchange_service.model.ConversionHistories;
+import com.example.currency_exchange_service.model.ConversionHistory;
+import com.example.currency_exchange_service.rollup.RollupGranularity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas unitarias para los sketches de distribución de las conversiones por par y ventana.
+ */
+class ConversionSketchesTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Prueba que los percentiles quedan dentro del error relativo del sketch y que los usuarios e IPs
+     * distintos se estiman con un error pequeño, por ventana y combinando ventanas.
+     */
+    @Test
+    void query_EstimatesPercentilesAndDistinctCounts() {
+        // Dado
+        ConversionSketches sketches = sketches(directory.resolve("sketches.bin"));
+        List<ConversionHistory> histories = new ArrayList<>();
+        for (int i = 1; i <= 10_000; i++) {
+            histories.add(history(i, "user-" + (i % 2_000), "10.0." + (i % 50) + ".1",
+                    BASE.plusMinutes(i % 2 == 0 ? 5 : 65)));
+        }
+        sketches.onRecorded(histories);
+
+        // Cuando
+        List<AmountDistribution> hourly = sketches.query(RollupGranularity.HOUR, "USD", "EUR", null, null, false)
+                .collectList().block();
+        AmountDistribution combined = sketches.query(RollupGranularity.HOUR, null, null, BASE, BASE.plusHours(1), true)
+                .single().block();
+
+        // Entonces
+        assertEquals(2, hourly.size());
+        assertEquals(BASE, hourly.get(0).key().bucket());
+        assertEquals(BASE.plusHours(1), hourly.get(0).bucketEnd());
+        assertEquals(5_000, hourly.get(0).count());
+
+        assertEquals(10_000, combined.count());
+        assertEquals(BASE, combined.key().bucket());
+        assertEquals(BASE.plusHours(2), combined.bucketEnd());
+        assertWithin(5_000, combined.p50(), 0.01);
+        assertWithin(9_500, combined.p95(), 0.01);
+        assertWithin(9_900, combined.p99(), 0.01);
+        assertEquals(0, new BigDecimal("1").compareTo(combined.min()));
+        assertEquals(0, new BigDecimal("10000").compareTo(combined.max()));
+        assertWithin(2_000, BigDecimal.valueOf(combined.distinctUsers()), 0.05);
+        assertWithin(50, BigDecimal.valueOf(combined.distinctIpAddresses()), 0.05);
+    }
+
+    /**
+     * Prueba que cada granularidad conserva solo sus ventanas más recientes y descarta las conversiones
+     * anteriores a ellas.
+     */
+    @Test
+    void onRecorded_KeepsOnlyMostRecentWindows() {
+        // Dado
+        ConversionSketches sketches = sketches(directory.resolve("sketches.bin"));
+
+        // Cuando
+        for (int hour = 0; hour < 4; hour++) {
+            sketches.onRecorded(List.of(history(100, "user", "10.0.0.1", BASE.plusHours(hour))));
+        }
+        sketches.onRecorded(List.of(history(100, "user", "10.0.0.1", BASE)));
+
+        // Entonces
+        List<AmountDistribution> hourly = sketches.query(RollupGranularity.HOUR, null, null, null, null, false)
+                .collectList().block();
+        assertEquals(List.of(BASE.plusHours(1), BASE.plusHours(2), BASE.plusHours(3)),
+                hourly.stream().map(distribution -> distribution.key().bucket()).toList());
+        assertEquals(5, sketches.query(RollupGranularity.DAY, null, null, null, null, false).single().block().count());
+    }
+
+    /**
+     * Prueba que los sketches guardados en la instantánea se recuperan tras reiniciar y se combinan con
+     * las conversiones registradas desde el arranque.
+     */
+    @Test
+    void save_SnapshotSurvivesRestart() throws Exception {
+        // Dado
+        Path snapshotFile = directory.resolve("snapshots/sketches.bin");
+        ConversionSketches before = sketches(snapshotFile);
+        before.onRecorded(List.of(
+                history(100, "ana", "10.0.0.1", BASE),
+                history(300, "luis", "10.0.0.2", BASE.plusMinutes(10))));
+        before.save().block();
+
+        // Cuando
+        ConversionSketches after = sketches(snapshotFile);
+        after.onRecorded(List.of(history(200, "ana", "10.0.0.3", BASE.plusMinutes(20))));
+        int loaded = after.load();
+
+        // Entonces
+        assertEquals(4, loaded);
+        AmountDistribution distribution = after.query(RollupGranularity.HOUR, "USD", "EUR", BASE, BASE, false)
+                .single().block();
+        assertEquals(3, distribution.count());
+        assertWithin(200, distribution.p50(), 0.01);
+        assertEquals(2, distribution.distinctUsers());
+        assertEquals(3, distribution.distinctIpAddresses());
+    }
+
+    private static ConversionSketches sketches(Path snapshotFile) {
+        return new ConversionSketches(60, 3, 30, snapshotFile, Duration.ofMinutes(1));
+    }
+
+    private static void assertWithin(double expected, BigDecimal actual, double relativeError) {
+        assertTrue(Math.abs(actual.doubleValue() - expected) <= expected * relativeError,
+                () -> "se esperaba " + expected + " ± " + (relativeError * 100) + " % y se obtuvo " + actual);
+    }
+
+    private static ConversionHistory history(double amount, String userId, String ipAddress, LocalDateTime conversionDate) {
+        return ConversionHistories.builder("USD", "EUR", conversionDate)
+                .originalAmount(BigDecimal.valueOf(amount))
+                .convertedAmount(BigDecimal.valueOf(amount * 0.93))
+                .userId(userId)
+                .ipAddress(ipAddress)
+                .build();
+    }
+}